@@ -0,0 +1,287 @@
+package fr.nantes1900;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import fr.nantes1900.constants.TextsKeys;
+import fr.nantes1900.control.BatchController;
+import fr.nantes1900.control.BatchController.IsletReport;
+import fr.nantes1900.control.SweepController;
+import fr.nantes1900.control.SweepController.SweepReport;
+import fr.nantes1900.models.coefficients.ProcessParameters;
+import fr.nantes1900.utils.AbstractWriter;
+import fr.nantes1900.utils.StepCache;
+
+/**
+ * Launches the process of a whole mock-up directory without the GUI.
+ * Usage : Nantes1900Batch directory [-output directory] [-parameters file]
+ * [-ground file] [-format citygml|stl] [-workers number] [-readers number]
+ * [-writers number] [-queue number] [-cache directory] [-sweep key=range]
+ * [-step number] [-decimationcells number]. The ground normal
+ * file is a STL file like gravity_normal.stl : if it is not given, the
+ * gravity normal is used as ground normal. The islets are read, processed and
+ * written at the same time by different threads : -workers gives the number
+ * of islets processed at the same time, -readers and -writers the number of
+ * threads reading and writing the files, and -queue the number of islets
+ * which can wait between two stages. -decimationcells cuts the grounds in a
+ * grid of number x number cells decimated at the same time, as the
+ * coefficient DecimationCells of the parameters file. The results of the
+ * processes are kept in the cache directory, if it is given : launching again
+ * the same islets with some different coefficients only launches the
+ * processes using these coefficients.
+ * <p>
+ * With -sweep, the islets are not written : each islet is processed with every
+ * combination of the values of the swept coefficients, -workers combinations
+ * at the same time, and the counts of each combination are written in the
+ * file sweep.csv of the output directory. The key is the key of the
+ * coefficient in the parameters files and the range is min:max:step or a list
+ * of values separated by commas. -sweep can be given several times. The
+ * combinations start from the first process using a swept coefficient, or from
+ * the process given by -step, and stop after the fourth process.
+ */
+public final class Nantes1900Batch {
+
+    /**
+     * Private constructor.
+     */
+    private Nantes1900Batch() {
+    }
+
+    /**
+     * Main function.
+     * @param args
+     *            the mock-up directory, followed by the options
+     */
+    public static void main(final String[] args) {
+        if (args.length == 0 || args.length % 2 == 0) {
+            Nantes1900Batch.printUsage();
+            return;
+        }
+
+        File directory = new File(args[0]);
+        File output = new File(directory, "results");
+        File parameters = null;
+        File ground = null;
+        File cache = null;
+        int writerType = AbstractWriter.CITYGML_WRITER;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int readers = 1;
+        int writers = 1;
+        int queueCapacity = -1;
+        int firstProcess = -1;
+        int decimationCells = -1;
+        Map<String, double[]> ranges = new LinkedHashMap<>();
+
+        try {
+            for (int i = 1; i < args.length; i += 2) {
+                switch (args[i]) {
+                case "-output":
+                    output = new File(args[i + 1]);
+                    break;
+                case "-parameters":
+                    parameters = new File(args[i + 1]);
+                    break;
+                case "-ground":
+                    ground = new File(args[i + 1]);
+                    break;
+                case "-cache":
+                    cache = new File(args[i + 1]);
+                    break;
+                case "-format":
+                    if ("stl".equals(args[i + 1])) {
+                        writerType = AbstractWriter.STL_WRITER;
+                    } else if (!"citygml".equals(args[i + 1])) {
+                        throw new IllegalArgumentException(args[i + 1]);
+                    }
+                    break;
+                case "-workers":
+                    workers = Nantes1900Batch.parseCount(args[i + 1]);
+                    break;
+                case "-readers":
+                    readers = Nantes1900Batch.parseCount(args[i + 1]);
+                    break;
+                case "-writers":
+                    writers = Nantes1900Batch.parseCount(args[i + 1]);
+                    break;
+                case "-queue":
+                    queueCapacity = Nantes1900Batch.parseCount(args[i + 1]);
+                    break;
+                case "-sweep":
+                    int separator = args[i + 1].indexOf('=');
+                    if (separator == -1) {
+                        throw new IllegalArgumentException(args[i + 1]);
+                    }
+                    ranges.put(args[i + 1].substring(0, separator),
+                            SweepController.parseRange(args[i + 1]
+                                    .substring(separator + 1)));
+                    break;
+                case "-step":
+                    firstProcess = Nantes1900Batch.parseCount(args[i + 1]);
+                    break;
+                case "-decimationcells":
+                    decimationCells = Nantes1900Batch.parseCount(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid argument : " + e.getMessage());
+            Nantes1900Batch.printUsage();
+            return;
+        }
+        if (queueCapacity == -1) {
+            queueCapacity = workers;
+        }
+
+        try {
+            BatchController controller = new BatchController(directory,
+                    output);
+            if (parameters != null) {
+                controller.setParameters(BatchController
+                        .loadParameters(parameters));
+            }
+            if (decimationCells != -1) {
+                Properties properties = controller.getParameters()
+                        .toProperties();
+                properties.setProperty(TextsKeys.KEY_DECIMATIONCELLS,
+                        String.valueOf(decimationCells));
+                controller.setParameters(new ProcessParameters(properties));
+            }
+            if (ground != null) {
+                controller.setGroundNormal(BatchController.readNormal(ground));
+            }
+            controller.setWriterType(writerType);
+            if (cache != null) {
+                controller.setCache(new StepCache(cache));
+            }
+
+            List<File> islets = controller.findIslets();
+            if (!ranges.isEmpty()) {
+                Nantes1900Batch.sweep(controller, islets, ranges,
+                        firstProcess, workers);
+                return;
+            }
+            System.out.println(islets.size() + " islets found, " + readers
+                    + " readers, " + workers + " workers, " + writers
+                    + " writers");
+
+            long begin = System.currentTimeMillis();
+            List<IsletReport> reports = controller.processIslets(islets,
+                    readers, workers, writers, queueCapacity);
+
+            int failures = 0;
+            for (IsletReport report : reports) {
+                System.out.println(report);
+                if (!report.isSuccess()) {
+                    failures++;
+                }
+            }
+            System.out.println((reports.size() - failures) + " islets OK, "
+                    + failures + " failed, in "
+                    + (System.currentTimeMillis() - begin) + " ms");
+        } catch (IOException e) {
+            System.err.println("Cannot read the normal : " + e.getMessage());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid parameter : " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Launches the sweep of the coefficients on each islet and writes the
+     * reports.
+     * @param controller
+     *            the controller reading the islets
+     * @param islets
+     *            the islet files
+     * @param ranges
+     *            the values of each swept coefficient
+     * @param firstProcess
+     *            the first process launched for each combination, or -1 to
+     *            use the first process using a swept coefficient
+     * @param workers
+     *            the number of combinations processed at the same time
+     */
+    private static void sweep(final BatchController controller,
+            final List<File> islets, final Map<String, double[]> ranges,
+            final int firstProcess, final int workers) {
+        SweepController sweep = new SweepController(controller);
+        try {
+            for (Map.Entry<String, double[]> range : ranges.entrySet()) {
+                sweep.addRange(range.getKey(), range.getValue());
+            }
+            sweep.setFirstProcess(firstProcess);
+            System.out.println(islets.size() + " islets found, "
+                    + sweep.returnCombinations().size()
+                    + " combinations from the process "
+                    + sweep.returnFirstProcess() + ", " + workers
+                    + " workers");
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid sweep : " + e.getMessage());
+            return;
+        }
+
+        long begin = System.currentTimeMillis();
+        List<SweepReport> reports = new ArrayList<>();
+        for (File islet : islets) {
+            try {
+                for (SweepReport report : sweep.sweep(islet, workers)) {
+                    System.out.println(report);
+                    reports.add(report);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.out.println(islet.getName() + " : FAILED : " + e);
+            }
+        }
+
+        File file = new File(controller.getOutputDirectory(), "sweep.csv");
+        try {
+            controller.getOutputDirectory().mkdirs();
+            sweep.writeReports(file, reports);
+            System.out.println(reports.size() + " combinations in "
+                    + (System.currentTimeMillis() - begin) + " ms -> "
+                    + file.getPath());
+        } catch (IOException e) {
+            System.err.println("Cannot write " + file + " : "
+                    + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a number of threads or a capacity.
+     * @param value
+     *            the argument
+     * @return the number, at least 1
+     * @throws IllegalArgumentException
+     *             if the argument is not a positive number
+     */
+    private static int parseCount(final String value) {
+        int count = Integer.parseInt(value);
+        if (count < 1) {
+            throw new IllegalArgumentException(value);
+        }
+        return count;
+    }
+
+    /**
+     * Prints how to use the program.
+     */
+    private static void printUsage() {
+        System.err.println("Usage : Nantes1900Batch directory"
+                + " [-output directory] [-parameters file] [-ground file]"
+                + " [-format citygml|stl] [-workers number]"
+                + " [-readers number] [-writers number] [-queue number]"
+                + " [-cache directory] [-sweep key=min:max:step|a,b,c]"
+                + " [-step number] [-decimationcells number]");
+    }
+}
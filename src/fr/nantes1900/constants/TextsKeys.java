@@ -47,6 +47,11 @@ public final class TextsKeys {
      * Key value corresponding to abort buttons text.
      */
     public static final String KEY_ABORTBUTTON = "AbortButton";
+    /**
+     * Key value corresponding to the cancel button text, shown instead of the
+     * abort one while a process runs.
+     */
+    public static final String KEY_CANCELBUTTON = "CancelButton";
     /**
      * Key value corresponding to BACK buttons text.
      */
@@ -193,6 +198,26 @@ public final class TextsKeys {
      * Key for the coefficient block grounds size error.
      */
     public static final String KEY_BLOCKGROUNDSSIZEERROR = "BlockGroundsSizeError";
+    /**
+     * Key for the coefficient size of the cells of the ground filter.
+     */
+    public static final String KEY_GROUNDCELLSIZE = "GroundCellSize";
+    /**
+     * Key for the coefficient largest window of the ground filter.
+     */
+    public static final String KEY_GROUNDMAXWINDOW = "GroundMaxWindow";
+    /**
+     * Key for the coefficient slope of the ground filter.
+     */
+    public static final String KEY_GROUNDSLOPE = "GroundSlope";
+    /**
+     * Key for the coefficient height of the ground filter.
+     */
+    public static final String KEY_GROUNDHEIGHT = "GroundHeight";
+    /**
+     * Key for the coefficient maximal height of the ground filter.
+     */
+    public static final String KEY_GROUNDMAXHEIGHT = "GroundMaxHeight";
     /**
      * Key for the coefficient block building size.
      */
@@ -237,6 +262,22 @@ public final class TextsKeys {
      * Key for the coefficient is oriented error.
      */
     public static final String KEY_DECIMATIONPERCENTAGE = "DecimationPercentage";
+    /**
+     * Key for the coefficient maximal error of the decimation.
+     */
+    public static final String KEY_DECIMATIONMAXERROR = "DecimationMaxError";
+    /**
+     * Key for the coefficient number of triangles of the decimation.
+     */
+    public static final String KEY_DECIMATIONTRIANGLES = "DecimationTriangles";
+    /**
+     * Key for the coefficient triangles per hectare of the decimation.
+     */
+    public static final String KEY_DECIMATIONDENSITY = "DecimationDensity";
+    /**
+     * Key for the coefficient number of cells of the decimation.
+     */
+    public static final String KEY_DECIMATIONCELLS = "DecimationCells";
     /**
      * Key for the tip parameters.
      */
@@ -249,6 +290,10 @@ public final class TextsKeys {
      * Key for tooltip of LAUNCH islet button.
      */
     public static final String KEY_LAUNCHISLET = "LaunchIslet";
+    /**
+     * Key for the message proposing to resume the process of an islet.
+     */
+    public static final String KEY_RESUMEISLET = "ResumeIslet";
     /**
      * Key for tooltip of update mockup button.
      */
@@ -316,6 +361,10 @@ public final class TextsKeys {
      * Key for weird results messages.
      */
     public static final String KEY_ERROR_WEIRDRESULT = "ErrorWeirdResults";
+    /**
+     * Key for the message displayed when a process has been canceled.
+     */
+    public static final String KEY_PROCESSCANCELED = "ProcessCanceled";
     /**
      * Key for step explanations.
      */
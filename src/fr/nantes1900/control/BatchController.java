@@ -0,0 +1,673 @@
+package fr.nantes1900.control;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.vecmath.Vector3d;
+
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.coefficients.ProcessParameters;
+import fr.nantes1900.models.extended.Building;
+import fr.nantes1900.models.islets.AbstractBuildingsIslet;
+import fr.nantes1900.models.islets.AbstractIslet;
+import fr.nantes1900.models.islets.ResidentialIslet;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep0;
+import fr.nantes1900.utils.AbstractWriter;
+import fr.nantes1900.utils.BackgroundWriter;
+import fr.nantes1900.utils.FileTools;
+import fr.nantes1900.utils.ParserSTL;
+import fr.nantes1900.utils.Pipeline;
+import fr.nantes1900.utils.StepCache;
+
+/**
+ * Processes every islet of a mock-up directory without any window : the steps
+ * 0 to 6 are launched one after the other and the results are written in an
+ * output directory. Several islets are treated at the same time.
+ */
+public class BatchController {
+
+    /**
+     * Name of the file containing the gravity normal in a mock-up directory.
+     */
+    public static final String GRAVITY_NORMAL_FILE = "gravity_normal.stl";
+
+    /**
+     * The mock-up directory.
+     */
+    private final File directory;
+    /**
+     * The directory where the results are written.
+     */
+    private final File outputDirectory;
+    /**
+     * The normal to the gravity, read in the mock-up directory.
+     */
+    private final Vector3d gravityNormal;
+    /**
+     * The normal to the ground. If null, the gravity normal is used.
+     */
+    private Vector3d groundNormal;
+    /**
+     * Type of writer to use to write the results.
+     */
+    private int writerType = AbstractWriter.CITYGML_WRITER;
+    /**
+     * The coefficients given to every islet, by default the current values of
+     * the static coefficients.
+     */
+    private ProcessParameters parameters = new ProcessParameters();
+    /**
+     * The cache shared by every islet, or null to launch every process.
+     */
+    private StepCache cache;
+
+    /**
+     * Constructor. Reads the gravity normal of the mock-up directory.
+     * @param directoryIn
+     *            the mock-up directory
+     * @param outputDirectoryIn
+     *            the directory where the results are written
+     * @throws IOException
+     *             if the gravity normal file cannot be read
+     */
+    public BatchController(final File directoryIn,
+            final File outputDirectoryIn) throws IOException {
+        this.directory = directoryIn.getAbsoluteFile();
+        this.outputDirectory = outputDirectoryIn.getAbsoluteFile();
+        this.gravityNormal = BatchController.readNormal(new File(
+                this.directory, GRAVITY_NORMAL_FILE));
+    }
+
+    /**
+     * Reads a STL file and returns the average normal of its triangles.
+     * @param file
+     *            the file to read
+     * @return the average normal
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    public static Vector3d readNormal(final File file) throws IOException {
+        ParserSTL parser = new ParserSTL(file.getPath());
+        Mesh mesh = parser.read();
+        return mesh.averageNormal();
+    }
+
+    /**
+     * Reads the parameters saved by the parameters panel. The parameters which
+     * are not in the file take the current values of the static coefficients.
+     * @param file
+     *            the parameters file
+     * @return the parameters
+     * @throws NumberFormatException
+     *             if a parameter is not a number
+     */
+    public static ProcessParameters loadParameters(final File file) {
+        return new ProcessParameters(FileTools.readProperties(file));
+    }
+
+    /**
+     * Searches for the islet files in the mock-up directory and its
+     * sub-directories, as the tree of the islet selection window does. The
+     * gravity normal file and the output directory are ignored.
+     * @return the list of the islet files, sorted by path
+     */
+    public final List<File> findIslets() {
+        List<File> islets = new ArrayList<>();
+        this.findIslets(this.directory, islets);
+        return islets;
+    }
+
+    /**
+     * Adds the islet files of a directory and of its sub-directories to a
+     * list.
+     * @param currentDirectory
+     *            the directory to search in
+     * @param islets
+     *            the list to fill
+     */
+    private void findIslets(final File currentDirectory,
+            final List<File> islets) {
+        File[] files = currentDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+
+        for (File file : files) {
+            if (file.isDirectory()) {
+                if (!file.equals(this.outputDirectory)) {
+                    this.findIslets(file, islets);
+                }
+            } else if (file.getName().endsWith("stl")
+                    && !file.getName().equals(GRAVITY_NORMAL_FILE)) {
+                islets.add(file);
+            }
+        }
+    }
+
+    /**
+     * Processes the islets, several at the same time, and returns their
+     * reports in the order of the list. The islets are read by one thread and
+     * written by one thread while the other ones are processed. An islet
+     * which fails does not stop the others.
+     * @param islets
+     *            the islet files
+     * @param workers
+     *            the number of islets processed at the same time
+     * @return the reports of the islets
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting
+     */
+    public final List<IsletReport> processIslets(final List<File> islets,
+            final int workers) throws InterruptedException {
+        return this.processIslets(islets, 1, workers, 1, workers);
+    }
+
+    /**
+     * Processes the islets in a pipeline of three stages, and returns their
+     * reports in the order of the list : the islets are read, then processed
+     * (steps 0 to 6), then written. Each stage has its own threads, and the
+     * stages work at the same time on different islets. Each stage has a
+     * queue of islets waiting for it : when the queue is full, the previous
+     * stage waits, which limits the number of islets in memory. An islet
+     * which fails does not stop the others.
+     * @param islets
+     *            the islet files
+     * @param readers
+     *            the number of threads reading the islet files
+     * @param workers
+     *            the number of islets processed at the same time
+     * @param writers
+     *            the number of threads writing the results
+     * @param queueCapacity
+     *            the number of islets which can wait before each stage
+     * @return the reports of the islets
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting
+     */
+    public final List<IsletReport> processIslets(final List<File> islets,
+            final int readers, final int workers, final int writers,
+            final int queueCapacity) throws InterruptedException {
+        List<IsletJob> jobs = new ArrayList<>();
+        for (File isletFile : islets) {
+            jobs.add(new IsletJob(new IsletReport(isletFile, this
+                    .returnOutputFile(isletFile))));
+        }
+
+        Pipeline<IsletJob> pipeline = new Pipeline<>();
+        pipeline.addStage("IsletReader", readers, queueCapacity,
+                new Pipeline.Stage<IsletJob>() {
+
+                    @Override
+                    public boolean treat(final IsletJob job) {
+                        return BatchController.this.readIslet(job);
+                    }
+                });
+        pipeline.addStage("IsletProcess", workers, queueCapacity,
+                new Pipeline.Stage<IsletJob>() {
+
+                    @Override
+                    public boolean treat(final IsletJob job) {
+                        return BatchController.computeIslet(job);
+                    }
+                });
+        pipeline.addStage("IsletWriter", writers, queueCapacity,
+                new Pipeline.Stage<IsletJob>() {
+
+                    @Override
+                    public boolean treat(final IsletJob job) {
+                        return BatchController.this.writeIslet(job);
+                    }
+                });
+        pipeline.process(jobs);
+
+        // The last snapshots of the steps are written in background.
+        BackgroundWriter.waitForPendingWrites();
+
+        List<IsletReport> reports = new ArrayList<>();
+        for (IsletJob job : jobs) {
+            if (!job.report.success && job.report.error == null) {
+                // Dropped by the pipeline without being caught.
+                job.report.error = "Unexpected error";
+            }
+            reports.add(job.report);
+        }
+        return reports;
+    }
+
+    /**
+     * Processes one islet : reads it, launches the steps 0 to 6 and writes
+     * the results, in the current thread.
+     * @param isletFile
+     *            the islet file
+     * @return the report of the islet, containing the error if the process
+     *         failed
+     */
+    public final IsletReport processIslet(final File isletFile) {
+        IsletJob job = new IsletJob(new IsletReport(isletFile,
+                this.returnOutputFile(isletFile)));
+        if (this.readIslet(job) && BatchController.computeIslet(job)) {
+            this.writeIslet(job);
+        }
+        return job.report;
+    }
+
+    /**
+     * Reads the islet file of a job and prepares the islet.
+     * @param job
+     *            the job
+     * @return true if the islet has been read, false if it failed
+     */
+    private boolean readIslet(final IsletJob job) {
+        long begin = System.currentTimeMillis();
+
+        try {
+            AbstractBuildingsIslet islet = this
+                    .createIslet(job.report.isletFile);
+            job.report.triangles = islet.getBiStep0()
+                    .getInitialTotalSurface().getMesh().size();
+            job.islet = islet;
+        } catch (Exception e) {
+            job.report.error = e.toString();
+        }
+
+        job.report.readTime = System.currentTimeMillis() - begin;
+        job.report.totalTime += job.report.readTime;
+        return job.report.error == null;
+    }
+
+    /**
+     * Reads an islet file and prepares the islet with the coefficients, the
+     * cache and the normals of this controller.
+     * @param isletFile
+     *            the islet file
+     * @return the islet, at the step 0
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    final AbstractBuildingsIslet createIslet(final File isletFile)
+            throws IOException {
+        AbstractBuildingsIslet islet = new ResidentialIslet();
+        islet.setParameters(this.parameters);
+        islet.setCache(this.cache);
+        islet.setBiStep0(new BuildingsIsletStep0(AbstractIslet
+                .parseFile(isletFile.getPath())));
+
+        // The normals are modified by the process : each islet has its own
+        // copies.
+        islet.setGravityNormal(new Vector3d(this.gravityNormal));
+        if (this.groundNormal == null) {
+            islet.setGroundNormal(new Vector3d(this.gravityNormal));
+        } else {
+            islet.setGroundNormal(new Vector3d(this.groundNormal));
+        }
+        islet.setWriterType(this.writerType);
+        return islet;
+    }
+
+    /**
+     * Launches the steps 0 to 6 on the islet of a job.
+     * @param job
+     *            the job, whose islet has been read
+     * @return true if the process succeeded, false if it failed
+     */
+    private static boolean computeIslet(final IsletJob job) {
+        try {
+            for (int step = AbstractBuildingsIslet.ZERO_STEP;
+                    step <= AbstractBuildingsIslet.SIXTH_STEP; step++) {
+                long stepBegin = System.currentTimeMillis();
+                try {
+                    BatchController.launchProcess(job.islet, step);
+                    job.islet.incProgression();
+                } finally {
+                    job.report.stepTimes[step] = System.currentTimeMillis()
+                            - stepBegin;
+                    job.report.totalTime += job.report.stepTimes[step];
+                }
+            }
+        } catch (Exception e) {
+            // Also catches the runtime exceptions : a broken islet must not
+            // stop the others.
+            job.report.error = e.toString();
+            job.islet = null;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Counts the results of the islet of a job and writes them.
+     * @param job
+     *            the job, whose islet has been processed
+     * @return true if the results have been written, false if it failed
+     */
+    private boolean writeIslet(final IsletJob job) {
+        long begin = System.currentTimeMillis();
+
+        try {
+            AbstractBuildingsIslet islet = job.islet;
+            job.report.buildings = islet.getBuildings().size();
+            for (Building b : islet.getBuildings()) {
+                job.report.walls += b.getWalls(
+                        AbstractBuildingsIslet.SEVENTH_STEP).size();
+                job.report.roofs += b.getRoofs(
+                        AbstractBuildingsIslet.SEVENTH_STEP).size();
+            }
+            job.report.grounds = islet.getGround().getMesh().size();
+
+            job.report.outputFile.getParentFile().mkdirs();
+            islet.saveFinalResults(job.report.outputFile.getPath(),
+                    this.writerType);
+            job.report.success = true;
+        } catch (Exception e) {
+            job.report.error = e.toString();
+        }
+
+        // The islet is not needed anymore : it can be collected before the
+        // end of the other islets.
+        job.islet = null;
+        job.report.writeTime = System.currentTimeMillis() - begin;
+        job.report.totalTime += job.report.writeTime;
+        return job.report.success;
+    }
+
+    /**
+     * Launches one process of an islet.
+     * @param islet
+     *            the islet
+     * @param step
+     *            the number of the current step of the islet
+     * @throws Exception
+     *             if the process failed
+     */
+    static void launchProcess(final AbstractBuildingsIslet islet,
+            final int step) throws Exception {
+        switch (step) {
+        case AbstractBuildingsIslet.ZERO_STEP:
+            islet.launchProcess0();
+            break;
+        case AbstractBuildingsIslet.FIRST_STEP:
+            islet.launchProcess1();
+            break;
+        case AbstractBuildingsIslet.SECOND_STEP:
+            islet.launchProcess2();
+            break;
+        case AbstractBuildingsIslet.THIRD_STEP:
+            islet.launchProcess3();
+            break;
+        case AbstractBuildingsIslet.FOURTH_STEP:
+            islet.launchProcess4();
+            break;
+        case AbstractBuildingsIslet.FIFTH_STEP:
+            islet.launchProcess5();
+            break;
+        case AbstractBuildingsIslet.SIXTH_STEP:
+            islet.launchProcess6();
+            break;
+        default:
+        }
+    }
+
+    /**
+     * Returns the file where the results of an islet are written. The
+     * sub-directories of the mock-up directory are kept in the output
+     * directory.
+     * @param isletFile
+     *            the islet file
+     * @return the output file
+     */
+    private File returnOutputFile(final File isletFile) {
+        String relativePath = this.directory.toURI()
+                .relativize(isletFile.toURI()).getPath();
+        String extension;
+        if (this.writerType == AbstractWriter.STL_WRITER) {
+            extension = "stl";
+        } else {
+            extension = "citygml";
+        }
+        return new File(this.outputDirectory, relativePath.substring(0,
+                relativePath.length() - ".stl".length())
+                + "_result." + extension);
+    }
+
+    /**
+     * Getter.
+     * @return the cache of the results of the processes, null if there is
+     *         none
+     */
+    public final StepCache getCache() {
+        return this.cache;
+    }
+
+    /**
+     * Getter.
+     * @return the mock-up directory
+     */
+    public final File getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Getter.
+     * @return the directory where the results are written
+     */
+    public final File getOutputDirectory() {
+        return this.outputDirectory;
+    }
+
+    /**
+     * Getter.
+     * @return the coefficients given to every islet
+     */
+    public final ProcessParameters getParameters() {
+        return this.parameters;
+    }
+
+    /**
+     * Setter.
+     * @param cacheIn
+     *            the cache of the results of the processes, shared by every
+     *            islet, or null to launch every process
+     */
+    public final void setCache(final StepCache cacheIn) {
+        this.cache = cacheIn;
+    }
+
+    /**
+     * Setter.
+     * @param groundNormalIn
+     *            the normal to the ground of every islet, or null to use the
+     *            gravity normal
+     */
+    public final void setGroundNormal(final Vector3d groundNormalIn) {
+        this.groundNormal = groundNormalIn;
+    }
+
+    /**
+     * Setter.
+     * @param parametersIn
+     *            the coefficients to give to every islet
+     */
+    public final void setParameters(final ProcessParameters parametersIn) {
+        this.parameters = parametersIn;
+    }
+
+    /**
+     * Setter.
+     * @param writerTypeIn
+     *            the type of writer : AbstractWriter.CITYGML_WRITER or
+     *            AbstractWriter.STL_WRITER
+     */
+    public final void setWriterType(final int writerTypeIn) {
+        this.writerType = writerTypeIn;
+    }
+
+    /**
+     * Report of the process of one islet : times and counts.
+     */
+    public static class IsletReport {
+
+        /**
+         * The islet file.
+         */
+        private final File isletFile;
+        /**
+         * The file where the results are written.
+         */
+        private final File outputFile;
+        /**
+         * True if the process and the writing succeeded.
+         */
+        private boolean success = false;
+        /**
+         * The error which stopped the process, null if it succeeded.
+         */
+        private String error;
+        /**
+         * The time spent reading the file, in milliseconds.
+         */
+        private long readTime;
+        /**
+         * The time spent in each process, in milliseconds.
+         */
+        private final long[] stepTimes =
+                new long[AbstractBuildingsIslet.SEVENTH_STEP];
+        /**
+         * The time spent writing the results, in milliseconds.
+         */
+        private long writeTime;
+        /**
+         * The total time, in milliseconds, without the time spent waiting
+         * between the stages.
+         */
+        private long totalTime;
+        /**
+         * The number of triangles of the islet file.
+         */
+        private int triangles;
+        /**
+         * The number of buildings found.
+         */
+        private int buildings;
+        /**
+         * The number of walls found.
+         */
+        private int walls;
+        /**
+         * The number of roofs found.
+         */
+        private int roofs;
+        /**
+         * The number of triangles of the ground after the decimation.
+         */
+        private int grounds;
+
+        /**
+         * Constructor.
+         * @param isletFileIn
+         *            the islet file
+         * @param outputFileIn
+         *            the file where the results are written
+         */
+        public IsletReport(final File isletFileIn, final File outputFileIn) {
+            this.isletFile = isletFileIn;
+            this.outputFile = outputFileIn;
+        }
+
+        /**
+         * Getter.
+         * @return the islet file
+         */
+        public final File getIsletFile() {
+            return this.isletFile;
+        }
+
+        /**
+         * Getter.
+         * @return the file where the results are written
+         */
+        public final File getOutputFile() {
+            return this.outputFile;
+        }
+
+        /**
+         * Getter.
+         * @return true if the process and the writing succeeded
+         */
+        public final boolean isSuccess() {
+            return this.success;
+        }
+
+        /**
+         * Getter.
+         * @return the error which stopped the process, null if it succeeded
+         */
+        public final String getError() {
+            return this.error;
+        }
+
+        /**
+         * Getter.
+         * @return the total time, in milliseconds
+         */
+        public final long getTotalTime() {
+            return this.totalTime;
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public final String toString() {
+            StringBuilder builder = new StringBuilder(this.isletFile.getName());
+            if (this.success) {
+                builder.append(" : OK in ").append(this.totalTime)
+                        .append(" ms (read ").append(this.readTime)
+                        .append(", steps");
+                for (long time : this.stepTimes) {
+                    builder.append(' ').append(time);
+                }
+                builder.append(", write ").append(this.writeTime)
+                        .append(") ").append(this.triangles)
+                        .append(" triangles, ").append(this.buildings)
+                        .append(" buildings, ").append(this.walls)
+                        .append(" walls, ").append(this.roofs)
+                        .append(" roofs, ").append(this.grounds)
+                        .append(" ground triangles -> ")
+                        .append(this.outputFile.getPath());
+            } else {
+                builder.append(" : FAILED after ").append(this.totalTime)
+                        .append(" ms : ").append(this.error);
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * An islet going through the stages of the pipeline, with its report.
+     */
+    private static final class IsletJob {
+
+        /**
+         * The report of the islet.
+         */
+        private final IsletReport report;
+        /**
+         * The islet, null before the reading and after the writing.
+         */
+        private AbstractBuildingsIslet islet;
+
+        /**
+         * Constructor.
+         * @param reportIn
+         *            the report of the islet
+         */
+        public IsletJob(final IsletReport reportIn) {
+            this.report = reportIn;
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package fr.nantes1900.control;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.swing.filechooser.FileSystemView;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.vecmath.Vector3d;
 
@@ -13,9 +15,13 @@ import fr.nantes1900.constants.TextsKeys;
 import fr.nantes1900.constants.WeirdResultMessages;
 import fr.nantes1900.control.display3d.Universe3DController;
 import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Polygon;
 import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.decimation.DecimationTarget;
+import fr.nantes1900.models.decimation.Decimator;
 import fr.nantes1900.models.exceptions.InvalidCaseException;
 import fr.nantes1900.models.exceptions.NullArgumentException;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
 import fr.nantes1900.models.exceptions.WeirdPreviousResultsException;
 import fr.nantes1900.models.exceptions.WeirdResultException;
 import fr.nantes1900.models.extended.Building;
@@ -30,8 +36,12 @@ import fr.nantes1900.models.islets.AbstractBuildingsIslet;
 import fr.nantes1900.models.islets.AbstractIslet;
 import fr.nantes1900.models.islets.ResidentialIslet;
 import fr.nantes1900.models.islets.steps.BuildingsIsletStep0;
+import fr.nantes1900.utils.EditHistory;
 import fr.nantes1900.utils.FileTools;
 import fr.nantes1900.utils.ParserSTL;
+import fr.nantes1900.utils.ProcessProgress;
+import fr.nantes1900.utils.StepCache;
+import fr.nantes1900.utils.StepCheckpoints;
 
 /**
  * Implements the controller of a building islet. Used to visualize the islets,
@@ -40,6 +50,24 @@ import fr.nantes1900.utils.ParserSTL;
  */
 public class BuildingsIsletController {
 
+    /**
+     * Name of the directory containing the results of the processes kept to
+     * be used again, in the default directory of the user.
+     */
+    public static final String CACHE_DIRECTORY = ".nantes1900cache";
+
+    /**
+     * Name of the directory containing the checkpoints of the islets, in the
+     * default directory of the user.
+     */
+    public static final String CHECKPOINTS_DIRECTORY =
+            ".nantes1900checkpoints";
+
+    /**
+     * Maximal number of triangles displayed by the preview of an islet file.
+     */
+    public static final int PREVIEW_TRIANGLES = 100000;
+
     /**
      * The buildings islet containing the model.
      */
@@ -48,6 +76,20 @@ public class BuildingsIsletController {
      * The universe 3D controller to interact with the universe 3D.
      */
     private Universe3DController u3DController;
+    /**
+     * The checkpoints of the islet file read, null before the reading.
+     */
+    private StepCheckpoints checkpoints;
+    /**
+     * True if the user has modified the current step since its checkpoint has
+     * been written.
+     */
+    private boolean stepModified = false;
+    /**
+     * The modifications made by the user in the current step, to undo and
+     * redo them.
+     */
+    private final EditHistory history = new EditHistory();
 
     /**
      * Constructor.
@@ -58,6 +100,9 @@ public class BuildingsIsletController {
             final Universe3DController universe3DControllerIn) {
         this.u3DController = universe3DControllerIn;
         this.islet = new ResidentialIslet();
+        this.islet.setCache(new StepCache(new File(FileSystemView
+                .getFileSystemView().getDefaultDirectory(), CACHE_DIRECTORY)));
+        this.islet.setDebugFiles(true);
     }
 
     /**
@@ -65,6 +110,7 @@ public class BuildingsIsletController {
      */
     public final void abortProcess() {
         this.islet.resetProgression();
+        this.history.clear();
     }
 
     /**
@@ -80,26 +126,29 @@ public class BuildingsIsletController {
      */
     public final void action2(final List<Triangle> trianglesSelected,
             final int type) throws InvalidCaseException {
-        if (type == ActionTypes.TURN_TO_BUILDING) {
-            // The user wants these triangles to turn building.
-            this.islet.getBiStep2().getInitialGrounds().getMesh()
-                    .removeAll(trianglesSelected);
-            this.islet.getBiStep2().getInitialBuildings().getMesh()
-                    .addAll(trianglesSelected);
-        } else if (type == ActionTypes.TURN_TO_GROUND) {
-            // The user wants these triangles to turn ground.
-            this.islet.getBiStep2().getInitialBuildings().getMesh()
-                    .removeAll(trianglesSelected);
-            this.islet.getBiStep2().getInitialGrounds().getMesh()
-                    .addAll(trianglesSelected);
-        } else if (type == ActionTypes.REMOVE) {
-            // The user wants these triangles to be removed.
-            this.islet.getBiStep2().getInitialBuildings().getMesh()
-                    .removeAll(trianglesSelected);
-            this.islet.getBiStep2().getInitialGrounds().getMesh()
-                    .removeAll(trianglesSelected);
-        } else {
-            throw new InvalidCaseException();
+        this.stepModified = true;
+        Mesh grounds = this.islet.getBiStep2().getInitialGrounds().getMesh();
+        Mesh buildings = this.islet.getBiStep2().getInitialBuildings()
+                .getMesh();
+        this.history.begin();
+        try {
+            if (type == ActionTypes.TURN_TO_BUILDING) {
+                // The user wants these triangles to turn building.
+                this.history.removeAll(grounds, trianglesSelected);
+                this.history.addAll(buildings, trianglesSelected);
+            } else if (type == ActionTypes.TURN_TO_GROUND) {
+                // The user wants these triangles to turn ground.
+                this.history.removeAll(buildings, trianglesSelected);
+                this.history.addAll(grounds, trianglesSelected);
+            } else if (type == ActionTypes.REMOVE) {
+                // The user wants these triangles to be removed.
+                this.history.removeAll(buildings, trianglesSelected);
+                this.history.removeAll(grounds, trianglesSelected);
+            } else {
+                throw new InvalidCaseException();
+            }
+        } finally {
+            this.history.end();
         }
     }
 
@@ -115,13 +164,21 @@ public class BuildingsIsletController {
      */
     public final void action3(final Surface surface, final int actionType)
             throws InvalidCaseException {
+        this.stepModified = true;
         if (surface != this.islet.getBiStep3().getGrounds()) {
             if (actionType == ActionTypes.TURN_TO_NOISE) {
                 // The user wants the surface to turn to noise.
-                this.islet.getBiStep3().getBuildings()
-                        .remove(this.returnBuildingContaining3(surface));
-                this.islet.getBiStep3().getNoise().getMesh()
-                        .addAll(surface.getMesh());
+                List<Building> buildings = this.islet.getBiStep3()
+                        .getBuildings();
+                this.history.begin();
+                try {
+                    this.history.saveList(buildings);
+                    buildings.remove(this.returnBuildingContaining3(surface));
+                    this.history.addAll(this.islet.getBiStep3().getNoise()
+                            .getMesh(), surface.getMesh());
+                } finally {
+                    this.history.end();
+                }
             } else {
                 throw new InvalidCaseException();
             }
@@ -140,27 +197,35 @@ public class BuildingsIsletController {
      */
     public final void action4(final List<Triangle> trianglesSelected,
             final int actionType) throws InvalidCaseException {
+        this.stepModified = true;
         Building building = this
                 .searchForBuildingContaining4(trianglesSelected);
         BuildingStep4 buildingStep = building.getbStep4();
+        Mesh walls = buildingStep.getInitialWallSurface().getMesh();
+        Mesh roofs = buildingStep.getInitialRoofSurface().getMesh();
 
-        if (actionType == ActionTypes.TURN_TO_WALL) {
-            // The user wants the triangles to turn to wall.
-            System.out.println(buildingStep.getInitialWallSurface().getMesh()
-                    .addAll(trianglesSelected));
-            System.out.println(buildingStep.getInitialRoofSurface().getMesh()
-                    .removeAll(trianglesSelected));
+        this.history.begin();
+        try {
+            if (actionType == ActionTypes.TURN_TO_WALL) {
+                // The user wants the triangles to turn to wall.
+                this.history.addAll(walls, trianglesSelected);
+                this.history.removeAll(roofs, trianglesSelected);
 
-        } else if (actionType == ActionTypes.TURN_TO_ROOF) {
-            // The user wants the triangles to turn to roof.
-            buildingStep.getInitialRoofSurface().getMesh()
-                    .addAll(trianglesSelected);
-            buildingStep.getInitialWallSurface().getMesh()
-                    .removeAll(trianglesSelected);
+            } else if (actionType == ActionTypes.TURN_TO_ROOF) {
+                // The user wants the triangles to turn to roof.
+                this.history.addAll(roofs, trianglesSelected);
+                this.history.removeAll(walls, trianglesSelected);
 
-        } else {
-            throw new InvalidCaseException();
+            } else {
+                throw new InvalidCaseException();
+            }
+        } finally {
+            this.history.end();
         }
+
+        // Only this building will be treated again by the next process.
+        buildingStep.getInitialWallSurface().setModified(true);
+        buildingStep.getInitialRoofSurface().setModified(true);
     }
 
     /**
@@ -175,6 +240,7 @@ public class BuildingsIsletController {
      */
     public final void action5(final List<Surface> surfacesSelected,
             final int actionType) throws InvalidCaseException {
+        this.stepModified = true;
         Building building = this.searchForBuildingContaining5(surfacesSelected);
 
         // If it is null, this means that the triangles selected are not
@@ -183,35 +249,49 @@ public class BuildingsIsletController {
 
             BuildingStep5 buildingStep = building.getbStep5();
 
-            if (actionType == ActionTypes.MERGE) {
-                if (buildingStep.getWalls().contains(surfacesSelected.get(0))) {
-                    // It means the meshes selected belong to the walls.
-                    buildingStep.getWalls().removeAll(surfacesSelected);
-                    Wall sum = new Wall();
-                    for (Surface s : surfacesSelected) {
-                        sum.getMesh().addAll(s.getMesh());
+            this.history.begin();
+            try {
+                this.history.saveList(buildingStep.getWalls());
+                this.history.saveList(buildingStep.getRoofs());
+
+                if (actionType == ActionTypes.MERGE) {
+                    if (buildingStep.getWalls().contains(
+                            surfacesSelected.get(0))) {
+                        // It means the meshes selected belong to the walls.
+                        buildingStep.getWalls().removeAll(surfacesSelected);
+                        Wall sum = new Wall();
+                        for (Surface s : surfacesSelected) {
+                            sum.getMesh().addAll(s.getMesh());
+                        }
+                        buildingStep.getWalls().add(sum);
+
+                    } else {
+                        // It means the meshes selected belong to the roofs.
+                        buildingStep.getRoofs().removeAll(surfacesSelected);
+                        Roof sum = new Roof();
+                        for (Surface s : surfacesSelected) {
+                            sum.getMesh().addAll(s.getMesh());
+                        }
+                        buildingStep.getRoofs().add(sum);
                     }
-                    buildingStep.getWalls().add(sum);
 
-                } else {
-                    // It means the meshes selected belong to the roofs.
+                } else if (actionType == ActionTypes.TURN_TO_NOISE) {
+                    buildingStep.getWalls().removeAll(surfacesSelected);
                     buildingStep.getRoofs().removeAll(surfacesSelected);
-                    Roof sum = new Roof();
                     for (Surface s : surfacesSelected) {
-                        sum.getMesh().addAll(s.getMesh());
+                        this.history.addAll(buildingStep.getNoise().getMesh(),
+                                s.getMesh());
                     }
-                    buildingStep.getRoofs().add(sum);
-                }
-
-            } else if (actionType == ActionTypes.TURN_TO_NOISE) {
-                buildingStep.getWalls().removeAll(surfacesSelected);
-                buildingStep.getRoofs().removeAll(surfacesSelected);
-                for (Surface s : surfacesSelected) {
-                    buildingStep.getNoise().getMesh().addAll(s.getMesh());
+                } else {
+                    throw new InvalidCaseException();
                 }
-            } else {
-                throw new InvalidCaseException();
+            } finally {
+                this.history.end();
             }
+
+            // Only this building will be treated again by the next process,
+            // except if the noise has been modified.
+            building.markModified(AbstractBuildingsIslet.FIFTH_STEP);
         }
     }
 
@@ -226,6 +306,7 @@ public class BuildingsIsletController {
      */
     public final void action6(final Surface surface, final int actionType)
             throws InvalidCaseException {
+        this.stepModified = true;
         Building building = this.searchForBuildingContaining6(surface);
 
         // If it is null, this means that the triangles selected are not
@@ -234,12 +315,22 @@ public class BuildingsIsletController {
             BuildingStep6 buildingStep = building.getbStep6();
 
             if (actionType == ActionTypes.TURN_TO_NOISE) {
-                buildingStep.getWalls().remove(surface);
-                buildingStep.getRoofs().remove(surface);
-                buildingStep.getNoise().getMesh().addAll(surface.getMesh());
+                this.history.begin();
+                try {
+                    this.history.saveList(buildingStep.getWalls());
+                    this.history.saveList(buildingStep.getRoofs());
+                    buildingStep.getWalls().remove(surface);
+                    buildingStep.getRoofs().remove(surface);
+                    this.history.addAll(buildingStep.getNoise().getMesh(),
+                            surface.getMesh());
+                } finally {
+                    this.history.end();
+                }
             } else {
                 throw new InvalidCaseException();
             }
+
+            building.markModified(AbstractBuildingsIslet.SIXTH_STEP);
         }
     }
 
@@ -253,19 +344,76 @@ public class BuildingsIsletController {
      */
     public final void action6(final Surface surfaceLocked,
             final List<Surface> newNeighbours) {
-        List<Surface> oldNeigbhours = surfaceLocked.getNeighbours();
-        for (Surface s : oldNeigbhours) {
-            s.getNeighbours().remove(surfaceLocked);
+        this.stepModified = true;
+        final List<Surface> oldNeigbhours = surfaceLocked.getNeighbours();
+        final Polygon oldPolygon = surfaceLocked.getPolygon();
+
+        this.history.begin();
+        try {
+            for (Surface s : oldNeigbhours) {
+                this.history.saveList(s.getNeighbours());
+                s.getNeighbours().remove(surfaceLocked);
+                s.setModified(true);
+            }
+
+            surfaceLocked.setNeighbours(newNeighbours);
+            surfaceLocked.setModified(true);
+
+            for (Surface s : newNeighbours) {
+                this.history.saveList(s.getNeighbours());
+                s.getNeighbours().add(surfaceLocked);
+                s.setModified(true);
+            }
+
+            Building building = this
+                    .searchForBuildingContaining6(surfaceLocked);
+            building.getbStep5().determinateOneContour(surfaceLocked);
+        } finally {
+            // The list of neighbours and the polygon are replaced, not
+            // modified.
+            final Polygon newPolygon = surfaceLocked.getPolygon();
+            this.history.record(new EditHistory.Change() {
+                @Override
+                public void undo() {
+                    surfaceLocked.setNeighbours(oldNeigbhours);
+                    surfaceLocked.setPolygon(oldPolygon);
+                }
+
+                @Override
+                public void redo() {
+                    surfaceLocked.setNeighbours(newNeighbours);
+                    surfaceLocked.setPolygon(newPolygon);
+                }
+            });
+            this.history.end();
         }
+    }
 
-        surfaceLocked.setNeighbours(newNeighbours);
+    /**
+     * Displays the islet file read, before any process. Above
+     * PREVIEW_TRIANGLES triangles, the mesh is replaced by a copy decimated
+     * by clustering : the islet itself is not modified.
+     */
+    public final void displayPreview() {
+        this.u3DController.clearAll();
 
-        for (Surface s : newNeighbours) {
-            s.getNeighbours().add(surfaceLocked);
+        Mesh mesh = this.islet.getBiStep0().getInitialTotalSurface()
+                .getMesh();
+        if (mesh.size() > PREVIEW_TRIANGLES) {
+            try {
+                mesh = new Decimator(mesh, new DecimationTarget(0,
+                        PREVIEW_TRIANGLES, 0, DecimationTarget.NO_MAX_ERROR),
+                        Decimator.CLUSTERING, new ProcessProgress())
+                        .launchDecimation();
+            } catch (ProcessCanceledException e) {
+                // Cannot happen : the progress is never canceled.
+            }
         }
 
-        Building building = this.searchForBuildingContaining6(surfaceLocked);
-        building.getbStep5().determinateOneContour(surfaceLocked);
+        List<Surface> surfacesList = new ArrayList<>();
+        surfacesList.add(new Surface(mesh));
+
+        this.getU3DController().getUniverse3DView().addSurfaces(surfacesList);
     }
 
     /**
@@ -492,10 +640,76 @@ public class BuildingsIsletController {
     }
 
     /**
-     * Returns to the previous step.
+     * Returns to the previous step. If the step is not in memory, because the
+     * islet has been resumed from a checkpoint, it is read from its
+     * checkpoint.
      */
     public final void getPreviousStep() {
+        this.history.clear();
         this.islet.decProgression();
+        int step = this.islet.getProgression();
+        if (this.islet.returnStep(step) == null
+                && (this.checkpoints == null || !this.checkpoints.restore(
+                        this.islet, step))) {
+            System.err.println("The step " + step + " cannot be restored");
+            this.islet.incProgression();
+        }
+    }
+
+    /**
+     * Undoes the last modification made by the user in the current step.
+     * @return true if a modification has been undone, false if there was
+     *         none
+     */
+    public final boolean undo() {
+        if (this.history.undo()) {
+            this.stepModified = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Redoes the last modification undone in the current step.
+     * @return true if a modification has been redone, false if there was
+     *         none
+     */
+    public final boolean redo() {
+        if (this.history.redo()) {
+            this.stepModified = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the islet file read has some checkpoints of a previous
+     * process.
+     * @return true if there are some checkpoints
+     */
+    public final boolean hasCheckpoints() {
+        return this.checkpoints != null && this.checkpoints.exists();
+    }
+
+    /**
+     * Resumes the process of the islet file read from its last valid
+     * checkpoint, with the normals it has been computed with.
+     * @return true if the islet has been resumed, false if there was no
+     *         valid checkpoint : the islet is then unchanged
+     */
+    public final boolean resumeFromCheckpoint() {
+        this.history.clear();
+        return this.checkpoints != null
+                && this.checkpoints.restoreLast(this.islet) != -1;
+    }
+
+    /**
+     * Deletes the checkpoints of the islet file read.
+     */
+    public final void clearCheckpoints() {
+        if (this.checkpoints != null) {
+            this.checkpoints.clear();
+        }
     }
 
     /**
@@ -514,7 +728,8 @@ public class BuildingsIsletController {
     }
 
     /**
-     * Launch the process, considering the progression.
+     * Launch the process, considering the progression, and displays the
+     * results.
      * @throws WeirdResultException
      *             if the result is not coherent
      * @throws WeirdPreviousResultsException
@@ -524,7 +739,40 @@ public class BuildingsIsletController {
     public final void launchProcess() throws WeirdResultException,
             WeirdPreviousResultsException {
         try {
-            switch (this.islet.getProgression()) {
+            this.computeProcess(new ProcessProgress());
+            this.endProcess();
+        } catch (ProcessCanceledException e) {
+            // It should never happen : nobody can cancel this progress.
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Computes the process, considering the progression, without touching
+     * the views : can be called out of the event dispatch thread. Once it
+     * is done, endProcess() must be called in the event dispatch thread.
+     * @param progress
+     *            the progress to update during the process
+     * @throws WeirdResultException
+     *             if the result is not coherent
+     * @throws WeirdPreviousResultsException
+     *             if the previous step results are not what the current process
+     *             expects.
+     * @throws ProcessCanceledException
+     *             if the progress has been canceled : the progression is
+     *             unchanged
+     */
+    public final void computeProcess(final ProcessProgress progress)
+            throws WeirdResultException, WeirdPreviousResultsException,
+            ProcessCanceledException {
+        this.islet.setProgress(progress);
+        int step = this.islet.getProgression();
+        if (this.stepModified && this.checkpoints != null) {
+            // Keeps the corrections made by the user.
+            this.checkpoints.write(this.islet, step);
+        }
+        try {
+            switch (step) {
             case AbstractBuildingsIslet.ZERO_STEP:
                 this.islet.launchProcess0();
                 break;
@@ -549,18 +797,33 @@ public class BuildingsIsletController {
             default:
                 throw new InvalidCaseException();
             }
-
-            this.incProgression();
-            this.display();
+            if (this.checkpoints != null) {
+                this.checkpoints.write(this.islet, step + 1);
+            }
+            this.stepModified = false;
+            this.history.clear();
         } catch (InvalidCaseException e) {
             // It should never happen.
             e.printStackTrace();
         } catch (NullArgumentException e) {
             // It should never happen.
             e.printStackTrace();
+        } finally {
+            this.islet.setProgress(new ProcessProgress());
         }
     }
 
+    /**
+     * Goes to the next step once the process has been computed, and
+     * displays the results.
+     * @throws WeirdResultException
+     *             if the results cannot be displayed
+     */
+    public final void endProcess() throws WeirdResultException {
+        this.incProgression();
+        this.display();
+    }
+
     /**
      * Sets the gravity normal in the islet attribute.
      */
@@ -578,6 +841,11 @@ public class BuildingsIsletController {
     public final void readFile(final String fileName) throws IOException {
         this.islet.setBiStep0(new BuildingsIsletStep0(AbstractIslet
                 .parseFile(fileName)));
+        this.checkpoints = new StepCheckpoints(new File(FileSystemView
+                .getFileSystemView().getDefaultDirectory(),
+                CHECKPOINTS_DIRECTORY), new File(fileName));
+        this.stepModified = false;
+        this.history.clear();
     }
 
     /**
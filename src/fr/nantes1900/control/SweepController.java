@@ -0,0 +1,535 @@
+package fr.nantes1900.control;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.vecmath.Vector3d;
+
+import fr.nantes1900.models.coefficients.ProcessParameters;
+import fr.nantes1900.models.extended.Building;
+import fr.nantes1900.models.islets.AbstractBuildingsIslet;
+import fr.nantes1900.models.islets.ResidentialIslet;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep5;
+import fr.nantes1900.utils.StepCodec;
+
+/**
+ * Launches the processes of an islet with every combination of some ranges of
+ * coefficients, to compare their results without any window. The islet is
+ * processed once up to the first process using a swept coefficient. The step
+ * reached is encoded once and each combination decodes its own copy of it :
+ * the combinations are processed at the same time without sharing any
+ * object. Each combination launches the processes up to the fourth one, which
+ * gives the walls and the roofs of the buildings.
+ */
+public class SweepController {
+
+    /**
+     * The last process launched for each combination.
+     */
+    public static final int LAST_PROCESS = AbstractBuildingsIslet.FOURTH_STEP;
+
+    /**
+     * The controller reading the islets, giving the normals, the cache and
+     * the coefficients which are not swept.
+     */
+    private final BatchController batch;
+    /**
+     * The values of each swept coefficient, by key of TextsKeys.
+     */
+    private final Map<String, double[]> ranges = new LinkedHashMap<>();
+    /**
+     * The first process launched for each combination, or -1 to use the first
+     * process using a swept coefficient.
+     */
+    private int firstProcess = -1;
+
+    /**
+     * Constructor.
+     * @param batchIn
+     *            the controller reading the islets
+     */
+    public SweepController(final BatchController batchIn) {
+        this.batch = batchIn;
+    }
+
+    /**
+     * Reads a range of values : "min:max:step" gives the values from min to
+     * max with the step, and "a,b,c" gives the values a, b and c.
+     * @param range
+     *            the range
+     * @return the values, in the order of the range
+     * @throws IllegalArgumentException
+     *             if the range is not valid
+     */
+    public static double[] parseRange(final String range) {
+        String[] bounds = range.split(":");
+        if (bounds.length == 1) {
+            String[] items = range.split(",");
+            double[] values = new double[items.length];
+            for (int i = 0; i < items.length; i++) {
+                values[i] = Double.parseDouble(items[i]);
+            }
+            return values;
+        }
+
+        final int boundsNumber = 3;
+        if (bounds.length != boundsNumber) {
+            throw new IllegalArgumentException(range);
+        }
+        double min = Double.parseDouble(bounds[0]);
+        double max = Double.parseDouble(bounds[1]);
+        double step = Double.parseDouble(bounds[2]);
+        if (step <= 0 || max < min) {
+            throw new IllegalArgumentException(range);
+        }
+
+        // Tolerance on the last value, to keep max despite the rounding.
+        final double tolerance = 1e-9;
+        int count = (int) Math.floor((max - min) / step + tolerance) + 1;
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = min + i * step;
+        }
+        return values;
+    }
+
+    /**
+     * Adds a coefficient to sweep.
+     * @param key
+     *            the key of the coefficient, as in the parameters files
+     * @param values
+     *            the values to try
+     * @throws IllegalArgumentException
+     *             if the key is not the key of a coefficient or if there is no
+     *             value
+     */
+    public final void addRange(final String key, final double[] values) {
+        if (!this.batch.getParameters().toProperties().containsKey(key)) {
+            throw new IllegalArgumentException("unknown coefficient " + key);
+        }
+        if (values.length == 0) {
+            throw new IllegalArgumentException("no value for " + key);
+        }
+        this.ranges.put(key, values);
+    }
+
+    /**
+     * Returns the first process using one of the swept coefficients.
+     * @return the number of the process
+     * @throws IllegalArgumentException
+     *             if a swept coefficient is not used by the processes 1 to 4
+     */
+    private int returnFirstUsingProcess() {
+        ProcessParameters base = this.batch.getParameters();
+        Properties baseProperties = base.toProperties();
+        int first = SweepController.LAST_PROCESS + 1;
+
+        for (String key : this.ranges.keySet()) {
+            Properties properties = base.toProperties();
+            properties.setProperty(key, String.valueOf(Double
+                    .parseDouble(baseProperties.getProperty(key)) + 1));
+            ProcessParameters changed = new ProcessParameters(properties);
+
+            int process = AbstractBuildingsIslet.FIRST_STEP;
+            while (process <= SweepController.LAST_PROCESS
+                    && base.sameValues(changed, process)) {
+                process++;
+            }
+            if (process > SweepController.LAST_PROCESS) {
+                throw new IllegalArgumentException(key
+                        + " is not used by the processes 1 to "
+                        + SweepController.LAST_PROCESS);
+            }
+            first = Math.min(first, process);
+        }
+        return first;
+    }
+
+    /**
+     * Returns the first process launched for each combination.
+     * @return the number of the process
+     * @throws IllegalArgumentException
+     *             if a swept coefficient is not used by the processes 1 to 4,
+     *             or if the process chosen is after the first process using a
+     *             swept coefficient
+     */
+    public final int returnFirstProcess() {
+        int first = this.returnFirstUsingProcess();
+        if (this.firstProcess == -1) {
+            return first;
+        }
+        if (this.firstProcess > first) {
+            throw new IllegalArgumentException("the process " + first
+                    + " uses a swept coefficient : it cannot start from the"
+                    + " process " + this.firstProcess);
+        }
+        return this.firstProcess;
+    }
+
+    /**
+     * Returns every combination of the values of the swept coefficients. The
+     * coefficients which are not swept have the values of the batch
+     * controller. The last coefficient added changes first.
+     * @return the list of the coefficients of each combination
+     */
+    public final List<ProcessParameters> returnCombinations() {
+        List<String> keys = new ArrayList<>(this.ranges.keySet());
+        List<ProcessParameters> combinations = new ArrayList<>();
+        int[] indices = new int[keys.size()];
+
+        boolean finished = false;
+        while (!finished) {
+            Properties properties = this.batch.getParameters().toProperties();
+            for (int i = 0; i < keys.size(); i++) {
+                properties.setProperty(keys.get(i), String.valueOf(this.ranges
+                        .get(keys.get(i))[indices[i]]));
+            }
+            combinations.add(new ProcessParameters(properties));
+
+            // Next combination, like a counter.
+            int i = keys.size() - 1;
+            while (i >= 0
+                    && indices[i] == this.ranges.get(keys.get(i)).length - 1) {
+                indices[i] = 0;
+                i--;
+            }
+            if (i < 0) {
+                finished = true;
+            } else {
+                indices[i]++;
+            }
+        }
+        return combinations;
+    }
+
+    /**
+     * Launches the processes of an islet with every combination. An error in
+     * one combination does not stop the others.
+     * @param isletFile
+     *            the islet file
+     * @param workers
+     *            the number of combinations processed at the same time
+     * @return the reports of the combinations, in the order of
+     *         returnCombinations
+     * @throws Exception
+     *             if the islet cannot be read or if a process before the
+     *             first process swept failed
+     */
+    public final List<SweepReport> sweep(final File isletFile,
+            final int workers) throws Exception {
+        final int first = this.returnFirstProcess();
+
+        AbstractBuildingsIslet islet = this.batch.createIslet(isletFile);
+        final int triangles = islet.getBiStep0().getInitialTotalSurface()
+                .getMesh().size();
+        for (int step = AbstractBuildingsIslet.ZERO_STEP; step < first;
+                step++) {
+            BatchController.launchProcess(islet, step);
+            islet.incProgression();
+        }
+
+        // Each combination decodes its own copy of the step : the processes
+        // modify the steps they start from.
+        final byte[] input = StepCodec.toByteArray(islet.returnStep(first));
+        final Vector3d groundNormal = islet.getGroundNormal();
+        final Vector3d gravityNormal = islet.getGravityNormal();
+        islet = null;
+
+        List<Callable<SweepReport>> tasks = new ArrayList<>();
+        for (final ProcessParameters parameters : this.returnCombinations()) {
+            tasks.add(new Callable<SweepReport>() {
+
+                @Override
+                public SweepReport call() {
+                    SweepReport report = new SweepReport(isletFile,
+                            parameters, triangles);
+                    SweepController.this.launchCombination(report, input,
+                            first, groundNormal, gravityNormal);
+                    return report;
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<SweepReport> reports = new ArrayList<>();
+            for (Future<SweepReport> future : executor.invokeAll(tasks)) {
+                reports.add(future.get());
+            }
+            return reports;
+        } catch (ExecutionException e) {
+            // The tasks catch their exceptions.
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Launches the processes of one combination and fills its report.
+     * @param report
+     *            the report of the combination
+     * @param input
+     *            the encoded step the first process starts from
+     * @param first
+     *            the number of the first process
+     * @param groundNormal
+     *            the ground normal of the islet at this step
+     * @param gravityNormal
+     *            the gravity normal of the islet at this step
+     */
+    private void launchCombination(final SweepReport report,
+            final byte[] input, final int first, final Vector3d groundNormal,
+            final Vector3d gravityNormal) {
+        long begin = System.currentTimeMillis();
+
+        try {
+            AbstractBuildingsIslet islet = new ResidentialIslet();
+            islet.setParameters(report.parameters);
+            islet.setCache(this.batch.getCache());
+            islet.setGroundNormal(new Vector3d(groundNormal));
+            islet.setGravityNormal(new Vector3d(gravityNormal));
+            islet.restoreStep(StepCodec.read(new ByteArrayInputStream(input)));
+
+            for (int step = first; step <= SweepController.LAST_PROCESS;
+                    step++) {
+                BatchController.launchProcess(islet, step);
+                islet.incProgression();
+            }
+
+            BuildingsIsletStep5 result = islet.getBiStep5();
+            report.buildings = result.getBuildings().size();
+            for (Building b : result.getBuildings()) {
+                report.walls += b.getWalls(
+                        AbstractBuildingsIslet.FIFTH_STEP).size();
+                report.roofs += b.getRoofs(
+                        AbstractBuildingsIslet.FIFTH_STEP).size();
+            }
+            if (result.getNoise() != null) {
+                report.noise = result.getNoise().getMesh().size();
+            }
+            report.success = true;
+        } catch (Exception e) {
+            // Also catches the runtime exceptions : a combination which fails
+            // must not stop the others.
+            report.error = e.toString();
+        }
+
+        report.time = System.currentTimeMillis() - begin;
+    }
+
+    /**
+     * Writes some reports in a CSV file : one line per combination, with the
+     * values of the swept coefficients and the results.
+     * @param file
+     *            the file to write
+     * @param reports
+     *            the reports
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public final void writeReports(final File file,
+            final List<SweepReport> reports) throws IOException {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try {
+            StringBuilder header = new StringBuilder("islet");
+            for (String key : this.ranges.keySet()) {
+                header.append(';').append(key);
+            }
+            header.append(";buildings;walls;roofs;noise fraction;time (ms)")
+                    .append(";error");
+            writer.println(header);
+
+            for (SweepReport report : reports) {
+                StringBuilder line = new StringBuilder(report.isletFile
+                        .getPath());
+                Properties properties = report.parameters.toProperties();
+                for (String key : this.ranges.keySet()) {
+                    line.append(';').append(properties.getProperty(key));
+                }
+                line.append(';').append(report.buildings).append(';')
+                        .append(report.walls).append(';')
+                        .append(report.roofs).append(';')
+                        .append(String.format(Locale.US, "%.4f",
+                                report.getNoiseFraction())).append(';')
+                        .append(report.time).append(';');
+                if (report.error != null) {
+                    line.append(report.error);
+                }
+                writer.println(line);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Setter.
+     * @param firstProcessIn
+     *            the first process launched for each combination, from 1 to
+     *            4, or -1 to use the first process using a swept coefficient
+     */
+    public final void setFirstProcess(final int firstProcessIn) {
+        this.firstProcess = firstProcessIn;
+    }
+
+    /**
+     * Report of one combination : counts and time.
+     */
+    public static class SweepReport {
+
+        /**
+         * The islet file.
+         */
+        private final File isletFile;
+        /**
+         * The coefficients of the combination.
+         */
+        private final ProcessParameters parameters;
+        /**
+         * The number of triangles of the islet file.
+         */
+        private final int triangles;
+        /**
+         * True if the processes succeeded.
+         */
+        private boolean success = false;
+        /**
+         * The error which stopped the processes, null if they succeeded.
+         */
+        private String error;
+        /**
+         * The number of buildings found.
+         */
+        private int buildings;
+        /**
+         * The number of walls found.
+         */
+        private int walls;
+        /**
+         * The number of roofs found.
+         */
+        private int roofs;
+        /**
+         * The number of triangles left in the noise.
+         */
+        private int noise;
+        /**
+         * The time spent in the processes of the combination, in
+         * milliseconds.
+         */
+        private long time;
+
+        /**
+         * Constructor.
+         * @param isletFileIn
+         *            the islet file
+         * @param parametersIn
+         *            the coefficients of the combination
+         * @param trianglesIn
+         *            the number of triangles of the islet file
+         */
+        public SweepReport(final File isletFileIn,
+                final ProcessParameters parametersIn, final int trianglesIn) {
+            this.isletFile = isletFileIn;
+            this.parameters = parametersIn;
+            this.triangles = trianglesIn;
+        }
+
+        /**
+         * Getter.
+         * @return the coefficients of the combination
+         */
+        public final ProcessParameters getParameters() {
+            return this.parameters;
+        }
+
+        /**
+         * Getter.
+         * @return true if the processes succeeded
+         */
+        public final boolean isSuccess() {
+            return this.success;
+        }
+
+        /**
+         * Getter.
+         * @return the number of buildings found
+         */
+        public final int getBuildings() {
+            return this.buildings;
+        }
+
+        /**
+         * Getter.
+         * @return the number of walls found
+         */
+        public final int getWalls() {
+            return this.walls;
+        }
+
+        /**
+         * Getter.
+         * @return the number of roofs found
+         */
+        public final int getRoofs() {
+            return this.roofs;
+        }
+
+        /**
+         * Returns the part of the triangles of the islet left in the noise.
+         * @return the fraction, between 0 and 1
+         */
+        public final double getNoiseFraction() {
+            if (this.triangles == 0) {
+                return 0;
+            }
+            return (double) this.noise / this.triangles;
+        }
+
+        /**
+         * Getter.
+         * @return the time spent in the processes, in milliseconds
+         */
+        public final long getTime() {
+            return this.time;
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public final String toString() {
+            StringBuilder builder = new StringBuilder(this.isletFile.getName());
+            if (this.success) {
+                builder.append(" : ").append(this.buildings)
+                        .append(" buildings, ").append(this.walls)
+                        .append(" walls, ").append(this.roofs)
+                        .append(" roofs, ")
+                        .append(String.format(Locale.US, "%.2f",
+                                this.getNoiseFraction() * 100))
+                        .append(" % noise, in ").append(this.time)
+                        .append(" ms");
+            } else {
+                builder.append(" : FAILED after ").append(this.time)
+                        .append(" ms : ").append(this.error);
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package fr.nantes1900.control.isletprocess;
 
 import java.awt.Cursor;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.AbstractAction;
 import javax.swing.JComponent;
 import javax.swing.JOptionPane;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
 import fr.nantes1900.constants.TextsKeys;
 import fr.nantes1900.control.BuildingsIsletController;
@@ -24,11 +30,13 @@ import fr.nantes1900.control.isletprocess.characteristics.CharacteristicsStep6Co
 import fr.nantes1900.listener.ElementsSelectedListener;
 import fr.nantes1900.listener.ProgressListener;
 import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
 import fr.nantes1900.models.exceptions.WeirdPreviousResultsException;
 import fr.nantes1900.models.exceptions.WeirdResultException;
 import fr.nantes1900.models.extended.Surface;
 import fr.nantes1900.models.islets.AbstractBuildingsIslet;
 import fr.nantes1900.utils.FileTools;
+import fr.nantes1900.utils.ProcessProgress;
 import fr.nantes1900.view.isletprocess.IsletProcessView;
 
 /**
@@ -91,6 +99,12 @@ public class IsletProcessController implements ElementsSelectedListener,
      */
     private BuildingsIsletController biController;
 
+    /**
+     * Progress of the process currently running, null if no process is
+     * running.
+     */
+    private ProcessProgress progress;
+
     /**
      * Creates a new islet process controller to LAUNCH different processes on
      * an islet.
@@ -137,6 +151,7 @@ public class IsletProcessController implements ElementsSelectedListener,
                 .setDisplayType(Universe3DController.DISPLAY_MESH_MODE);
         this.setToolbarButtons();
         this.setStatusBarStep();
+        this.addHistoryShortcuts();
         this.ipView.setVisible(true);
         this.u3DController.addElementsSelectedListener(this);
     }
@@ -149,6 +164,16 @@ public class IsletProcessController implements ElementsSelectedListener,
         this.getBiController().abortProcess();
     }
 
+    /**
+     * Asks the running process to stop. The process stops as soon as possible
+     * and the current step is kept as it was before the launch.
+     */
+    public final void cancelProcess() {
+        if (this.progress != null) {
+            this.progress.cancel();
+        }
+    }
+
     /**
      * Modifies the display type.
      * @param displayType
@@ -207,6 +232,14 @@ public class IsletProcessController implements ElementsSelectedListener,
         return this.u3DController;
     }
 
+    /**
+     * Getter.
+     * @return true if a process is running, false otherwise
+     */
+    public final boolean isProcessing() {
+        return this.progress != null;
+    }
+
     /**
      * Go BACK to the previous process.
      * @throws UnexistingStepException
@@ -224,7 +257,9 @@ public class IsletProcessController implements ElementsSelectedListener,
     }
 
     /**
-     * Launches next process.
+     * Launches next process in a background thread. The window stays
+     * responsive : the progress bar follows the process, and the process can
+     * be canceled with cancelProcess().
      * @throws UnexistingStepException
      *             if the step does not exist (progression > 6)
      */
@@ -234,9 +269,11 @@ public class IsletProcessController implements ElementsSelectedListener,
             throw new UnexistingStepException();
         }
 
-        if (this.getProgression() == AbstractBuildingsIslet.FOURTH_STEP) {
-            // ipView.showProgressBar(true);
+        if (this.isProcessing()) {
+            return;
+        }
 
+        if (this.getProgression() == AbstractBuildingsIslet.FOURTH_STEP) {
             // display the JOptionPane showConfirmDialog
             int reply = JOptionPane.showConfirmDialog(ipView, FileTools
                     .readInformationMessage(TextsKeys.KEY_WARNING_LONGPROCESS,
@@ -253,23 +290,76 @@ public class IsletProcessController implements ElementsSelectedListener,
 
         this.setDefaultCharacteristicsPanel();
         this.ipView.setCursor(new Cursor(Cursor.WAIT_CURSOR));
+        this.ipView.showProgressBar(true);
+        this.nbController.getView().setProcessing(true);
+
+        final ProcessProgress processProgress = new ProcessProgress(this);
+        this.progress = processProgress;
+
+        new SwingWorker<Void, Void>() {
+
+            @Override
+            protected Void doInBackground() throws Exception {
+                IsletProcessController.this.biController
+                        .computeProcess(processProgress);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                IsletProcessController.this.endProcess(this);
+            }
+        }.execute();
+    }
+
+    /**
+     * Ends the process launched by launchProcess() : displays the results, or
+     * the error, and gives the window back to the user. Called in the event
+     * dispatch thread.
+     * @param worker
+     *            the worker which computed the process
+     */
+    private void endProcess(final SwingWorker<Void, Void> worker) {
+        boolean canceled = false;
         try {
-            this.biController.launchProcess();
-        } catch (WeirdResultException | WeirdPreviousResultsException e) {
+            worker.get();
+            this.biController.endProcess();
+        } catch (WeirdResultException e) {
             JOptionPane.showMessageDialog(ipView, e.getMessage(), FileTools
                     .readInformationMessage(TextsKeys.KEY_ERROR_WEIRDRESULT,
                             TextsKeys.MESSAGETYPE_TITLE),
                     JOptionPane.ERROR_MESSAGE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof WeirdResultException
+                    || e.getCause() instanceof WeirdPreviousResultsException) {
+                JOptionPane.showMessageDialog(ipView, e.getCause()
+                        .getMessage(), FileTools.readInformationMessage(
+                        TextsKeys.KEY_ERROR_WEIRDRESULT,
+                        TextsKeys.MESSAGETYPE_TITLE),
+                        JOptionPane.ERROR_MESSAGE);
+            } else if (e.getCause() instanceof ProcessCanceledException) {
+                canceled = true;
+            } else {
+                e.printStackTrace();
+            }
+        } catch (InterruptedException e) {
+            // It should never happen : the worker is done.
+            e.printStackTrace();
         }
 
-        if (this.getProgression() == AbstractBuildingsIslet.FIFTH_STEP) {
-            // ipView.showProgressBar(false);
-        }
-
+        this.progress = null;
+        this.ipView.showProgressBar(false);
+        this.nbController.getView().setProcessing(false);
         this.setToolbarButtons();
         this.refreshViews();
         this.ipView.setCursor(new Cursor(Cursor.DEFAULT_CURSOR));
         this.pController.displayProcessingParameters(this.getProgression());
+
+        if (canceled) {
+            this.ipView.setStatusBarText(FileTools.readInformationMessage(
+                    TextsKeys.KEY_PROCESSCANCELED,
+                    TextsKeys.MESSAGETYPE_MESSAGE));
+        }
     }
 
     /**
@@ -311,6 +401,10 @@ public class IsletProcessController implements ElementsSelectedListener,
     @Override
     public final void newTrianglesSelection(
             final List<Triangle> trianglesSelected) {
+        if (this.isProcessing()) {
+            // The models are being modified by the process.
+            return;
+        }
         int step = this.getProgression();
 
         if (step == 2 || step == 4) {
@@ -378,6 +472,60 @@ public class IsletProcessController implements ElementsSelectedListener,
         this.ipView.setCharacteristicsView(this.cController.getView());
         this.ipView.getRootPane().getInputMap().clear();
         this.ipView.getRootPane().getActionMap().clear();
+        this.addHistoryShortcuts();
+    }
+
+    /**
+     * Adds the shortcuts to undo (Ctrl+Z) and redo (Ctrl+Y) the modifications
+     * of the current step.
+     */
+    private void addHistoryShortcuts() {
+        this.addShortcut(KeyStroke.getKeyStroke(KeyEvent.VK_Z,
+                InputEvent.CTRL_DOWN_MASK), "undo", new AbstractAction() {
+
+            /**
+             * Version ID.
+             */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                IsletProcessController.this.undo();
+            }
+        });
+        this.addShortcut(KeyStroke.getKeyStroke(KeyEvent.VK_Y,
+                InputEvent.CTRL_DOWN_MASK), "redo", new AbstractAction() {
+
+            /**
+             * Version ID.
+             */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                IsletProcessController.this.redo();
+            }
+        });
+    }
+
+    /**
+     * Undoes the last modification made in the current step, and refreshes
+     * the views.
+     */
+    public final void undo() {
+        if (!this.isProcessing() && this.biController.undo()) {
+            this.refreshViews();
+        }
+    }
+
+    /**
+     * Redoes the last modification undone in the current step, and refreshes
+     * the views.
+     */
+    public final void redo() {
+        if (!this.isProcessing() && this.biController.redo()) {
+            this.refreshViews();
+        }
     }
 
     /**
@@ -439,6 +587,9 @@ public class IsletProcessController implements ElementsSelectedListener,
 
     @Override
     public final void surfaceDeselected(final Surface surfaceSelected) {
+        if (this.isProcessing()) {
+            return;
+        }
         int step = this.getProgression();
 
         // case 6 : more complicated
@@ -478,6 +629,9 @@ public class IsletProcessController implements ElementsSelectedListener,
 
     @Override
     public final void surfaceSelected(final Surface surfaceSelected) {
+        if (this.isProcessing()) {
+            return;
+        }
         int step = this.getProgression();
 
         // case 6 : more complicated
@@ -549,8 +703,16 @@ public class IsletProcessController implements ElementsSelectedListener,
      * @see fr.nantes1900.listener.ProgressListener#updateProgress(double)
      */
     @Override
-    public void updateProgress(final double progress) {
-        // this.ipView.updatesProgressBar(progress);
+    public final void updateProgress(final double progressValue) {
+        // Called by the thread of the process.
+        SwingUtilities.invokeLater(new Runnable() {
+
+            @Override
+            public void run() {
+                IsletProcessController.this.ipView
+                        .updatesProgressBar(progressValue);
+            }
+        });
     }
 
     /**
@@ -50,13 +50,20 @@ public class NavigationBarController extends JToolBar {
 		this.parentController = parentControllerIn;
 		this.nbView = new NavigationBarView();
 
-		// Implements the abort button.
+		// Implements the abort button : cancels the running process if there
+		// is one, aborts the islet otherwise.
 		this.nbView.getAbortButton().addActionListener(new ActionListener() {
 
 			@Override
 			public void actionPerformed(final ActionEvent arg0) {
-				NavigationBarController.this.getParentController()
-						.abortProcess();
+				if (NavigationBarController.this.getParentController()
+						.isProcessing()) {
+					NavigationBarController.this.getParentController()
+							.cancelProcess();
+				} else {
+					NavigationBarController.this.getParentController()
+							.abortProcess();
+				}
 			}
 		});
 
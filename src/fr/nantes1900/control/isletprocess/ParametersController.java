@@ -11,6 +11,7 @@ import javax.swing.filechooser.FileFilter;
 
 import fr.nantes1900.constants.TextsKeys;
 import fr.nantes1900.models.coefficients.Decimation;
+import fr.nantes1900.models.coefficients.ProcessParameters;
 import fr.nantes1900.models.coefficients.SeparationBuildings;
 import fr.nantes1900.models.coefficients.SeparationGroundBuilding;
 import fr.nantes1900.models.coefficients.SeparationWallRoof;
@@ -151,7 +152,8 @@ public class ParametersController {
     }
 
     /**
-     * Saves the new parameters after the user changes.
+     * Saves the new parameters after the user changes, and gives them to the
+     * islet for its next processes.
      */
     public final void loadNewParameters() {
         SeparationGroundBuilding.setAltitureError(this.pView
@@ -183,6 +185,8 @@ public class ParametersController {
                 .getValueProperty(14));
         Decimation.setPercentDecimation(this.pView
         		.getValueProperty(15));
+        this.parentController.getBiController().getIslet()
+                .setParameters(new ProcessParameters());
     }
 
     /**
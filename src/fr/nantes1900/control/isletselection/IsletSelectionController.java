@@ -142,7 +142,7 @@ public class IsletSelectionController {
         if (fileNode.isFile()) {
             this.biController.readFile(fileNode.getEntireName());
             this.selectedFile = fileNode;
-            this.biController.display();
+            this.biController.displayPreview();
         }
         this.isView.setCursor(new Cursor(Cursor.DEFAULT_CURSOR));
     }
@@ -174,6 +174,26 @@ public class IsletSelectionController {
     public final boolean launchIsletProcess() {
         boolean processLaunched = false;
 
+        if (this.selectedFile != null && this.biController.hasCheckpoints()) {
+            int reply = JOptionPane.showConfirmDialog(this.isView, FileTools
+                    .readHelpMessage(TextsKeys.KEY_RESUMEISLET,
+                            TextsKeys.MESSAGETYPE_MESSAGE), FileTools
+                    .readHelpMessage(TextsKeys.KEY_RESUMEISLET,
+                            TextsKeys.MESSAGETYPE_TITLE),
+                    JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+            if (reply == JOptionPane.YES_OPTION
+                    && this.biController.resumeFromCheckpoint()) {
+                // The islet keeps the ground normal it has been computed
+                // with.
+                this.isView.setCursor(new Cursor(Cursor.WAIT_CURSOR));
+                this.parentController.launchIsletProcess(this.selectedFile,
+                        this.biController);
+                return true;
+            } else if (reply == JOptionPane.NO_OPTION) {
+                this.biController.clearCheckpoints();
+            }
+        }
+
         if ((!this.u3DController.getTrianglesSelected().isEmpty())
                 && this.selectedFile != null) {
             this.isView.setCursor(new Cursor(Cursor.WAIT_CURSOR));
@@ -0,0 +1,291 @@
+package fr.nantes1900.models.basis;
+
+import java.util.Arrays;
+
+/**
+ * Implements a grid of square cells on the plane (x, y), indexing objects by
+ * the box containing them, to find the closest objects from a point without
+ * testing every object. The search visits the cells by rings around the cell
+ * of the point and stops as soon as the closest object found is closer than
+ * the next ring. The subclasses keep the state of the current search : a grid
+ * must not be searched by several threads at the same time.
+ */
+public abstract class AbstractGrid {
+
+    /**
+     * Number of coordinates of a box : x min, y min, x max, y max.
+     */
+    protected static final int BOX_COORDINATES = 4;
+    /**
+     * Index of the maximal x in a box.
+     */
+    protected static final int X_MAX = 2;
+    /**
+     * Index of the maximal y in a box.
+     */
+    protected static final int Y_MAX = 3;
+    /**
+     * Maximal index of a cell, to avoid the overflows for the points far
+     * from the grid.
+     */
+    private static final double MAX_INDEX = 1 << 30;
+
+    /**
+     * The minimal x of the grid.
+     */
+    private final double xMin;
+    /**
+     * The minimal y of the grid.
+     */
+    private final double yMin;
+    /**
+     * The size of the cells.
+     */
+    private final double cellSize;
+    /**
+     * The number of columns (along x).
+     */
+    private final int columns;
+    /**
+     * The number of rows (along y).
+     */
+    private final int rows;
+    /**
+     * The index in cellObjects of the first object of each cell : its objects
+     * end at the first object of the next cell.
+     */
+    private final int[] cellStarts;
+    /**
+     * The indices of the objects of the cells, sorted by cell.
+     */
+    private final int[] cellObjects;
+    /**
+     * The number of the last search which visited each object.
+     */
+    private final int[] visits;
+    /**
+     * The number of the current search.
+     */
+    private int search;
+
+    /**
+     * Constructor. The size of the cells is chosen to have about as many
+     * cells as objects.
+     * @param boxes
+     *            the boxes of the objects on the plane (x, y), BOX_COORDINATES
+     *            by object
+     */
+    protected AbstractGrid(final double[] boxes) {
+        final int objects = boxes.length / AbstractGrid.BOX_COORDINATES;
+        double x0 = Double.POSITIVE_INFINITY;
+        double y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY;
+        double y1 = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < boxes.length; i += AbstractGrid.BOX_COORDINATES) {
+            x0 = Math.min(x0, boxes[i]);
+            y0 = Math.min(y0, boxes[i + 1]);
+            x1 = Math.max(x1, boxes[i + AbstractGrid.X_MAX]);
+            y1 = Math.max(y1, boxes[i + AbstractGrid.Y_MAX]);
+        }
+        if (objects == 0) {
+            x0 = 0;
+            y0 = 0;
+            x1 = 0;
+            y1 = 0;
+        }
+        final double width = x1 - x0;
+        final double height = y1 - y0;
+        double size = Math.max(Math.sqrt(width * height / Math.max(objects, 1)),
+                Math.max(width, height) / Math.max(objects, 1));
+        if (!(size > 0)) {
+            size = 1;
+        }
+
+        this.xMin = x0;
+        this.yMin = y0;
+        this.cellSize = size;
+        this.columns = (int) (width / size) + 1;
+        this.rows = (int) (height / size) + 1;
+
+        // Counts the objects of each cell, then fills the cells.
+        this.cellStarts = new int[this.columns * this.rows + 1];
+        for (int i = 0; i < boxes.length; i += AbstractGrid.BOX_COORDINATES) {
+            final int c0 = this.returnColumn(boxes[i]);
+            final int c1 = this.returnColumn(boxes[i + AbstractGrid.X_MAX]);
+            final int r0 = this.returnRow(boxes[i + 1]);
+            final int r1 = this.returnRow(boxes[i + AbstractGrid.Y_MAX]);
+            for (int row = r0; row <= r1; row++) {
+                for (int column = c0; column <= c1; column++) {
+                    this.cellStarts[row * this.columns + column + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < this.columns * this.rows; cell++) {
+            this.cellStarts[cell + 1] += this.cellStarts[cell];
+        }
+        this.cellObjects = new int[this.cellStarts[this.columns * this.rows]];
+        final int[] filled = new int[this.columns * this.rows];
+        for (int i = 0; i < boxes.length; i += AbstractGrid.BOX_COORDINATES) {
+            final int c0 = this.returnColumn(boxes[i]);
+            final int c1 = this.returnColumn(boxes[i + AbstractGrid.X_MAX]);
+            final int r0 = this.returnRow(boxes[i + 1]);
+            final int r1 = this.returnRow(boxes[i + AbstractGrid.Y_MAX]);
+            for (int row = r0; row <= r1; row++) {
+                for (int column = c0; column <= c1; column++) {
+                    final int cell = row * this.columns + column;
+                    this.cellObjects[this.cellStarts[cell] + filled[cell]] = i
+                            / AbstractGrid.BOX_COORDINATES;
+                    filled[cell]++;
+                }
+            }
+        }
+        this.visits = new int[objects];
+    }
+
+    /**
+     * Visits the objects around a point, from the closest cells to the
+     * farthest, until returnBestDistance is smaller than the distance of the
+     * next cells. Each object is visited once.
+     * @param x
+     *            the x of the point
+     * @param y
+     *            the y of the point
+     */
+    protected final void searchAround(final double x, final double y) {
+        if (this.search == Integer.MAX_VALUE) {
+            Arrays.fill(this.visits, 0);
+            this.search = 0;
+        }
+        this.search++;
+
+        final int column = (int) Math.max(-AbstractGrid.MAX_INDEX, Math.min(
+                AbstractGrid.MAX_INDEX, Math.floor((x - this.xMin)
+                        / this.cellSize)));
+        final int row = (int) Math.max(-AbstractGrid.MAX_INDEX, Math.min(
+                AbstractGrid.MAX_INDEX, Math.floor((y - this.yMin)
+                        / this.cellSize)));
+
+        // The first ring touching the grid and the last one.
+        final int firstRing = Math.max(Math.max(0, Math.max(-column, column
+                - this.columns + 1)), Math.max(-row, row - this.rows + 1));
+        final int lastRing = Math.max(Math.max(column, this.columns - 1
+                - column), Math.max(row, this.rows - 1 - row));
+
+        for (int ring = firstRing; ring <= lastRing; ring++) {
+            final int left = column - ring;
+            final int right = column + ring;
+            final int bottom = row - ring;
+            final int top = row + ring;
+            final int c0 = Math.max(0, left);
+            final int c1 = Math.min(this.columns - 1, right);
+            final int r0 = Math.max(0, bottom + 1);
+            final int r1 = Math.min(this.rows - 1, top - 1);
+
+            // The bottom and top rows of the ring, then its sides.
+            if (bottom >= 0 && bottom < this.rows) {
+                for (int c = c0; c <= c1; c++) {
+                    this.visitCell(c, bottom);
+                }
+            }
+            if (ring > 0 && top >= 0 && top < this.rows) {
+                for (int c = c0; c <= c1; c++) {
+                    this.visitCell(c, top);
+                }
+            }
+            if (ring > 0 && left >= 0 && left < this.columns) {
+                for (int r = r0; r <= r1; r++) {
+                    this.visitCell(left, r);
+                }
+            }
+            if (ring > 0 && right >= 0 && right < this.columns) {
+                for (int r = r0; r <= r1; r++) {
+                    this.visitCell(right, r);
+                }
+            }
+
+            // The objects not visited are at least at this distance.
+            if (this.returnBestDistance() <= ring * this.cellSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Visits the objects of a cell not visited yet by the current search.
+     * @param column
+     *            the column of the cell
+     * @param row
+     *            the row of the cell
+     */
+    private void visitCell(final int column, final int row) {
+        final int cell = row * this.columns + column;
+        if (this.cellStarts[cell] == this.cellStarts[cell + 1]
+                || !this.acceptsCell(this.xMin + column * this.cellSize,
+                        this.yMin + row * this.cellSize, this.xMin
+                                + (column + 1) * this.cellSize, this.yMin
+                                + (row + 1) * this.cellSize)) {
+            return;
+        }
+        final int end = this.cellStarts[cell + 1];
+        for (int i = this.cellStarts[cell]; i < end; i++) {
+            final int object = this.cellObjects[i];
+            if (this.visits[object] != this.search) {
+                this.visits[object] = this.search;
+                this.visit(object);
+            }
+        }
+    }
+
+    /**
+     * Returns the column of the cell containing a x.
+     * @param x
+     *            the x, in the grid
+     * @return the column
+     */
+    private int returnColumn(final double x) {
+        return Math.min(this.columns - 1,
+                (int) ((x - this.xMin) / this.cellSize));
+    }
+
+    /**
+     * Returns the row of the cell containing a y.
+     * @param y
+     *            the y, in the grid
+     * @return the row
+     */
+    private int returnRow(final double y) {
+        return Math.min(this.rows - 1, (int) ((y - this.yMin) / this.cellSize));
+    }
+
+    /**
+     * Checks if the objects of a cell can be searched. By default, every cell
+     * is searched.
+     * @param x0
+     *            the minimal x of the cell
+     * @param y0
+     *            the minimal y of the cell
+     * @param x1
+     *            the maximal x of the cell
+     * @param y1
+     *            the maximal y of the cell
+     * @return true to visit the objects of the cell
+     */
+    protected boolean acceptsCell(final double x0, final double y0,
+            final double x1, final double y1) {
+        return true;
+    }
+
+    /**
+     * Returns the distance of the closest object found by the current search,
+     * at least the distance on the plane (x, y).
+     * @return the distance, or infinity if nothing has been found
+     */
+    protected abstract double returnBestDistance();
+
+    /**
+     * Visits an object during a search.
+     * @param object
+     *            the index of the object
+     */
+    protected abstract void visit(int object);
+}
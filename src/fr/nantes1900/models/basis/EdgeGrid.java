@@ -0,0 +1,186 @@
+package fr.nantes1900.models.basis;
+
+import java.util.List;
+
+/**
+ * Implements a grid of edges, to find the closest projection of a point on a
+ * list of edges without projecting it on every edge. The coordinates of the
+ * edges are copied when the grid is built : the edges must not be moved while
+ * the grid is used. The projections are computed without creating points.
+ */
+public class EdgeGrid extends AbstractGrid {
+
+    /**
+     * Number of coordinates of a point.
+     */
+    public static final int AXIS = 3;
+    /**
+     * Number of coordinates of an edge.
+     */
+    private static final int EDGE_COORDINATES = 2 * EdgeGrid.AXIS;
+    /**
+     * Index of the first coordinate of the second point in an edge.
+     */
+    private static final int P2 = EdgeGrid.AXIS;
+
+    /**
+     * The coordinates of the points of the edges.
+     */
+    private final double[] coordinates;
+    /**
+     * The point searched.
+     */
+    private final double[] query = new double[EdgeGrid.AXIS];
+    /**
+     * The projection on the edge being visited.
+     */
+    private final double[] projection = new double[EdgeGrid.AXIS];
+    /**
+     * The closest projection found by the current search.
+     */
+    private final double[] best = new double[EdgeGrid.AXIS];
+    /**
+     * The square of the distance of the closest projection found.
+     */
+    private double bestSquaredDistance;
+    /**
+     * The index of the edge of the closest projection found.
+     */
+    private int bestEdge;
+
+    /**
+     * Constructor.
+     * @param edges
+     *            the edges to index
+     */
+    public EdgeGrid(final List<Edge> edges) {
+        super(EdgeGrid.returnBoxes(edges));
+        this.coordinates = new double[edges.size() * EdgeGrid.EDGE_COORDINATES];
+        int i = 0;
+        for (Edge e : edges) {
+            for (Point p : e.getPoints()) {
+                this.coordinates[i] = p.getX();
+                this.coordinates[i + 1] = p.getY();
+                this.coordinates[i + 2] = p.getZ();
+                i += EdgeGrid.AXIS;
+            }
+        }
+    }
+
+    /**
+     * Computes the boxes of the edges on the plane (x, y).
+     * @param edges
+     *            the edges
+     * @return the boxes
+     */
+    private static double[] returnBoxes(final List<Edge> edges) {
+        final double[] boxes = new double[edges.size()
+                * AbstractGrid.BOX_COORDINATES];
+        int i = 0;
+        for (Edge e : edges) {
+            boxes[i] = Math.min(e.getP1().getX(), e.getP2().getX());
+            boxes[i + 1] = Math.min(e.getP1().getY(), e.getP2().getY());
+            boxes[i + AbstractGrid.X_MAX] = Math.max(e.getP1().getX(), e
+                    .getP2().getX());
+            boxes[i + AbstractGrid.Y_MAX] = Math.max(e.getP1().getY(), e
+                    .getP2().getY());
+            i += AbstractGrid.BOX_COORDINATES;
+        }
+        return boxes;
+    }
+
+    /**
+     * Searches the closest projection of a point on the edges. If several
+     * edges are at the same distance, the first one in the list is chosen.
+     * @param p
+     *            the point to project
+     * @param closest
+     *            the array receiving the coordinates of the projection
+     * @return the index of the edge in the list, or -1 if there is no edge
+     */
+    public final int search(final Point p, final double[] closest) {
+        this.query[0] = p.getX();
+        this.query[1] = p.getY();
+        this.query[2] = p.getZ();
+        this.bestSquaredDistance = Double.POSITIVE_INFINITY;
+        this.bestEdge = -1;
+
+        this.searchAround(p.getX(), p.getY());
+
+        if (this.bestEdge != -1) {
+            System.arraycopy(this.best, 0, closest, 0, EdgeGrid.AXIS);
+        }
+        return this.bestEdge;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see fr.nantes1900.models.basis.AbstractGrid#returnBestDistance()
+     */
+    @Override
+    protected final double returnBestDistance() {
+        return Math.sqrt(this.bestSquaredDistance);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see fr.nantes1900.models.basis.AbstractGrid#visit(int)
+     */
+    @Override
+    protected final void visit(final int edge) {
+        final double squaredDistance = EdgeGrid.projectOnSegment(
+                this.coordinates, edge * EdgeGrid.EDGE_COORDINATES, this.query,
+                this.projection);
+        if (squaredDistance < this.bestSquaredDistance
+                || (squaredDistance == this.bestSquaredDistance
+                        && edge < this.bestEdge)) {
+            this.bestSquaredDistance = squaredDistance;
+            this.bestEdge = edge;
+            System.arraycopy(this.projection, 0, this.best, 0,
+                    EdgeGrid.AXIS);
+        }
+    }
+
+    /**
+     * Projects a point on a segment, as Edge.project : if the projection on
+     * the line is out of the segment, the closest end is returned.
+     * @param segments
+     *            the coordinates of the segments
+     * @param offset
+     *            the index of the first coordinate of the segment
+     * @param point
+     *            the coordinates of the point
+     * @param projection
+     *            the array receiving the coordinates of the projection
+     * @return the square of the distance between the point and its projection
+     */
+    public static double projectOnSegment(final double[] segments,
+            final int offset, final double[] point, final double[] projection) {
+        double lambda = 0;
+        double length = 0;
+        for (int i = 0; i < EdgeGrid.AXIS; i++) {
+            final double d = segments[offset + EdgeGrid.P2 + i]
+                    - segments[offset + i];
+            lambda += (point[i] - segments[offset + i]) * d;
+            length += d * d;
+        }
+        lambda /= length;
+
+        // The segments reduced to a point are projected on their first end.
+        double squaredDistance = 0;
+        for (int i = 0; i < EdgeGrid.AXIS; i++) {
+            if (lambda >= 1) {
+                projection[i] = segments[offset + EdgeGrid.P2 + i];
+            } else if (lambda > 0) {
+                projection[i] = lambda
+                        * (segments[offset + EdgeGrid.P2 + i]
+                        - segments[offset + i]) + segments[offset + i];
+            } else {
+                projection[i] = segments[offset + i];
+            }
+            final double d = point[i] - projection[i];
+            squaredDistance += d * d;
+        }
+        return squaredDistance;
+    }
+}
@@ -4,8 +4,11 @@ import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.vecmath.Vector3d;
 
@@ -20,9 +23,10 @@ import fr.nantes1900.utils.STLWriter;
 public class Mesh extends HashSet<Triangle> {
 
     /**
-     * Static integer to create new ID objects.
+     * Static integer to create new ID objects. Atomic because the objects can
+     * be created by several threads.
      */
-    private static int currentID;
+    private static final AtomicInteger CURRENT_ID = new AtomicInteger();
 
     /**
      * Version attribute.
@@ -39,7 +43,7 @@ public class Mesh extends HashSet<Triangle> {
      */
     public Mesh() {
         super();
-        this.iD = ++Mesh.currentID;
+        this.iD = Mesh.CURRENT_ID.incrementAndGet();
     }
 
     /**
@@ -56,7 +60,7 @@ public class Mesh extends HashSet<Triangle> {
                 System.out.println("weird");
             }
         }
-        this.iD = ++Mesh.currentID;
+        this.iD = Mesh.CURRENT_ID.incrementAndGet();
     }
 
     /**
@@ -118,6 +122,52 @@ public class Mesh extends HashSet<Triangle> {
         return false;
     }
 
+    /**
+     * Copies the mesh with new triangles, edges and points, keeping the links
+     * between them. The copy can be modified without modifying this mesh.
+     * @return the copy
+     */
+    public final Mesh deepCopy() {
+        final Map<Point, Point> points = new IdentityHashMap<>();
+        final Map<Edge, Edge> edges = new IdentityHashMap<>();
+        final List<Triangle> triangles = new ArrayList<>(this.size());
+
+        for (final Triangle t : this) {
+            final List<Edge> copies = new ArrayList<>();
+            for (final Edge e : t.getEdges()) {
+                Edge copy = edges.get(e);
+                if (copy == null) {
+                    copy = new Edge(Mesh.copyPoint(points, e.getP1()),
+                            Mesh.copyPoint(points, e.getP2()));
+                    edges.put(e, copy);
+                }
+                copies.add(copy);
+            }
+            triangles.add(new Triangle(copies.get(0), copies.get(1), copies
+                    .get(2), t.getNormal()));
+        }
+
+        return new Mesh(triangles);
+    }
+
+    /**
+     * Returns the copy of a point, creating it if it does not exist yet.
+     * @param copies
+     *            the map of the points already copied
+     * @param p
+     *            the point to copy
+     * @return the copy of the point
+     */
+    private static Point copyPoint(final Map<Point, Point> copies,
+            final Point p) {
+        Point copy = copies.get(p);
+        if (copy == null) {
+            copy = new Point(p.getX(), p.getY(), p.getZ());
+            copies.put(p, copy);
+        }
+        return copy;
+    }
+
     /**
      * Searchs for one triangle which is under zMax. It means that all its
      * points are under zMax.
@@ -0,0 +1,59 @@
+package fr.nantes1900.models.basis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Remembers the triangles contained in some meshes, to check later if the
+ * meshes have been modified. The triangles are compared by reference : a
+ * triangle whose points have been moved is considered as the same triangle.
+ */
+public final class MeshSnapshot {
+
+    /**
+     * The triangles of each mesh.
+     */
+    private final List<Set<Triangle>> triangles = new ArrayList<>();
+
+    /**
+     * Constructor.
+     * @param meshes
+     *            the meshes to remember
+     */
+    public MeshSnapshot(final Mesh... meshes) {
+        for (Mesh mesh : meshes) {
+            Set<Triangle> set = Collections
+                    .newSetFromMap(new IdentityHashMap<Triangle, Boolean>());
+            set.addAll(mesh);
+            this.triangles.add(set);
+        }
+    }
+
+    /**
+     * Checks if the meshes contain exactly the triangles they contained when
+     * this snapshot has been taken.
+     * @param meshes
+     *            the meshes, in the same order as in the constructor
+     * @return true if no triangle has been added or removed, false otherwise
+     */
+    public boolean matches(final Mesh... meshes) {
+        if (meshes.length != this.triangles.size()) {
+            return false;
+        }
+        for (int i = 0; i < meshes.length; i++) {
+            Set<Triangle> set = this.triangles.get(i);
+            if (meshes[i].size() != set.size()) {
+                return false;
+            }
+            for (Triangle t : meshes[i]) {
+                if (!set.contains(t)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
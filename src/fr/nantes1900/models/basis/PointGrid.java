@@ -0,0 +1,263 @@
+package fr.nantes1900.models.basis;
+
+import java.util.List;
+
+/**
+ * Implements a grid of points, to find the closest point whose projection on
+ * an edge is inside this edge, without projecting every point. The
+ * coordinates of the points are copied when the grid is built : the points
+ * can be moved after, but they must then be removed from the grid.
+ */
+public class PointGrid extends AbstractGrid {
+
+    /**
+     * Number of axis.
+     */
+    private static final int AXIS = 3;
+    /**
+     * Relative margin of the test of the cells, for the rounding errors.
+     */
+    private static final double MARGIN = 1e-9;
+
+    /**
+     * The coordinates of the points.
+     */
+    private final double[] coordinates;
+    /**
+     * The points removed from the grid.
+     */
+    private final boolean[] removed;
+    /**
+     * The minimal z of the points.
+     */
+    private double zMin = Double.POSITIVE_INFINITY;
+    /**
+     * The maximal z of the points.
+     */
+    private double zMax = Double.NEGATIVE_INFINITY;
+    /**
+     * The coordinates of the ends of the edge of the current search.
+     */
+    private final double[] edge = new double[2 * PointGrid.AXIS];
+    /**
+     * The square of the length of the edge of the current search.
+     */
+    private double squaredLength;
+    /**
+     * The lower bound of the position along the edge of the points of the
+     * cell being tested.
+     */
+    private double lower;
+    /**
+     * The upper bound of the position along the edge of the points of the
+     * cell being tested.
+     */
+    private double upper;
+    /**
+     * The point searched.
+     */
+    private final double[] query = new double[PointGrid.AXIS];
+    /**
+     * The square of the distance of the closest point found.
+     */
+    private double bestSquaredDistance;
+    /**
+     * The index of the closest point found.
+     */
+    private int bestPoint;
+
+    /**
+     * Constructor.
+     * @param points
+     *            the points to index
+     */
+    public PointGrid(final List<Point> points) {
+        super(PointGrid.returnBoxes(points));
+        this.coordinates = new double[points.size() * PointGrid.AXIS];
+        this.removed = new boolean[points.size()];
+        int i = 0;
+        for (Point p : points) {
+            this.coordinates[i] = p.getX();
+            this.coordinates[i + 1] = p.getY();
+            this.coordinates[i + 2] = p.getZ();
+            this.zMin = Math.min(this.zMin, p.getZ());
+            this.zMax = Math.max(this.zMax, p.getZ());
+            i += PointGrid.AXIS;
+        }
+    }
+
+    /**
+     * Computes the boxes of the points on the plane (x, y).
+     * @param points
+     *            the points
+     * @return the boxes
+     */
+    private static double[] returnBoxes(final List<Point> points) {
+        final double[] boxes = new double[points.size()
+                * AbstractGrid.BOX_COORDINATES];
+        int i = 0;
+        for (Point p : points) {
+            boxes[i] = p.getX();
+            boxes[i + 1] = p.getY();
+            boxes[i + AbstractGrid.X_MAX] = p.getX();
+            boxes[i + AbstractGrid.Y_MAX] = p.getY();
+            i += AbstractGrid.BOX_COORDINATES;
+        }
+        return boxes;
+    }
+
+    /**
+     * Removes a point from the grid : it will not be found by the next
+     * searches.
+     * @param index
+     *            the index of the point in the list
+     */
+    public final void remove(final int index) {
+        this.removed[index] = true;
+    }
+
+    /**
+     * Searches the closest point from a point among the points whose
+     * projection on an edge, as computed by Edge.project, is inside this edge
+     * and different from its ends. If several points are at the same
+     * distance, the first one in the list is chosen.
+     * @param e
+     *            the edge
+     * @param p
+     *            the point
+     * @return the index of the closest point in the list, or -1 if no point
+     *         is projected inside the edge
+     */
+    public final int searchInside(final Edge e, final Point p) {
+        this.edge[0] = e.getP1().getX();
+        this.edge[1] = e.getP1().getY();
+        this.edge[2] = e.getP1().getZ();
+        this.edge[PointGrid.AXIS] = e.getP2().getX();
+        this.edge[PointGrid.AXIS + 1] = e.getP2().getY();
+        this.edge[PointGrid.AXIS + 2] = e.getP2().getZ();
+        this.query[0] = p.getX();
+        this.query[1] = p.getY();
+        this.query[2] = p.getZ();
+        this.bestSquaredDistance = Double.POSITIVE_INFINITY;
+        this.bestPoint = -1;
+        this.squaredLength = 0;
+        for (int i = 0; i < PointGrid.AXIS; i++) {
+            final double d = this.edge[PointGrid.AXIS + i] - this.edge[i];
+            this.squaredLength += d * d;
+        }
+
+        if (this.squaredLength > 0) {
+            this.searchAround(p.getX(), p.getY());
+        }
+        return this.bestPoint;
+    }
+
+    /**
+     * Checks if a cell can contain points projected inside the edge of the
+     * current search : computes the bounds of the position of the
+     * projections of the points of the cell along the edge.
+     * @param x0
+     *            the minimal x of the cell
+     * @param y0
+     *            the minimal y of the cell
+     * @param x1
+     *            the maximal x of the cell
+     * @param y1
+     *            the maximal y of the cell
+     * @return true if the cell can contain such points
+     */
+    @Override
+    protected final boolean acceptsCell(final double x0, final double y0,
+            final double x1, final double y1) {
+        this.lower = 0;
+        this.upper = 0;
+        this.addRange(0, x0, x1);
+        this.addRange(1, y0, y1);
+        this.addRange(2, this.zMin, this.zMax);
+        final double margin = PointGrid.MARGIN * this.squaredLength;
+        return this.upper > -margin
+                && this.lower < this.squaredLength + margin;
+    }
+
+    /**
+     * Adds to the bounds of the position along the edge the range of one
+     * coordinate.
+     * @param axis
+     *            the index of the coordinate
+     * @param min
+     *            the minimal value of the coordinate
+     * @param max
+     *            the maximal value of the coordinate
+     */
+    private void addRange(final int axis, final double min, final double max) {
+        final double d = this.edge[PointGrid.AXIS + axis] - this.edge[axis];
+        final double a = (min - this.edge[axis]) * d;
+        final double b = (max - this.edge[axis]) * d;
+        this.lower += Math.min(a, b);
+        this.upper += Math.max(a, b);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see fr.nantes1900.models.basis.AbstractGrid#returnBestDistance()
+     */
+    @Override
+    protected final double returnBestDistance() {
+        return Math.sqrt(this.bestSquaredDistance);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see fr.nantes1900.models.basis.AbstractGrid#visit(int)
+     */
+    @Override
+    protected final void visit(final int point) {
+        if (this.removed[point] || !this.isProjectedInside(point)) {
+            return;
+        }
+        double squaredDistance = 0;
+        for (int i = 0; i < PointGrid.AXIS; i++) {
+            final double d = this.coordinates[point * PointGrid.AXIS + i]
+                    - this.query[i];
+            squaredDistance += d * d;
+        }
+        if (squaredDistance < this.bestSquaredDistance
+                || (squaredDistance == this.bestSquaredDistance
+                        && point < this.bestPoint)) {
+            this.bestSquaredDistance = squaredDistance;
+            this.bestPoint = point;
+        }
+    }
+
+    /**
+     * Checks if the projection of a point on the edge of the current search
+     * is inside the edge and different from its ends, with the computation
+     * of Edge.project and the comparison of Point.equals.
+     * @param point
+     *            the index of the point
+     * @return true if the projection is inside the edge
+     */
+    private boolean isProjectedInside(final int point) {
+        final int offset = point * PointGrid.AXIS;
+        double lambda = 0;
+        for (int i = 0; i < PointGrid.AXIS; i++) {
+            lambda += (this.coordinates[offset + i] - this.edge[i])
+                    * (this.edge[PointGrid.AXIS + i] - this.edge[i]);
+        }
+        lambda /= this.squaredLength;
+        if (!(lambda > 0 && lambda < 1)) {
+            return false;
+        }
+
+        boolean equalsP1 = true;
+        boolean equalsP2 = true;
+        for (int i = 0; i < PointGrid.AXIS; i++) {
+            final float projection = (float) (lambda
+                    * (this.edge[PointGrid.AXIS + i] - this.edge[i])
+                    + this.edge[i]);
+            equalsP1 &= projection == (float) this.edge[i];
+            equalsP2 &= projection == (float) this.edge[PointGrid.AXIS + i];
+        }
+        return !equalsP1 && !equalsP2;
+    }
+}
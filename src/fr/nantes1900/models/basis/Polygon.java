@@ -4,11 +4,15 @@ import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.vecmath.Vector3d;
 
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+
 import fr.nantes1900.utils.IPointsAsCoordinates;
 
 /**
@@ -18,9 +22,17 @@ import fr.nantes1900.utils.IPointsAsCoordinates;
 public class Polygon implements IPointsAsCoordinates {
 
     /**
-     * ID counter.
+     * ID counter. Atomic because the polygons can be created by several
+     * threads.
      */
-    private static int currentID;
+    private static final AtomicInteger CURRENT_ID = new AtomicInteger();
+
+    /**
+     * The factory of the JTS geometries, shared by every polygon : it cannot
+     * be modified, and can be used by several threads.
+     */
+    public static final GeometryFactory GEOMETRY_FACTORY =
+            new GeometryFactory();
 
     /**
      * List of the points of the polyline.
@@ -42,11 +54,24 @@ public class Polygon implements IPointsAsCoordinates {
      */
     private final int iD;
 
+    /**
+     * The coordinates of the JTS polygon kept, null if there is none.
+     */
+    private Coordinate[] jtsCoordinates;
+    /**
+     * The JTS polygon kept, null if there is none.
+     */
+    private com.vividsolutions.jts.geom.Polygon jtsPolygon;
+    /**
+     * The prepared JTS polygon kept, null if it has not been prepared.
+     */
+    private PreparedGeometry jtsPrepared;
+
     /**
      * Void constructor.
      */
     public Polygon() {
-        this.iD = ++Polygon.currentID;
+        this.iD = Polygon.CURRENT_ID.incrementAndGet();
     }
 
     /**
@@ -69,7 +94,7 @@ public class Polygon implements IPointsAsCoordinates {
             }
         }
 
-        this.iD = ++Polygon.currentID;
+        this.iD = Polygon.CURRENT_ID.incrementAndGet();
     }
 
     /**
@@ -129,6 +154,7 @@ public class Polygon implements IPointsAsCoordinates {
     public final void add(final Point p) {
         if (!this.pointList.contains(p)) {
             this.pointList.add(p);
+            this.clearJts();
         }
     }
 
@@ -159,6 +185,7 @@ public class Polygon implements IPointsAsCoordinates {
         for (final Point p : this.pointList) {
             p.changeBase(matrix);
         }
+        this.clearJts();
     }
 
     /**
@@ -167,6 +194,7 @@ public class Polygon implements IPointsAsCoordinates {
     public final void clear() {
         this.edgeList.clear();
         this.pointList.clear();
+        this.clearJts();
     }
 
     /**
@@ -827,10 +855,7 @@ public class Polygon implements IPointsAsCoordinates {
      */
     public final boolean containsWithJts(
             final com.vividsolutions.jts.geom.Polygon containedJts) {
-        com.vividsolutions.jts.geom.Polygon containerJts = this
-                .convertPolygonToJts();
-
-        return containerJts.contains(containedJts);
+        return this.returnPreparedJts().contains(containedJts);
     }
 
     /**
@@ -840,30 +865,81 @@ public class Polygon implements IPointsAsCoordinates {
      * @return true if this contains, false otherwise
      */
     public final boolean containsWithJts(final Polygon contained) {
-        com.vividsolutions.jts.geom.Polygon containerJts = this
-                .convertPolygonToJts();
-
-        return containerJts.contains(contained.convertPolygonToJts());
+        return this.returnPreparedJts().contains(
+                contained.convertPolygonToJts());
     }
 
     /**
-     * Convert the polygon to a polygon in JTS.
+     * Convert the polygon to a polygon in JTS, projected on the plane (x, y).
+     * The JTS polygon is kept until the polygon or its points are modified :
+     * it must not be modified.
      * @return a JTS Polygon
      */
     public final com.vividsolutions.jts.geom.Polygon convertPolygonToJts() {
+        if (this.isJtsValid()) {
+            return this.jtsPolygon;
+        }
+
         List<Coordinate> coords = new ArrayList<>();
         for (Point p : this.getPointList()) {
             coords.add(new Coordinate(p.getX(), p.getY()));
         }
 
-        GeometryFactory geom = new GeometryFactory();
         // A linear ring coordinates first and last point should be the same
         Coordinate[] coordsJts = new Coordinate[coords.size() + 1];
         coords.toArray(coordsJts);
         coordsJts[coords.size()] = coordsJts[0];
 
-        return new com.vividsolutions.jts.geom.Polygon(
-                geom.createLinearRing(coordsJts), null, geom);
+        this.jtsPolygon = new com.vividsolutions.jts.geom.Polygon(
+                Polygon.GEOMETRY_FACTORY.createLinearRing(coordsJts), null,
+                Polygon.GEOMETRY_FACTORY);
+        this.jtsCoordinates = coordsJts;
+        this.jtsPrepared = null;
+        return this.jtsPolygon;
+    }
+
+    /**
+     * Returns the JTS polygon prepared for the repeated tests : it indexes its
+     * edges the first time it is used. It is kept like the JTS polygon.
+     * @return the prepared JTS polygon
+     */
+    public final PreparedGeometry returnPreparedJts() {
+        com.vividsolutions.jts.geom.Polygon polygon = this
+                .convertPolygonToJts();
+        if (this.jtsPrepared == null) {
+            this.jtsPrepared = PreparedGeometryFactory.prepare(polygon);
+        }
+        return this.jtsPrepared;
+    }
+
+    /**
+     * Checks if the JTS polygon kept can still be used : the points can be
+     * moved or the list of points modified without calling this class, then
+     * their coordinates are compared with the ones of the JTS polygon.
+     * @return true if the JTS polygon kept has the coordinates of the points
+     */
+    private boolean isJtsValid() {
+        if (this.jtsPolygon == null
+                || this.jtsCoordinates.length != this.pointList.size() + 1) {
+            return false;
+        }
+        for (int i = 0; i < this.pointList.size(); i++) {
+            Point p = this.pointList.get(i);
+            if (p.getX() != this.jtsCoordinates[i].x
+                    || p.getY() != this.jtsCoordinates[i].y) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the JTS polygon kept, after a modification.
+     */
+    private void clearJts() {
+        this.jtsPolygon = null;
+        this.jtsCoordinates = null;
+        this.jtsPrepared = null;
     }
 
     /**
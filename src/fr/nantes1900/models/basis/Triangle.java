@@ -93,15 +93,20 @@ public class Triangle implements IPointsAsCoordinates {
 
     /**
      * Adds a mesh to the attribute list of the meshes containing this triangle.
+     * The meshes are compared by reference : two different meshes containing
+     * the same triangles are both kept. Synchronized because a triangle of the
+     * noise can be added to meshes of several buildings treated in parallel.
      * @param mesh
      *            the mesh to add
      * @return true if it was correctly added
      */
-    public final boolean add(final Mesh mesh) {
-        if (!this.meshes.contains(mesh)) {
-            return this.meshes.add(mesh);
+    public final synchronized boolean add(final Mesh mesh) {
+        for (Mesh m : this.meshes) {
+            if (m == mesh) {
+                return false;
+            }
         }
-        return false;
+        return this.meshes.add(mesh);
     }
 
     /**
@@ -704,7 +709,7 @@ public class Triangle implements IPointsAsCoordinates {
      * which contain it.
      */
     public final void synchronizeBeginning() {
-        for (Mesh m : this.meshes) {
+        for (Mesh m : this.returnMeshesCopy()) {
             m.remove(this);
         }
     }
@@ -714,19 +719,35 @@ public class Triangle implements IPointsAsCoordinates {
      * which have to contain it.
      */
     public final void synchronizeEnd() {
-        for (Mesh m : this.meshes) {
+        for (Mesh m : this.returnMeshesCopy()) {
             m.add(this);
         }
     }
 
+    /**
+     * Copies the list of the meshes containing this triangle, with the lock of
+     * add and remove : the copy can be iterated while another thread adds
+     * this triangle to a mesh.
+     * @return the copy of the list
+     */
+    private synchronized List<Mesh> returnMeshesCopy() {
+        return new ArrayList<>(this.meshes);
+    }
+
     /**
      * Removes a mesh from the attribute list of meshes.
      * @param mesh
      *            the mesh
      * @return true if it was done correctly, false otherwise
      */
-    public final boolean remove(final Mesh mesh) {
-        return this.meshes.remove(mesh);
+    public final synchronized boolean remove(final Mesh mesh) {
+        for (int i = 0; i < this.meshes.size(); i++) {
+            if (this.meshes.get(i) == mesh) {
+                this.meshes.remove(i);
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -1,7 +1,9 @@
 package fr.nantes1900.models.coefficients;
 
+import fr.nantes1900.models.decimation.DecimationTarget;
+
 /**
- * Contains one coefficient for the decimation.
+ * Contains the coefficients for the decimation.
  * @author Daniel Lefevre
  */
 public final class Decimation {
@@ -17,6 +19,47 @@ public final class Decimation {
      */
     private static double percentDecimation = PERCENT_DECIMATION;
 
+    /**
+     * The default value of the maximal error : not used.
+     */
+    private static final double MAX_ERROR = DecimationTarget.NO_MAX_ERROR;
+
+    /**
+     * Maximal quadric error of a collapse in the decimation : the decimation
+     * stops before the first collapse costing more. Negative if not used.
+     */
+    private static double maxError = MAX_ERROR;
+
+    /**
+     * The default number of triangles : not used.
+     */
+    private static final double TRIANGLES = 0;
+
+    /**
+     * Number of triangles kept by the decimation, if greater than the
+     * percentage. 0 if not used.
+     */
+    private static double triangles = TRIANGLES;
+
+    /**
+     * The default density : not used.
+     */
+    private static final double TRIANGLES_PER_HECTARE = 0;
+
+    /**
+     * Number of triangles kept by the decimation per hectare of grounds, if
+     * greater than the percentage. 0 if not used.
+     */
+    private static double trianglesPerHectare = TRIANGLES_PER_HECTARE;
+
+    /**
+     * The default number of cells along each axis decimated at the same time
+     * by the decimation of the grounds : with 1, the grounds are decimated on
+     * one thread. The number of cells is only given by the ProcessParameters
+     * of each islet.
+     */
+    public static final int CELLS = 1;
+
     /**
      * Private constructor.
      */
@@ -39,4 +82,56 @@ public final class Decimation {
     public static void setPercentDecimation(final double percentDecimationIn) {
         Decimation.percentDecimation = percentDecimationIn;
     }
+
+    /**
+     * Getter.
+     * @return the maximal error, negative if not used
+     */
+    public static double getMaxError() {
+        return maxError;
+    }
+
+    /**
+     * Setter.
+     * @param maxErrorIn
+     *            the maximal error, negative if not used
+     */
+    public static void setMaxError(final double maxErrorIn) {
+        Decimation.maxError = maxErrorIn;
+    }
+
+    /**
+     * Getter.
+     * @return the number of triangles kept, 0 if not used
+     */
+    public static double getTriangles() {
+        return triangles;
+    }
+
+    /**
+     * Setter.
+     * @param trianglesIn
+     *            the number of triangles kept, 0 if not used
+     */
+    public static void setTriangles(final double trianglesIn) {
+        Decimation.triangles = trianglesIn;
+    }
+
+    /**
+     * Getter.
+     * @return the number of triangles kept per hectare, 0 if not used
+     */
+    public static double getTrianglesPerHectare() {
+        return trianglesPerHectare;
+    }
+
+    /**
+     * Setter.
+     * @param trianglesPerHectareIn
+     *            the number of triangles kept per hectare, 0 if not used
+     */
+    public static void setTrianglesPerHectare(
+            final double trianglesPerHectareIn) {
+        Decimation.trianglesPerHectare = trianglesPerHectareIn;
+    }
 }
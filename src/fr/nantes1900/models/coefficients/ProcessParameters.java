@@ -0,0 +1,613 @@
+package fr.nantes1900.models.coefficients;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import fr.nantes1900.constants.TextsKeys;
+import fr.nantes1900.models.decimation.DecimationTarget;
+import fr.nantes1900.utils.MorphologicalGroundFilter;
+
+/**
+ * Contains every coefficient of the process of one islet. The object cannot be
+ * modified : each islet keeps the values it has been launched with, even if
+ * another islet is launched with other values at the same time. The static
+ * coefficients classes give the default values.
+ */
+public final class ProcessParameters {
+
+    /**
+     * The altitude error, used in the extraction of the grounds.
+     */
+    private final double altitureError;
+    /**
+     * The angle error, used in the extraction of the grounds.
+     */
+    private final double angleGroundError;
+    /**
+     * The large angle error, used in the extraction of the grounds.
+     */
+    private final double largeAngleGroundError;
+    /**
+     * The minimal size of a block of grounds.
+     */
+    private final double blockGroundsSizeError;
+    /**
+     * The size of the cells of the morphological extraction of the grounds,
+     * 0 if not used.
+     */
+    private final double groundCellSize;
+    /**
+     * The size of the largest window of the morphological extraction of the
+     * grounds.
+     */
+    private final double groundMaxWindow;
+    /**
+     * The slope of the terrain in the morphological extraction of the
+     * grounds.
+     */
+    private final double groundSlope;
+    /**
+     * The height threshold of the morphological extraction of the grounds.
+     */
+    private final double groundHeight;
+    /**
+     * The maximal height threshold of the morphological extraction of the
+     * grounds.
+     */
+    private final double groundMaxHeight;
+    /**
+     * The minimal size of a building.
+     */
+    private final double blockBuildingSize;
+    /**
+     * The angle error, used in the separation of the walls and the roofs.
+     */
+    private final double normalToError;
+    /**
+     * The large angle error, used in the treatment of the noise.
+     */
+    private final double largeAngleError;
+    /**
+     * The middle angle error, used in the merge of the surfaces.
+     */
+    private final double middleAngleError;
+    /**
+     * The planes error, used in the determination of the neighbours.
+     */
+    private final double planesError;
+    /**
+     * The angle error, used in the separation of the roofs.
+     */
+    private final double roofAngleError;
+    /**
+     * The minimal size of a roof.
+     */
+    private final double roofSizeError;
+    /**
+     * The angle error, used in the separation of the walls.
+     */
+    private final double wallAngleError;
+    /**
+     * The minimal size of a wall.
+     */
+    private final double wallSizeError;
+    /**
+     * The factor used to check if two surfaces are parallel in the
+     * simplification.
+     */
+    private final double isOrientedFactor;
+    /**
+     * The percentage of the triangles of the grounds kept by the decimation.
+     */
+    private final double percentDecimation;
+    /**
+     * The maximal quadric error of a collapse in the decimation, negative if
+     * not used.
+     */
+    private final double decimationMaxError;
+    /**
+     * The number of triangles of the grounds kept by the decimation, 0 if not
+     * used.
+     */
+    private final double decimationTriangles;
+    /**
+     * The number of triangles of the grounds kept per hectare by the
+     * decimation, 0 if not used.
+     */
+    private final double decimationDensity;
+    /**
+     * The number of cells along each axis decimated at the same time by the
+     * decimation of the grounds.
+     */
+    private final double decimationCells;
+
+    /**
+     * Constructor. Takes the current values of the static coefficients.
+     */
+    public ProcessParameters() {
+        this(new Properties());
+    }
+
+    /**
+     * Constructor from properties, as saved by the parameters panel. The keys
+     * are the ones of TextsKeys. The coefficients which are not in the
+     * properties take the current values of the static coefficients.
+     * @param properties
+     *            the properties
+     * @throws NumberFormatException
+     *             if a value is not a number
+     */
+    public ProcessParameters(final Properties properties) {
+        this.altitureError = ProcessParameters.read(properties,
+                TextsKeys.KEY_ALTITUDEERROR,
+                SeparationGroundBuilding.getAltitureError());
+        this.angleGroundError = ProcessParameters.read(properties,
+                TextsKeys.KEY_ANGLEGROUNDERROR,
+                SeparationGroundBuilding.getAngleGroundError());
+        this.largeAngleGroundError = ProcessParameters.read(properties,
+                TextsKeys.KEY_LARGEANGLEGROUNDERROR,
+                SeparationGroundBuilding.getLargeAngleGroundError());
+        this.blockGroundsSizeError = ProcessParameters.read(properties,
+                TextsKeys.KEY_BLOCKGROUNDSSIZEERROR,
+                SeparationGroundBuilding.getBlockGroundsSizeError());
+        this.groundCellSize = ProcessParameters.read(properties,
+                TextsKeys.KEY_GROUNDCELLSIZE,
+                SeparationGroundBuilding.getCellSize());
+        this.groundMaxWindow = ProcessParameters.read(properties,
+                TextsKeys.KEY_GROUNDMAXWINDOW,
+                SeparationGroundBuilding.getMaxWindow());
+        this.groundSlope = ProcessParameters.read(properties,
+                TextsKeys.KEY_GROUNDSLOPE,
+                SeparationGroundBuilding.getSlope());
+        this.groundHeight = ProcessParameters.read(properties,
+                TextsKeys.KEY_GROUNDHEIGHT,
+                SeparationGroundBuilding.getHeight());
+        this.groundMaxHeight = ProcessParameters.read(properties,
+                TextsKeys.KEY_GROUNDMAXHEIGHT,
+                SeparationGroundBuilding.getMaxHeight());
+        this.blockBuildingSize = ProcessParameters.read(properties,
+                TextsKeys.KEY_BLOCKBUILDINGSIZE,
+                SeparationBuildings.getBlockBuildingSize());
+        this.normalToError = ProcessParameters.read(properties,
+                TextsKeys.KEY_NORMALTOERROR,
+                SeparationWallRoof.getNormalToError());
+        this.largeAngleError = ProcessParameters.read(properties,
+                TextsKeys.KEY_LARGEANGLEERROR,
+                SeparationWallsSeparationRoofs.getLargeAngleError());
+        this.middleAngleError = ProcessParameters.read(properties,
+                TextsKeys.KEY_MIDDLEANGLEERROR,
+                SeparationWallsSeparationRoofs.getMiddleAngleError());
+        this.planesError = ProcessParameters.read(properties,
+                TextsKeys.KEY_PLANESERROR,
+                SeparationWallsSeparationRoofs.getPlanesError());
+        this.roofAngleError = ProcessParameters.read(properties,
+                TextsKeys.KEY_ROOFANGLEERROR,
+                SeparationWallsSeparationRoofs.getRoofAngleError());
+        this.roofSizeError = ProcessParameters.read(properties,
+                TextsKeys.KEY_ROOFSIZEERROR,
+                SeparationWallsSeparationRoofs.getRoofSizeError());
+        this.wallAngleError = ProcessParameters.read(properties,
+                TextsKeys.KEY_WALLANGLEERROR,
+                SeparationWallsSeparationRoofs.getWallAngleError());
+        this.wallSizeError = ProcessParameters.read(properties,
+                TextsKeys.KEY_WALLSIZEERROR,
+                SeparationWallsSeparationRoofs.getWallSizeError());
+        this.isOrientedFactor = ProcessParameters.read(properties,
+                TextsKeys.KEY_ISORIENTEDFACTOR,
+                SimplificationSurfaces.getIsOrientedFactor());
+        this.percentDecimation = ProcessParameters.read(properties,
+                TextsKeys.KEY_DECIMATIONPERCENTAGE,
+                Decimation.getPercentDecimation());
+        this.decimationMaxError = ProcessParameters.read(properties,
+                TextsKeys.KEY_DECIMATIONMAXERROR, Decimation.getMaxError());
+        this.decimationTriangles = ProcessParameters.read(properties,
+                TextsKeys.KEY_DECIMATIONTRIANGLES, Decimation.getTriangles());
+        this.decimationDensity = ProcessParameters.read(properties,
+                TextsKeys.KEY_DECIMATIONDENSITY,
+                Decimation.getTrianglesPerHectare());
+        this.decimationCells = ProcessParameters.read(properties,
+                TextsKeys.KEY_DECIMATIONCELLS, Decimation.CELLS);
+    }
+
+    /**
+     * Reads one coefficient.
+     * @param properties
+     *            the properties
+     * @param key
+     *            the key of the coefficient
+     * @param defaultValue
+     *            the value to return if the coefficient is not in the
+     *            properties
+     * @return the value of the coefficient
+     */
+    private static double read(final Properties properties, final String key,
+            final double defaultValue) {
+        return Double.parseDouble(properties.getProperty(key,
+                String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Returns the coefficients as properties, with the keys of TextsKeys.
+     * @return the properties
+     */
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(TextsKeys.KEY_ALTITUDEERROR,
+                String.valueOf(this.altitureError));
+        properties.setProperty(TextsKeys.KEY_ANGLEGROUNDERROR,
+                String.valueOf(this.angleGroundError));
+        properties.setProperty(TextsKeys.KEY_LARGEANGLEGROUNDERROR,
+                String.valueOf(this.largeAngleGroundError));
+        properties.setProperty(TextsKeys.KEY_BLOCKGROUNDSSIZEERROR,
+                String.valueOf(this.blockGroundsSizeError));
+        properties.setProperty(TextsKeys.KEY_GROUNDCELLSIZE,
+                String.valueOf(this.groundCellSize));
+        properties.setProperty(TextsKeys.KEY_GROUNDMAXWINDOW,
+                String.valueOf(this.groundMaxWindow));
+        properties.setProperty(TextsKeys.KEY_GROUNDSLOPE,
+                String.valueOf(this.groundSlope));
+        properties.setProperty(TextsKeys.KEY_GROUNDHEIGHT,
+                String.valueOf(this.groundHeight));
+        properties.setProperty(TextsKeys.KEY_GROUNDMAXHEIGHT,
+                String.valueOf(this.groundMaxHeight));
+        properties.setProperty(TextsKeys.KEY_BLOCKBUILDINGSIZE,
+                String.valueOf(this.blockBuildingSize));
+        properties.setProperty(TextsKeys.KEY_NORMALTOERROR,
+                String.valueOf(this.normalToError));
+        properties.setProperty(TextsKeys.KEY_LARGEANGLEERROR,
+                String.valueOf(this.largeAngleError));
+        properties.setProperty(TextsKeys.KEY_MIDDLEANGLEERROR,
+                String.valueOf(this.middleAngleError));
+        properties.setProperty(TextsKeys.KEY_PLANESERROR,
+                String.valueOf(this.planesError));
+        properties.setProperty(TextsKeys.KEY_ROOFANGLEERROR,
+                String.valueOf(this.roofAngleError));
+        properties.setProperty(TextsKeys.KEY_ROOFSIZEERROR,
+                String.valueOf(this.roofSizeError));
+        properties.setProperty(TextsKeys.KEY_WALLANGLEERROR,
+                String.valueOf(this.wallAngleError));
+        properties.setProperty(TextsKeys.KEY_WALLSIZEERROR,
+                String.valueOf(this.wallSizeError));
+        properties.setProperty(TextsKeys.KEY_ISORIENTEDFACTOR,
+                String.valueOf(this.isOrientedFactor));
+        properties.setProperty(TextsKeys.KEY_DECIMATIONPERCENTAGE,
+                String.valueOf(this.percentDecimation));
+        properties.setProperty(TextsKeys.KEY_DECIMATIONMAXERROR,
+                String.valueOf(this.decimationMaxError));
+        properties.setProperty(TextsKeys.KEY_DECIMATIONTRIANGLES,
+                String.valueOf(this.decimationTriangles));
+        properties.setProperty(TextsKeys.KEY_DECIMATIONDENSITY,
+                String.valueOf(this.decimationDensity));
+        properties.setProperty(TextsKeys.KEY_DECIMATIONCELLS,
+                String.valueOf(this.decimationCells));
+        return properties;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ProcessParameters)) {
+            return false;
+        }
+        return Arrays.equals(this.returnValues(),
+                ((ProcessParameters) obj).returnValues());
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.returnValues());
+    }
+
+    /**
+     * Checks if two sets of coefficients have the same values for the
+     * coefficients used by one process.
+     * @param other
+     *            the other coefficients
+     * @param process
+     *            the number of the process, from 1 to 6
+     * @return true if the process would give the same result with both
+     */
+    public boolean sameValues(final ProcessParameters other,
+            final int process) {
+        return Arrays.equals(this.returnValues(process),
+                other.returnValues(process));
+    }
+
+    /**
+     * Returns the coefficients used by one process. The other coefficients
+     * do not change its result.
+     * @param process
+     *            the number of the process, from 1 to 6
+     * @return the array of the coefficients, empty if the process does not
+     *         use any
+     */
+    public double[] returnValues(final int process) {
+        switch (process) {
+        case 1:
+            return new double[] {
+                    this.altitureError, this.angleGroundError,
+                    this.largeAngleGroundError, this.blockGroundsSizeError,
+                    this.groundCellSize, this.groundMaxWindow,
+                    this.groundSlope, this.groundHeight, this.groundMaxHeight
+            };
+        case 2:
+            return new double[] {
+                this.blockBuildingSize
+            };
+        case 3:
+            return new double[] {
+                this.normalToError
+            };
+        case 4:
+            return new double[] {
+                    this.largeAngleError, this.middleAngleError,
+                    this.roofAngleError, this.roofSizeError,
+                    this.wallAngleError, this.wallSizeError
+            };
+        case 5:
+            return new double[] {
+                    this.planesError, this.isOrientedFactor
+            };
+        case 6:
+            return new double[] {
+                    this.percentDecimation, this.decimationMaxError,
+                    this.decimationTriangles, this.decimationDensity,
+                    this.decimationCells
+            };
+        default:
+            return new double[0];
+        }
+    }
+
+    /**
+     * Returns every coefficient in an array, in the order of the attributes.
+     * @return the array of the coefficients
+     */
+    private double[] returnValues() {
+        return new double[] {
+                this.altitureError, this.angleGroundError,
+                this.largeAngleGroundError, this.blockGroundsSizeError,
+                this.groundCellSize, this.groundMaxWindow, this.groundSlope,
+                this.groundHeight, this.groundMaxHeight,
+                this.blockBuildingSize, this.normalToError,
+                this.largeAngleError, this.middleAngleError, this.planesError,
+                this.roofAngleError, this.roofSizeError, this.wallAngleError,
+                this.wallSizeError, this.isOrientedFactor,
+                this.percentDecimation, this.decimationMaxError,
+                this.decimationTriangles, this.decimationDensity,
+                this.decimationCells
+        };
+    }
+
+    /**
+     * Getter.
+     * @return the altitude error
+     */
+    public double getAltitureError() {
+        return this.altitureError;
+    }
+
+    /**
+     * Getter.
+     * @return the angle error of the grounds
+     */
+    public double getAngleGroundError() {
+        return this.angleGroundError;
+    }
+
+    /**
+     * Getter.
+     * @return the large angle error of the grounds
+     */
+    public double getLargeAngleGroundError() {
+        return this.largeAngleGroundError;
+    }
+
+    /**
+     * Getter.
+     * @return the minimal size of a block of grounds
+     */
+    public double getBlockGroundsSizeError() {
+        return this.blockGroundsSizeError;
+    }
+
+    /**
+     * Getter.
+     * @return the size of the cells of the morphological extraction of the
+     *         grounds, 0 if not used
+     */
+    public double getGroundCellSize() {
+        return this.groundCellSize;
+    }
+
+    /**
+     * Getter.
+     * @return the size of the largest window of the morphological extraction
+     *         of the grounds
+     */
+    public double getGroundMaxWindow() {
+        return this.groundMaxWindow;
+    }
+
+    /**
+     * Getter.
+     * @return the slope of the morphological extraction of the grounds
+     */
+    public double getGroundSlope() {
+        return this.groundSlope;
+    }
+
+    /**
+     * Getter.
+     * @return the height threshold of the morphological extraction of the
+     *         grounds
+     */
+    public double getGroundHeight() {
+        return this.groundHeight;
+    }
+
+    /**
+     * Getter.
+     * @return the maximal height threshold of the morphological extraction of
+     *         the grounds
+     */
+    public double getGroundMaxHeight() {
+        return this.groundMaxHeight;
+    }
+
+    /**
+     * Getter.
+     * @return the minimal size of a building
+     */
+    public double getBlockBuildingSize() {
+        return this.blockBuildingSize;
+    }
+
+    /**
+     * Getter.
+     * @return the normal to error
+     */
+    public double getNormalToError() {
+        return this.normalToError;
+    }
+
+    /**
+     * Getter.
+     * @return the large angle error
+     */
+    public double getLargeAngleError() {
+        return this.largeAngleError;
+    }
+
+    /**
+     * Getter.
+     * @return the middle angle error
+     */
+    public double getMiddleAngleError() {
+        return this.middleAngleError;
+    }
+
+    /**
+     * Getter.
+     * @return the planes error
+     */
+    public double getPlanesError() {
+        return this.planesError;
+    }
+
+    /**
+     * Getter.
+     * @return the roof angle error
+     */
+    public double getRoofAngleError() {
+        return this.roofAngleError;
+    }
+
+    /**
+     * Getter.
+     * @return the minimal size of a roof
+     */
+    public double getRoofSizeError() {
+        return this.roofSizeError;
+    }
+
+    /**
+     * Getter.
+     * @return the wall angle error
+     */
+    public double getWallAngleError() {
+        return this.wallAngleError;
+    }
+
+    /**
+     * Getter.
+     * @return the minimal size of a wall
+     */
+    public double getWallSizeError() {
+        return this.wallSizeError;
+    }
+
+    /**
+     * Getter.
+     * @return the factor used to check if two surfaces are parallel
+     */
+    public double getIsOrientedFactor() {
+        return this.isOrientedFactor;
+    }
+
+    /**
+     * Getter.
+     * @return the percentage of the triangles kept by the decimation
+     */
+    public double getPercentDecimation() {
+        return this.percentDecimation;
+    }
+
+    /**
+     * Getter.
+     * @return the maximal quadric error of a collapse in the decimation,
+     *         negative if not used
+     */
+    public double getDecimationMaxError() {
+        return this.decimationMaxError;
+    }
+
+    /**
+     * Getter.
+     * @return the number of triangles kept by the decimation, 0 if not used
+     */
+    public double getDecimationTriangles() {
+        return this.decimationTriangles;
+    }
+
+    /**
+     * Getter.
+     * @return the number of triangles kept per hectare by the decimation, 0
+     *         if not used
+     */
+    public double getDecimationDensity() {
+        return this.decimationDensity;
+    }
+
+    /**
+     * Getter.
+     * @return the number of cells along each axis decimated at the same time
+     *         by the decimation of the grounds, at least 1
+     */
+    public int getDecimationCells() {
+        return Math.max(1, (int) this.decimationCells);
+    }
+
+    /**
+     * Returns the criteria stopping the decimation.
+     * @return the target of the decimation
+     */
+    public DecimationTarget returnDecimationTarget() {
+        return new DecimationTarget(this.percentDecimation,
+                this.decimationTriangles, this.decimationDensity,
+                this.decimationMaxError);
+    }
+
+    /**
+     * Returns the morphological filter extracting the grounds.
+     * @return the filter, or null if the grounds are extracted by blocks
+     */
+    public MorphologicalGroundFilter returnGroundFilter() {
+        if (this.groundCellSize <= 0) {
+            return null;
+        }
+        return new MorphologicalGroundFilter(this.groundCellSize,
+                this.groundMaxWindow, this.groundSlope, this.groundHeight,
+                this.groundMaxHeight);
+    }
+}
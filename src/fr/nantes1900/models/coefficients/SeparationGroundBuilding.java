@@ -53,6 +53,60 @@ public final class SeparationGroundBuilding {
      */
     private static double largeAngleGroundError = LARGE_ANGLE_GROUND_ERROR_DEFAULT;
 
+    /**
+     * Default value of the coefficient : the grounds are extracted by blocks.
+     */
+    private static final double CELL_SIZE_DEFAULT = 0;
+    /**
+     * Size of the cells of the grid of heights used by the morphological
+     * extraction of the grounds. If it is 0, the grounds are extracted by
+     * blocks of ground-oriented triangles. In the scale used in the files.
+     */
+    private static double cellSize = CELL_SIZE_DEFAULT;
+
+    /**
+     * Default value of the coefficient.
+     */
+    private static final double MAX_WINDOW_DEFAULT = 40;
+    /**
+     * Size of the largest window of the morphological extraction of the
+     * grounds : it must be larger than the buildings. In the scale used in
+     * the files.
+     */
+    private static double maxWindow = MAX_WINDOW_DEFAULT;
+
+    /**
+     * Default value of the coefficient.
+     */
+    private static final double SLOPE_DEFAULT = 0.3;
+    /**
+     * Maximal slope of the terrain in the morphological extraction of the
+     * grounds (0.3 for 30 %).
+     */
+    private static double slope = SLOPE_DEFAULT;
+
+    /**
+     * Default value of the coefficient.
+     */
+    private static final double HEIGHT_DEFAULT = 0.5;
+    /**
+     * Height above which a triangle is not a ground in the morphological
+     * extraction of the grounds, compared with the lowest point around it. In
+     * the scale used in the files.
+     */
+    private static double height = HEIGHT_DEFAULT;
+
+    /**
+     * Default value of the coefficient.
+     */
+    private static final double MAX_HEIGHT_DEFAULT = 3;
+    /**
+     * Maximal height of the objects taken as grounds in the morphological
+     * extraction of the grounds : it must be lower than the buildings. In the
+     * scale used in the files.
+     */
+    private static double maxHeight = MAX_HEIGHT_DEFAULT;
+
     /**
      * Private constructor.
      */
@@ -91,6 +145,47 @@ public final class SeparationGroundBuilding {
         return largeAngleGroundError;
     }
 
+    /**
+     * Getter.
+     * @return the size of the cells of the morphological extraction, 0 if not
+     *         used
+     */
+    public static double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Getter.
+     * @return the size of the largest window of the morphological extraction
+     */
+    public static double getMaxWindow() {
+        return maxWindow;
+    }
+
+    /**
+     * Getter.
+     * @return the slope of the morphological extraction
+     */
+    public static double getSlope() {
+        return slope;
+    }
+
+    /**
+     * Getter.
+     * @return the height of the morphological extraction
+     */
+    public static double getHeight() {
+        return height;
+    }
+
+    /**
+     * Getter.
+     * @return the maximal height of the morphological extraction
+     */
+    public static double getMaxHeight() {
+        return maxHeight;
+    }
+
     /**
      * Setter.
      * @param altitureErrorIn
@@ -129,4 +224,50 @@ public final class SeparationGroundBuilding {
         SeparationGroundBuilding.largeAngleGroundError = largeAngleGroundErrorIn;
     }
 
+    /**
+     * Setter.
+     * @param cellSizeIn
+     *            the new size of the cells, 0 to extract the grounds by
+     *            blocks
+     */
+    public static void setCellSize(final double cellSizeIn) {
+        SeparationGroundBuilding.cellSize = cellSizeIn;
+    }
+
+    /**
+     * Setter.
+     * @param maxWindowIn
+     *            the new size of the largest window
+     */
+    public static void setMaxWindow(final double maxWindowIn) {
+        SeparationGroundBuilding.maxWindow = maxWindowIn;
+    }
+
+    /**
+     * Setter.
+     * @param slopeIn
+     *            the new slope
+     */
+    public static void setSlope(final double slopeIn) {
+        SeparationGroundBuilding.slope = slopeIn;
+    }
+
+    /**
+     * Setter.
+     * @param heightIn
+     *            the new height
+     */
+    public static void setHeight(final double heightIn) {
+        SeparationGroundBuilding.height = heightIn;
+    }
+
+    /**
+     * Setter.
+     * @param maxHeightIn
+     *            the new maximal height
+     */
+    public static void setMaxHeight(final double maxHeightIn) {
+        SeparationGroundBuilding.maxHeight = maxHeightIn;
+    }
+
 }
@@ -0,0 +1,339 @@
+package fr.nantes1900.models.decimation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.vecmath.Vector3d;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+
+/**
+ * Implements a fast decimator, clustering the points in a grid of cubic
+ * cells : every point of a cell is replaced by one point, and the triangles
+ * having two points in the same cell are removed. The mesh is treated in one
+ * pass, but the result is rougher than the one of Decimator : it is made for
+ * the previews and the rough reductions. The point of a cell minimizes the
+ * quadric of its triangles, as in Decimator, or is the average of its points.
+ * The initial mesh is not modified.
+ */
+public class ClusteringDecimator {
+
+    /**
+     * Number of bits used by each coordinate of a cell in its key.
+     */
+    private static final int KEY_BITS = 21;
+
+    /**
+     * The mesh to decimate.
+     */
+    private final Mesh mesh;
+    /**
+     * The size of the cells.
+     */
+    private final double cellSize;
+    /**
+     * True to place the points with the quadrics, false to use the average.
+     */
+    private final boolean useQuadrics;
+
+    /**
+     * Constructor.
+     * @param initialMesh
+     *            the mesh to decimate
+     * @param cellSizeIn
+     *            the size of the cells : the points closer than it are
+     *            merged
+     * @param useQuadricsIn
+     *            true to place the points with the quadrics, false to use the
+     *            average of the points of each cell
+     */
+    public ClusteringDecimator(final Mesh initialMesh, final double cellSizeIn,
+            final boolean useQuadricsIn) {
+        this.mesh = initialMesh;
+        this.cellSize = cellSizeIn;
+        this.useQuadrics = useQuadricsIn;
+    }
+
+    /**
+     * Computes the size of the cells giving about a number of triangles,
+     * considering that the mesh is a ground : about two triangles per cell
+     * of its horizontal extent.
+     * @param mesh
+     *            the mesh to decimate
+     * @param triangles
+     *            the number of triangles wanted
+     * @return the size of the cells
+     */
+    public static double returnCellSize(final Mesh mesh, final int triangles) {
+        final double area = (mesh.xMax() - mesh.xMin())
+                * (mesh.yMax() - mesh.yMin());
+        if (area <= 0 || triangles <= 0) {
+            return Math.max(mesh.xMax() - mesh.xMin(), mesh.yMax()
+                    - mesh.yMin());
+        }
+        return Math.sqrt(2 * area / triangles);
+    }
+
+    /**
+     * Launches the decimation.
+     * @return a new mesh, containing new triangles
+     */
+    public final Mesh launchDecimation() {
+        final double xMin = this.mesh.xMin();
+        final double yMin = this.mesh.yMin();
+        final double zMin = this.mesh.zMin();
+
+        // 1. Puts each point in its cell.
+        final Map<Point, Integer> pointClusters = new IdentityHashMap<>();
+        final Map<Long, Integer> cellClusters = new HashMap<>();
+        final List<Cluster> clusters = new ArrayList<>();
+        for (Triangle t : this.mesh) {
+            for (Edge e : t.getEdges()) {
+                for (Point p : e.getPoints()) {
+                    if (!pointClusters.containsKey(p)) {
+                        final long key = this.returnKey(p, xMin, yMin, zMin);
+                        Integer cluster = cellClusters.get(Long.valueOf(key));
+                        if (cluster == null) {
+                            cluster = Integer.valueOf(clusters.size());
+                            cellClusters.put(Long.valueOf(key), cluster);
+                            clusters.add(new Cluster());
+                        }
+                        pointClusters.put(p, cluster);
+                        clusters.get(cluster.intValue()).addPoint(p);
+                    }
+                }
+            }
+        }
+
+        // 2. Adds the plane of each triangle to the quadrics of its cells.
+        final int[][] triangleClusters = new int[this.mesh.size()][];
+        int index = 0;
+        for (Triangle t : this.mesh) {
+            final int[] ids = new int[] {
+                    pointClusters.get(t.getP1()).intValue(),
+                    pointClusters.get(t.getP2()).intValue(),
+                    pointClusters.get(t.getP3()).intValue()
+            };
+            triangleClusters[index] = ids;
+            index++;
+
+            if (this.useQuadrics) {
+                final double a = t.getNormal().getX();
+                final double b = t.getNormal().getY();
+                final double c = t.getNormal().getZ();
+                final double d = -t.getP1().getX() * a - t.getP1().getY() * b
+                        - t.getP1().getZ() * c;
+                for (int id : ids) {
+                    clusters.get(id).getQuadric().addPlane(a, b, c, d);
+                }
+            }
+        }
+
+        // 3. Places the point of each cell.
+        for (Cluster cluster : clusters) {
+            cluster.placePoint(this.useQuadrics, this.cellSize);
+        }
+
+        // 4. Builds the triangles whose points are in three different cells,
+        // once.
+        final Map<Long, Edge> edges = new HashMap<>();
+        final Set<List<Integer>> built = new HashSet<>();
+        final List<Triangle> triangles = new ArrayList<>();
+        index = 0;
+        for (Triangle t : this.mesh) {
+            final int[] ids = triangleClusters[index];
+            index++;
+            final int[] sorted = ids.clone();
+            Arrays.sort(sorted);
+            if (sorted[0] != sorted[1] && sorted[1] != sorted[2]
+                    && built.add(Arrays.asList(sorted[0], sorted[1],
+                            sorted[2]))) {
+                final Triangle triangle = this.createTriangle(clusters, ids,
+                        edges, t.getNormal());
+                if (triangle != null) {
+                    triangles.add(triangle);
+                }
+            }
+        }
+
+        return new Mesh(triangles);
+    }
+
+    /**
+     * Returns the key of the cell containing a point.
+     * @param p
+     *            the point
+     * @param xMin
+     *            the minimal x of the mesh
+     * @param yMin
+     *            the minimal y of the mesh
+     * @param zMin
+     *            the minimal z of the mesh
+     * @return the key, unique for each cell
+     */
+    private long returnKey(final Point p, final double xMin,
+            final double yMin, final double zMin) {
+        final long mask = (1L << ClusteringDecimator.KEY_BITS) - 1;
+        final long x = (long) ((p.getX() - xMin) / this.cellSize) & mask;
+        final long y = (long) ((p.getY() - yMin) / this.cellSize) & mask;
+        final long z = (long) ((p.getZ() - zMin) / this.cellSize) & mask;
+        return (x << (2 * ClusteringDecimator.KEY_BITS))
+                | (y << ClusteringDecimator.KEY_BITS) | z;
+    }
+
+    /**
+     * Creates a triangle between the points of three cells, oriented like
+     * the initial triangle.
+     * @param clusters
+     *            the list of the cells
+     * @param ids
+     *            the indices of the three cells
+     * @param edges
+     *            the edges already created, by pair of cells
+     * @param initialNormal
+     *            the normal of the initial triangle
+     * @return the triangle, or null if its points are aligned
+     */
+    private Triangle createTriangle(final List<Cluster> clusters,
+            final int[] ids, final Map<Long, Edge> edges,
+            final Vector3d initialNormal) {
+        final Point p0 = clusters.get(ids[0]).getPoint();
+        final Point p1 = clusters.get(ids[1]).getPoint();
+        final Point p2 = clusters.get(ids[2]).getPoint();
+
+        final Vector3d normal = new Vector3d();
+        normal.cross(new Vector3d(p1.getX() - p0.getX(), p1.getY()
+                - p0.getY(), p1.getZ() - p0.getZ()), new Vector3d(p2.getX()
+                - p0.getX(), p2.getY() - p0.getY(), p2.getZ() - p0.getZ()));
+        if (normal.length() == 0) {
+            return null;
+        }
+        normal.normalize();
+        if (normal.dot(initialNormal) < 0) {
+            normal.negate();
+        }
+
+        return new Triangle(ClusteringDecimator.returnEdge(edges, clusters,
+                ids[0], ids[1]), ClusteringDecimator.returnEdge(edges,
+                clusters, ids[1], ids[2]), ClusteringDecimator.returnEdge(
+                edges, clusters, ids[2], ids[0]), normal);
+    }
+
+    /**
+     * Returns the edge between the points of two cells, creating it the
+     * first time.
+     * @param edges
+     *            the edges already created, by pair of cells
+     * @param clusters
+     *            the list of the cells
+     * @param id1
+     *            the index of the first cell
+     * @param id2
+     *            the index of the second cell
+     * @return the edge
+     */
+    private static Edge returnEdge(final Map<Long, Edge> edges,
+            final List<Cluster> clusters, final int id1, final int id2) {
+        final long min = Math.min(id1, id2);
+        final Long key = Long.valueOf((min << Integer.SIZE)
+                | Math.max(id1, id2));
+        Edge edge = edges.get(key);
+        if (edge == null) {
+            edge = new Edge(clusters.get(id1).getPoint(), clusters.get(id2)
+                    .getPoint());
+            edges.put(key, edge);
+        }
+        return edge;
+    }
+
+    /**
+     * The points of one cell.
+     */
+    private static final class Cluster {
+
+        /**
+         * The sum of the x of the points.
+         */
+        private double x;
+        /**
+         * The sum of the y of the points.
+         */
+        private double y;
+        /**
+         * The sum of the z of the points.
+         */
+        private double z;
+        /**
+         * The number of points.
+         */
+        private int count;
+        /**
+         * The quadric of the triangles of the points.
+         */
+        private final Quadric quadric = new Quadric();
+        /**
+         * The point replacing the points of the cell.
+         */
+        private Point point;
+
+        /**
+         * Adds a point to the cell.
+         * @param p
+         *            the point
+         */
+        public void addPoint(final Point p) {
+            this.x += p.getX();
+            this.y += p.getY();
+            this.z += p.getZ();
+            this.count++;
+        }
+
+        /**
+         * Computes the point replacing the points of the cell. The point
+         * minimizing the quadric is not used if it is too far from the
+         * average : the quadric can be badly conditioned.
+         * @param useQuadric
+         *            true to use the quadric, false to use the average
+         * @param cellSize
+         *            the size of the cells
+         */
+        public void placePoint(final boolean useQuadric,
+                final double cellSize) {
+            final Point average = new Point(this.x / this.count, this.y
+                    / this.count, this.z / this.count);
+            this.point = average;
+            if (useQuadric) {
+                final Point optimal = this.quadric.returnOptimalPoint(
+                        average, average);
+                if (optimal.distance(average) <= cellSize) {
+                    this.point = optimal;
+                }
+            }
+        }
+
+        /**
+         * Getter.
+         * @return the quadric of the cell
+         */
+        public Quadric getQuadric() {
+            return this.quadric;
+        }
+
+        /**
+         * Getter.
+         * @return the point replacing the points of the cell
+         */
+        public Point getPoint() {
+            return this.point;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package fr.nantes1900.models.decimation;
+
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Triangle;
+
+/**
+ * Contains the criteria stopping a decimation. The decimation stops as soon as
+ * one of them is reached : the number of triangles is lower than the
+ * percentage of the initial triangles, than the absolute number of triangles
+ * or than the density of triangles, or the next collapse would move the
+ * surface more than the maximal error. The criteria which are not used keep
+ * their default values. The object cannot be modified.
+ */
+public final class DecimationTarget {
+
+    /**
+     * Value of the maximal error when it is not used.
+     */
+    public static final double NO_MAX_ERROR = -1;
+
+    /**
+     * Number of square meters in one hectare.
+     */
+    private static final double SQUARE_METERS_PER_HECTARE = 10000;
+
+    /**
+     * The percentage of triangles to keep.
+     */
+    private final double percent;
+    /**
+     * The number of triangles to keep, 0 if not used.
+     */
+    private final double triangles;
+    /**
+     * The number of triangles to keep per hectare, 0 if not used.
+     */
+    private final double trianglesPerHectare;
+    /**
+     * The maximal quadric error of a collapse, negative if not used.
+     */
+    private final double maxError;
+
+    /**
+     * Constructor. Only keeps a percentage of the triangles.
+     * @param percentIn
+     *            the percentage of triangles to keep
+     */
+    public DecimationTarget(final double percentIn) {
+        this(percentIn, 0, 0, DecimationTarget.NO_MAX_ERROR);
+    }
+
+    /**
+     * Constructor.
+     * @param percentIn
+     *            the percentage of triangles to keep
+     * @param trianglesIn
+     *            the number of triangles to keep, 0 if not used
+     * @param trianglesPerHectareIn
+     *            the number of triangles to keep per hectare of the area of
+     *            the mesh projected on the plane (x, y), 0 if not used
+     * @param maxErrorIn
+     *            the maximal quadric error of a collapse : the edges costing
+     *            more are not collapsed, negative if not used
+     */
+    public DecimationTarget(final double percentIn, final double trianglesIn,
+            final double trianglesPerHectareIn, final double maxErrorIn) {
+        this.percent = percentIn;
+        this.triangles = trianglesIn;
+        this.trianglesPerHectare = trianglesPerHectareIn;
+        this.maxError = maxErrorIn;
+    }
+
+    /**
+     * Computes the number of triangles to keep in a mesh : the greatest of
+     * the percentage, the absolute number and the density, the first reached
+     * stopping the decimation.
+     * @param mesh
+     *            the mesh before the decimation
+     * @return the number of triangles
+     */
+    public double returnTriangles(final Mesh mesh) {
+        double target = this.percent / 100 * mesh.size();
+        target = Math.max(target, this.triangles);
+        if (this.trianglesPerHectare > 0) {
+            double area = 0;
+            for (Triangle t : mesh) {
+                area += t.computeArea() * Math.abs(t.getNormal().getZ());
+            }
+            target = Math.max(target, this.trianglesPerHectare * area
+                    / DecimationTarget.SQUARE_METERS_PER_HECTARE);
+        }
+        return target;
+    }
+
+    /**
+     * Checks if the error of the next collapse stops the decimation.
+     * @param error
+     *            the quadric error of the collapse
+     * @return true if there is a maximal error and the error is greater
+     */
+    public boolean isErrorReached(final double error) {
+        return this.maxError >= 0 && error > this.maxError;
+    }
+
+    /**
+     * Getter.
+     * @return the maximal quadric error of a collapse, negative if not used
+     */
+    public double getMaxError() {
+        return this.maxError;
+    }
+}
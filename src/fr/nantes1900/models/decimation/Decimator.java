@@ -5,48 +5,201 @@ import java.util.List;
 import fr.nantes1900.models.basis.Edge;
 import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.models.coefficients.Decimation;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
+import fr.nantes1900.utils.ProcessProgress;
 
 /**
  * Implements a decimator, following the Quadric Error Metrics algorithm, to
- * decimate a Mesh.
+ * decimate a Mesh. In the clustering mode, the mesh is decimated by a
+ * ClusteringDecimator instead : faster, but rougher, for the previews.
  * @author Daniel Lefèvre
  */
 public class Decimator {
 
+    /**
+     * Mode collapsing the edges by increasing quadric error.
+     */
+    public static final int EDGE_COLLAPSE = 0;
+
+    /**
+     * Mode merging the points in a grid of cells, with ClusteringDecimator.
+     */
+    public static final int CLUSTERING = 1;
+
+    /**
+     * Number of collapses between two updates of the progress.
+     */
+    private static final int COLLAPSES_BETWEEN_UPDATES = 100;
+
     /**
      * The mesh to decimate.
      */
+    private Mesh initial;
+
+    /**
+     * The mesh to decimate, prepared for the edge collapses, null in the
+     * clustering mode.
+     */
     private MeshDecimation mesh;
 
     /**
-     * Constructor.
+     * The mode of the decimation, EDGE_COLLAPSE or CLUSTERING.
+     */
+    private int mode;
+
+    /**
+     * The progress of the decimation.
+     */
+    private ProcessProgress progress;
+
+    /**
+     * The criteria stopping the decimation.
+     */
+    private DecimationTarget target;
+
+    /**
+     * The number of triangles before the decimation, set by prepare.
+     */
+    private int initialSize;
+
+    /**
+     * The number of triangles to keep, set by prepare.
+     */
+    private double triangleTarget;
+
+    /**
+     * Constructor. Keeps the percentage of triangles given by the static
+     * coefficient.
      * @param initialMesh
      *            the mesh to decimate.
      */
     public Decimator(final Mesh initialMesh) {
-        this.mesh = new MeshDecimation(initialMesh);
+        this(initialMesh, Decimation.getPercentDecimation(),
+                new ProcessProgress());
     }
 
     /**
-     * Launches the decimation.
+     * Constructor.
+     * @param initialMesh
+     *            the mesh to decimate.
+     * @param percentDecimationIn
+     *            the percentage of triangles to keep
+     * @param progressIn
+     *            the progress to update during the decimation
+     */
+    public Decimator(final Mesh initialMesh,
+            final double percentDecimationIn, final ProcessProgress progressIn) {
+        this(initialMesh, new DecimationTarget(percentDecimationIn),
+                progressIn);
+    }
+
+    /**
+     * Constructor.
+     * @param initialMesh
+     *            the mesh to decimate.
+     * @param targetIn
+     *            the criteria stopping the decimation
+     * @param progressIn
+     *            the progress to update during the decimation
+     */
+    public Decimator(final Mesh initialMesh, final DecimationTarget targetIn,
+            final ProcessProgress progressIn) {
+        this(initialMesh, targetIn, Decimator.EDGE_COLLAPSE, progressIn);
+    }
+
+    /**
+     * Constructor.
+     * @param initialMesh
+     *            the mesh to decimate.
+     * @param targetIn
+     *            the criteria stopping the decimation : the clustering mode
+     *            only follows the number of triangles
+     * @param modeIn
+     *            the mode of the decimation, EDGE_COLLAPSE or CLUSTERING
+     * @param progressIn
+     *            the progress to update during the decimation
+     */
+    public Decimator(final Mesh initialMesh, final DecimationTarget targetIn,
+            final int modeIn, final ProcessProgress progressIn) {
+        this.initial = initialMesh;
+        this.mode = modeIn;
+        if (modeIn == Decimator.EDGE_COLLAPSE) {
+            this.mesh = new MeshDecimation(initialMesh);
+        }
+        this.target = targetIn;
+        this.progress = progressIn;
+    }
+
+    /**
+     * Launches the decimation. In the edge collapse mode, the initial mesh is
+     * modified : if the decimation is canceled, it is left half decimated. In
+     * the clustering mode, the initial mesh is not modified.
      * @return the reference to the mesh (the same as the initial one)
-     *         decimated.
+     *         decimated, or a new mesh in the clustering mode.
+     * @throws ProcessCanceledException
+     *             if the progress has been canceled during the decimation
      */
-    public final Mesh launchDecimation() {
+    public final Mesh launchDecimation() throws ProcessCanceledException {
+        if (this.mode == Decimator.CLUSTERING) {
+            this.progress.checkCanceled();
+            final Mesh result = new ClusteringDecimator(this.initial,
+                    ClusteringDecimator.returnCellSize(this.initial,
+                            (int) this.target.returnTriangles(this.initial)),
+                    true).launchDecimation();
+            this.progress.update(1);
+            return result;
+        }
+        this.prepare();
+        return this.collapse();
+    }
 
-        int size = this.mesh.size();
+    /**
+     * Computes the matrices, the valid pairs and their errors, without
+     * modifying the mesh. Only in the edge collapse mode.
+     * @throws ProcessCanceledException
+     *             if the progress has been canceled
+     */
+    public final void prepare() throws ProcessCanceledException {
+        this.initialSize = this.mesh.size();
+        this.triangleTarget = this.target.returnTriangles(this.mesh);
 
         // 1. Compute the Qi matrices for each vi.
         this.mesh.computeQiMatrices();
+        this.progress.checkCanceled();
 
         // 2. Select all valid pairs.
         this.mesh.selectValidPairs();
+        this.progress.checkCanceled();
 
         // 3. Compute errors for all valid pairs.
         this.mesh.computeErrors();
+    }
+
+    /**
+     * Collapses the pairs until one of the criteria of the target is reached.
+     * The pairs are collapsed by increasing error : the decimation stops at
+     * the first pair costing more than the maximal error. To call after
+     * prepare, only in the edge collapse mode. The initial mesh is
+     * modified : if the decimation is canceled, it is left half decimated.
+     * @return the reference to the mesh decimated
+     * @throws ProcessCanceledException
+     *             if the progress has been canceled during the decimation
+     */
+    public final Mesh collapse() throws ProcessCanceledException {
+        final int size = this.initialSize;
+        final double target = this.triangleTarget;
+        int collapses = 0;
+
+        while (this.mesh.getEdgeNumber() != 0 && this.mesh.size() > target
+                && !this.target.isErrorReached(this.mesh
+                        .selectMinimalError())) {
 
-        while (this.mesh.getEdgeNumber() != 0
-                && this.mesh.size() > Decimation.getPercentDecimation()/100 * size) {
+            if (collapses % COLLAPSES_BETWEEN_UPDATES == 0) {
+                this.progress.checkCanceled();
+                this.progress.update((size - this.mesh.size())
+                        / (size - target));
+            }
+            collapses++;
 
             // 4. Sort valid pairs.
             Edge edge = this.mesh.selectMinimalErrorPair();
@@ -58,6 +211,7 @@ public class Decimator {
             // 6. Recomputes every errors.
             this.mesh.updateMatricesAndErrors(edges);
         }
+        this.progress.update(1);
 
         return this.mesh;
     }
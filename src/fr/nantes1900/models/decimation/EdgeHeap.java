@@ -0,0 +1,266 @@
+package fr.nantes1900.models.decimation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.nantes1900.models.basis.Edge;
+
+/**
+ * Implements a binary min-heap of edges sorted by their collapse error. The
+ * position of each edge in the heap is indexed, so that the error of one edge
+ * can be changed and one edge can be removed in a logarithmic time. The edges
+ * are compared by reference : their points, and then their hash codes, change
+ * during the decimation. Two edges having the same error are sorted by their
+ * order of insertion.
+ */
+public class EdgeHeap {
+
+    /**
+     * Initial capacity of the arrays.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The edges, as a binary tree : the children of i are 2i+1 and 2i+2.
+     */
+    private Edge[] edges = new Edge[EdgeHeap.INITIAL_CAPACITY];
+    /**
+     * The errors of the edges, at the same positions.
+     */
+    private double[] errors = new double[EdgeHeap.INITIAL_CAPACITY];
+    /**
+     * The orders of insertion of the edges, at the same positions.
+     */
+    private long[] orders = new long[EdgeHeap.INITIAL_CAPACITY];
+    /**
+     * The map which associates each edge with its position.
+     */
+    private final Map<Edge, Integer> positions = new IdentityHashMap<>();
+    /**
+     * The number of edges.
+     */
+    private int size = 0;
+    /**
+     * The order of insertion of the next edge.
+     */
+    private long nextOrder = 0;
+
+    /**
+     * Constructor.
+     */
+    public EdgeHeap() {
+    }
+
+    /**
+     * Adds an edge. If it is already in the heap, its error is changed.
+     * @param edge
+     *            the edge
+     * @param error
+     *            the collapse error of the edge
+     */
+    public final void add(final Edge edge, final double error) {
+        if (this.update(edge, error)) {
+            return;
+        }
+        if (this.size == this.edges.length) {
+            int capacity = this.size * 2;
+            this.edges = Arrays.copyOf(this.edges, capacity);
+            this.errors = Arrays.copyOf(this.errors, capacity);
+            this.orders = Arrays.copyOf(this.orders, capacity);
+        }
+        this.set(this.size, edge, error, this.nextOrder);
+        this.nextOrder++;
+        this.size++;
+        this.siftUp(this.size - 1);
+    }
+
+    /**
+     * Changes the error of an edge, if it is in the heap.
+     * @param edge
+     *            the edge
+     * @param error
+     *            the new collapse error of the edge
+     * @return true if the edge is in the heap, false otherwise
+     */
+    public final boolean update(final Edge edge, final double error) {
+        Integer position = this.positions.get(edge);
+        if (position == null) {
+            return false;
+        }
+        int i = position.intValue();
+        double previous = this.errors[i];
+        this.errors[i] = error;
+        if (error < previous) {
+            this.siftUp(i);
+        } else {
+            this.siftDown(i);
+        }
+        return true;
+    }
+
+    /**
+     * Removes an edge.
+     * @param edge
+     *            the edge
+     * @return true if the edge was in the heap, false otherwise
+     */
+    public final boolean remove(final Edge edge) {
+        Integer position = this.positions.remove(edge);
+        if (position == null) {
+            return false;
+        }
+        int i = position.intValue();
+        this.size--;
+        if (i != this.size) {
+            // Puts the last edge instead of the removed one.
+            this.set(i, this.edges[this.size], this.errors[this.size],
+                    this.orders[this.size]);
+            this.siftDown(i);
+            this.siftUp(i);
+        }
+        this.edges[this.size] = null;
+        return true;
+    }
+
+    /**
+     * Returns the edge which has the minimal error, without removing it.
+     * @return the edge, or null if the heap is empty
+     */
+    public final Edge peek() {
+        if (this.size == 0) {
+            return null;
+        }
+        return this.edges[0];
+    }
+
+    /**
+     * Returns the minimal error of the edges.
+     * @return the error of the edge returned by peek, or positive infinity
+     *         if the heap is empty
+     */
+    public final double peekError() {
+        if (this.size == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return this.errors[0];
+    }
+
+    /**
+     * Checks if an edge is in the heap.
+     * @param edge
+     *            the edge
+     * @return true if it is in the heap
+     */
+    public final boolean contains(final Edge edge) {
+        return this.positions.containsKey(edge);
+    }
+
+    /**
+     * Returns the number of edges.
+     * @return the number of edges in the heap
+     */
+    public final int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the edges of the heap, in no particular order.
+     * @return a new list containing the edges
+     */
+    public final List<Edge> returnEdges() {
+        return new ArrayList<>(Arrays.asList(this.edges).subList(0, this.size));
+    }
+
+    /**
+     * Checks if the edge at the position i must be before the edge at the
+     * position j.
+     * @param i
+     *            the first position
+     * @param j
+     *            the second position
+     * @return true if the edge i has a lower error than the edge j, or the
+     *         same error and has been inserted before
+     */
+    private boolean isBefore(final int i, final int j) {
+        if (this.errors[i] != this.errors[j]) {
+            return this.errors[i] < this.errors[j];
+        }
+        return this.orders[i] < this.orders[j];
+    }
+
+    /**
+     * Moves the edge at the position i up while it is before its parent.
+     * @param i
+     *            the position of the edge
+     */
+    private void siftUp(final int i) {
+        int child = i;
+        while (child > 0) {
+            int parent = (child - 1) / 2;
+            if (!this.isBefore(child, parent)) {
+                return;
+            }
+            this.swap(child, parent);
+            child = parent;
+        }
+    }
+
+    /**
+     * Moves the edge at the position i down while one of its children is
+     * before it.
+     * @param i
+     *            the position of the edge
+     */
+    private void siftDown(final int i) {
+        int parent = i;
+        int child = 2 * parent + 1;
+        while (child < this.size) {
+            if (child + 1 < this.size && this.isBefore(child + 1, child)) {
+                child++;
+            }
+            if (!this.isBefore(child, parent)) {
+                return;
+            }
+            this.swap(child, parent);
+            parent = child;
+            child = 2 * parent + 1;
+        }
+    }
+
+    /**
+     * Swaps the edges at two positions.
+     * @param i
+     *            the first position
+     * @param j
+     *            the second position
+     */
+    private void swap(final int i, final int j) {
+        Edge edge = this.edges[i];
+        double error = this.errors[i];
+        long order = this.orders[i];
+        this.set(i, this.edges[j], this.errors[j], this.orders[j]);
+        this.set(j, edge, error, order);
+    }
+
+    /**
+     * Puts an edge at a position.
+     * @param i
+     *            the position
+     * @param edge
+     *            the edge
+     * @param error
+     *            the error of the edge
+     * @param order
+     *            the order of insertion of the edge
+     */
+    private void set(final int i, final Edge edge, final double error,
+            final long order) {
+        this.edges[i] = edge;
+        this.errors[i] = error;
+        this.orders[i] = order;
+        this.positions.put(edge, Integer.valueOf(i));
+    }
+}
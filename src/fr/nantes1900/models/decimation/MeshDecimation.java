@@ -2,15 +2,14 @@ package fr.nantes1900.models.decimation;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.vecmath.Vector3d;
 
-import Jama.Matrix;
 import fr.nantes1900.models.basis.Edge;
 import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.models.basis.Point;
@@ -29,22 +28,18 @@ public class MeshDecimation extends Mesh {
     private static final long serialVersionUID = -6418895519215700898L;
 
     /**
-     * The map which associates each point with its qi matrix.
+     * The map which associates each point with its quadric.
      */
-    protected Map<Point, Matrix> mapPM = new HashMap<>();
+    protected Map<Point, Quadric> mapPM = new HashMap<>();
     /**
      * The map which associates each point with the triangles it belongs to.
      */
     protected Map<Point, List<Triangle>> mapPLT = new HashMap<>();
-    /**
-     * The map which associated each edge with the collapse error of this edge.
-     */
-    protected Map<Edge, Double> mapED = new HashMap<>();
 
     /**
-     * The current list of the edges which can be collapsed.
+     * The edges which can be collapsed, sorted by their collapse error.
      */
-    private List<Edge> currentEdges = new ArrayList<>();
+    private EdgeHeap currentEdges = new EdgeHeap();
 
     /**
      * Constructor. Builds the maps, by finding every triangle associated to
@@ -70,7 +65,9 @@ public class MeshDecimation extends Mesh {
                 }
             }
         }
-        this.currentEdges = this.getEdges();
+        for (Edge e : this.getEdges()) {
+            this.currentEdges.add(e, 0);
+        }
     }
 
     /**
@@ -202,10 +199,9 @@ public class MeshDecimation extends Mesh {
                     eMap.put(e1, e1);
                 } else if (e1 != e2) {
                     t.replace(e1, e2);
-                    // It removes two times because the mechanism of remove
-                    // in Lists is quite not perfect.
-                    this.currentEdges.remove(e1);
+                    // The two edges are not collapsed anymore.
                     this.currentEdges.remove(e1);
+                    this.currentEdges.remove(e2);
                 }
             }
         }
@@ -220,7 +216,7 @@ public class MeshDecimation extends Mesh {
 
     /**
      * Computes the error associated to the edge, following the rules of the
-     * algorithm. It puts the result in the Map of this class.
+     * algorithm. It updates the position of the edge in the heap.
      * @param edge
      *            the edge to compute error to
      */
@@ -228,22 +224,11 @@ public class MeshDecimation extends Mesh {
         Point p1 = edge.getP1();
         Point p2 = edge.getP2();
 
-        Matrix qplus = this.mapPM.get(p1).plus(this.mapPM.get(p2));
+        Quadric qplus = new Quadric(this.mapPM.get(p1), this.mapPM.get(p2));
+        Point vnew = qplus.returnOptimalPoint(p1, p2);
+        double error = qplus.evaluate(vnew.getX(), vnew.getY(), vnew.getZ());
 
-        Matrix mat = new Matrix(new double[][]{
-                {qplus.get(0, 0), qplus.get(1, 0), qplus.get(2, 0),
-                        qplus.get(3, 0)},
-                {qplus.get(0, 1), qplus.get(1, 1), qplus.get(2, 1),
-                        qplus.get(3, 1)},
-                {qplus.get(0, 2), qplus.get(1, 2), qplus.get(2, 2),
-                        qplus.get(3, 2)}, {0, 0, 0, 1}});
-
-        Matrix id = new Matrix(new double[][]{{0}, {0}, {0}, {1}});
-        Matrix vnew = mat.inverse().times(id);
-
-        Matrix qnew = vnew.transpose().times(qplus).times(vnew);
-
-        this.mapED.put(edge, new Double(qnew.get(0, 0)));
+        this.currentEdges.update(edge, error);
     }
 
     /**
@@ -257,30 +242,16 @@ public class MeshDecimation extends Mesh {
         Point p1 = edge.getP1();
         Point p2 = edge.getP2();
 
-        Matrix qplus = this.mapPM.get(p1).plus(this.mapPM.get(p2));
-
-        Matrix mat = new Matrix(new double[][]{
-                {qplus.get(0, 0), qplus.get(1, 0), qplus.get(2, 0),
-                        qplus.get(3, 0)},
-                {qplus.get(0, 1), qplus.get(1, 1), qplus.get(2, 1),
-                        qplus.get(3, 1)},
-                {qplus.get(0, 2), qplus.get(1, 2), qplus.get(2, 2),
-                        qplus.get(3, 2)}, {0, 0, 0, 1}});
-
-        Matrix id = new Matrix(new double[][]{{0}, {0}, {0}, {1}});
-        Matrix vnew = mat.inverse().times(id);
-
-        return new Point(vnew.get(0, 0), vnew.get(1, 0), vnew.get(2, 0));
+        return new Quadric(this.mapPM.get(p1), this.mapPM.get(p2))
+                .returnOptimalPoint(p1, p2);
     }
 
     /**
-     * Computes all the qi matrices for every point.
+     * Computes all the qi matrices for every point, once per point.
      */
     public final void computeQiMatrices() {
-        for (Triangle t : this) {
-            for (Point p : t.getPoints()) {
-                this.computeQiMatrix(p);
-            }
+        for (Point p : this.mapPLT.keySet()) {
+            this.computeQiMatrix(p);
         }
     }
 
@@ -291,7 +262,7 @@ public class MeshDecimation extends Mesh {
      *            the point to compute matrix to.
      */
     public final void computeQiMatrix(final Point point) {
-        Matrix qi = new Matrix(4, 4);
+        Quadric qi = new Quadric();
 
         for (Triangle tri : this.mapPLT.get(point)) {
             double a = tri.getNormal().getX();
@@ -300,11 +271,7 @@ public class MeshDecimation extends Mesh {
             double d = -tri.getP1().getX() * a - tri.getP1().getY() * b
                     - tri.getP1().getZ() * c;
 
-            Matrix kp = new Matrix(new double[][]{{a * a, a * b, a * c, a * d},
-                    {a * b, b * b, b * c, b * d}, {c * a, c * b, c * c, c * d},
-                    {d * a, d * b, d * c, d * d}});
-
-            qi.plusEquals(kp);
+            qi.addPlane(a, b, c, d);
         }
 
         this.mapPM.put(point, qi);
@@ -324,8 +291,16 @@ public class MeshDecimation extends Mesh {
      * @return the edge to collapse.
      */
     public final Edge selectMinimalErrorPair() {
-        Collections.sort(this.currentEdges, new Comp());
-        return this.currentEdges.get(0);
+        return this.currentEdges.peek();
+    }
+
+    /**
+     * Returns the error of the edge which will be collapsed.
+     * @return the minimal error of the edges, or positive infinity if there
+     *         is no edge left
+     */
+    public final double selectMinimalError() {
+        return this.currentEdges.peekError();
     }
 
     /**
@@ -334,13 +309,30 @@ public class MeshDecimation extends Mesh {
      * currentEdges.
      */
     public final void selectValidPairs() {
-        List<Edge> bounds = this.returnUnsortedBorders();
+        // Marks the points of the borders in one pass.
+        Set<Point> borderPoints = new HashSet<>();
+        for (Edge e : this.returnUnsortedBorders()) {
+            borderPoints.add(e.getP1());
+            borderPoints.add(e.getP2());
+        }
 
+        // The points have not been moved yet : the edges can be compared by
+        // their points.
+        Set<Edge> invalidEdges = new HashSet<>();
         for (Triangle t : this) {
-            for (Edge e : bounds) {
-                if (t.contains(e.getP1()) || t.contains(e.getP2())) {
-                    this.currentEdges.removeAll(t.getEdges());
-                }
+            boolean touchesBorder = false;
+            for (Edge e : t.getEdges()) {
+                touchesBorder = touchesBorder
+                        || borderPoints.contains(e.getP1())
+                        || borderPoints.contains(e.getP2());
+            }
+            if (touchesBorder) {
+                invalidEdges.addAll(t.getEdges());
+            }
+        }
+        for (Edge e : this.currentEdges.returnEdges()) {
+            if (invalidEdges.contains(e)) {
+                this.currentEdges.remove(e);
             }
         }
     }
@@ -349,7 +341,7 @@ public class MeshDecimation extends Mesh {
      * For each edges which can be collapsed, compute the error associated.
      */
     public final void computeErrors() {
-        for (Edge e : this.currentEdges) {
+        for (Edge e : this.currentEdges.returnEdges()) {
             this.computeError(e);
         }
     }
@@ -367,35 +359,4 @@ public class MeshDecimation extends Mesh {
             this.computeError(e);
         }
     }
-
-    /**
-     * Implements a comparator for two edges, considering the error associated.
-     * @author Daniel Lefèvre
-     */
-    private class Comp implements Comparator<Edge> {
-
-        /**
-         * Constructor.
-         */
-        public Comp() {
-        }
-
-        /*
-         * (non-Javadoc)
-         * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
-         */
-        @SuppressWarnings("boxing")
-        @Override
-        public int compare(final Edge o1, final Edge o2) {
-            if (MeshDecimation.this.mapED.get(o1) > MeshDecimation.this.mapED
-                    .get(o2)) {
-                return 1;
-            } else if (MeshDecimation.this.mapED.get(o1) < MeshDecimation.this.mapED
-                    .get(o2)) {
-                return -1;
-            } else {
-                return 0;
-            }
-        }
-    }
 }
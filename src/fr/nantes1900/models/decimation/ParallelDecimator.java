@@ -0,0 +1,332 @@
+package fr.nantes1900.models.decimation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
+import fr.nantes1900.utils.ProcessProgress;
+
+/**
+ * Implements a decimator cutting the mesh in a grid of cells, following the x
+ * and y axis, and decimating the cells at the same time with the Quadric Error
+ * Metrics algorithm. Each triangle belongs to the cell containing its center.
+ * The points on the borders of the cells are not moved : the decimation of a
+ * cell does not collapse the edges of the triangles touching its borders, so
+ * that the cells do not modify the same triangles and the mesh stays manifold.
+ * A last pass can then decimate the whole mesh, including the borders of the
+ * cells, to reach the number of triangles asked. The number of triangles of
+ * the target is computed on the whole mesh and shared between the cells, in
+ * proportion of their triangles. In the clustering mode of Decimator, the
+ * mesh is not cut : it is decimated in one pass.
+ */
+public class ParallelDecimator {
+
+    /**
+     * Part of the progress used by the decimation of the cells, if there is
+     * a last pass.
+     */
+    private static final double CELLS_PART = 0.8;
+
+    /**
+     * The mesh to decimate.
+     */
+    private final Mesh mesh;
+    /**
+     * The criteria stopping the decimation.
+     */
+    private final DecimationTarget target;
+    /**
+     * The number of cells along each axis.
+     */
+    private final int cells;
+    /**
+     * True if a last pass decimates the whole mesh after the cells.
+     */
+    private final boolean seamPass;
+    /**
+     * The mode of the decimation, Decimator.EDGE_COLLAPSE or
+     * Decimator.CLUSTERING.
+     */
+    private final int mode;
+    /**
+     * The progress of the decimation.
+     */
+    private final ProcessProgress progress;
+
+    /**
+     * Constructor.
+     * @param initialMesh
+     *            the mesh to decimate
+     * @param percentDecimationIn
+     *            the percentage of triangles to keep
+     * @param cellsIn
+     *            the number of cells along each axis : 1 decimates the whole
+     *            mesh on one thread
+     * @param seamPassIn
+     *            true to decimate the whole mesh after the cells, to reach
+     *            the percentage asked near the borders of the cells
+     * @param progressIn
+     *            the progress to update during the decimation
+     */
+    public ParallelDecimator(final Mesh initialMesh,
+            final double percentDecimationIn, final int cellsIn,
+            final boolean seamPassIn, final ProcessProgress progressIn) {
+        this(initialMesh, new DecimationTarget(percentDecimationIn), cellsIn,
+                seamPassIn, progressIn);
+    }
+
+    /**
+     * Constructor.
+     * @param initialMesh
+     *            the mesh to decimate
+     * @param targetIn
+     *            the criteria stopping the decimation
+     * @param cellsIn
+     *            the number of cells along each axis : 1 decimates the whole
+     *            mesh on one thread
+     * @param seamPassIn
+     *            true to decimate the whole mesh after the cells, to reach
+     *            the number of triangles asked near the borders of the cells
+     * @param progressIn
+     *            the progress to update during the decimation
+     */
+    public ParallelDecimator(final Mesh initialMesh,
+            final DecimationTarget targetIn, final int cellsIn,
+            final boolean seamPassIn, final ProcessProgress progressIn) {
+        this(initialMesh, targetIn, cellsIn, seamPassIn,
+                Decimator.EDGE_COLLAPSE, progressIn);
+    }
+
+    /**
+     * Constructor.
+     * @param initialMesh
+     *            the mesh to decimate
+     * @param targetIn
+     *            the criteria stopping the decimation
+     * @param cellsIn
+     *            the number of cells along each axis : 1 decimates the whole
+     *            mesh on one thread
+     * @param seamPassIn
+     *            true to decimate the whole mesh after the cells, to reach
+     *            the number of triangles asked near the borders of the cells
+     * @param modeIn
+     *            the mode of the decimation, Decimator.EDGE_COLLAPSE or
+     *            Decimator.CLUSTERING
+     * @param progressIn
+     *            the progress to update during the decimation
+     */
+    public ParallelDecimator(final Mesh initialMesh,
+            final DecimationTarget targetIn, final int cellsIn,
+            final boolean seamPassIn, final int modeIn,
+            final ProcessProgress progressIn) {
+        this.mesh = initialMesh;
+        this.target = targetIn;
+        this.cells = cellsIn;
+        this.seamPass = seamPassIn;
+        this.mode = modeIn;
+        this.progress = progressIn;
+    }
+
+    /**
+     * Launches the decimation. The triangles of the initial mesh are
+     * modified : if the decimation is canceled, they are left half
+     * decimated.
+     * @return the mesh decimated
+     * @throws ProcessCanceledException
+     *             if the progress has been canceled during the decimation
+     */
+    public final Mesh launchDecimation() throws ProcessCanceledException {
+        if (this.cells <= 1 || this.mesh.isEmpty()
+                || this.mode == Decimator.CLUSTERING) {
+            return new Decimator(this.mesh, this.target, this.mode,
+                    this.progress).launchDecimation();
+        }
+
+        final double triangles = this.target.returnTriangles(this.mesh);
+        double cellsPart = 1;
+        if (this.seamPass) {
+            cellsPart = ParallelDecimator.CELLS_PART;
+        }
+
+        List<Triangle> decimated = this.decimateCells(triangles,
+                this.progress.subProgress(0, cellsPart));
+        Mesh result = new Mesh(decimated);
+
+        if (this.seamPass && result.size() > triangles) {
+            // The borders of the cells have not been decimated.
+            result = new Decimator(result, new DecimationTarget(0, triangles,
+                    0, this.target.getMaxError()), this.progress.subProgress(
+                    cellsPart, 1)).launchDecimation();
+        }
+        this.progress.update(1);
+
+        return result;
+    }
+
+    /**
+     * Cuts the mesh in cells and decimates them at the same time. The pairs
+     * of every cell are selected before any cell is modified : the selection
+     * reads the triangles along the borders of the next cells.
+     * @param meshTriangles
+     *            the number of triangles to keep in the whole mesh
+     * @param cellsProgress
+     *            the progress to update each time a cell is decimated
+     * @return the triangles of every cell after the decimation
+     * @throws ProcessCanceledException
+     *             if the progress has been canceled during the decimation
+     */
+    private List<Triangle> decimateCells(final double meshTriangles,
+            final ProcessProgress cellsProgress)
+            throws ProcessCanceledException {
+        final List<Mesh> cellMeshes = this.cutInCells();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math
+                .max(1, Math.min(cellMeshes.size(), Runtime.getRuntime()
+                        .availableProcessors())));
+
+        try {
+            final List<Callable<Decimator>> preparations = new ArrayList<>();
+            for (final Mesh cell : cellMeshes) {
+                preparations.add(new Callable<Decimator>() {
+
+                    @Override
+                    public Decimator call() throws ProcessCanceledException {
+                        // The cells are decimated at the same time : only
+                        // the cancel is followed, the progress is updated
+                        // once each cell is done.
+                        Decimator decimator = new Decimator(cell,
+                                ParallelDecimator.this.returnCellTarget(cell,
+                                        meshTriangles), cellsProgress
+                                        .subProgress(0, 0));
+                        decimator.prepare();
+                        return decimator;
+                    }
+                });
+            }
+            final List<Future<Decimator>> prepared = ParallelDecimator
+                    .submitAll(executor, preparations);
+
+            final List<Callable<Mesh>> collapses = new ArrayList<>();
+            for (Future<Decimator> future : prepared) {
+                final Decimator decimator = ParallelDecimator.get(future);
+                collapses.add(new Callable<Mesh>() {
+
+                    @Override
+                    public Mesh call() throws ProcessCanceledException {
+                        return decimator.collapse();
+                    }
+                });
+            }
+            final List<Future<Mesh>> decimated = ParallelDecimator
+                    .submitAll(executor, collapses);
+
+            final List<Triangle> triangles = new ArrayList<>();
+            for (int i = 0; i < decimated.size(); i++) {
+                triangles.addAll(ParallelDecimator.get(decimated.get(i)));
+                cellsProgress.update((double) (i + 1) / decimated.size());
+            }
+            return triangles;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the criteria stopping the decimation of a cell : its part of
+     * the number of triangles of the whole mesh, and the same maximal error.
+     * @param cell
+     *            the triangles of the cell
+     * @param triangles
+     *            the number of triangles to keep in the whole mesh
+     * @return the criteria of the cell
+     */
+    private DecimationTarget returnCellTarget(final Mesh cell,
+            final double triangles) {
+        return new DecimationTarget(0, triangles * cell.size()
+                / this.mesh.size(), 0, this.target.getMaxError());
+    }
+
+    /**
+     * Submits some tasks to an executor.
+     * @param <T>
+     *            the type of the results
+     * @param executor
+     *            the executor
+     * @param tasks
+     *            the tasks
+     * @return the futures of the tasks, in the same order
+     */
+    private static <T> List<Future<T>> submitAll(
+            final ExecutorService executor, final List<Callable<T>> tasks) {
+        final List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        return futures;
+    }
+
+    /**
+     * Waits for the result of a task.
+     * @param <T>
+     *            the type of the result
+     * @param future
+     *            the future of the task
+     * @return the result
+     * @throws ProcessCanceledException
+     *             if the task has been canceled or interrupted
+     */
+    private static <T> T get(final Future<T> future)
+            throws ProcessCanceledException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ProcessCanceledException) {
+                throw (ProcessCanceledException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException();
+        }
+    }
+
+    /**
+     * Cuts the mesh in a grid of cells : each triangle is put in the cell
+     * containing its center.
+     * @return the list of the cells which are not empty
+     */
+    private List<Mesh> cutInCells() {
+        final double xMin = this.mesh.xMin();
+        final double yMin = this.mesh.yMin();
+        final double width = Math.max(this.mesh.xMax() - xMin,
+                Double.MIN_VALUE);
+        final double height = Math.max(this.mesh.yMax() - yMin,
+                Double.MIN_VALUE);
+
+        final List<List<Triangle>> grid = new ArrayList<>();
+        for (int i = 0; i < this.cells * this.cells; i++) {
+            grid.add(new ArrayList<Triangle>());
+        }
+        for (Triangle t : this.mesh) {
+            final int x = Math.min(this.cells - 1,
+                    (int) ((t.xAverage() - xMin) / width * this.cells));
+            final int y = Math.min(this.cells - 1,
+                    (int) ((t.yAverage() - yMin) / height * this.cells));
+            grid.get(y * this.cells + x).add(t);
+        }
+
+        final List<Mesh> cellMeshes = new ArrayList<>();
+        for (List<Triangle> triangles : grid) {
+            if (!triangles.isEmpty()) {
+                cellMeshes.add(new Mesh(triangles));
+            }
+        }
+        return cellMeshes;
+    }
+}
@@ -0,0 +1,168 @@
+package fr.nantes1900.models.decimation;
+
+import fr.nantes1900.models.basis.Point;
+
+/**
+ * Implements the quadric of a vertex in the Quadric Error Metrics algorithm :
+ * the sum of the squared distances to the planes of its triangles, as a
+ * symmetric 4x4 matrix. Only the 10 coefficients of the upper triangle are
+ * kept, and the optimal position of a collapse is computed by solving the 3x3
+ * system directly, without allocating matrices.
+ */
+public class Quadric {
+
+    /**
+     * Relative value under which the determinant of the system is considered
+     * null : the optimal position is then not unique.
+     */
+    private static final double SINGULAR_EPSILON = 1e-10;
+
+    /**
+     * The coefficient xx of the matrix.
+     */
+    private double xx;
+    /**
+     * The coefficient xy of the matrix.
+     */
+    private double xy;
+    /**
+     * The coefficient xz of the matrix.
+     */
+    private double xz;
+    /**
+     * The coefficient xw of the matrix.
+     */
+    private double xw;
+    /**
+     * The coefficient yy of the matrix.
+     */
+    private double yy;
+    /**
+     * The coefficient yz of the matrix.
+     */
+    private double yz;
+    /**
+     * The coefficient yw of the matrix.
+     */
+    private double yw;
+    /**
+     * The coefficient zz of the matrix.
+     */
+    private double zz;
+    /**
+     * The coefficient zw of the matrix.
+     */
+    private double zw;
+    /**
+     * The coefficient ww of the matrix.
+     */
+    private double ww;
+
+    /**
+     * Constructor. Builds a null quadric.
+     */
+    public Quadric() {
+    }
+
+    /**
+     * Constructor. Builds the sum of two quadrics.
+     * @param q1
+     *            the first quadric
+     * @param q2
+     *            the second quadric
+     */
+    public Quadric(final Quadric q1, final Quadric q2) {
+        this.xx = q1.xx + q2.xx;
+        this.xy = q1.xy + q2.xy;
+        this.xz = q1.xz + q2.xz;
+        this.xw = q1.xw + q2.xw;
+        this.yy = q1.yy + q2.yy;
+        this.yz = q1.yz + q2.yz;
+        this.yw = q1.yw + q2.yw;
+        this.zz = q1.zz + q2.zz;
+        this.zw = q1.zw + q2.zw;
+        this.ww = q1.ww + q2.ww;
+    }
+
+    /**
+     * Adds the quadric of a plane of equation ax + by + cz + d = 0.
+     * @param a
+     *            the coefficient a
+     * @param b
+     *            the coefficient b
+     * @param c
+     *            the coefficient c
+     * @param d
+     *            the coefficient d
+     */
+    public final void addPlane(final double a, final double b,
+            final double c, final double d) {
+        this.xx += a * a;
+        this.xy += a * b;
+        this.xz += a * c;
+        this.xw += a * d;
+        this.yy += b * b;
+        this.yz += b * c;
+        this.yw += b * d;
+        this.zz += c * c;
+        this.zw += c * d;
+        this.ww += d * d;
+    }
+
+    /**
+     * Computes the error of a position : the product vT Q v, with v = (x, y,
+     * z, 1).
+     * @param x
+     *            the x coordinate
+     * @param y
+     *            the y coordinate
+     * @param z
+     *            the z coordinate
+     * @return the error
+     */
+    public final double evaluate(final double x, final double y,
+            final double z) {
+        return this.xx * x * x + this.yy * y * y + this.zz * z * z + 2
+                * (this.xy * x * y + this.xz * x * z + this.yz * y * z) + 2
+                * (this.xw * x + this.yw * y + this.zw * z) + this.ww;
+    }
+
+    /**
+     * Computes the position which minimizes the error, solving the 3x3
+     * system with the Cramer's rule. If the system is singular (for example
+     * if the triangles are coplanar), the middle of the edge is returned.
+     * @param p1
+     *            the first point of the edge collapsed
+     * @param p2
+     *            the second point of the edge collapsed
+     * @return the new point
+     */
+    public final Point returnOptimalPoint(final Point p1, final Point p2) {
+        // Cofactors of the symmetric matrix.
+        final double c00 = this.yy * this.zz - this.yz * this.yz;
+        final double c01 = this.xz * this.yz - this.xy * this.zz;
+        final double c02 = this.xy * this.yz - this.xz * this.yy;
+        final double det = this.xx * c00 + this.xy * c01 + this.xz * c02;
+
+        final double scale = Math.max(this.xx, Math.max(this.yy, this.zz));
+        if (Math.abs(det) <= Quadric.SINGULAR_EPSILON * scale * scale * scale
+                || scale == 0) {
+            return new Point((p1.getX() + p2.getX()) / 2,
+                    (p1.getY() + p2.getY()) / 2,
+                    (p1.getZ() + p2.getZ()) / 2);
+        }
+
+        final double c11 = this.xx * this.zz - this.xz * this.xz;
+        final double c12 = this.xy * this.xz - this.xx * this.yz;
+        final double c22 = this.xx * this.yy - this.xy * this.xy;
+
+        // Solution of A v = -b, with the inverse of A = cofactors / det.
+        final double bx = -this.xw;
+        final double by = -this.yw;
+        final double bz = -this.zw;
+        final double x = (c00 * bx + c01 * by + c02 * bz) / det;
+        final double y = (c01 * bx + c11 * by + c12 * bz) / det;
+        final double z = (c02 * bx + c12 * by + c22 * bz) / det;
+        return new Point(x, y, z);
+    }
+}
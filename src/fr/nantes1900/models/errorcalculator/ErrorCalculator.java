@@ -4,13 +4,22 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.models.basis.Point;
 import fr.nantes1900.models.basis.Triangle;
 
 /**
- * Implements a calculator of the error between two meshes.
+ * Implements a calculator of the error between two meshes. The error sums,
+ * for each point of the mesh after simplification, its distance from the
+ * surface of the mesh before, divided by the area of its triangles. The
+ * closest points of the surface are found with a TriangleTree, by several
+ * threads at the same time.
  * @author Daniel Lefevre
  */
 public class ErrorCalculator {
@@ -23,6 +32,11 @@ public class ErrorCalculator {
      * The mesh after simplification.
      */
     private Mesh meshDecim;
+    /**
+     * The tree of the triangles of the mesh before simplification, built by
+     * computeError.
+     */
+    private TriangleTree tree;
 
     /**
      * The map associating each point with the triangles it belongs to.
@@ -42,31 +56,15 @@ public class ErrorCalculator {
     }
 
     /**
-     * Searches for the point in points which is the closest from p.
+     * Searches for the point of the surface of the mesh before simplification
+     * which is the closest from p : a vertex, or a point of an edge or inside
+     * a triangle. To call after computeError.
      * @param p
      *            the point
-     * @param points
-     *            the list of points
-     * @return the point from points which is the closest from p
+     * @return the closest point of the surface, or null if the mesh is empty
      */
-    public final Point
-            findClosestPoint(final Point p, final List<Point> points) {
-        Point s1 = p.getCloser(points);
-
-        List<Point> list = new ArrayList<>();
-
-        for (Triangle t : this.mapPLT.get(p)) {
-            Point proj = t.project(s1);
-            if (t.isInside(proj)) {
-                list.add(s1);
-            }
-        }
-
-        if (list.isEmpty()) {
-            return s1;
-        }
-
-        return p.getCloser(list);
+    public final Point findClosestPoint(final Point p) {
+        return this.tree.returnClosestPoint(p);
     }
 
     /**
@@ -87,16 +85,58 @@ public class ErrorCalculator {
             }
         }
 
-        List<Point> points = this.mesh.getPoints();
-        List<Point> pointsDecim = this.meshDecim.getPoints();
-
-        double error = 0;
+        this.tree = new TriangleTree(this.mesh);
+        final List<Point> pointsDecim = this.meshDecim.getPoints();
+
+        // Algorithm : the points are cut in one part per processor.
+        final int threads = Math.max(1, Math.min(pointsDecim.size(), Runtime
+                .getRuntime().availableProcessors()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Double>> parts = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final List<Point> part = pointsDecim.subList(i
+                        * pointsDecim.size() / threads, (i + 1)
+                        * pointsDecim.size() / threads);
+                parts.add(executor.submit(new Callable<Double>() {
+
+                    @Override
+                    public Double call() {
+                        return Double.valueOf(ErrorCalculator.this
+                                .computeError(part));
+                    }
+                }));
+            }
 
-        // Algorithm.
-        for (Point p : pointsDecim) {
-            error += p.distance(findClosestPoint(p, points)) / ponderation(p);
+            double error = 0;
+            for (Future<Double> part : parts) {
+                error += part.get().doubleValue();
+            }
+            return error;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdownNow();
         }
+    }
 
+    /**
+     * Computes the error of some points of the mesh after simplification.
+     * @param points
+     *            the points
+     * @return the sum of their errors
+     */
+    private double computeError(final List<Point> points) {
+        double error = 0;
+        for (Point p : points) {
+            Point closest = this.findClosestPoint(p);
+            if (closest != null) {
+                error += p.distance(closest) / this.ponderation(p);
+            }
+        }
         return error;
     }
 
@@ -1,16 +1,29 @@
 package fr.nantes1900.models.errorcalculator;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.utils.ParserSTL;
 
 /**
- * Tool to use the ErrorCalculator in command line.
+ * Tool to use the ErrorCalculator in command line. Usage : MainErrorCalculator
+ * reference model... [-samples number] [-bins number] [-output file]. The
+ * reference is the STL file of the mesh before simplification. Each model is
+ * a STL file of the simplified mesh, or class=file to give the class of its
+ * surfaces (for example wall=walls.stl roof=roofs.stl ground=grounds.stl).
+ * The tool writes a QualityReport in JSON, in the output file or on the
+ * standard output.
  * @author Daniel Lefevre
  */
 public final class MainErrorCalculator {
 
+    /**
+     * Name of the class of a model file given without class.
+     */
+    private static final String DEFAULT_CLASS = "model";
+
     /**
      * Private constructor.
      */
@@ -20,20 +33,117 @@ public final class MainErrorCalculator {
 
     /**
      * @param args
-     *            the files containing the two meshes : the mesh before
-     *            simplification first, and the simplified after
+     *            the files containing the meshes : the mesh before
+     *            simplification first, and the simplified ones after, and
+     *            the options
      * @throws IOException
-     *             if something wrong happened in the parsing.
+     *             if something wrong happened in the parsing or in the
+     *             writing.
      */
     public static void main(final String[] args) throws IOException {
-        ParserSTL parser = new ParserSTL(args[0]);
-        Mesh mesh = parser.read();
+        if (args.length < 2) {
+            MainErrorCalculator.printUsage();
+            return;
+        }
 
-        parser = new ParserSTL(args[1]);
-        Mesh meshDecim = parser.read();
+        Mesh mesh = new ParserSTL(args[0]).read();
+        Map<String, Mesh> model = new LinkedHashMap<>();
+        int samples = QualityReport.DEFAULT_SAMPLES;
+        int bins = QualityReport.DEFAULT_BINS;
+        String output = null;
 
-        ErrorCalculator eC = new ErrorCalculator(mesh, meshDecim);
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                case "-samples":
+                    i++;
+                    samples = MainErrorCalculator.parseCount(args, i);
+                    break;
+                case "-bins":
+                    i++;
+                    bins = MainErrorCalculator.parseCount(args, i);
+                    break;
+                case "-output":
+                    i++;
+                    output = MainErrorCalculator.readValue(args, i);
+                    break;
+                default:
+                    String name = MainErrorCalculator.DEFAULT_CLASS;
+                    String file = args[i];
+                    int separator = args[i].indexOf('=');
+                    if (separator != -1) {
+                        name = args[i].substring(0, separator);
+                        file = args[i].substring(separator + 1);
+                    }
+                    Mesh meshDecim = new ParserSTL(file).read();
+                    if (model.containsKey(name)) {
+                        model.get(name).addAll(meshDecim);
+                    } else {
+                        model.put(name, meshDecim);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid argument : " + e.getMessage());
+            MainErrorCalculator.printUsage();
+            return;
+        }
+        if (model.isEmpty()) {
+            MainErrorCalculator.printUsage();
+            return;
+        }
+
+        QualityReport report = new QualityReport(mesh, model, samples, bins);
+        report.compute();
+        if (output == null) {
+            System.out.print(report.toJson());
+        } else {
+            report.write(output);
+        }
+    }
 
-        System.out.println(eC.computeError());
+    /**
+     * Reads the value of an option.
+     * @param args
+     *            the arguments
+     * @param i
+     *            the index of the value
+     * @return the value
+     * @throws IllegalArgumentException
+     *             if the value is missing
+     */
+    private static String readValue(final String[] args, final int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(args[i - 1]);
+        }
+        return args[i];
+    }
+
+    /**
+     * Reads a positive number given as value of an option.
+     * @param args
+     *            the arguments
+     * @param i
+     *            the index of the value
+     * @return the number
+     * @throws IllegalArgumentException
+     *             if the value is missing or is not a positive number
+     */
+    private static int parseCount(final String[] args, final int i) {
+        String value = MainErrorCalculator.readValue(args, i);
+        int count = Integer.parseInt(value);
+        if (count < 1) {
+            throw new IllegalArgumentException(value);
+        }
+        return count;
+    }
+
+    /**
+     * Prints how to use the program.
+     */
+    private static void printUsage() {
+        System.err.println("Usage : MainErrorCalculator reference.stl"
+                + " [class=]model.stl... [-samples number] [-bins number]"
+                + " [-output file]");
     }
 }
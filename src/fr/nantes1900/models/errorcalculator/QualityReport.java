@@ -0,0 +1,620 @@
+package fr.nantes1900.models.errorcalculator;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+
+/**
+ * Implements a report of the deviation between a reference mesh and a model
+ * built from it, in both directions. Points are sampled uniformly on the
+ * surface of each mesh, and their distance from the surface of the other mesh
+ * is measured with a TriangleTree, by several threads at the same time. The
+ * report gives the symmetric Hausdorff distance, and for each direction the
+ * maximal, mean and RMS deviations and a histogram of the deviations. The
+ * model is given as several meshes, one per class of surfaces (walls, roofs,
+ * grounds...) : the deviations are also given by class. A point of the
+ * reference belongs to the class of the closest triangle of the model. The
+ * Hausdorff distance is estimated from the samples : it is more precise with
+ * more samples.
+ */
+public class QualityReport {
+
+    /**
+     * Default number of bins of the histograms.
+     */
+    public static final int DEFAULT_BINS = 20;
+    /**
+     * Default number of points sampled on each mesh.
+     */
+    public static final int DEFAULT_SAMPLES = 100000;
+    /**
+     * Seed of the sampling, so that the same meshes give the same report.
+     */
+    private static final long SEED = 1900;
+    /**
+     * Number of coordinates of a point.
+     */
+    private static final int AXIS = 3;
+
+    /**
+     * The reference mesh.
+     */
+    private final Mesh reference;
+    /**
+     * The meshes of the model, by class.
+     */
+    private final Map<String, Mesh> model;
+    /**
+     * The number of points sampled on each mesh.
+     */
+    private final int samples;
+    /**
+     * The number of bins of the histograms.
+     */
+    private final int bins;
+
+    /**
+     * The symmetric Hausdorff distance.
+     */
+    private double hausdorff;
+    /**
+     * The deviations of the reference from the model.
+     */
+    private Deviation referenceToModel;
+    /**
+     * The deviations of the model from the reference.
+     */
+    private Deviation modelToReference;
+    /**
+     * The deviations of the reference from the model, by class.
+     */
+    private final Map<String, Deviation> referenceToModelByClass =
+            new LinkedHashMap<>();
+    /**
+     * The deviations of the model from the reference, by class.
+     */
+    private final Map<String, Deviation> modelToReferenceByClass =
+            new LinkedHashMap<>();
+
+    /**
+     * Constructor.
+     * @param referenceIn
+     *            the reference mesh
+     * @param modelIn
+     *            the meshes of the model, by name of class
+     * @param samplesIn
+     *            the number of points sampled on each mesh
+     * @param binsIn
+     *            the number of bins of the histograms
+     */
+    public QualityReport(final Mesh referenceIn,
+            final Map<String, Mesh> modelIn, final int samplesIn,
+            final int binsIn) {
+        this.reference = referenceIn;
+        this.model = new LinkedHashMap<>(modelIn);
+        this.samples = samplesIn;
+        this.bins = binsIn;
+    }
+
+    /**
+     * Samples the meshes and measures the deviations.
+     */
+    public final void compute() {
+        // The triangles of the model, and their classes.
+        final List<String> classes = new ArrayList<>(this.model.keySet());
+        final List<Triangle> modelTriangles = new ArrayList<>();
+        final List<Integer> modelClasses = new ArrayList<>();
+        for (int i = 0; i < classes.size(); i++) {
+            for (Triangle t : this.model.get(classes.get(i))) {
+                modelTriangles.add(t);
+                modelClasses.add(Integer.valueOf(i));
+            }
+        }
+        final List<Triangle> referenceTriangles = new ArrayList<>(
+                this.reference);
+
+        final Samples referenceSamples = QualityReport.sample(
+                referenceTriangles, this.samples);
+        final Samples modelSamples = QualityReport.sample(modelTriangles,
+                this.samples);
+        QualityReport.measure(referenceSamples, new TriangleTree(
+                modelTriangles));
+        QualityReport.measure(modelSamples, new TriangleTree(
+                referenceTriangles));
+
+        this.hausdorff = Math.max(referenceSamples.returnMax(),
+                modelSamples.returnMax());
+        final double binWidth = this.hausdorff / this.bins;
+
+        this.referenceToModel = new Deviation(this.bins, binWidth);
+        this.modelToReference = new Deviation(this.bins, binWidth);
+        this.referenceToModelByClass.clear();
+        this.modelToReferenceByClass.clear();
+        for (String name : classes) {
+            this.referenceToModelByClass.put(name, new Deviation(this.bins,
+                    binWidth));
+            this.modelToReferenceByClass.put(name, new Deviation(this.bins,
+                    binWidth));
+        }
+
+        for (int i = 0; i < referenceSamples.size(); i++) {
+            final double distance = referenceSamples.distances[i];
+            this.referenceToModel.add(distance);
+            if (referenceSamples.closest[i] != -1) {
+                this.referenceToModelByClass.get(
+                        classes.get(modelClasses.get(
+                                referenceSamples.closest[i]).intValue())).add(
+                        distance);
+            }
+        }
+        for (int i = 0; i < modelSamples.size(); i++) {
+            final double distance = modelSamples.distances[i];
+            this.modelToReference.add(distance);
+            this.modelToReferenceByClass.get(
+                    classes.get(modelClasses.get(modelSamples.triangles[i])
+                            .intValue())).add(distance);
+        }
+    }
+
+    /**
+     * Samples points uniformly on the surface of some triangles : each
+     * triangle receives a number of points proportional to its area.
+     * @param triangles
+     *            the triangles
+     * @param count
+     *            the number of points to sample
+     * @return the points
+     */
+    private static Samples sample(final List<Triangle> triangles,
+            final int count) {
+        final double[] areas = new double[triangles.size()];
+        double total = 0;
+        for (int i = 0; i < areas.length; i++) {
+            final double area = triangles.get(i).computeArea();
+            // The formula of Heron can give NaN for the flat triangles.
+            if (area > 0) {
+                areas[i] = area;
+                total += area;
+            }
+        }
+
+        // Number of points of each triangle, rounding the cumulated areas so
+        // that the total is exact.
+        final int[] counts = new int[areas.length];
+        int size = 0;
+        double cumulated = 0;
+        for (int i = 0; i < areas.length && total > 0; i++) {
+            cumulated += areas[i];
+            final int reached = (int) Math.round(count * cumulated / total);
+            counts[i] = reached - size;
+            size = reached;
+        }
+
+        final Samples result = new Samples(size);
+        final Random random = new Random(QualityReport.SEED);
+        int index = 0;
+        for (int i = 0; i < counts.length; i++) {
+            final Point[] points = new Point[] {
+                    triangles.get(i).getP1(), triangles.get(i).getP2(),
+                    triangles.get(i).getP3()
+            };
+            for (int j = 0; j < counts[i]; j++) {
+                // Uniform barycentric coordinates.
+                final double r1 = Math.sqrt(random.nextDouble());
+                final double r2 = random.nextDouble();
+                final double[] weights = new double[] {
+                        1 - r1, r1 * (1 - r2), r1 * r2
+                };
+                for (int k = 0; k < points.length; k++) {
+                    final double[] coords = points[k]
+                            .getPointAsCoordinates();
+                    for (int axis = 0; axis < QualityReport.AXIS; axis++) {
+                        result.coordinates[index * QualityReport.AXIS + axis] +=
+                                weights[k] * coords[axis];
+                    }
+                }
+                result.triangles[index] = i;
+                index++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Measures the distance of every sample from a surface, cutting the
+     * samples in one part per processor.
+     * @param samplesIn
+     *            the samples, receiving the distances and the closest
+     *            triangles
+     * @param tree
+     *            the tree of the triangles of the surface
+     */
+    private static void measure(final Samples samplesIn,
+            final TriangleTree tree) {
+        final int size = samplesIn.size();
+        final int threads = Math.max(1, Math.min(size, Runtime.getRuntime()
+                .availableProcessors()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Void>> parts = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final int start = i * size / threads;
+                final int end = (i + 1) * size / threads;
+                parts.add(executor.submit(new Callable<Void>() {
+
+                    @Override
+                    public Void call() {
+                        samplesIn.measure(tree, start, end);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> part : parts) {
+                part.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the report in JSON.
+     * @return the JSON text
+     */
+    public final String toJson() {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n  \"hausdorff\": ");
+        QualityReport.appendNumber(json, this.hausdorff);
+        json.append(",\n  \"referenceToModel\": ");
+        this.referenceToModel.appendJson(json);
+        json.append(",\n  \"modelToReference\": ");
+        this.modelToReference.appendJson(json);
+        json.append(",\n  \"classes\": {");
+        boolean first = true;
+        for (String name : this.referenceToModelByClass.keySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("\n    ");
+            QualityReport.appendString(json, name);
+            json.append(": {\n      \"referenceToModel\": ");
+            this.referenceToModelByClass.get(name).appendJson(json);
+            json.append(",\n      \"modelToReference\": ");
+            this.modelToReferenceByClass.get(name).appendJson(json);
+            json.append("\n    }");
+        }
+        json.append("\n  }\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes the report in a JSON file.
+     * @param fileName
+     *            the name of the file
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public final void write(final String fileName) throws IOException {
+        final PrintWriter writer = new PrintWriter(new FileWriter(fileName));
+        try {
+            writer.print(this.toJson());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Appends a number in JSON : null if it is not a finite number.
+     * @param json
+     *            the JSON text
+     * @param value
+     *            the number
+     */
+    private static void appendNumber(final StringBuilder json,
+            final double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            json.append("null");
+        } else {
+            json.append(value);
+        }
+    }
+
+    /**
+     * Appends a string in JSON, escaping the quotes and the backslashes.
+     * @param json
+     *            the JSON text
+     * @param value
+     *            the string
+     */
+    private static void appendString(final StringBuilder json,
+            final String value) {
+        json.append('"')
+                .append(value.replace("\\", "\\\\").replace("\"", "\\\""))
+                .append('"');
+    }
+
+    /**
+     * Getter.
+     * @return the symmetric Hausdorff distance
+     */
+    public final double getHausdorff() {
+        return this.hausdorff;
+    }
+
+    /**
+     * Getter.
+     * @return the deviations of the reference from the model
+     */
+    public final Deviation getReferenceToModel() {
+        return this.referenceToModel;
+    }
+
+    /**
+     * Getter.
+     * @return the deviations of the model from the reference
+     */
+    public final Deviation getModelToReference() {
+        return this.modelToReference;
+    }
+
+    /**
+     * Returns the deviations of the reference from one class of the model.
+     * @param name
+     *            the name of the class
+     * @return the deviations of the points of the reference closer to this
+     *         class than to the other ones
+     */
+    public final Deviation returnReferenceToModel(final String name) {
+        return this.referenceToModelByClass.get(name);
+    }
+
+    /**
+     * Returns the deviations of one class of the model from the reference.
+     * @param name
+     *            the name of the class
+     * @return the deviations of the points of this class
+     */
+    public final Deviation returnModelToReference(final String name) {
+        return this.modelToReferenceByClass.get(name);
+    }
+
+    /**
+     * The statistics of some deviations.
+     */
+    public static final class Deviation {
+
+        /**
+         * The number of deviations.
+         */
+        private int count;
+        /**
+         * The sum of the deviations.
+         */
+        private double sum;
+        /**
+         * The sum of the squared deviations.
+         */
+        private double sumSquares;
+        /**
+         * The maximal deviation.
+         */
+        private double max;
+        /**
+         * The number of deviations in each bin of the histogram. The last
+         * bin contains the maximal deviation.
+         */
+        private final int[] histogram;
+        /**
+         * The width of the bins.
+         */
+        private final double binWidth;
+
+        /**
+         * Constructor.
+         * @param binsIn
+         *            the number of bins of the histogram
+         * @param binWidthIn
+         *            the width of the bins
+         */
+        public Deviation(final int binsIn, final double binWidthIn) {
+            this.histogram = new int[binsIn];
+            this.binWidth = binWidthIn;
+        }
+
+        /**
+         * Adds a deviation.
+         * @param deviation
+         *            the distance
+         */
+        public void add(final double deviation) {
+            this.count++;
+            this.sum += deviation;
+            this.sumSquares += deviation * deviation;
+            this.max = Math.max(this.max, deviation);
+            int bin = 0;
+            if (this.binWidth > 0) {
+                bin = Math.min(this.histogram.length - 1,
+                        (int) (deviation / this.binWidth));
+            }
+            this.histogram[bin]++;
+        }
+
+        /**
+         * Getter.
+         * @return the number of deviations
+         */
+        public int getCount() {
+            return this.count;
+        }
+
+        /**
+         * Returns the mean deviation.
+         * @return the mean, NaN if there is no deviation
+         */
+        public double returnMean() {
+            return this.sum / this.count;
+        }
+
+        /**
+         * Returns the root mean square of the deviations.
+         * @return the RMS, NaN if there is no deviation
+         */
+        public double returnRms() {
+            return Math.sqrt(this.sumSquares / this.count);
+        }
+
+        /**
+         * Getter.
+         * @return the maximal deviation
+         */
+        public double getMax() {
+            return this.max;
+        }
+
+        /**
+         * Getter.
+         * @return a copy of the number of deviations in each bin
+         */
+        public int[] getHistogram() {
+            return this.histogram.clone();
+        }
+
+        /**
+         * Getter.
+         * @return the width of the bins of the histogram
+         */
+        public double getBinWidth() {
+            return this.binWidth;
+        }
+
+        /**
+         * Appends the statistics in JSON.
+         * @param json
+         *            the JSON text
+         */
+        private void appendJson(final StringBuilder json) {
+            json.append("{\"samples\": ").append(this.count)
+                    .append(", \"max\": ");
+            QualityReport.appendNumber(json, this.max);
+            json.append(", \"mean\": ");
+            QualityReport.appendNumber(json, this.returnMean());
+            json.append(", \"rms\": ");
+            QualityReport.appendNumber(json, this.returnRms());
+            json.append(", \"binWidth\": ");
+            QualityReport.appendNumber(json, this.binWidth);
+            json.append(", \"histogram\": [");
+            for (int i = 0; i < this.histogram.length; i++) {
+                if (i > 0) {
+                    json.append(", ");
+                }
+                json.append(this.histogram[i]);
+            }
+            json.append("]}");
+        }
+    }
+
+    /**
+     * The points sampled on a mesh, and their distances from the other mesh.
+     */
+    private static final class Samples {
+
+        /**
+         * The coordinates of the points.
+         */
+        private final double[] coordinates;
+        /**
+         * The index of the triangle each point has been sampled on.
+         */
+        private final int[] triangles;
+        /**
+         * The distance of each point from the other mesh.
+         */
+        private final double[] distances;
+        /**
+         * The index of the closest triangle of the other mesh from each
+         * point.
+         */
+        private final int[] closest;
+
+        /**
+         * Constructor.
+         * @param size
+         *            the number of points
+         */
+        public Samples(final int size) {
+            this.coordinates = new double[size * QualityReport.AXIS];
+            this.triangles = new int[size];
+            this.distances = new double[size];
+            this.closest = new int[size];
+        }
+
+        /**
+         * Returns the number of points.
+         * @return the number of points
+         */
+        public int size() {
+            return this.triangles.length;
+        }
+
+        /**
+         * Measures the distance of a range of points from a surface.
+         * @param tree
+         *            the tree of the triangles of the surface
+         * @param start
+         *            the first point
+         * @param end
+         *            the point after the last one
+         */
+        public void measure(final TriangleTree tree, final int start,
+                final int end) {
+            final double[] query = new double[QualityReport.AXIS];
+            final double[] point = new double[QualityReport.AXIS];
+            for (int i = start; i < end; i++) {
+                System.arraycopy(this.coordinates, i * QualityReport.AXIS,
+                        query, 0, QualityReport.AXIS);
+                this.closest[i] = tree.search(query, point);
+                if (this.closest[i] == -1) {
+                    this.distances[i] = Double.NaN;
+                } else {
+                    final double dx = point[0] - query[0];
+                    final double dy = point[1] - query[1];
+                    final double dz = point[2] - query[2];
+                    this.distances[i] = Math.sqrt(dx * dx + dy * dy + dz
+                            * dz);
+                }
+            }
+        }
+
+        /**
+         * Returns the maximal distance.
+         * @return the maximal distance, 0 if there is no point
+         */
+        public double returnMax() {
+            double max = 0;
+            for (double distance : this.distances) {
+                max = Math.max(max, distance);
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package fr.nantes1900.models.errorcalculator;
+
+import java.util.Collection;
+
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+
+/**
+ * Implements a bounding volume hierarchy of triangles, to find the closest
+ * point of a surface from a point without testing every triangle. Each node
+ * keeps the box containing its triangles, and is cut in two at the median of
+ * the centers of its triangles along the longest axis of the box. The
+ * coordinates of the triangles are copied when the tree is built : the tree
+ * is not modified by the queries, which can be made by several threads at the
+ * same time.
+ */
+public class TriangleTree {
+
+    /**
+     * Maximal number of triangles in a leaf.
+     */
+    private static final int LEAF_SIZE = 4;
+    /**
+     * Number of coordinates of a triangle.
+     */
+    private static final int TRIANGLE_COORDINATES = 9;
+    /**
+     * Number of coordinates of a box : the minimum then the maximum.
+     */
+    private static final int BOX_COORDINATES = 6;
+    /**
+     * Number of axis.
+     */
+    private static final int AXIS = 3;
+
+    /**
+     * The coordinates of the points of the triangles, sorted by leaf.
+     */
+    private final double[] coordinates;
+    /**
+     * The boxes of the nodes.
+     */
+    private final double[] boxes;
+    /**
+     * For a leaf, the index of its first triangle. For the other nodes, the
+     * index of their second child : the first one follows the node.
+     */
+    private final int[] firsts;
+    /**
+     * The number of triangles of each leaf, 0 for the other nodes.
+     */
+    private final int[] counts;
+    /**
+     * The index of each triangle in the initial collection, sorted by leaf.
+     */
+    private final int[] indices;
+    /**
+     * The number of nodes.
+     */
+    private int nodeNumber;
+    /**
+     * The maximal depth of the leaves.
+     */
+    private int depth;
+
+    /**
+     * Constructor. Builds the tree.
+     * @param triangles
+     *            the triangles of the surface
+     */
+    public TriangleTree(final Collection<Triangle> triangles) {
+        final int size = triangles.size();
+        final double[] initial = new double[size
+                * TriangleTree.TRIANGLE_COORDINATES];
+        final double[][] centers = new double[TriangleTree.AXIS][size];
+        int i = 0;
+        for (Triangle t : triangles) {
+            final Point[] points = new Point[] {
+                    t.getP1(), t.getP2(), t.getP3()
+            };
+            for (int j = 0; j < points.length; j++) {
+                final double[] coords = points[j].getPointAsCoordinates();
+                for (int axis = 0; axis < TriangleTree.AXIS; axis++) {
+                    initial[i * TriangleTree.TRIANGLE_COORDINATES + j
+                            * TriangleTree.AXIS + axis] = coords[axis];
+                    centers[axis][i] += coords[axis] / points.length;
+                }
+            }
+            i++;
+        }
+
+        final int[] order = new int[size];
+        for (i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        final int maxNodes = Math.max(1, 2 * size);
+        this.boxes = new double[maxNodes * TriangleTree.BOX_COORDINATES];
+        this.firsts = new int[maxNodes];
+        this.counts = new int[maxNodes];
+        if (size > 0) {
+            this.build(initial, centers, order, 0, size, 1);
+        }
+
+        // Sorts the triangles in the order of the leaves.
+        this.indices = order;
+        this.coordinates = new double[initial.length];
+        for (i = 0; i < size; i++) {
+            System.arraycopy(initial, order[i]
+                    * TriangleTree.TRIANGLE_COORDINATES, this.coordinates, i
+                    * TriangleTree.TRIANGLE_COORDINATES,
+                    TriangleTree.TRIANGLE_COORDINATES);
+        }
+    }
+
+    /**
+     * Builds the node containing a range of triangles, and its children.
+     * @param initial
+     *            the coordinates of the triangles, in their initial order
+     * @param centers
+     *            the coordinates of the centers of the triangles, by axis
+     * @param order
+     *            the indices of the triangles, reordered by the build
+     * @param start
+     *            the first position of the range in order
+     * @param end
+     *            the position after the last one of the range
+     * @param nodeDepth
+     *            the depth of the node
+     * @return the index of the node
+     */
+    private int build(final double[] initial, final double[][] centers,
+            final int[] order, final int start, final int end,
+            final int nodeDepth) {
+        final int node = this.nodeNumber;
+        this.nodeNumber++;
+        this.depth = Math.max(this.depth, nodeDepth);
+
+        // Box of the triangles.
+        final int box = node * TriangleTree.BOX_COORDINATES;
+        for (int axis = 0; axis < TriangleTree.AXIS; axis++) {
+            this.boxes[box + axis] = Double.POSITIVE_INFINITY;
+            this.boxes[box + TriangleTree.AXIS + axis] =
+                    Double.NEGATIVE_INFINITY;
+        }
+        for (int i = start; i < end; i++) {
+            final int t = order[i] * TriangleTree.TRIANGLE_COORDINATES;
+            for (int j = 0; j < TriangleTree.TRIANGLE_COORDINATES; j++) {
+                final int axis = j % TriangleTree.AXIS;
+                this.boxes[box + axis] = Math.min(this.boxes[box + axis],
+                        initial[t + j]);
+                this.boxes[box + TriangleTree.AXIS + axis] = Math.max(
+                        this.boxes[box + TriangleTree.AXIS + axis],
+                        initial[t + j]);
+            }
+        }
+
+        if (end - start <= TriangleTree.LEAF_SIZE) {
+            this.firsts[node] = start;
+            this.counts[node] = end - start;
+            return node;
+        }
+
+        // Cuts at the median along the longest axis.
+        int longest = 0;
+        for (int axis = 1; axis < TriangleTree.AXIS; axis++) {
+            if (this.boxes[box + TriangleTree.AXIS + axis]
+                    - this.boxes[box + axis] > this.boxes[box
+                    + TriangleTree.AXIS + longest]
+                    - this.boxes[box + longest]) {
+                longest = axis;
+            }
+        }
+        final int middle = (start + end) / 2;
+        TriangleTree.select(order, centers[longest], start, end, middle);
+
+        this.build(initial, centers, order, start, middle, nodeDepth + 1);
+        this.firsts[node] = this.build(initial, centers, order, middle, end,
+                nodeDepth + 1);
+        return node;
+    }
+
+    /**
+     * Reorders a range of indices so that the index at the position k is the
+     * one it would be if the range was sorted by key, the lower ones being
+     * before it and the greater ones after.
+     * @param order
+     *            the indices
+     * @param keys
+     *            the key of each index
+     * @param start
+     *            the first position of the range
+     * @param end
+     *            the position after the last one of the range
+     * @param k
+     *            the position to place
+     */
+    private static void select(final int[] order, final double[] keys,
+            final int start, final int end, final int k) {
+        int low = start;
+        int high = end - 1;
+        while (low < high) {
+            final double pivot = keys[order[(low + high) >>> 1]];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[order[i]] < pivot) {
+                    i++;
+                }
+                while (keys[order[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    final int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                high = j;
+            } else if (k >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of triangles.
+     * @return the number of triangles of the tree
+     */
+    public final int size() {
+        return this.coordinates.length / TriangleTree.TRIANGLE_COORDINATES;
+    }
+
+    /**
+     * Finds the point of the surface which is the closest from a point : it
+     * can be inside a triangle, on an edge or on a vertex.
+     * @param p
+     *            the point
+     * @return the closest point of the triangles, or null if there is no
+     *         triangle
+     */
+    public final Point returnClosestPoint(final Point p) {
+        if (this.size() == 0) {
+            return null;
+        }
+        final double[] closest = new double[TriangleTree.AXIS];
+        this.search(p.getPointAsCoordinates(), closest);
+        return new Point(closest[0], closest[1], closest[2]);
+    }
+
+    /**
+     * Finds the point of the surface which is the closest from a point, and
+     * the triangle containing it.
+     * @param query
+     *            the coordinates of the point
+     * @param closest
+     *            the array receiving the coordinates of the closest point
+     * @return the index of the triangle containing the closest point, in the
+     *         order of the collection given to the constructor, or -1 if
+     *         there is no triangle
+     */
+    public final int search(final double[] query, final double[] closest) {
+        if (this.size() == 0) {
+            return -1;
+        }
+        final double[] candidate = new double[TriangleTree.AXIS];
+        double best = Double.POSITIVE_INFINITY;
+        int triangle = -1;
+
+        // Each node pushes at most two children.
+        final int[] stack = new int[2 * this.depth + 1];
+        int top = 0;
+        stack[top] = 0;
+        top++;
+        while (top > 0) {
+            top--;
+            final int node = stack[top];
+            if (this.boxDistance(node, query) >= best) {
+                continue;
+            }
+
+            if (this.counts[node] > 0) {
+                for (int i = this.firsts[node]; i < this.firsts[node]
+                        + this.counts[node]; i++) {
+                    final double distance = this.closestOnTriangle(i, query,
+                            candidate);
+                    if (distance < best) {
+                        best = distance;
+                        triangle = i;
+                        System.arraycopy(candidate, 0, closest, 0,
+                                TriangleTree.AXIS);
+                    }
+                }
+            } else {
+                // Visits the nearest child first.
+                int near = node + 1;
+                int far = this.firsts[node];
+                if (this.boxDistance(far, query) < this.boxDistance(near,
+                        query)) {
+                    far = near;
+                    near = this.firsts[node];
+                }
+                stack[top] = far;
+                top++;
+                stack[top] = near;
+                top++;
+            }
+        }
+
+        if (triangle == -1) {
+            // The coordinates are not numbers.
+            return -1;
+        }
+        return this.indices[triangle];
+    }
+
+    /**
+     * Computes the squared distance between a point and the box of a node.
+     * @param node
+     *            the index of the node
+     * @param query
+     *            the coordinates of the point
+     * @return the squared distance, 0 if the point is inside the box
+     */
+    private double boxDistance(final int node, final double[] query) {
+        final int box = node * TriangleTree.BOX_COORDINATES;
+        double distance = 0;
+        for (int axis = 0; axis < TriangleTree.AXIS; axis++) {
+            double d = 0;
+            if (query[axis] < this.boxes[box + axis]) {
+                d = this.boxes[box + axis] - query[axis];
+            } else if (query[axis] > this.boxes[box + TriangleTree.AXIS
+                    + axis]) {
+                d = query[axis] - this.boxes[box + TriangleTree.AXIS + axis];
+            }
+            distance += d * d;
+        }
+        return distance;
+    }
+
+    /**
+     * Computes the point of a triangle which is the closest from a point, by
+     * finding the region of the triangle (vertex, edge or inside) the point
+     * is projected on.
+     * @param triangle
+     *            the index of the triangle
+     * @param query
+     *            the coordinates of the point
+     * @param result
+     *            the array receiving the coordinates of the closest point
+     * @return the squared distance between the point and the triangle
+     */
+    private double closestOnTriangle(final int triangle,
+            final double[] query, final double[] result) {
+        final int t = triangle * TriangleTree.TRIANGLE_COORDINATES;
+        final double[] c = this.coordinates;
+        final double abx = c[t + 3] - c[t];
+        final double aby = c[t + 4] - c[t + 1];
+        final double abz = c[t + 5] - c[t + 2];
+        final double acx = c[t + 6] - c[t];
+        final double acy = c[t + 7] - c[t + 1];
+        final double acz = c[t + 8] - c[t + 2];
+        final double apx = query[0] - c[t];
+        final double apy = query[1] - c[t + 1];
+        final double apz = query[2] - c[t + 2];
+
+        // The point is in the region of the vertex A.
+        final double d1 = abx * apx + aby * apy + abz * apz;
+        final double d2 = acx * apx + acy * apy + acz * apz;
+        if (d1 <= 0 && d2 <= 0) {
+            return TriangleTree.setResult(result, query, c[t], c[t + 1],
+                    c[t + 2]);
+        }
+
+        // The point is in the region of the vertex B.
+        final double bpx = query[0] - c[t + 3];
+        final double bpy = query[1] - c[t + 4];
+        final double bpz = query[2] - c[t + 5];
+        final double d3 = abx * bpx + aby * bpy + abz * bpz;
+        final double d4 = acx * bpx + acy * bpy + acz * bpz;
+        if (d3 >= 0 && d4 <= d3) {
+            return TriangleTree.setResult(result, query, c[t + 3], c[t + 4],
+                    c[t + 5]);
+        }
+
+        // The point is in the region of the edge AB.
+        final double vc = d1 * d4 - d3 * d2;
+        if (vc <= 0 && d1 >= 0 && d3 <= 0) {
+            final double v = d1 / (d1 - d3);
+            return TriangleTree.setResult(result, query, c[t] + v * abx,
+                    c[t + 1] + v * aby, c[t + 2] + v * abz);
+        }
+
+        // The point is in the region of the vertex C.
+        final double cpx = query[0] - c[t + 6];
+        final double cpy = query[1] - c[t + 7];
+        final double cpz = query[2] - c[t + 8];
+        final double d5 = abx * cpx + aby * cpy + abz * cpz;
+        final double d6 = acx * cpx + acy * cpy + acz * cpz;
+        if (d6 >= 0 && d5 <= d6) {
+            return TriangleTree.setResult(result, query, c[t + 6], c[t + 7],
+                    c[t + 8]);
+        }
+
+        // The point is in the region of the edge AC.
+        final double vb = d5 * d2 - d1 * d6;
+        if (vb <= 0 && d2 >= 0 && d6 <= 0) {
+            final double w = d2 / (d2 - d6);
+            return TriangleTree.setResult(result, query, c[t] + w * acx,
+                    c[t + 1] + w * acy, c[t + 2] + w * acz);
+        }
+
+        // The point is in the region of the edge BC.
+        final double va = d3 * d6 - d5 * d4;
+        if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0) {
+            final double w = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+            return TriangleTree.setResult(result, query, c[t + 3] + w
+                    * (c[t + 6] - c[t + 3]), c[t + 4] + w
+                    * (c[t + 7] - c[t + 4]), c[t + 5] + w
+                    * (c[t + 8] - c[t + 5]));
+        }
+
+        // The point is projected inside the triangle.
+        final double denominator = 1 / (va + vb + vc);
+        final double v = vb * denominator;
+        final double w = vc * denominator;
+        return TriangleTree.setResult(result, query, c[t] + v * abx + w * acx,
+                c[t + 1] + v * aby + w * acy, c[t + 2] + v * abz + w * acz);
+    }
+
+    /**
+     * Keeps the coordinates of a point and computes its squared distance
+     * from the query.
+     * @param result
+     *            the array receiving the coordinates
+     * @param query
+     *            the coordinates of the query
+     * @param x
+     *            the x coordinate of the point
+     * @param y
+     *            the y coordinate of the point
+     * @param z
+     *            the z coordinate of the point
+     * @return the squared distance between the point and the query
+     */
+    private static double setResult(final double[] result,
+            final double[] query, final double x, final double y,
+            final double z) {
+        result[0] = x;
+        result[1] = y;
+        result[2] = z;
+        final double dx = x - query[0];
+        final double dy = y - query[1];
+        final double dz = z - query[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -1,5 +1,6 @@
 /**
  * This package implements the class ErrorCalculator, which computes an error
- * between two meshes, and a command-line tool to use it.
+ * between two meshes, the class QualityReport, which measures their
+ * deviations in both directions, and a command-line tool to use them.
  */
 package fr.nantes1900.models.errorcalculator;
@@ -0,0 +1,20 @@
+package fr.nantes1900.models.exceptions;
+
+/**
+ * Exception thrown when the user canceled the current process. The models of
+ * the previous step are left untouched.
+ */
+public class ProcessCanceledException extends Exception {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     */
+    public ProcessCanceledException() {
+        super("Process canceled");
+    }
+}
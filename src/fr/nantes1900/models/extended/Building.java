@@ -6,6 +6,8 @@ import java.util.List;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.vecmath.Vector3d;
 
+import fr.nantes1900.models.basis.MeshSnapshot;
+import fr.nantes1900.models.coefficients.ProcessParameters;
 import fr.nantes1900.models.exceptions.NullArgumentException;
 import fr.nantes1900.models.extended.steps.BuildingStep3;
 import fr.nantes1900.models.extended.steps.BuildingStep4;
@@ -15,11 +17,22 @@ import fr.nantes1900.models.extended.steps.BuildingStep7;
 
 /**
  * Implements a building as containing 6 steps representing the state of the
- * building during the processes 3 to 7.
+ * building during the processes 3 to 7. The building remembers which results
+ * are up to date : after a modification of the user, only the processes
+ * following the modified step have to be launched again.
  * @author Daniel Lefevre
  */
 public class Building implements BuildingAccess {
 
+    /**
+     * The first process launched on the buildings.
+     */
+    private static final int FIRST_PROCESS = 3;
+    /**
+     * The last process launched on the buildings.
+     */
+    private static final int LAST_PROCESS = 6;
+
     /**
      * The third building step.
      */
@@ -59,6 +72,24 @@ public class Building implements BuildingAccess {
      * The noise.
      */
     private Surface noise;
+    /**
+     * The coefficients given to the steps, by default the current values of
+     * the static coefficients.
+     */
+    private ProcessParameters parameters = new ProcessParameters();
+    /**
+     * The first process whose result is not up to date. The results of the
+     * processes before it have been computed from the current steps and can
+     * be used again.
+     */
+    private int firstDirtyProcess = Building.FIRST_PROCESS;
+    /**
+     * The state of the meshes shared with the other buildings after the last
+     * launch of each process, indexed by the number of the process. Null if
+     * the process has not been launched or has been canceled.
+     */
+    private final MeshSnapshot[] sharedInputs =
+            new MeshSnapshot[Building.LAST_PROCESS + 1];
 
     /**
      * Constructor.
@@ -85,6 +116,38 @@ public class Building implements BuildingAccess {
         return this.bStep4;
     }
 
+    /**
+     * Getter.
+     * @return the normal to the ground
+     */
+    public final Vector3d getGroundNormal() {
+        return this.groundNormal;
+    }
+
+    /**
+     * Getter.
+     * @return the gravity normal
+     */
+    public final Vector3d getGravityNormal() {
+        return this.gravityNormal;
+    }
+
+    /**
+     * Getter.
+     * @return the grounds
+     */
+    public final Ground getGrounds() {
+        return this.grounds;
+    }
+
+    /**
+     * Getter.
+     * @return the noise
+     */
+    public final Surface getNoise() {
+        return this.noise;
+    }
+
     /**
      * Getter.
      * @return the fifth step
@@ -109,7 +172,9 @@ public class Building implements BuildingAccess {
      */
     public final void launchProcess3() throws NullArgumentException {
         this.bStep3.setArguments(this.gravityNormal);
+        this.bStep3.setParameters(this.parameters);
         this.bStep4 = this.bStep3.launchProcess();
+        this.processDone(3);
     }
 
     /**
@@ -119,9 +184,35 @@ public class Building implements BuildingAccess {
      *             initialized
      */
     public final void launchProcess4() throws NullArgumentException {
-        this.bStep4.setArguments(this.groundNormal, this.grounds, this.noise);
+        this.launchProcess4(this.noise);
+    }
+
+    /**
+     * Launches the fourth process with a noise belonging only to this
+     * building. The fifth step keeps the noise of the islet. The list of
+     * neighbours of the grounds is computed again by each building in the
+     * steps 4 and 5 : this building uses its own ground, sharing the mesh of
+     * the grounds, to be treated in parallel with the others.
+     * @param buildingNoise
+     *            the noise to cut and to treat in the fourth process
+     * @throws NullArgumentException
+     *             if some arguments needed in the process have not been
+     *             initialized
+     */
+    public final void launchProcess4(final Surface buildingNoise)
+            throws NullArgumentException {
+        if (this.grounds == null) {
+            throw new NullArgumentException();
+        }
+
+        final Ground buildingGrounds = new Ground(this.grounds.getMesh());
+        this.bStep4.setArguments(this.groundNormal, buildingGrounds,
+                buildingNoise);
+        this.bStep4.setParameters(this.parameters);
         this.bStep5 = this.bStep4.launchProcess();
-        this.bStep5.setArguments(this.noise, this.grounds, this.groundNormal);
+        this.bStep5.setArguments(this.noise, buildingGrounds,
+                this.groundNormal);
+        this.processDone(4);
     }
 
     /**
@@ -131,11 +222,103 @@ public class Building implements BuildingAccess {
      *             initialized
      */
     public final void launchProcess5() throws NullArgumentException {
+        this.bStep5.setParameters(this.parameters);
         this.bStep6 = this.bStep5.launchProcess();
+        this.processDone(5);
     }
 
+    /**
+     * Launches the sixth process.
+     */
     public final void launchProcess6() {
+        this.bStep6.setParameters(this.parameters);
         this.bStep7 = this.bStep6.launchProcess();
+        this.processDone(6);
+    }
+
+    /**
+     * Checks if the result of a process can be used again instead of
+     * launching the process : the process has already been launched with the
+     * same coefficients and normals, and neither the step it starts from nor
+     * its surfaces have been modified since. The meshes shared with the other
+     * buildings are not checked here : see getSharedInputs.
+     * @param process
+     *            the number of the process, from 3 to 6
+     * @return true if the result is up to date
+     */
+    public final boolean isUpToDate(final int process) {
+        if (process >= this.firstDirtyProcess) {
+            return false;
+        }
+        for (Surface s : this.returnSurfaces(process)) {
+            if (s.isModified()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells that the user modified a step of this building, for example by
+     * removing or merging surfaces : the processes from this one will be
+     * launched again. The modifications of the content of one surface can
+     * also be told to the surface itself.
+     * @param process
+     *            the number of the process starting from the modified step
+     */
+    public final void markModified(final int process) {
+        this.firstDirtyProcess = Math.min(this.firstDirtyProcess, process);
+    }
+
+    /**
+     * Records that a process has been launched : its result is up to date,
+     * the results of the following processes are not anymore.
+     * @param process
+     *            the number of the process
+     */
+    private void processDone(final int process) {
+        this.firstDirtyProcess = process + 1;
+        for (Surface s : this.returnSurfaces(process)) {
+            s.setModified(false);
+        }
+    }
+
+    /**
+     * Returns the surfaces of the step a process starts from.
+     * @param process
+     *            the number of the process
+     * @return the list of surfaces, empty if the step does not exist
+     */
+    private List<Surface> returnSurfaces(final int process) {
+        List<Surface> surfaces = new ArrayList<>();
+
+        switch (process) {
+        case 3:
+            surfaces.add(this.bStep3.getInitialTotalSurface());
+            break;
+        case 4:
+            if (this.bStep4 != null) {
+                surfaces.add(this.bStep4.getInitialWallSurface());
+                surfaces.add(this.bStep4.getInitialRoofSurface());
+            }
+            break;
+        case 5:
+            if (this.bStep5 != null) {
+                surfaces.addAll(this.bStep5.getWalls());
+                surfaces.addAll(this.bStep5.getRoofs());
+            }
+            break;
+        case 6:
+            if (this.bStep6 != null) {
+                surfaces.addAll(this.bStep6.getWalls());
+                surfaces.addAll(this.bStep6.getRoofs());
+            }
+            break;
+        default:
+            break;
+        }
+
+        return surfaces;
     }
 
     /**
@@ -202,12 +385,94 @@ public class Building implements BuildingAccess {
     public final void setArguments(final Vector3d groundNormalIn,
             final Vector3d gravityNormalIn, final Ground groundsIn,
             final Surface noiseIn) {
-        this.groundNormal = groundNormalIn;
-        this.gravityNormal = gravityNormalIn;
+        // The normals are copied : the islet can modify its own ones.
+        if (!Building.sameVector(this.groundNormal, groundNormalIn)
+                || !Building.sameVector(this.gravityNormal, gravityNormalIn)) {
+            this.firstDirtyProcess = Building.FIRST_PROCESS;
+        }
+        this.groundNormal = Building.copyVector(groundNormalIn);
+        this.gravityNormal = Building.copyVector(gravityNormalIn);
+
+        // A result kept from a previous launch must use the new meshes : they
+        // have been checked to contain the same triangles.
+        if (this.bStep5 != null && groundsIn != null
+                && (groundsIn != this.grounds || noiseIn != this.noise)) {
+            this.bStep5.setArguments(noiseIn, new Ground(groundsIn.getMesh()),
+                    this.groundNormal);
+        }
         this.grounds = groundsIn;
         this.noise = noiseIn;
     }
 
+    /**
+     * Copies a vector.
+     * @param vector
+     *            the vector, can be null
+     * @return the copy, or null if the vector is null
+     */
+    private static Vector3d copyVector(final Vector3d vector) {
+        if (vector == null) {
+            return null;
+        }
+        return new Vector3d(vector);
+    }
+
+    /**
+     * Compares two vectors.
+     * @param vector1
+     *            the first vector, can be null
+     * @param vector2
+     *            the second vector, can be null
+     * @return true if they are both null or have the same coordinates
+     */
+    private static boolean sameVector(final Vector3d vector1,
+            final Vector3d vector2) {
+        if (vector1 == null || vector2 == null) {
+            return vector1 == vector2;
+        }
+        return vector1.equals(vector2);
+    }
+
+    /**
+     * Getter.
+     * @param process
+     *            the number of the process
+     * @return the state of the meshes shared with the other buildings after
+     *         the last launch of the process, or null
+     */
+    public final MeshSnapshot getSharedInputs(final int process) {
+        return this.sharedInputs[process];
+    }
+
+    /**
+     * Setter.
+     * @param process
+     *            the number of the process
+     * @param sharedInputsIn
+     *            the state of the meshes shared with the other buildings the
+     *            result of the process is up to date with, or null
+     */
+    public final void setSharedInputs(final int process,
+            final MeshSnapshot sharedInputsIn) {
+        this.sharedInputs[process] = sharedInputsIn;
+    }
+
+    /**
+     * Setter. The results of the processes from the first one whose
+     * coefficients have changed are not up to date anymore.
+     * @param parametersIn
+     *            the coefficients to give to the next processes
+     */
+    public final void setParameters(final ProcessParameters parametersIn) {
+        int process = Building.FIRST_PROCESS;
+        while (process <= Building.LAST_PROCESS
+                && parametersIn.sameValues(this.parameters, process)) {
+            process++;
+        }
+        this.markModified(process);
+        this.parameters = parametersIn;
+    }
+
     @Override
     public final List<Wall> getWalls(final int step) {
         List<Wall> walls = new ArrayList<>();
@@ -257,4 +522,41 @@ public class Building implements BuildingAccess {
     public final BuildingStep7 getbStep7() {
         return this.bStep7;
     }
+
+    /**
+     * Setter. Used to restore a building read from a file : the results of
+     * the processes are not considered up to date.
+     * @param bStep4In
+     *            the fourth step
+     */
+    public final void setbStep4(final BuildingStep4 bStep4In) {
+        this.bStep4 = bStep4In;
+    }
+
+    /**
+     * Setter. Used to restore a building read from a file.
+     * @param bStep5In
+     *            the fifth step
+     */
+    public final void setbStep5(final BuildingStep5 bStep5In) {
+        this.bStep5 = bStep5In;
+    }
+
+    /**
+     * Setter. Used to restore a building read from a file.
+     * @param bStep6In
+     *            the sixth step
+     */
+    public final void setbStep6(final BuildingStep6 bStep6In) {
+        this.bStep6 = bStep6In;
+    }
+
+    /**
+     * Setter. Used to restore a building read from a file.
+     * @param bStep7In
+     *            the seventh step
+     */
+    public final void setbStep7(final BuildingStep7 bStep7In) {
+        this.bStep7 = bStep7In;
+    }
 }
@@ -3,6 +3,7 @@ package fr.nantes1900.models.extended;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.vecmath.Vector3d;
@@ -26,9 +27,10 @@ import fr.nantes1900.utils.MatrixMethod.SingularMatrixException;
 public class Surface {
 
     /**
-     * ID counter.
+     * ID counter. Atomic because the surfaces can be created by several
+     * threads.
      */
-    private static int counterID = 0;
+    private static final AtomicInteger COUNTER_ID = new AtomicInteger();
 
     /**
      * The String to display in a node to represent the object.
@@ -38,7 +40,7 @@ public class Surface {
     /**
      * ID of the object.
      */
-    private int iD = Surface.counterID++;
+    private int iD = Surface.COUNTER_ID.getAndIncrement();
 
     /**
      * List of the neighbours of this surface.
@@ -55,6 +57,12 @@ public class Surface {
      */
     private Mesh mesh;
 
+    /**
+     * True if the user modified this surface since the last process which
+     * used it. Not copied by the copy constructor.
+     */
+    private boolean modified = false;
+
     /**
      * Empty constructor.
      */
@@ -81,13 +89,15 @@ public class Surface {
     }
 
     /**
-     * Copy constructor.
+     * Copy constructor. The mesh is shared with the surface copied, but not
+     * the list of neighbours : the neighbours of the copy can be computed
+     * again without changing the ones of the surface copied.
      * @param surface
      *            the surface to copy.
      */
     public Surface(final Surface surface) {
         this.mesh = surface.mesh;
-        this.neighbours = surface.neighbours;
+        this.neighbours = new ArrayList<>(surface.neighbours);
         this.polygon = surface.polygon;
     }
 
@@ -124,14 +134,16 @@ public class Surface {
      *            the list of the walls
      * @param normalGround
      *            the normal to the ground
+     * @param isOrientedFactor
+     *            the factor used to check if two planes are parallel
      * @return the edge created by these four planes
      * @throws InvalidSurfaceException
      *             if the algorithm cannot comput the edge
      */
     private Edge createEdge(final Surface s1, final Surface s2,
             final Surface s3, final Map<Point, Point> pointMap,
-            final List<Wall> wallList, final Vector3d normalGround)
-            throws InvalidSurfaceException {
+            final List<Wall> wallList, final Vector3d normalGround,
+            final double isOrientedFactor) throws InvalidSurfaceException {
         final List<Surface> surfaces = new ArrayList<>();
         surfaces.add(s1);
         surfaces.add(s2);
@@ -141,18 +153,16 @@ public class Surface {
         try {
             // If there is two neighbours which have the same orientation, then
             // throw an exception.
-            if (this.getMesh().isOrientedAs(s1.getMesh(),
-                    SimplificationSurfaces.getIsOrientedFactor())
+            if (this.getMesh().isOrientedAs(s1.getMesh(), isOrientedFactor)
                     || this.getMesh().isOrientedAs(s2.getMesh(),
-                            SimplificationSurfaces.getIsOrientedFactor())
+                            isOrientedFactor)
                     || this.getMesh().isOrientedAs(s3.getMesh(),
-                            SimplificationSurfaces.getIsOrientedFactor())) {
+                            isOrientedFactor)) {
                 throw new ParallelPlanesException();
             }
-            if (s1.getMesh().isOrientedAs(s2.getMesh(),
-                    SimplificationSurfaces.getIsOrientedFactor())
+            if (s1.getMesh().isOrientedAs(s2.getMesh(), isOrientedFactor)
                     || s2.getMesh().isOrientedAs(s3.getMesh(),
-                            SimplificationSurfaces.getIsOrientedFactor())) {
+                            isOrientedFactor)) {
                 throw new ParallelPlanesException();
             }
 
@@ -227,6 +237,29 @@ public class Surface {
     public final Polygon findEdges(final List<Wall> wallList,
             final Map<Point, Point> pointMap, final Vector3d normalGround)
             throws InvalidSurfaceException {
+        return this.findEdges(wallList, pointMap, normalGround,
+                SimplificationSurfaces.getIsOrientedFactor());
+    }
+
+    /**
+     * Finds the edges of a surface with a given factor to check if two planes
+     * are parallel. See findEdges(wallList, pointMap, normalGround).
+     * @param wallList
+     *            the list of walls to check if the surface is a wall or not
+     * @param pointMap
+     *            the map of points
+     * @param normalGround
+     *            the normal to the ground
+     * @param isOrientedFactor
+     *            the factor used to check if two planes are parallel
+     * @return a polyline made from all the edges of this surface, and which
+     *         perfectly fits to its neighbours.
+     * @throws InvalidSurfaceException
+     *             if a problem happened
+     */
+    public final Polygon findEdges(final List<Wall> wallList,
+            final Map<Point, Point> pointMap, final Vector3d normalGround,
+            final double isOrientedFactor) throws InvalidSurfaceException {
 
         if (this.getNeighbours().size() < BuildingStep5.NUMBER_MIN_OF_NEIGHBOURS) {
             throw new InvalidSurfaceException();
@@ -240,7 +273,8 @@ public class Surface {
 
             edges.add(this.createEdge(this.getNeighbours().get(i), this
                     .getNeighbours().get(i + 1), this.getNeighbours()
-                    .get(i + 2), pointMap, wallList, normalGround));
+                    .get(i + 2), pointMap, wallList, normalGround,
+                    isOrientedFactor));
         }
 
         final int size = this.getNeighbours().size();
@@ -249,11 +283,11 @@ public class Surface {
         // loop.
         edges.add(this.createEdge(this.getNeighbours().get(size - 2), this
                 .getNeighbours().get(size - 1), this.getNeighbours().get(0),
-                pointMap, wallList, normalGround));
+                pointMap, wallList, normalGround, isOrientedFactor));
 
         edges.add(this.createEdge(this.getNeighbours().get(size - 1), this
                 .getNeighbours().get(0), this.getNeighbours().get(1), pointMap,
-                wallList, normalGround));
+                wallList, normalGround, isOrientedFactor));
 
         edges.setNormal(this.getMesh().averageNormal());
 
@@ -355,6 +389,15 @@ public class Surface {
         return this.polygon;
     }
 
+    /**
+     * Getter.
+     * @return true if the user modified this surface since the last process
+     *         which used it
+     */
+    public final boolean isModified() {
+        return this.modified;
+    }
+
     /**
      * Orders the neighbours of this surface. The list of neighbours of this
      * surface will then be sorted such as two surfaces neighbours in the list
@@ -520,6 +563,16 @@ public class Surface {
         this.mesh = meshIn;
     }
 
+    /**
+     * Setter.
+     * @param modifiedIn
+     *            true if the user modified this surface, false when a process
+     *            has taken the modification into account
+     */
+    public final void setModified(final boolean modifiedIn) {
+        this.modified = modifiedIn;
+    }
+
     /**
      * Setter.
      * @param newNeighbours
@@ -2,6 +2,7 @@ package fr.nantes1900.models.extended.steps;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 
+import fr.nantes1900.models.coefficients.ProcessParameters;
 import fr.nantes1900.models.exceptions.NullArgumentException;
 
 /**
@@ -11,6 +12,20 @@ import fr.nantes1900.models.exceptions.NullArgumentException;
  */
 public abstract class AbstractBuildingStep {
 
+    /**
+     * The coefficients of the process, by default the current values of the
+     * static coefficients.
+     */
+    private ProcessParameters parameters = new ProcessParameters();
+
+    /**
+     * Getter.
+     * @return the coefficients of the process
+     */
+    public final ProcessParameters getParameters() {
+        return this.parameters;
+    }
+
     /**
      * Launches the next process.
      * @return the next step
@@ -27,4 +42,13 @@ public abstract class AbstractBuildingStep {
      * @return the tree node
      */
     public abstract DefaultMutableTreeNode returnNode(int counter);
+
+    /**
+     * Setter.
+     * @param parametersIn
+     *            the coefficients of the process
+     */
+    public final void setParameters(final ProcessParameters parametersIn) {
+        this.parameters = parametersIn;
+    }
 }
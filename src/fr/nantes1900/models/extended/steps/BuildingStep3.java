@@ -4,7 +4,6 @@ import javax.swing.tree.DefaultMutableTreeNode;
 import javax.vecmath.Vector3d;
 
 import fr.nantes1900.models.basis.Mesh;
-import fr.nantes1900.models.coefficients.SeparationWallRoof;
 import fr.nantes1900.models.exceptions.NullArgumentException;
 import fr.nantes1900.models.extended.Surface;
 
@@ -57,7 +56,7 @@ public class BuildingStep3 extends AbstractBuildingStep {
         // Selects the triangles which are oriented normal to normalGround.
         Surface initialWall = new Surface(this.initialTotalMesh.getMesh()
                 .orientedNormalTo(this.gravityNormal,
-                        SeparationWallRoof.getNormalToError()));
+                        this.getParameters().getNormalToError()));
 
         // Copies the mesh and removes all the walls.
         Surface initialRoof = new Surface(new Mesh(
@@ -8,7 +8,6 @@ import javax.vecmath.Vector3d;
 
 import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.models.basis.Polygon;
-import fr.nantes1900.models.coefficients.SeparationWallsSeparationRoofs;
 import fr.nantes1900.models.exceptions.NullArgumentException;
 import fr.nantes1900.models.extended.Ground;
 import fr.nantes1900.models.extended.Roof;
@@ -75,13 +74,13 @@ public class BuildingStep4 extends AbstractBuildingStep {
         // Cut the mesh in parts, considering their orientation.
         final List<Mesh> thingsList = Algos.blockOrientedExtract(
                 this.initialRoofSurface.getMesh(),
-                SeparationWallsSeparationRoofs.getRoofAngleError());
+                this.getParameters().getRoofAngleError());
 
         // Considering their size and their orientation, sort the blocks in
         // roofs or noise. If a wall is oriented in direction of the ground,
         // it is not keeped.
         for (final Mesh e : thingsList) {
-            if ((e.size() >= SeparationWallsSeparationRoofs.getRoofSizeError())
+            if ((e.size() >= this.getParameters().getRoofSizeError())
                     && (e.averageNormal().dot(this.groundNormal) > 0)) {
                 this.roofs.add(new Roof(e));
             } else {
@@ -97,11 +96,11 @@ public class BuildingStep4 extends AbstractBuildingStep {
         // Cut the mesh in parts, considering their orientation.
         final List<Mesh> thingsList = Algos.blockOrientedExtract(
                 this.initialWallSurface.getMesh(),
-                SeparationWallsSeparationRoofs.getWallAngleError());
+                this.getParameters().getWallAngleError());
 
         // Considering their size, sort the blocks in walls or noise.
         for (final Mesh e : thingsList) {
-            if (e.size() >= SeparationWallsSeparationRoofs.getWallSizeError()) {
+            if (e.size() >= this.getParameters().getWallSizeError()) {
                 this.walls.add(new Wall(e));
             } else {
                 this.noise.getMesh().addAll(e);
@@ -137,8 +136,11 @@ public class BuildingStep4 extends AbstractBuildingStep {
             throw new NullArgumentException();
         }
 
-        // Inits a computer of progress. Implemented, but not able to display
-        // for now.
+        // Starts from empty lists : the process can be launched again after
+        // a cancel or after coming back to this step.
+        this.walls.clear();
+        this.roofs.clear();
+
         this.cutWalls();
 
         this.cutRoofs();
@@ -259,7 +261,7 @@ public class BuildingStep4 extends AbstractBuildingStep {
 
             for (final Surface m : wholeList) {
                 if (m.getMesh().isOrientedAs(surface.getMesh(),
-                        SeparationWallsSeparationRoofs.getMiddleAngleError())) {
+                        this.getParameters().getMiddleAngleError())) {
                     oriented.add(m);
                 }
             }
@@ -300,11 +302,11 @@ public class BuildingStep4 extends AbstractBuildingStep {
 
         // Adds the oriented and neighbour noise to the walls.
         Algos.blockTreatOrientedNoise(wallsOut, this.noise.getMesh(),
-                SeparationWallsSeparationRoofs.getLargeAngleError());
+                this.getParameters().getLargeAngleError());
 
         // Adds the oriented and neighbour noise to the roofs.
         Algos.blockTreatOrientedNoise(roofsOut, this.noise.getMesh(),
-                SeparationWallsSeparationRoofs.getLargeAngleError());
+                this.getParameters().getLargeAngleError());
 
         this.walls.clear();
         for (Surface s : wallsOut) {
@@ -11,7 +11,6 @@ import javax.vecmath.Vector3d;
 import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.models.basis.Point;
 import fr.nantes1900.models.basis.Polygon;
-import fr.nantes1900.models.coefficients.SeparationWallsSeparationRoofs;
 import fr.nantes1900.models.exceptions.NullArgumentException;
 import fr.nantes1900.models.extended.Ground;
 import fr.nantes1900.models.extended.Roof;
@@ -133,7 +132,7 @@ public class BuildingStep5 extends AbstractBuildingStep {
 
         Algos.blockTreatPlanedNoise(wholeListFakes,
                 new Mesh(this.noise.getMesh()),
-                SeparationWallsSeparationRoofs.getPlanesError());
+                this.getParameters().getPlanesError());
 
         // First we clear the neighbours.
         for (final Surface s : wholeList) {
@@ -175,12 +174,29 @@ public class BuildingStep5 extends AbstractBuildingStep {
     public final void determinateOneContour(final Surface surface) {
         try {
             surface.setPolygon(surface.findEdges(this.walls, this.pointMap,
-                    this.groundNormal));
+                    this.groundNormal, this.getParameters()
+                            .getIsOrientedFactor()));
         } catch (InvalidSurfaceException e) {
             // If there is a problem, we cannot continue the process.
         }
     }
 
+    /**
+     * Getter.
+     * @return the ground as surface used in processs
+     */
+    public final Ground getGround() {
+        return this.ground;
+    }
+
+    /**
+     * Getter.
+     * @return the normal to the ground
+     */
+    public final Vector3d getGroundNormal() {
+        return this.groundNormal;
+    }
+
     /**
      * Getter.
      * @return the noise
@@ -262,7 +278,8 @@ public class BuildingStep5 extends AbstractBuildingStep {
                 // When the neighbours are sorted, finds the intersection of
                 // them to find the edges of this surface.
                 surface.setPolygon(surface.findEdges(wallsIn, this.pointMap,
-                        this.groundNormal));
+                        this.groundNormal, this.getParameters()
+                                .getIsOrientedFactor()));
 
             } catch (final InvalidSurfaceException e) {
                 // If there is a problem, we cannot continue the process.
@@ -294,6 +311,15 @@ public class BuildingStep5 extends AbstractBuildingStep {
         return root;
     }
 
+    /**
+     * Setter.
+     * @param noiseIn
+     *            the noise of the islet after the fourth process
+     */
+    public final void setNoise(final Surface noiseIn) {
+        this.noise = noiseIn;
+    }
+
     /**
      * Setter.
      * @param noiseIn
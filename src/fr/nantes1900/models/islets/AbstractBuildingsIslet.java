@@ -7,14 +7,17 @@ import javax.swing.tree.DefaultMutableTreeNode;
 import javax.vecmath.Vector3d;
 
 import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.coefficients.ProcessParameters;
 import fr.nantes1900.models.exceptions.InvalidCaseException;
 import fr.nantes1900.models.exceptions.NullArgumentException;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
 import fr.nantes1900.models.exceptions.WeirdPreviousResultsException;
 import fr.nantes1900.models.exceptions.WeirdResultException;
 import fr.nantes1900.models.extended.Building;
 import fr.nantes1900.models.extended.Ground;
 import fr.nantes1900.models.extended.Roof;
 import fr.nantes1900.models.extended.Wall;
+import fr.nantes1900.models.islets.steps.AbstractBuildingsIsletStep;
 import fr.nantes1900.models.islets.steps.BuildingsIsletStep0;
 import fr.nantes1900.models.islets.steps.BuildingsIsletStep1;
 import fr.nantes1900.models.islets.steps.BuildingsIsletStep2;
@@ -141,6 +144,28 @@ public abstract class AbstractBuildingsIslet extends AbstractIslet implements
      */
     private int writerType = AbstractWriter.CITYGML_WRITER;
 
+    /**
+     * The progress given to the steps when they are launched.
+     */
+    private ProcessProgress progress = new ProcessProgress();
+
+    /**
+     * The coefficients given to the steps when they are launched, by default
+     * the current values of the static coefficients.
+     */
+    private ProcessParameters parameters = new ProcessParameters();
+
+    /**
+     * The cache containing the results of the previous processes, or null to
+     * launch every process.
+     */
+    private StepCache cache;
+
+    /**
+     * True to write the debug files of the sixth process, false by default.
+     */
+    private boolean debugFiles;
+
     /**
      * Constructor. Saves the mesh in the initialTotalMesh variable.
      */
@@ -307,6 +332,8 @@ public abstract class AbstractBuildingsIslet extends AbstractIslet implements
         }
 
         this.getBiStep0().setArguments(this.getGravityNormal());
+        this.getBiStep0().setProgress(this.progress);
+        this.getBiStep0().setParameters(this.parameters);
         this.biStep1 = this.getBiStep0().launchProcess();
         MatrixMethod.changeBase(this.getGroundNormal(), this.getBiStep0()
                 .getMatrix());
@@ -317,17 +344,42 @@ public abstract class AbstractBuildingsIslet extends AbstractIslet implements
      * @throws NullArgumentException
      *             if an argument needed for the process has not been
      *             initialized
+     * @throws ProcessCanceledException
+     *             if the process has been canceled
      */
-    public final void launchProcess1() throws NullArgumentException {
+    public final void launchProcess1() throws NullArgumentException,
+            ProcessCanceledException {
         this.getBiStep1().setArguments(this.getGroundNormal());
-        this.biStep2 = this.getBiStep1().launchProcess();
+        this.getBiStep1().setProgress(this.progress);
+        this.getBiStep1().setParameters(this.parameters);
+
+        byte[] key = this.returnCacheKey(AbstractBuildingsIslet.FIRST_STEP,
+                this.getBiStep1());
+        BuildingsIsletStep2 biStep = this.readCache(key,
+                BuildingsIsletStep2.class);
+        if (biStep == null) {
+            biStep = this.getBiStep1().launchProcess();
+            this.writeCache(key, biStep);
+        }
+        this.biStep2 = biStep;
     }
 
     /**
      * Launches the second process.
      */
     public final void launchProcess2() {
-        this.biStep3 = this.getBiStep2().launchProcess();
+        this.getBiStep2().setProgress(this.progress);
+        this.getBiStep2().setParameters(this.parameters);
+
+        byte[] key = this.returnCacheKey(AbstractBuildingsIslet.SECOND_STEP,
+                this.getBiStep2());
+        BuildingsIsletStep3 biStep = this.readCache(key,
+                BuildingsIsletStep3.class);
+        if (biStep == null) {
+            biStep = this.getBiStep2().launchProcess();
+            this.writeCache(key, biStep);
+        }
+        this.biStep3 = biStep;
     }
 
     /**
@@ -335,19 +387,33 @@ public abstract class AbstractBuildingsIslet extends AbstractIslet implements
      * @throws NullArgumentException
      *             if an argument needed for the process has not been
      *             initialized
+     * @throws ProcessCanceledException
+     *             if the process has been canceled
      */
-    public final void launchProcess3() throws NullArgumentException {
+    public final void launchProcess3() throws NullArgumentException,
+            ProcessCanceledException {
         if (this.gravityNormal == null || this.groundNormal == null
-                || this.biStep2.getNoise() == null) {
+                || this.biStep3.getNoise() == null) {
             throw new NullArgumentException();
         }
 
         for (Building b : this.biStep3.getBuildings()) {
             b.setArguments(this.getGroundNormal(), this.getGravityNormal(),
-                    this.biStep2.getInitialGrounds(), this.biStep2.getNoise());
+                    this.biStep3.getGrounds(), this.biStep3.getNoise());
         }
 
-        this.biStep4 = this.biStep3.launchProcess();
+        this.biStep3.setProgress(this.progress);
+        this.biStep3.setParameters(this.parameters);
+
+        byte[] key = this.returnCacheKey(AbstractBuildingsIslet.THIRD_STEP,
+                this.biStep3);
+        BuildingsIsletStep4 biStep = this.readCache(key,
+                BuildingsIsletStep4.class);
+        if (biStep == null) {
+            biStep = this.biStep3.launchProcess();
+            this.writeCache(key, biStep);
+        }
+        this.biStep4 = biStep;
     }
 
     /**
@@ -355,10 +421,24 @@ public abstract class AbstractBuildingsIslet extends AbstractIslet implements
      * @throws NullArgumentException
      *             if an argument needed for the process has not been
      *             initialized
+     * @throws ProcessCanceledException
+     *             if the process has been canceled
      */
-    public final void launchProcess4() throws NullArgumentException {
+    public final void launchProcess4() throws NullArgumentException,
+            ProcessCanceledException {
         this.biStep4.setArguments(this.groundNormal);
-        this.biStep5 = this.getBiStep4().launchProcess();
+        this.biStep4.setProgress(this.progress);
+        this.biStep4.setParameters(this.parameters);
+
+        byte[] key = this.returnCacheKey(AbstractBuildingsIslet.FOURTH_STEP,
+                this.biStep4);
+        BuildingsIsletStep5 biStep = this.readCache(key,
+                BuildingsIsletStep5.class);
+        if (biStep == null) {
+            biStep = this.biStep4.launchProcess();
+            this.writeCache(key, biStep);
+        }
+        this.biStep5 = biStep;
     }
 
     /**
@@ -366,11 +446,26 @@ public abstract class AbstractBuildingsIslet extends AbstractIslet implements
      * @throws NullArgumentException
      *             if an argument needed for the process has not been
      *             initialized
-     */
-    public final void launchProcess5() throws NullArgumentException {
-        this.biStep5.setArguments(this.biStep4.getGrounds(), this.groundNormal);
-        this.biStep5.setArguments(this.biStep4.getNoise());
-        this.biStep6 = this.getBiStep5().launchProcess();
+     * @throws ProcessCanceledException
+     *             if the process has been canceled
+     */
+    public final void launchProcess5() throws NullArgumentException,
+            ProcessCanceledException {
+        // The step keeps the grounds and the noise it has been created with,
+        // which can have been read from the cache.
+        this.biStep5.setArguments(this.biStep5.getGrounds(), this.groundNormal);
+        this.biStep5.setProgress(this.progress);
+        this.biStep5.setParameters(this.parameters);
+
+        byte[] key = this.returnCacheKey(AbstractBuildingsIslet.FIFTH_STEP,
+                this.biStep5);
+        BuildingsIsletStep6 biStep = this.readCache(key,
+                BuildingsIsletStep6.class);
+        if (biStep == null) {
+            biStep = this.biStep5.launchProcess();
+            this.writeCache(key, biStep);
+        }
+        this.biStep6 = biStep;
     }
 
     /**
@@ -381,9 +476,11 @@ public abstract class AbstractBuildingsIslet extends AbstractIslet implements
      * @throws WeirdPreviousResultsException
      *             if the previous step results are not what the current process
      *             expects.
+     * @throws ProcessCanceledException
+     *             if the process has been canceled
      */
     public final void launchProcess6() throws NullArgumentException,
-            WeirdPreviousResultsException {
+            WeirdPreviousResultsException, ProcessCanceledException {
         // before lanching process, checks if all buildings have been simplified
 
 //        for (Building b : this.biStep6.getBuildings()) {
@@ -397,9 +494,133 @@ public abstract class AbstractBuildingsIslet extends AbstractIslet implements
 //            }
 //        }
 
+        this.getBiStep6().setProgress(this.progress);
+        this.getBiStep6().setParameters(this.parameters);
+        this.getBiStep6().setDebugFiles(this.debugFiles);
         this.biStep7 = this.getBiStep6().launchProcess();
     }
 
+    /**
+     * Computes the key of the result of a process in the cache. The sixth
+     * process is not kept in the cache : the decimation of the grounds is
+     * launched each time.
+     * @param process
+     *            the number of the process
+     * @param step
+     *            the step the process starts from
+     * @return the key, or null if there is no cache
+     */
+    private byte[] returnCacheKey(final int process,
+            final AbstractBuildingsIsletStep step) {
+        if (this.cache == null) {
+            return null;
+        }
+        return StepCache.createKey(process, step, this.parameters,
+                this.groundNormal, this.gravityNormal);
+    }
+
+    /**
+     * Reads the result of a process in the cache.
+     * @param <T>
+     *            the type of the step returned by the process
+     * @param key
+     *            the key of the result, or null if there is no cache
+     * @param type
+     *            the class of the step returned by the process
+     * @return the step, or null if the cache does not contain it
+     */
+    private <T extends AbstractBuildingsIsletStep> T readCache(
+            final byte[] key, final Class<T> type) {
+        if (key == null) {
+            return null;
+        }
+        AbstractBuildingsIsletStep step = this.cache.read(key);
+        if (!type.isInstance(step)) {
+            return null;
+        }
+        return type.cast(step);
+    }
+
+    /**
+     * Keeps the result of a process in the cache.
+     * @param key
+     *            the key of the result, or null if there is no cache
+     * @param step
+     *            the step returned by the process
+     */
+    private void writeCache(final byte[] key,
+            final AbstractBuildingsIsletStep step) {
+        if (key != null) {
+            this.cache.write(key, step);
+        }
+    }
+
+    /**
+     * Returns one step of the islet.
+     * @param step
+     *            the number of the step, from 0 to 7
+     * @return the step, or null if it has not been computed
+     */
+    public final AbstractBuildingsIsletStep returnStep(final int step) {
+        switch (step) {
+        case AbstractBuildingsIslet.ZERO_STEP:
+            return this.biStep0;
+        case AbstractBuildingsIslet.FIRST_STEP:
+            return this.biStep1;
+        case AbstractBuildingsIslet.SECOND_STEP:
+            return this.biStep2;
+        case AbstractBuildingsIslet.THIRD_STEP:
+            return this.biStep3;
+        case AbstractBuildingsIslet.FOURTH_STEP:
+            return this.biStep4;
+        case AbstractBuildingsIslet.FIFTH_STEP:
+            return this.biStep5;
+        case AbstractBuildingsIslet.SIXTH_STEP:
+            return this.biStep6;
+        case AbstractBuildingsIslet.SEVENTH_STEP:
+            return this.biStep7;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Puts a step computed elsewhere, for example read from a file, in the
+     * islet and sets the progression to its number : the next process starts
+     * from this step. The normals must be the ones the step has been computed
+     * with.
+     * @param step
+     *            the step, from 1 to 7
+     * @throws IllegalArgumentException
+     *             if the step is a step 0
+     */
+    public final void restoreStep(final AbstractBuildingsIsletStep step) {
+        if (step instanceof BuildingsIsletStep1) {
+            this.biStep1 = (BuildingsIsletStep1) step;
+            this.progression = AbstractBuildingsIslet.FIRST_STEP;
+        } else if (step instanceof BuildingsIsletStep2) {
+            this.biStep2 = (BuildingsIsletStep2) step;
+            this.progression = AbstractBuildingsIslet.SECOND_STEP;
+        } else if (step instanceof BuildingsIsletStep3) {
+            this.biStep3 = (BuildingsIsletStep3) step;
+            this.progression = AbstractBuildingsIslet.THIRD_STEP;
+        } else if (step instanceof BuildingsIsletStep4) {
+            this.biStep4 = (BuildingsIsletStep4) step;
+            this.progression = AbstractBuildingsIslet.FOURTH_STEP;
+        } else if (step instanceof BuildingsIsletStep5) {
+            this.biStep5 = (BuildingsIsletStep5) step;
+            this.progression = AbstractBuildingsIslet.FIFTH_STEP;
+        } else if (step instanceof BuildingsIsletStep6) {
+            this.biStep6 = (BuildingsIsletStep6) step;
+            this.progression = AbstractBuildingsIslet.SIXTH_STEP;
+        } else if (step instanceof BuildingsIsletStep7) {
+            this.biStep7 = (BuildingsIsletStep7) step;
+            this.progression = AbstractBuildingsIslet.SEVENTH_STEP;
+        } else {
+            throw new IllegalArgumentException(String.valueOf(step));
+        }
+    }
+
     /**
      * Sets the progression to 0.
      */
@@ -468,6 +689,43 @@ public abstract class AbstractBuildingsIslet extends AbstractIslet implements
         this.biStep0 = biStep0In;
     }
 
+    /**
+     * Setter.
+     * @param cacheIn
+     *            the cache containing the results of the previous processes,
+     *            or null to launch every process
+     */
+    public final void setCache(final StepCache cacheIn) {
+        this.cache = cacheIn;
+    }
+
+    /**
+     * Setter.
+     * @param debugFilesIn
+     *            true to write the debug files of the sixth process
+     */
+    public final void setDebugFiles(final boolean debugFilesIn) {
+        this.debugFiles = debugFilesIn;
+    }
+
+    /**
+     * Setter.
+     * @param parametersIn
+     *            the coefficients to give to the next processes
+     */
+    public final void setParameters(final ProcessParameters parametersIn) {
+        this.parameters = parametersIn;
+    }
+
+    /**
+     * Setter.
+     * @param progressIn
+     *            the progress to give to the next processes
+     */
+    public final void setProgress(final ProcessProgress progressIn) {
+        this.progress = progressIn;
+    }
+
     /**
      * Setter.
      * @param gravityNormalIn
@@ -3,9 +3,12 @@ package fr.nantes1900.models.islets.steps;
 import javax.swing.tree.DefaultMutableTreeNode;
 
 import fr.nantes1900.constants.TextsKeys;
+import fr.nantes1900.models.coefficients.ProcessParameters;
 import fr.nantes1900.models.exceptions.NullArgumentException;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
 import fr.nantes1900.models.exceptions.WeirdResultException;
 import fr.nantes1900.utils.FileTools;
+import fr.nantes1900.utils.ProcessProgress;
 
 /**
  * Abstract the steps of the islet process. Each step must be able to LAUNCH the
@@ -15,16 +18,46 @@ import fr.nantes1900.utils.FileTools;
 public abstract class AbstractBuildingsIsletStep {
 
     /**
-     * Launches the process.
+     * The progress of the process, followed by nobody by default.
+     */
+    private ProcessProgress progress = new ProcessProgress();
+    /**
+     * The coefficients of the process, by default the current values of the
+     * static coefficients.
+     */
+    private ProcessParameters parameters = new ProcessParameters();
+
+    /**
+     * Getter.
+     * @return the coefficients of the process
+     */
+    public final ProcessParameters getParameters() {
+        return this.parameters;
+    }
+
+    /**
+     * Getter.
+     * @return the progress of the process
+     */
+    public final ProcessProgress getProgress() {
+        return this.progress;
+    }
+
+    /**
+     * Launches the process. If the process is canceled, this step must stay
+     * as it was before the call.
      * @return the next step
      * @throws NullArgumentException
      *             when an argument needed in the process have not been
      *             initialized
      * @throws WeirdResultException
      *             if the result is not coherent
+     * @throws ProcessCanceledException
+     *             if the progress has been canceled during the process
      */
     public abstract AbstractBuildingsIsletStep launchProcess()
-            throws NullArgumentException, WeirdResultException;
+            throws NullArgumentException, WeirdResultException,
+            ProcessCanceledException;
 
     /**
      * Builds a tree node for the JTree.
@@ -32,6 +65,24 @@ public abstract class AbstractBuildingsIsletStep {
      */
     public abstract DefaultMutableTreeNode returnNode();
 
+    /**
+     * Setter.
+     * @param parametersIn
+     *            the coefficients of the process
+     */
+    public final void setParameters(final ProcessParameters parametersIn) {
+        this.parameters = parametersIn;
+    }
+
+    /**
+     * Setter.
+     * @param progressIn
+     *            the progress to update during the process
+     */
+    public final void setProgress(final ProcessProgress progressIn) {
+        this.progress = progressIn;
+    }
+
     /*
      * (non-Javadoc)
      * @see java.lang.Object#toString()
@@ -9,12 +9,13 @@ import javax.vecmath.Vector3d;
 import fr.nantes1900.models.basis.Edge;
 import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.models.basis.Point;
-import fr.nantes1900.models.coefficients.SeparationGroundBuilding;
 import fr.nantes1900.models.exceptions.NullArgumentException;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
 import fr.nantes1900.models.extended.Ground;
 import fr.nantes1900.models.extended.Surface;
 import fr.nantes1900.models.islets.AbstractBuildingsIslet;
 import fr.nantes1900.utils.Algos;
+import fr.nantes1900.utils.MorphologicalGroundFilter;
 
 /**
  * Implements a step of the process. This step is after the base change and
@@ -50,14 +51,24 @@ public class BuildingsIsletStep1 extends AbstractBuildingsIsletStep {
     }
 
     /**
-     * Extracts the grounds, using the groundExtract method.
+     * Extracts the grounds, using the groundExtract method, or the
+     * morphological filter if the parameters give the size of its cells.
      * @return the ground extracted
      */
     private Ground groundExtraction() {
+        final MorphologicalGroundFilter filter = this.getParameters()
+                .returnGroundFilter();
+        if (filter != null) {
+            return new Ground(filter.extractGround(
+                    this.initialTotalSurfaceAfterBaseChange.getMesh(),
+                    this.groundNormal,
+                    this.getParameters().getLargeAngleGroundError()));
+        }
+
         // Searches for ground-oriented triangles with an error.
         Mesh meshOriented = this.initialTotalSurfaceAfterBaseChange.getMesh()
                 .orientedAs(this.groundNormal,
-                        SeparationGroundBuilding.getAngleGroundError());
+                        this.getParameters().getAngleGroundError());
 
         List<Mesh> thingsList;
         List<Mesh> groundsList = new ArrayList<>();
@@ -91,7 +102,7 @@ public class BuildingsIsletStep1 extends AbstractBuildingsIsletStep {
                     .getCentroid());
             if (projectedPoint.getZ() < pAverage.getZ()
                     || projectedPoint.distance(pAverage) < highDiff
-                            * SeparationGroundBuilding.getAltitureError()) {
+                            * this.getParameters().getAltitureError()) {
                 groundsList.add(m);
             }
         }
@@ -102,7 +113,7 @@ public class BuildingsIsletStep1 extends AbstractBuildingsIsletStep {
         thingsList = new ArrayList<>(groundsList);
         groundsList = new ArrayList<>();
         for (final Mesh m : thingsList) {
-            if (m.size() > SeparationGroundBuilding.getBlockGroundsSizeError()) {
+            if (m.size() > this.getParameters().getBlockGroundsSizeError()) {
                 groundsList.add(m);
             }
         }
@@ -112,7 +123,7 @@ public class BuildingsIsletStep1 extends AbstractBuildingsIsletStep {
         // which are almost ground-oriented to add them.
         meshOriented = this.initialTotalSurfaceAfterBaseChange.getMesh()
                 .orientedAs(this.groundNormal,
-                        SeparationGroundBuilding.getLargeAngleGroundError());
+                        this.getParameters().getLargeAngleGroundError());
 
         // If the new grounds are neighbours from the old ones, they are
         // added to the real grounds.
@@ -142,11 +153,14 @@ public class BuildingsIsletStep1 extends AbstractBuildingsIsletStep {
      */
     @Override
     public final BuildingsIsletStep2 launchProcess()
-            throws NullArgumentException {
+            throws NullArgumentException, ProcessCanceledException {
         if (this.groundNormal == null) {
             throw new NullArgumentException();
         }
         Ground initialGround = this.groundExtraction();
+        this.getProgress().update(1.0 / 2);
+        this.getProgress().checkCanceled();
+
         Surface initialBuildings = new Surface(new Mesh(
                 this.initialTotalSurfaceAfterBaseChange.getMesh()));
         initialBuildings.getMesh().remove(initialGround.getMesh());
@@ -1,12 +1,14 @@
 package fr.nantes1900.models.islets.steps;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 
 import fr.nantes1900.models.basis.Mesh;
-import fr.nantes1900.models.coefficients.SeparationBuildings;
+import fr.nantes1900.models.basis.Triangle;
 import fr.nantes1900.models.extended.Building;
 import fr.nantes1900.models.extended.Ground;
 import fr.nantes1900.models.extended.Surface;
@@ -34,6 +36,12 @@ public class BuildingsIsletStep2 extends AbstractBuildingsIsletStep {
      */
     private Surface noise;
 
+    /**
+     * The buildings found by the last launch of the process, empty before the
+     * first one.
+     */
+    private List<Building> previousBuildings = new ArrayList<>();
+
     /**
      * Constructor.
      * @param initialBuildingsIn
@@ -60,22 +68,70 @@ public class BuildingsIsletStep2 extends AbstractBuildingsIsletStep {
 
         // Steprithm : detection of buildings considering their size.
         for (final Mesh m : thingsList) {
-            if (m.size() >= SeparationBuildings.getBlockBuildingSize()) {
+            if (m.size() >= this.getParameters().getBlockBuildingSize()) {
                 buildingList.add(m);
             } else {
                 this.noise.getMesh().addAll(m);
             }
         }
 
+        // The buildings which have not been modified since the last launch
+        // are kept, with the results of their processes.
+        final Map<Triangle, Building> previousTriangles =
+                new IdentityHashMap<>();
+        for (Building b : this.previousBuildings) {
+            for (Triangle t : b.getbStep3().getInitialTotalSurface()
+                    .getMesh()) {
+                previousTriangles.put(t, b);
+            }
+        }
+
         List<Building> buildings = new ArrayList<>();
 
         for (Mesh m : buildingList) {
-            buildings.add(new Building(new Surface(m)));
+            Building previous = BuildingsIsletStep2.returnSameBuilding(m,
+                    previousTriangles);
+            if (previous == null) {
+                buildings.add(new Building(new Surface(m)));
+            } else {
+                buildings.add(previous);
+            }
         }
 
+        this.previousBuildings = buildings;
         return buildings;
     }
 
+    /**
+     * Searches for a building containing exactly the triangles of a mesh.
+     * @param mesh
+     *            the mesh of the new building
+     * @param previousTriangles
+     *            the map giving the previous building containing each
+     *            triangle
+     * @return the previous building, or null if there is none
+     */
+    private static Building returnSameBuilding(final Mesh mesh,
+            final Map<Triangle, Building> previousTriangles) {
+        if (mesh.isEmpty()) {
+            return null;
+        }
+
+        final Building previous = previousTriangles.get(mesh.iterator()
+                .next());
+        if (previous == null
+                || previous.getbStep3().getInitialTotalSurface().getMesh()
+                        .size() != mesh.size()) {
+            return null;
+        }
+        for (Triangle t : mesh) {
+            if (previousTriangles.get(t) != previous) {
+                return null;
+            }
+        }
+        return previous;
+    }
+
     /**
      * Getter.
      * @return the set of every buildings
@@ -6,6 +6,7 @@ import javax.swing.tree.DefaultMutableTreeNode;
 import javax.vecmath.Vector3d;
 
 import fr.nantes1900.models.exceptions.NullArgumentException;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
 import fr.nantes1900.models.extended.Building;
 import fr.nantes1900.models.extended.Ground;
 import fr.nantes1900.models.extended.Surface;
@@ -82,11 +83,26 @@ public class BuildingsIsletStep3 extends AbstractBuildingsIsletStep {
      */
     @Override
     public final BuildingsIsletStep4 launchProcess()
-            throws NullArgumentException {
-        for (Building b : this.buildings) {
-            b.getbStep3().setArguments(this.gravityNormal);
-            b.launchProcess3();
-        }
+            throws NullArgumentException, ProcessCanceledException {
+        // The buildings which have not been modified since the last launch
+        // keep their result.
+        final boolean[] outdated = BuildingsParallelProcess.selectOutdated(
+                this.buildings, AbstractBuildingsIslet.THIRD_STEP,
+                this.getParameters());
+
+        BuildingsParallelProcess.launch(this.buildings,
+                new BuildingsParallelProcess.BuildingProcess() {
+
+                    @Override
+                    public void process(final Building b, final int index)
+                            throws NullArgumentException {
+                        if (outdated[index]) {
+                            b.getbStep3().setArguments(
+                                    BuildingsIsletStep3.this.gravityNormal);
+                            b.launchProcess3();
+                        }
+                    }
+                }, this.getProgress());
 
         BuildingsIsletStep4 biStep = new BuildingsIsletStep4(this.buildings,
                 this.grounds);
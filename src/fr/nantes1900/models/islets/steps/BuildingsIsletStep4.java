@@ -1,14 +1,23 @@
 package fr.nantes1900.models.islets.steps;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.vecmath.Vector3d;
 
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Triangle;
 import fr.nantes1900.models.exceptions.NullArgumentException;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
 import fr.nantes1900.models.extended.Building;
 import fr.nantes1900.models.extended.Ground;
+import fr.nantes1900.models.extended.Roof;
 import fr.nantes1900.models.extended.Surface;
+import fr.nantes1900.models.extended.Wall;
 import fr.nantes1900.models.islets.AbstractBuildingsIslet;
 
 /**
@@ -81,20 +90,153 @@ public class BuildingsIsletStep4 extends AbstractBuildingsIsletStep implements W
      */
     @Override
     public final BuildingsIsletStep5 launchProcess()
-            throws NullArgumentException {
+            throws NullArgumentException, ProcessCanceledException {
 
-        for (Building b : this.buildings) {
-            b.getbStep4().setArguments(this.groundNormal, this.grounds,
-                    this.noise);
-            b.launchProcess4();
-        }
+        // The buildings which have not been modified since the last launch
+        // keep their result, if the noise and the grounds have not been
+        // modified either.
+        final boolean[] outdated = BuildingsParallelProcess.selectOutdated(
+                this.buildings, AbstractBuildingsIslet.FOURTH_STEP,
+                this.getParameters(), this.noise.getMesh(),
+                this.grounds.getMesh());
+
+        // Each building works on its own copy of the noise it can take, to
+        // be treated in parallel with the others : the noise of the islet is
+        // only read. The copies are temporary : the triangles are not told
+        // they belong to them.
+        final Mesh isletNoise = this.noise.getMesh();
+
+        BuildingsParallelProcess.launch(this.buildings,
+                new BuildingsParallelProcess.BuildingProcess() {
+
+                    @Override
+                    public void process(final Building b, final int index)
+                            throws NullArgumentException {
+                        if (outdated[index]) {
+                            final Mesh buildingNoise = new Mesh();
+                            buildingNoise.addAll(BuildingsIsletStep4
+                                    .returnNearNoise(b, isletNoise));
+                            b.launchProcess4(new Surface(buildingNoise));
+                        }
+                    }
+                }, this.getProgress());
+
+        // The noise of this step is never modified : the buildings treated
+        // again by a next launch start from the same noise as the first time.
+        final Surface nextNoise = this.mergeNoises();
+        BuildingsParallelProcess.recordSharedInputs(this.buildings,
+                AbstractBuildingsIslet.FOURTH_STEP, this.noise.getMesh(),
+                this.grounds.getMesh());
 
         BuildingsIsletStep5 biStep = new BuildingsIsletStep5(this.buildings,
                 this.grounds);
-        biStep.setArguments(this.noise);
+        biStep.setArguments(nextNoise);
         return biStep;
     }
 
+    /**
+     * Returns the noise a building can take : the blocks of noise touching
+     * its walls or its roofs. The fourth process only adds to a surface the
+     * noise connected to it, and the blocks it cuts from the building. The
+     * noise is only read.
+     * @param building
+     *            the building
+     * @param isletNoise
+     *            the noise of the islet
+     * @return the blocks of noise touching the building
+     */
+    private static Mesh returnNearNoise(final Building building,
+            final Mesh isletNoise) {
+        final Mesh near = new Mesh();
+        final List<Triangle> toVisit = new ArrayList<>();
+        for (Surface s : Arrays.asList(building.getbStep4()
+                .getInitialWallSurface(), building.getbStep4()
+                .getInitialRoofSurface())) {
+            for (Triangle t : s.getMesh()) {
+                toVisit.add(t);
+            }
+        }
+
+        for (int i = 0; i < toVisit.size(); i++) {
+            for (Triangle other : toVisit.get(i).getNeighbours()) {
+                if (isletNoise.contains(other) && near.add(other)) {
+                    toVisit.add(other);
+                }
+            }
+        }
+        return near;
+    }
+
+    /**
+     * Computes the noise of the next step from the results of the buildings,
+     * in the order of the buildings, without modifying the noise of this
+     * step. The triangles of the noise which are in the walls or the roofs of
+     * a building have been taken by it. If a triangle has been taken by
+     * several buildings, only the first one keeps it, as if the buildings had
+     * been treated one after the other. The triangles of a building which are
+     * not in its walls or its roofs have been cut from it and are added to
+     * the noise. The buildings which have kept their previous result are
+     * merged as the others : the noise of their previous launch is not kept.
+     * The buildings are also given this noise for their fifth process.
+     * @return the noise of the next step
+     */
+    private Surface mergeNoises() {
+        final Mesh isletNoise = this.noise.getMesh();
+        final Mesh nextNoise = new Mesh();
+        nextNoise.addAll(isletNoise);
+        final Surface next = new Surface(nextNoise);
+        final Set<Triangle> taken = new HashSet<>();
+
+        for (Building b : this.buildings) {
+            final Set<Triangle> kept = new HashSet<>();
+            for (Wall w : b.getbStep5().getWalls()) {
+                kept.addAll(w.getMesh());
+            }
+            for (Roof r : b.getbStep5().getRoofs()) {
+                kept.addAll(r.getMesh());
+            }
+
+            for (Triangle t : kept) {
+                if (isletNoise.contains(t) && !taken.add(t)) {
+                    // Already taken by a previous building.
+                    this.removeFromBuilding(b, t);
+                }
+            }
+
+            for (Surface s : Arrays.asList(b.getbStep4()
+                    .getInitialWallSurface(), b.getbStep4()
+                    .getInitialRoofSurface())) {
+                for (Triangle t : s.getMesh()) {
+                    if (!kept.contains(t)) {
+                        nextNoise.add(t);
+                    }
+                }
+            }
+
+            b.getbStep5().setNoise(next);
+        }
+
+        nextNoise.removeAll(taken);
+        return next;
+    }
+
+    /**
+     * Removes a triangle from the walls and the roofs of a building.
+     * @param building
+     *            the building
+     * @param triangle
+     *            the triangle to remove
+     */
+    private void removeFromBuilding(final Building building,
+            final Triangle triangle) {
+        for (Wall w : building.getbStep5().getWalls()) {
+            w.getMesh().remove(triangle);
+        }
+        for (Roof r : building.getbStep5().getRoofs()) {
+            r.getMesh().remove(triangle);
+        }
+    }
+
     /*
      * (non-Javadoc)
      * @see fr.nantes1900.models.islets.steps.AbstractBuildingsIsletStep
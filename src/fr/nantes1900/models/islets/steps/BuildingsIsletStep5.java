@@ -6,6 +6,7 @@ import javax.swing.tree.DefaultMutableTreeNode;
 import javax.vecmath.Vector3d;
 
 import fr.nantes1900.models.exceptions.NullArgumentException;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
 import fr.nantes1900.models.extended.Building;
 import fr.nantes1900.models.extended.Ground;
 import fr.nantes1900.models.extended.Surface;
@@ -81,11 +82,35 @@ public class BuildingsIsletStep5 extends AbstractBuildingsIsletStep implements W
      */
     @Override
     public final BuildingsIsletStep6 launchProcess()
-            throws NullArgumentException {
-        for (Building b : this.buildings) {
-            b.launchProcess5();
+            throws NullArgumentException, ProcessCanceledException {
+        if (this.noise == null) {
+            throw new NullArgumentException();
         }
 
+        // The buildings which have not been modified since the last launch
+        // keep their result, if the noise and the grounds have not been
+        // modified either : they are used to find the neighbours.
+        final boolean[] outdated = BuildingsParallelProcess.selectOutdated(
+                this.buildings, AbstractBuildingsIslet.FIFTH_STEP,
+                this.getParameters(), this.noise.getMesh(),
+                this.grounds.getMesh());
+
+        BuildingsParallelProcess.launch(this.buildings,
+                new BuildingsParallelProcess.BuildingProcess() {
+
+                    @Override
+                    public void process(final Building b, final int index)
+                            throws NullArgumentException {
+                        if (outdated[index]) {
+                            b.launchProcess5();
+                        }
+                    }
+                }, this.getProgress());
+
+        BuildingsParallelProcess.recordSharedInputs(this.buildings,
+                AbstractBuildingsIslet.FIFTH_STEP, this.noise.getMesh(),
+                this.grounds.getMesh());
+
         return new BuildingsIsletStep6(this.buildings, this.grounds);
     }
 
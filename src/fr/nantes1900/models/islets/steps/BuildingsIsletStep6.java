@@ -1,27 +1,42 @@
 package fr.nantes1900.models.islets.steps;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import javax.swing.filechooser.FileSystemView;
 import javax.swing.tree.DefaultMutableTreeNode;
 
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
 import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.EdgeGrid;
 import fr.nantes1900.models.basis.Mesh;
 import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.PointGrid;
 import fr.nantes1900.models.basis.Polygon;
 import fr.nantes1900.models.basis.Triangle;
-import fr.nantes1900.models.decimation.Decimator;
+import fr.nantes1900.models.decimation.ParallelDecimator;
 import fr.nantes1900.models.exceptions.ImpossibleProjectionException;
+import fr.nantes1900.models.exceptions.NullArgumentException;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
 import fr.nantes1900.models.extended.Building;
 import fr.nantes1900.models.extended.Ground;
 import fr.nantes1900.models.extended.Roof;
 import fr.nantes1900.models.extended.Wall;
 import fr.nantes1900.models.islets.AbstractBuildingsIslet;
 import fr.nantes1900.utils.AbstractWriter;
+import fr.nantes1900.utils.BackgroundWriter;
 import fr.nantes1900.utils.CityGMLWriter;
 import fr.nantes1900.utils.STLWriter;
 
@@ -33,6 +48,15 @@ import fr.nantes1900.utils.STLWriter;
  */
 public class BuildingsIsletStep6 extends AbstractBuildingsIsletStep implements Writable {
 
+	/**
+	 * Part of the progress spent in the decimation.
+	 */
+	private static final double DECIMATION_PART = 0.6;
+	/**
+	 * Part of the progress spent before the treatment of the buildings.
+	 */
+	private static final double GROUNDS_PART = 0.7;
+
 	/**
 	 * The list of buildings.
 	 */
@@ -47,6 +71,18 @@ public class BuildingsIsletStep6 extends AbstractBuildingsIsletStep implements W
 	 */
 	private HashMap<Polygon, Building> bordersToRestick;
 
+	/**
+	 * The ground projections of the buildings which can be projected,
+	 * computed once by launchProcess.
+	 */
+	private Map<Building, com.vividsolutions.jts.geom.Polygon> footprints;
+
+	/**
+	 * True to write the grounds before the removal of the triangles under the
+	 * buildings and the result in files, false by default.
+	 */
+	private boolean debugFiles;
+
 	/**
 	 * Constructor.
 	 * 
@@ -79,6 +115,16 @@ public class BuildingsIsletStep6 extends AbstractBuildingsIsletStep implements W
 		return this.grounds;
 	}
 
+	/**
+	 * Setter.
+	 * 
+	 * @param debugFilesIn
+	 *            true to write the debug files during the process
+	 */
+	public final void setDebugFiles(final boolean debugFilesIn) {
+		this.debugFiles = debugFilesIn;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -86,37 +132,72 @@ public class BuildingsIsletStep6 extends AbstractBuildingsIsletStep implements W
 	 * #launchProcess()
 	 */
 	@Override
-	public final BuildingsIsletStep7 launchProcess() {
-		// Decimation
-		Decimator decim = new Decimator(this.grounds.getMesh());
-		this.grounds.setMesh(decim.launchDecimation());
-		System.out.println("Decimation finie");
-		this.rmvTrianglesInsideBuildings();
-		this.findBordersToRestick();
-		this.projectBordersOnWalls();
-		this.grounds.getMesh().refresh();
-
-		for (Building b : this.buildings) {
-			b.launchProcess6();
-		}
+	public final BuildingsIsletStep7 launchProcess()
+			throws ProcessCanceledException {
+		// The decimation and the projections modify the mesh of the grounds :
+		// they work on a copy, so that this step stays intact if the process
+		// is canceled or launched again.
+		final Ground initialGrounds = this.grounds;
+		this.grounds = new Ground(initialGrounds.getMesh().deepCopy());
+
+		try {
+			// Decimation, cut in cells decimated at the same time if asked.
+			ParallelDecimator decim = new ParallelDecimator(this.grounds
+					.getMesh(), this.getParameters().returnDecimationTarget(),
+					this.getParameters().getDecimationCells(), true, this
+							.getProgress().subProgress(0, DECIMATION_PART));
+			this.grounds.setMesh(decim.launchDecimation());
+			this.footprints = this.returnFootprints();
+			this.rmvTrianglesInsideBuildings();
+			this.findBordersToRestick();
+			this.projectBordersOnWalls();
+			this.grounds.getMesh().refresh();
+			this.getProgress().update(GROUNDS_PART);
+
+			final boolean[] outdated = BuildingsParallelProcess
+					.selectOutdated(this.buildings,
+							AbstractBuildingsIslet.SIXTH_STEP,
+							this.getParameters());
+			try {
+				BuildingsParallelProcess.launch(this.buildings,
+						new BuildingsParallelProcess.BuildingProcess() {
+
+							@Override
+							public void process(final Building b,
+									final int index) {
+								if (outdated[index]) {
+									b.launchProcess6();
+								}
+							}
+						}, this.getProgress().subProgress(GROUNDS_PART, 1));
+			} catch (NullArgumentException e) {
+				// Cannot happen : the sixth building process has no argument.
+			}
 
-		writesResult();
+			if (this.debugFiles) {
+				this.writesResult();
+			}
 
-		return new BuildingsIsletStep7(this.buildings, this.grounds);
+			return new BuildingsIsletStep7(this.buildings, this.grounds);
+		} finally {
+			this.grounds = initialGrounds;
+		}
 	}
 
 	/**
 	 * Temporary methods to writes simplified buildings and ground in the same
-	 * file in order to watch results with the program.
+	 * file in order to watch results with the program. The file is written in
+	 * background : the process does not wait for the disk.
 	 */
 	private void writesResult() {
-        String fileName = new String(FileSystemView.getFileSystemView().getDefaultDirectory() + "/lastResult.stl");
-        
-        STLWriter writer = new STLWriter(fileName, this);
-        
-        writer.makeFileFromWritable();
-        
-        writer.write();
+		String fileName = FileSystemView.getFileSystemView()
+				.getDefaultDirectory() + "/lastResult.stl";
+
+		STLWriter writer = new STLWriter(fileName, this);
+
+		writer.makeFileFromWritable();
+
+		BackgroundWriter.write(writer);
 	}
 
 	/*
@@ -156,6 +237,9 @@ public class BuildingsIsletStep6 extends AbstractBuildingsIsletStep implements W
 
 	/**
 	 * Removes triangles from the ground that have a point inside the building.
+	 * The envelopes of the triangles are indexed in a tree built once : each
+	 * building only tests the triangles whose envelope intersects its own,
+	 * against its prepared projection.
 	 * 
 	 * @throws ImpossibleProjectionException
 	 *             if one surface has not been simplified
@@ -163,32 +247,81 @@ public class BuildingsIsletStep6 extends AbstractBuildingsIsletStep implements W
 	private void rmvTrianglesInsideBuildings() {
 		Mesh toRemove = new Mesh();
 
-		this.grounds.getMesh().writeSTL("rmvTrianglesBefore");
+		if (this.debugFiles) {
+			BackgroundWriter.writeSTL("rmvTrianglesBefore",
+					this.grounds.getMesh());
+		}
+
+		STRtree index = new STRtree();
+		for (Triangle tri : this.grounds.getMesh()) {
+			index.insert(new Envelope(tri.xMin(), tri.xMax(), tri.yMin(),
+					tri.yMax()), tri);
+		}
+
+		for (com.vividsolutions.jts.geom.Polygon polygon : this.footprints
+				.values()) {
+			PreparedGeometry prepared = PreparedGeometryFactory
+					.prepare(polygon);
+
+			// Looks for each triangle of the ground near the building.
+			for (Object candidate : index.query(polygon
+					.getEnvelopeInternal())) {
+				Triangle tri = (Triangle) candidate;
+				if (!toRemove.contains(tri)
+						&& prepared.intersects(BuildingsIsletStep6
+								.convertTriangleToJts(tri))) {
+					toRemove.add(tri);
+				}
+			}
+		}
+		this.grounds.getMesh().remove(toRemove);
+	}
+
+	/**
+	 * Computes the ground projection of each building. The buildings which
+	 * cannot be projected are not in the map : the grounds are not resticked
+	 * to them.
+	 * 
+	 * @return the map associating the buildings with their projections
+	 */
+	private Map<Building, com.vividsolutions.jts.geom.Polygon>
+			returnFootprints() {
+		Map<Building, com.vividsolutions.jts.geom.Polygon> map =
+				new LinkedHashMap<>();
 		for (Building b : this.buildings) {
-			com.vividsolutions.jts.geom.Polygon polygon;
 			try {
-				polygon = getGroundProjection(b.getbStep6().getWalls());
-
-				// Looks for each triangle of the ground.
-				for (Triangle tri : this.grounds.getMesh()) {
-					if (polygon.intersects(new Polygon(tri.getEdges())
-							.convertPolygonToJts())) {
-						toRemove.add(tri);
-					}
-				}
+				map.put(b, getGroundProjection(b.getbStep6().getWalls()));
 			} catch (ImpossibleProjectionException e) {
 				// Do nothing : does not try to restick to this building
 			}
 		}
-		this.grounds.getMesh().remove(toRemove);
+		return map;
 	}
 
 	/**
-	 * Associates each building with a border and stores them into the borders
-	 * to restick map.
+	 * Converts a triangle to a JTS polygon, projected on the plane (x, y).
 	 * 
-	 * @throws ImpossibleProjectionException
-	 *             if one surface has not been simplified
+	 * @param tri
+	 *            the triangle
+	 * @return the JTS polygon
+	 */
+	private static com.vividsolutions.jts.geom.Polygon convertTriangleToJts(
+			final Triangle tri) {
+		GeometryFactory factory = Polygon.GEOMETRY_FACTORY;
+		Coordinate[] coords = new Coordinate[] {
+				new Coordinate(tri.getP1().getX(), tri.getP1().getY()),
+				new Coordinate(tri.getP2().getX(), tri.getP2().getY()),
+				new Coordinate(tri.getP3().getX(), tri.getP3().getY()),
+				new Coordinate(tri.getP1().getX(), tri.getP1().getY())
+		};
+		return factory.createPolygon(factory.createLinearRing(coords), null);
+	}
+
+	/**
+	 * Associates each building with a border and stores them into the borders
+	 * to restick map. The envelopes of the ground projections of the
+	 * buildings are indexed in a tree : each border only tests the buildings
+	 * whose envelope intersects its own.
 	 */
 	private void findBordersToRestick() {
 		this.bordersToRestick = new HashMap<>();
@@ -198,20 +331,25 @@ public class BuildingsIsletStep6 extends AbstractBuildingsIsletStep implements W
 
 		BuildingsIsletStep6.removeExternalBorder(borders);
 
+		STRtree index = new STRtree();
+		for (Building building : this.footprints.keySet()) {
+			index.insert(this.footprints.get(building).getEnvelopeInternal(),
+					building);
+		}
+
 		// Matches buildings with borders
 		for (Polygon border : borders) {
+			PreparedGeometry prepared = border.returnPreparedJts();
+
 			// Finds buildings contained in the border
 			int counter = 0;
 			Building matchingBuilding = null;
-			for (Building building : this.buildings) {
-				try {
-					if (border.containsWithJts(getGroundProjection(building
-							.getbStep6().getWalls()))) {
-						counter++;
-						matchingBuilding = building;
-					}
-				} catch (ImpossibleProjectionException e) {
-					// Do not try to restick with this building
+			for (Object candidate : index.query(border.convertPolygonToJts()
+					.getEnvelopeInternal())) {
+				Building building = (Building) candidate;
+				if (prepared.contains(this.footprints.get(building))) {
+					counter++;
+					matchingBuilding = building;
 				}
 			}
 			// If the border contains only one building, we can associate them
@@ -224,6 +362,8 @@ public class BuildingsIsletStep6 extends AbstractBuildingsIsletStep implements W
 	/**
 	 * Projects every edge of a border to the lowest edge of the closest wall.
 	 * Needs as previous step that borders and building have been associated.
+	 * The lowest edges and the points of the border are indexed in grids, to
+	 * only project each point on the closest edges.
 	 */
 	private void projectBordersOnWalls() {
 		Set<Polygon> borders = this.bordersToRestick.keySet();
@@ -237,23 +377,78 @@ public class BuildingsIsletStep6 extends AbstractBuildingsIsletStep implements W
 				downEdges.add(wall.getPolygon().getDownEdge());
 			}
 
-			for (Point p : border.getPointList()) {
-				Point pProj = getCloserProjectedPointOnEdge(p, downEdges);
-				p.set(pProj.getPointAsCoordinates());
+			List<Point> points = border.getPointList();
+			EdgeGrid edgeGrid = new EdgeGrid(downEdges);
+			double[] projection = new double[EdgeGrid.AXIS];
+			for (Point p : points) {
+				if (edgeGrid.search(p, projection) != -1) {
+					p.set(projection);
+				}
+			}
+
+			BuildingsIsletStep6.moveOnCorners(downEdges, points);
+		}
+	}
+
+	/**
+	 * Fixes angles issues : moves on the first point of each edge the closest
+	 * point projected inside the edge. A point is moved once, on the closest
+	 * of the corners finding it : the corners are treated by increasing
+	 * distance, and a corner whose point has been moved on a closer corner
+	 * searches its next closest point.
+	 * 
+	 * @param downEdges
+	 *            the lowest edges of the walls of a building
+	 * @param points
+	 *            the points of the border to restick
+	 */
+	public static void moveOnCorners(final List<Edge> downEdges,
+			final List<Point> points) {
+		final PointGrid pointGrid = new PointGrid(points);
+		final int[] closests = new int[downEdges.size()];
+		final double[] distances = new double[downEdges.size()];
+		PriorityQueue<Integer> corners = new PriorityQueue<>(Math.max(1,
+				downEdges.size()), new Comparator<Integer>() {
+
+			@Override
+			public int compare(final Integer i, final Integer j) {
+				int compare = Double.compare(distances[i.intValue()],
+						distances[j.intValue()]);
+				if (compare == 0) {
+					return i.compareTo(j);
+				}
+				return compare;
+			}
+		});
+
+		for (int i = 0; i < downEdges.size(); i++) {
+			Edge edge = downEdges.get(i);
+			closests[i] = pointGrid.searchInside(edge, edge.getP1());
+			// If there is none, it means that this edge is probably no
+			// touching the ground.
+			if (closests[i] != -1) {
+				distances[i] = edge.getP1().distance(points.get(closests[i]));
+				corners.add(Integer.valueOf(i));
 			}
+		}
 
-			Map<Edge, List<Point>> map = getEdgePointsMap(
-					border.getPointList(), downEdges);
-
-			// Fixes angles issues.
-			for (Edge edge : downEdges) {
-				Point wallPoint = edge.getP1();
-				// If it is empty, it means that this edge is probably no
-				// touching the ground.
-				if (!map.get(edge).isEmpty()) {
-					Point pClose = wallPoint.getCloser(map.get(edge));
-					pClose.set(wallPoint.getPointAsCoordinates());
+		boolean[] moved = new boolean[points.size()];
+		while (!corners.isEmpty()) {
+			int i = corners.poll().intValue();
+			Edge edge = downEdges.get(i);
+			if (moved[closests[i]]) {
+				// The moved points have been removed from the grid.
+				closests[i] = pointGrid.searchInside(edge, edge.getP1());
+				if (closests[i] != -1) {
+					distances[i] = edge.getP1().distance(
+							points.get(closests[i]));
+					corners.add(Integer.valueOf(i));
 				}
+			} else {
+				points.get(closests[i]).set(
+						edge.getP1().getPointAsCoordinates());
+				pointGrid.remove(closests[i]);
+				moved[closests[i]] = true;
 			}
 		}
 	}
@@ -298,15 +493,20 @@ public class BuildingsIsletStep6 extends AbstractBuildingsIsletStep implements W
 
 	/**
 	 * Searches for the external border of the ground : the border which
-	 * contains all the others. Then removes it.
+	 * contains all the others, and then has the largest envelope. Then
+	 * removes it.
 	 * 
 	 * @param borders
 	 *            the list of borders
 	 */
 	private static void removeExternalBorder(final List<Polygon> borders) {
 		Polygon externalBorder = null;
+		double largestArea = -1;
 		for (Polygon border : borders) {
-			if (border.containsAllWithJts(borders)) {
+			double area = border.convertPolygonToJts().getEnvelopeInternal()
+					.getArea();
+			if (area > largestArea) {
+				largestArea = area;
 				externalBorder = border;
 			}
 		}
@@ -324,49 +524,8 @@ public class BuildingsIsletStep6 extends AbstractBuildingsIsletStep implements W
 	 */
 	public static Point getCloserProjectedPointOnEdge(final Point p,
 			final List<Edge> edges) {
-		Point pProj = edges.get(0).getP1();
-		Point pProjCurrent;
-		double distance = edges.get(0).getP1().distance(p);
-
-		for (Edge downEdge : edges) {
-			pProjCurrent = downEdge.project(p);
-			if (pProjCurrent.distance(p) < distance) {
-				pProj = pProjCurrent;
-				distance = pProjCurrent.distance(p);
-			}
-		}
-
-		return pProj;
-	}
-
-	/**
-	 * Builds a map associating the edges and the points which can will be
-	 * projected on these edges.
-	 * 
-	 * @param points
-	 *            the list of all points
-	 * @param edges
-	 *            the list of all edges
-	 * @return the map
-	 */
-	private static Map<Edge, List<Point>> getEdgePointsMap(
-			final List<Point> points, final List<Edge> edges) {
-
-		Map<Edge, List<Point>> map = new HashMap<>();
-		for (Edge edge : edges) {
-			map.put(edge, new ArrayList<Point>());
-		}
-		Point proj;
-
-		for (Point point : points) {
-			for (Edge edge : edges) {
-				proj = edge.project(point);
-				if (!proj.equals(edge.getP1()) && !proj.equals(edge.getP2())) {
-					map.get(edge).add(point);
-				}
-			}
-		}
-
-		return map;
+		double[] projection = new double[EdgeGrid.AXIS];
+		new EdgeGrid(edges).search(p, projection);
+		return new Point(projection[0], projection[1], projection[2]);
 	}
 }
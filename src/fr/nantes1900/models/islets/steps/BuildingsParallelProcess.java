@@ -0,0 +1,281 @@
+package fr.nantes1900.models.islets.steps;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.MeshSnapshot;
+import fr.nantes1900.models.coefficients.ProcessParameters;
+import fr.nantes1900.models.exceptions.NullArgumentException;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
+import fr.nantes1900.models.extended.Building;
+import fr.nantes1900.utils.ProcessProgress;
+
+/**
+ * Launches a process on every building of an islet in parallel, using a
+ * fork/join pool. The buildings must be independent : a process must not
+ * modify an object shared with the other buildings.
+ */
+public final class BuildingsParallelProcess {
+
+    /**
+     * The pool shared by every islet.
+     */
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+
+    /**
+     * Private constructor.
+     */
+    private BuildingsParallelProcess() {
+    }
+
+    /**
+     * Launches the process on every building and waits for the end of all of
+     * them. The progress is updated each time a building is treated, and the
+     * cancel request is checked before treating a building : the buildings
+     * already treated are not restored.
+     * @param buildings
+     *            the list of buildings
+     * @param process
+     *            the process to launch on each building
+     * @param progress
+     *            the progress to update
+     * @throws NullArgumentException
+     *             if the process threw it for at least one building
+     * @throws ProcessCanceledException
+     *             if the progress has been canceled before the end
+     */
+    public static void launch(final List<Building> buildings,
+            final BuildingProcess process, final ProcessProgress progress)
+            throws NullArgumentException, ProcessCanceledException {
+        progress.checkCanceled();
+        try {
+            BuildingsParallelProcess.POOL.invoke(new BuildingsTask(buildings,
+                    process, progress, new AtomicInteger(), 0, buildings
+                            .size()));
+        } catch (BuildingProcessException e) {
+            if (e.getCause() instanceof ProcessCanceledException) {
+                throw (ProcessCanceledException) e.getCause();
+            }
+            throw (NullArgumentException) e.getCause();
+        }
+    }
+
+    /**
+     * Gives the coefficients to the buildings and selects the ones whose
+     * result of a process is not up to date : they have been modified since
+     * the last launch of the process, or the meshes they share with the other
+     * buildings have been modified. The shared meshes are compared once for
+     * all the buildings launched together. The selected buildings forget
+     * their shared inputs until recordSharedInputs is called : if the process
+     * is canceled before, they will be treated again.
+     * @param buildings
+     *            the list of buildings
+     * @param process
+     *            the number of the process
+     * @param parameters
+     *            the coefficients of the process
+     * @param sharedMeshes
+     *            the meshes used by the process of every building
+     * @return an array telling for each building if it has to be treated
+     */
+    public static boolean[] selectOutdated(final List<Building> buildings,
+            final int process, final ProcessParameters parameters,
+            final Mesh... sharedMeshes) {
+        final Map<MeshSnapshot, Boolean> matches = new IdentityHashMap<>();
+        final boolean[] outdated = new boolean[buildings.size()];
+
+        for (int i = 0; i < buildings.size(); i++) {
+            final Building b = buildings.get(i);
+            b.setParameters(parameters);
+
+            boolean upToDate = b.isUpToDate(process);
+            if (upToDate && sharedMeshes.length > 0) {
+                final MeshSnapshot inputs = b.getSharedInputs(process);
+                if (inputs == null) {
+                    upToDate = false;
+                } else {
+                    Boolean match = matches.get(inputs);
+                    if (match == null) {
+                        match = inputs.matches(sharedMeshes);
+                        matches.put(inputs, match);
+                    }
+                    upToDate = match;
+                }
+            }
+
+            outdated[i] = !upToDate;
+            if (outdated[i]) {
+                b.setSharedInputs(process, null);
+            }
+        }
+
+        return outdated;
+    }
+
+    /**
+     * Records in every building the state of the shared meshes after a
+     * process : the results are up to date with it.
+     * @param buildings
+     *            the list of buildings
+     * @param process
+     *            the number of the process
+     * @param sharedMeshes
+     *            the meshes used by the process of every building
+     */
+    public static void recordSharedInputs(final List<Building> buildings,
+            final int process, final Mesh... sharedMeshes) {
+        final MeshSnapshot inputs = new MeshSnapshot(sharedMeshes);
+        for (Building b : buildings) {
+            b.setSharedInputs(process, inputs);
+        }
+    }
+
+    /**
+     * Process to apply on one building.
+     */
+    public interface BuildingProcess {
+
+        /**
+         * Treats one building.
+         * @param building
+         *            the building
+         * @param index
+         *            the index of the building in the list
+         * @throws NullArgumentException
+         *             if an argument needed in the process has not been
+         *             initialized
+         */
+        void process(Building building, int index)
+                throws NullArgumentException;
+    }
+
+    /**
+     * Task treating a sublist of buildings, cut in two until one building
+     * remains.
+     */
+    private static final class BuildingsTask extends RecursiveAction {
+
+        /**
+         * Version attribute.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The whole list of buildings.
+         */
+        private final List<Building> buildings;
+        /**
+         * The process to launch.
+         */
+        private final BuildingProcess process;
+        /**
+         * The progress to update.
+         */
+        private final ProcessProgress progress;
+        /**
+         * The number of buildings already treated, shared by every task.
+         */
+        private final AtomicInteger treated;
+        /**
+         * The first index to treat.
+         */
+        private final int begin;
+        /**
+         * The index after the last one to treat.
+         */
+        private final int end;
+
+        /**
+         * Constructor.
+         * @param buildingsIn
+         *            the whole list of buildings
+         * @param processIn
+         *            the process to launch
+         * @param progressIn
+         *            the progress to update
+         * @param treatedIn
+         *            the counter of buildings already treated
+         * @param beginIn
+         *            the first index to treat
+         * @param endIn
+         *            the index after the last one to treat
+         */
+        public BuildingsTask(final List<Building> buildingsIn,
+                final BuildingProcess processIn,
+                final ProcessProgress progressIn,
+                final AtomicInteger treatedIn, final int beginIn,
+                final int endIn) {
+            this.buildings = buildingsIn;
+            this.process = processIn;
+            this.progress = progressIn;
+            this.treated = treatedIn;
+            this.begin = beginIn;
+            this.end = endIn;
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        @Override
+        protected void compute() {
+            if (this.end - this.begin <= 1) {
+                if (this.end > this.begin) {
+                    try {
+                        this.progress.checkCanceled();
+                        this.process.process(
+                                this.buildings.get(this.begin), this.begin);
+                    } catch (NullArgumentException
+                            | ProcessCanceledException e) {
+                        throw new BuildingProcessException(e);
+                    }
+                    this.progress.update((double) this.treated
+                            .incrementAndGet() / this.buildings.size());
+                }
+            } else {
+                int middle = (this.begin + this.end) / 2;
+                RecursiveAction.invokeAll(new BuildingsTask(this.buildings,
+                        this.process, this.progress, this.treated,
+                        this.begin, middle), new BuildingsTask(this.buildings,
+                        this.process, this.progress, this.treated, middle,
+                        this.end));
+            }
+        }
+    }
+
+    /**
+     * Carries a NullArgumentException or a ProcessCanceledException out of
+     * the pool.
+     */
+    private static final class BuildingProcessException extends
+            RuntimeException {
+
+        /**
+         * Version attribute.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructor.
+         * @param cause
+         *            the exception thrown by the process
+         */
+        public BuildingProcessException(final Exception cause) {
+            super(cause);
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.lang.Throwable#getCause()
+         */
+        @Override
+        public synchronized Exception getCause() {
+            return (Exception) super.getCause();
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package fr.nantes1900.utils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import javax.vecmath.Vector3d;
+
 import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
 import fr.nantes1900.models.basis.Triangle;
 import fr.nantes1900.models.extended.Surface;
 
@@ -15,6 +20,11 @@ import fr.nantes1900.models.extended.Surface;
  */
 public final class Algos {
 
+    /**
+     * Label of the triangles of the noise which belong to no mesh.
+     */
+    private static final int FREE = -1;
+
     /**
      * Private constructor.
      */
@@ -100,18 +110,9 @@ public final class Algos {
      * @return the sum of every meshes
      */
     public static Mesh blockTreatNoise(final List<Mesh> list, final Mesh noise) {
-        final List<Mesh> m = new ArrayList<>();
+        final List<Mesh> m = Algos.growWithNoise(list, noise, null, null, 0);
         final Mesh result = new Mesh();
 
-        for (final Mesh e : list) {
-            final Mesh meshAndNoise = new Mesh(e);
-            meshAndNoise.addAll(noise);
-            final Mesh mes = new Mesh();
-            e.getOne().returnNeighbours(mes, meshAndNoise);
-            m.add(mes);
-            noise.remove(mes);
-        }
-
         for (Mesh mesh : m) {
             result.addAll(mesh);
         }
@@ -134,17 +135,17 @@ public final class Algos {
     public static void blockTreatOrientedNoise(final List<Surface> surfaceList,
             final Mesh noise, final double largeAngleNormalErrorFactor) {
 
-        final List<Surface> list = new ArrayList<>();
-
+        final List<Mesh> meshes = new ArrayList<>();
+        final Vector3d[] normals = new Vector3d[surfaceList.size()];
         for (final Surface e : surfaceList) {
-            final Mesh meshAndNoise = new Mesh(e.getMesh());
-            meshAndNoise.addAll(noise.orientedAs(e.getMesh().averageNormal(),
-                    largeAngleNormalErrorFactor));
-            final Mesh mes = new Mesh();
-            e.getMesh().getOne().returnNeighbours(mes, meshAndNoise);
-            list.add(new Surface(mes));
+            normals[meshes.size()] = e.getMesh().averageNormal();
+            meshes.add(e.getMesh());
+        }
 
-            noise.remove(mes);
+        final List<Surface> list = new ArrayList<>();
+        for (final Mesh mes : Algos.growWithNoise(meshes, noise, normals,
+                null, largeAngleNormalErrorFactor)) {
+            list.add(new Surface(mes));
         }
 
         surfaceList.clear();
@@ -166,19 +167,135 @@ public final class Algos {
     public static void blockTreatPlanedNoise(final List<Mesh> list,
             final Mesh noise, final double errorPlanes) {
 
-        final List<Mesh> m = new ArrayList<>();
+        final Vector3d[] normals = new Vector3d[list.size()];
+        final Point[] centroids = new Point[list.size()];
+        for (int i = 0; i < list.size(); i++) {
+            normals[i] = list.get(i).averageNormal();
+            centroids[i] = list.get(i).getCentroid();
+        }
+
+        final List<Mesh> m = Algos.growWithNoise(list, noise, normals,
+                centroids, errorPlanes);
 
+        list.clear();
+        list.addAll(m);
+    }
+
+    /**
+     * Grows the meshes of a list with the neighbour noise, by a breadth-first
+     * search from all the meshes at the same time : each triangle of the noise
+     * is labelled by the first mesh which reaches it and accepts it, and is
+     * then expanded for this mesh. A triangle of the noise is thus given to
+     * the closest mesh, by neighbourhood, instead of to the first mesh of the
+     * list, and the noise is traversed once whatever the number of meshes.
+     * The triangles given to the meshes are removed from the noise.
+     * @param list
+     *            the list of meshes to complete with noise, not modified
+     * @param noise
+     *            the whole noise
+     * @param normals
+     *            the normals of the meshes, or null to accept every triangle
+     * @param centroids
+     *            the centroids of the meshes, or null to accept the triangles
+     *            oriented as the normal of the mesh
+     * @param error
+     *            the error on the orientation, or the distance between the two
+     *            planes parallel to the mesh containing the accepted triangles
+     * @return the meshes completed, in the order of the list
+     */
+    private static List<Mesh> growWithNoise(final List<Mesh> list,
+            final Mesh noise, final Vector3d[] normals, final Point[] centroids,
+            final double error) {
+        int size = noise.size();
+        for (final Mesh e : list) {
+            size += e.size();
+        }
+
+        // Indexes the triangles of the meshes, which are the sources of the
+        // search, then the triangles of the noise.
+        final Map<Triangle, Integer> indices = new HashMap<>();
+        final Triangle[] triangles = new Triangle[size];
+        final int[] labels = new int[size];
+        final int[] queue = new int[size];
+        int count = 0;
+        for (int label = 0; label < list.size(); label++) {
+            for (final Triangle t : list.get(label)) {
+                if (!indices.containsKey(t)) {
+                    indices.put(t, count);
+                    triangles[count] = t;
+                    labels[count] = label;
+                    queue[count] = count;
+                    count++;
+                }
+            }
+        }
+        final int sources = count;
+        for (final Triangle t : noise) {
+            if (!indices.containsKey(t)) {
+                indices.put(t, count);
+                triangles[count] = t;
+                labels[count] = Algos.FREE;
+                count++;
+            }
+        }
+
+        int end = sources;
+        for (int start = 0; start < end; start++) {
+            final int current = queue[start];
+            final int label = labels[current];
+            for (final Triangle other : triangles[current].getNeighbours()) {
+                final Integer index = indices.get(other);
+                if (index != null && labels[index] == Algos.FREE
+                        && Algos.accepts(other, label, normals, centroids,
+                                error)) {
+                    labels[index] = label;
+                    queue[end] = index;
+                    end++;
+                }
+            }
+        }
+
+        final List<Mesh> m = new ArrayList<>();
         for (final Mesh e : list) {
-            final Mesh meshAndNoise = new Mesh(e);
-            meshAndNoise.addAll(noise.inPlanes(e.averageNormal(),
-                    e.getCentroid(), errorPlanes));
             final Mesh mes = new Mesh();
-            e.getOne().returnNeighbours(mes, meshAndNoise);
+            mes.addAll(e);
             m.add(mes);
-            noise.remove(mes);
+        }
+        for (int i = sources; i < count; i++) {
+            if (labels[i] != Algos.FREE) {
+                m.get(labels[i]).add(triangles[i]);
+                noise.remove(triangles[i]);
+            }
         }
 
-        list.clear();
-        list.addAll(m);
+        return m;
+    }
+
+    /**
+     * Checks if a triangle of the noise can be added to a mesh.
+     * @param t
+     *            the triangle
+     * @param label
+     *            the index of the mesh
+     * @param normals
+     *            the normals of the meshes, or null to accept every triangle
+     * @param centroids
+     *            the centroids of the meshes, or null to accept the triangles
+     *            oriented as the normal of the mesh
+     * @param error
+     *            the error on the orientation, or the distance between the two
+     *            planes
+     * @return true if the triangle can be added
+     */
+    private static boolean accepts(final Triangle t, final int label,
+            final Vector3d[] normals, final Point[] centroids,
+            final double error) {
+        if (normals == null) {
+            return true;
+        }
+        if (centroids == null) {
+            return t.angle(normals[label], error);
+        }
+        return t.isInPlanes(normals[label], centroids[label], error);
     }
 }
@@ -0,0 +1,178 @@
+package fr.nantes1900.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import fr.nantes1900.models.basis.Mesh;
+
+/**
+ * Writes snapshot files in a background thread, so that the process does not
+ * wait on the disk. The content is encoded in memory by the caller before
+ * being queued : the models can then be modified while the file is written.
+ * The queue is bounded : when it is full, the caller waits for a free place
+ * instead of keeping more snapshots in memory. The tasks are executed in the
+ * order they have been queued.
+ */
+public final class BackgroundWriter {
+
+    /**
+     * Maximum number of snapshots waiting to be written.
+     */
+    private static final int QUEUE_CAPACITY = 4;
+
+    /**
+     * The executor containing the writing thread.
+     */
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY),
+            new ThreadFactory() {
+
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(r, "BackgroundWriter");
+                    // Does not prevent the program from exiting.
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }, new RejectedExecutionHandler() {
+
+                @Override
+                public void rejectedExecution(final Runnable r,
+                        final ThreadPoolExecutor executor) {
+                    // Running the task on the caller would write it before
+                    // the older tasks still queued.
+                    try {
+                        executor.getQueue().put(r);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException(e);
+                    }
+                }
+            });
+
+    /**
+     * Private constructor.
+     */
+    private BackgroundWriter() {
+    }
+
+    /**
+     * Encodes the mesh of the STL writer and queues the writing of the file.
+     * The method makeFileFromWritable() or setMesh() must have been called
+     * before.
+     * @param writer
+     *            the writer containing the mesh and the name of the file
+     */
+    public static void write(final STLWriter writer) {
+        try {
+            BackgroundWriter.write(writer.getFileName(), writer.toByteArray());
+        } catch (STLWriter.NoMeshException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Encodes a mesh in binary STL and queues the writing of the file.
+     * Background equivalent of Mesh.writeSTL(fileName).
+     * @param fileName
+     *            the name of the file to write
+     * @param mesh
+     *            the mesh to write
+     */
+    public static void writeSTL(final String fileName, final Mesh mesh) {
+        final STLWriter writer = new STLWriter(fileName);
+        writer.setMesh(mesh);
+        BackgroundWriter.write(writer);
+    }
+
+    /**
+     * Queues the writing of a content in a file.
+     * @param fileName
+     *            the name of the file to write
+     * @param content
+     *            the bytes to write in the file
+     */
+    public static void write(final String fileName, final byte[] content) {
+        BackgroundWriter.EXECUTOR.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                OutputStream stream = null;
+                try {
+                    stream = new BufferedOutputStream(new FileOutputStream(
+                            fileName));
+                    stream.write(content);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                } finally {
+                    if (stream != null) {
+                        try {
+                            stream.close();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Queues the deletion of a file, after the writings already queued : a
+     * file whose writing is still queued is not written again after.
+     * @param file
+     *            the file to delete
+     */
+    public static void delete(final File file) {
+        BackgroundWriter.EXECUTOR.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                if (file.exists() && !file.delete()) {
+                    System.err.println("Cannot delete the file " + file);
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits until every queued file has been written. Must be called before
+     * exiting the program if the last snapshots have to be kept.
+     */
+    public static void waitForPendingWrites() {
+        if (BackgroundWriter.EXECUTOR.getPoolSize() == 0) {
+            // Nothing has ever been queued.
+            return;
+        }
+
+        // The tasks are executed in order : when this one is done, the
+        // previous ones are done too. It is put directly in the queue to
+        // wait for a free place instead of being run by the caller.
+        final FutureTask<Void> last = new FutureTask<>(new Runnable() {
+
+            @Override
+            public void run() {
+            }
+        }, null);
+        try {
+            BackgroundWriter.EXECUTOR.getQueue().put(last);
+            last.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+}
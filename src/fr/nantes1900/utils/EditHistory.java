@@ -0,0 +1,381 @@
+package fr.nantes1900.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the modifications made by the user to be able to undo and redo them.
+ * Each modification is made through this class between begin() and end() :
+ * only the changes are kept, not copies of the models. The triangles added to
+ * or removed from a collection are kept, and the ordered lists (lists of
+ * surfaces, of neighbours) are kept before and after the modification. The
+ * other changes can be recorded with an object Change.
+ */
+public class EditHistory {
+
+    /**
+     * Default maximal number of modifications kept.
+     */
+    public static final int DEFAULT_MAX_EDITS = 50;
+
+    /**
+     * The modifications which can be undone, the last one first.
+     */
+    private final Deque<Edit> undoEdits = new ArrayDeque<>();
+    /**
+     * The modifications which can be redone, the last undone first.
+     */
+    private final Deque<Edit> redoEdits = new ArrayDeque<>();
+    /**
+     * The maximal number of modifications kept.
+     */
+    private final int maxEdits;
+    /**
+     * The modification being recorded, null outside of begin() and end().
+     */
+    private Edit current;
+
+    /**
+     * Constructor with the default maximal number of modifications.
+     */
+    public EditHistory() {
+        this(EditHistory.DEFAULT_MAX_EDITS);
+    }
+
+    /**
+     * Constructor.
+     * @param maxEditsIn
+     *            the maximal number of modifications kept : the oldest ones
+     *            cannot be undone anymore
+     */
+    public EditHistory(final int maxEditsIn) {
+        this.maxEdits = maxEditsIn;
+    }
+
+    /**
+     * Starts the recording of a modification.
+     * @throws IllegalStateException
+     *             if a modification is already being recorded
+     */
+    public final void begin() {
+        if (this.current != null) {
+            throw new IllegalStateException("Modification not ended");
+        }
+        this.current = new Edit();
+    }
+
+    /**
+     * Ends the recording of the modification. If it has changed something,
+     * it can be undone, and the modifications undone before cannot be redone
+     * anymore.
+     */
+    public final void end() {
+        Edit edit = this.current;
+        this.current = null;
+        if (edit == null || edit.changes.isEmpty()) {
+            return;
+        }
+
+        edit.close();
+        this.undoEdits.push(edit);
+        if (this.undoEdits.size() > this.maxEdits) {
+            this.undoEdits.removeLast();
+        }
+        this.redoEdits.clear();
+    }
+
+    /**
+     * Adds some elements to a collection and records the ones which were not
+     * in it.
+     * @param <T>
+     *            the type of the elements
+     * @param collection
+     *            the collection to modify
+     * @param elements
+     *            the elements to add
+     */
+    public final <T> void addAll(final Collection<T> collection,
+            final Collection<? extends T> elements) {
+        List<T> added = new ArrayList<>();
+        for (T element : elements) {
+            if (collection.add(element)) {
+                added.add(element);
+            }
+        }
+        if (!added.isEmpty()) {
+            this.record(new CollectionChange<>(collection, added,
+                    Collections.<T> emptyList()));
+        }
+    }
+
+    /**
+     * Removes some elements from a collection and records the ones which were
+     * in it.
+     * @param <T>
+     *            the type of the elements
+     * @param collection
+     *            the collection to modify
+     * @param elements
+     *            the elements to remove
+     */
+    public final <T> void removeAll(final Collection<T> collection,
+            final Collection<? extends T> elements) {
+        List<T> removed = new ArrayList<>();
+        for (T element : elements) {
+            if (collection.remove(element)) {
+                removed.add(element);
+            }
+        }
+        if (!removed.isEmpty()) {
+            this.record(new CollectionChange<>(collection,
+                    Collections.<T> emptyList(), removed));
+        }
+    }
+
+    /**
+     * Keeps the content of an ordered list before it is modified. Its content
+     * after the modification is kept by end(). A list saved twice in the same
+     * modification keeps its first content.
+     * @param <T>
+     *            the type of the elements
+     * @param list
+     *            the list which is going to be modified
+     */
+    public final <T> void saveList(final List<T> list) {
+        this.checkRecording();
+        if (!this.current.lists.containsKey(list)) {
+            ListChange<T> change = new ListChange<>(list);
+            this.current.lists.put(list, change);
+            this.current.changes.add(change);
+        }
+    }
+
+    /**
+     * Records a change made by the caller.
+     * @param change
+     *            the change, already made
+     */
+    public final void record(final Change change) {
+        this.checkRecording();
+        this.current.changes.add(change);
+    }
+
+    /**
+     * Undoes the last modification.
+     * @return true if a modification has been undone, false if there was
+     *         none
+     */
+    public final boolean undo() {
+        if (this.undoEdits.isEmpty()) {
+            return false;
+        }
+        Edit edit = this.undoEdits.pop();
+        for (int i = edit.changes.size() - 1; i >= 0; i--) {
+            edit.changes.get(i).undo();
+        }
+        this.redoEdits.push(edit);
+        return true;
+    }
+
+    /**
+     * Redoes the last modification undone.
+     * @return true if a modification has been redone, false if there was
+     *         none
+     */
+    public final boolean redo() {
+        if (this.redoEdits.isEmpty()) {
+            return false;
+        }
+        Edit edit = this.redoEdits.pop();
+        for (Change change : edit.changes) {
+            change.redo();
+        }
+        this.undoEdits.push(edit);
+        return true;
+    }
+
+    /**
+     * Forgets every modification : for example when the models they have
+     * been made on are replaced.
+     */
+    public final void clear() {
+        this.undoEdits.clear();
+        this.redoEdits.clear();
+        this.current = null;
+    }
+
+    /**
+     * Checks if a modification can be undone.
+     * @return true if there is a modification to undo
+     */
+    public final boolean canUndo() {
+        return !this.undoEdits.isEmpty();
+    }
+
+    /**
+     * Checks if a modification can be redone.
+     * @return true if there is a modification to redo
+     */
+    public final boolean canRedo() {
+        return !this.redoEdits.isEmpty();
+    }
+
+    /**
+     * Checks that a modification is being recorded.
+     * @throws IllegalStateException
+     *             if begin() has not been called
+     */
+    private void checkRecording() {
+        if (this.current == null) {
+            throw new IllegalStateException("Modification not begun");
+        }
+    }
+
+    /**
+     * A change which can be undone and redone.
+     */
+    public interface Change {
+
+        /**
+         * Puts back the models as they were before the change.
+         */
+        void undo();
+
+        /**
+         * Puts back the models as they were after the change.
+         */
+        void redo();
+    }
+
+    /**
+     * A modification : the changes made by one action of the user.
+     */
+    private static final class Edit {
+
+        /**
+         * The changes, in the order they have been made.
+         */
+        private final List<Change> changes = new ArrayList<>();
+        /**
+         * The lists saved, compared by reference.
+         */
+        private final Map<List<?>, ListChange<?>> lists =
+                new IdentityHashMap<>();
+
+        /**
+         * Keeps the content of the lists saved after the modification.
+         */
+        public void close() {
+            for (ListChange<?> change : this.lists.values()) {
+                change.close();
+            }
+            this.lists.clear();
+        }
+    }
+
+    /**
+     * Elements added to and removed from a collection.
+     * @param <T>
+     *            the type of the elements
+     */
+    private static final class CollectionChange<T> implements Change {
+
+        /**
+         * The collection.
+         */
+        private final Collection<T> collection;
+        /**
+         * The elements added.
+         */
+        private final List<T> added;
+        /**
+         * The elements removed.
+         */
+        private final List<T> removed;
+
+        /**
+         * Constructor.
+         * @param collectionIn
+         *            the collection
+         * @param addedIn
+         *            the elements added
+         * @param removedIn
+         *            the elements removed
+         */
+        public CollectionChange(final Collection<T> collectionIn,
+                final List<T> addedIn, final List<T> removedIn) {
+            this.collection = collectionIn;
+            this.added = addedIn;
+            this.removed = removedIn;
+        }
+
+        @Override
+        public void undo() {
+            this.collection.removeAll(this.added);
+            this.collection.addAll(this.removed);
+        }
+
+        @Override
+        public void redo() {
+            this.collection.removeAll(this.removed);
+            this.collection.addAll(this.added);
+        }
+    }
+
+    /**
+     * The content of an ordered list before and after a modification.
+     * @param <T>
+     *            the type of the elements
+     */
+    private static final class ListChange<T> implements Change {
+
+        /**
+         * The list.
+         */
+        private final List<T> list;
+        /**
+         * The content before the modification.
+         */
+        private final List<T> before;
+        /**
+         * The content after the modification, null until the end of the
+         * modification.
+         */
+        private List<T> after;
+
+        /**
+         * Constructor. Keeps the current content of the list.
+         * @param listIn
+         *            the list
+         */
+        public ListChange(final List<T> listIn) {
+            this.list = listIn;
+            this.before = new ArrayList<>(listIn);
+        }
+
+        /**
+         * Keeps the content of the list after the modification.
+         */
+        public void close() {
+            this.after = new ArrayList<>(this.list);
+        }
+
+        @Override
+        public void undo() {
+            this.list.clear();
+            this.list.addAll(this.before);
+        }
+
+        @Override
+        public void redo() {
+            this.list.clear();
+            this.list.addAll(this.after);
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package fr.nantes1900.utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.vecmath.Vector3d;
+
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+
+/**
+ * Implements an extraction of the grounds by a progressive morphological
+ * filter, in one pass on the triangles. The mesh, in the base where z is the
+ * altitude, is rasterized in a grid of heights keeping the lowest point of
+ * each cell. The grid is opened (eroded then dilated) with square windows of
+ * increasing sizes : the objects smaller than a window, as the buildings,
+ * disappear, and the cells whose height decreases more than a threshold are
+ * not grounds. The threshold grows with the size of the window and the
+ * slope of the terrain. A triangle is then a ground if its cell is a ground
+ * and if it is close to the lowest point of its cell.
+ */
+public class MorphologicalGroundFilter {
+
+    /**
+     * Size of the first window, in cells.
+     */
+    private static final int FIRST_WINDOW = 3;
+
+    /**
+     * The size of the cells.
+     */
+    private final double cellSize;
+    /**
+     * The size of the largest window : the objects larger than it are kept
+     * in the grounds.
+     */
+    private final double maxWindow;
+    /**
+     * The slope of the terrain.
+     */
+    private final double slope;
+    /**
+     * The threshold of height of the first window.
+     */
+    private final double height;
+    /**
+     * The maximal threshold of height.
+     */
+    private final double maxHeight;
+
+    /**
+     * The minimal x of the grid.
+     */
+    private double xMin;
+    /**
+     * The minimal y of the grid.
+     */
+    private double yMin;
+    /**
+     * The number of columns of the grid.
+     */
+    private int columns;
+    /**
+     * The number of rows of the grid.
+     */
+    private int rows;
+
+    /**
+     * Constructor.
+     * @param cellSizeIn
+     *            the size of the cells
+     * @param maxWindowIn
+     *            the size of the largest window, larger than the buildings
+     * @param slopeIn
+     *            the maximal slope of the terrain
+     * @param heightIn
+     *            the height above which a cell is not a ground with the first
+     *            window, and a triangle is not a ground above the lowest point
+     *            of its cell
+     * @param maxHeightIn
+     *            the maximal height threshold, lower than the buildings
+     */
+    public MorphologicalGroundFilter(final double cellSizeIn,
+            final double maxWindowIn, final double slopeIn,
+            final double heightIn, final double maxHeightIn) {
+        this.cellSize = cellSizeIn;
+        this.maxWindow = maxWindowIn;
+        this.slope = slopeIn;
+        this.height = heightIn;
+        this.maxHeight = maxHeightIn;
+    }
+
+    /**
+     * Extracts the grounds of a mesh.
+     * @param mesh
+     *            the mesh, in the base where z is the altitude
+     * @param groundNormal
+     *            the normal to the ground
+     * @param angleError
+     *            the maximal angle between the normal of a ground triangle and
+     *            the normal to the ground, in degrees
+     * @return the mesh containing the ground triangles
+     */
+    public final Mesh extractGround(final Mesh mesh,
+            final Vector3d groundNormal, final double angleError) {
+        final Mesh ground = new Mesh();
+        if (mesh.isEmpty()) {
+            return ground;
+        }
+
+        final double[] lowest = this.rasterize(mesh);
+        final boolean[] objects = this.filter(lowest);
+
+        final double tolerance = this.height + this.slope * this.cellSize;
+        for (Triangle t : mesh) {
+            final List<Point> points = t.getPoints();
+            final double x = (points.get(0).getX() + points.get(1).getX()
+                    + points.get(2).getX()) / points.size();
+            final double y = (points.get(0).getY() + points.get(1).getY()
+                    + points.get(2).getY()) / points.size();
+            final double z = (points.get(0).getZ() + points.get(1).getZ()
+                    + points.get(2).getZ()) / points.size();
+            final int cell = this.returnCell(x, y);
+            if (!objects[cell] && z - lowest[cell] <= tolerance
+                    && t.angle(groundNormal, angleError)) {
+                ground.add(t);
+            }
+        }
+        return ground;
+    }
+
+    /**
+     * Builds the grid of the lowest heights : each cell keeps the lowest of
+     * the points and centroids of the triangles it contains, and the empty
+     * cells take the height of the closest cell which is not empty.
+     * @param mesh
+     *            the mesh
+     * @return the heights of the cells, by row
+     */
+    private double[] rasterize(final Mesh mesh) {
+        this.xMin = mesh.xMin();
+        this.yMin = mesh.yMin();
+        this.columns = (int) ((mesh.xMax() - this.xMin) / this.cellSize) + 1;
+        this.rows = (int) ((mesh.yMax() - this.yMin) / this.cellSize) + 1;
+
+        final double[] lowest = new double[this.columns * this.rows];
+        Arrays.fill(lowest, Double.NaN);
+        for (Triangle t : mesh) {
+            final List<Point> points = t.getPoints();
+            double x = 0;
+            double y = 0;
+            double z = 0;
+            for (Point p : points) {
+                MorphologicalGroundFilter.keepLowest(lowest,
+                        this.returnCell(p.getX(), p.getY()), p.getZ());
+                x += p.getX();
+                y += p.getY();
+                z += p.getZ();
+            }
+            MorphologicalGroundFilter.keepLowest(lowest, this.returnCell(x
+                    / points.size(), y / points.size()), z / points.size());
+        }
+
+        this.fillEmptyCells(lowest);
+        return lowest;
+    }
+
+    /**
+     * Keeps the lowest height of a cell.
+     * @param heights
+     *            the heights of the cells, NaN for the empty cells
+     * @param cell
+     *            the index of the cell
+     * @param z
+     *            the height of a point of the cell
+     */
+    private static void keepLowest(final double[] heights, final int cell,
+            final double z) {
+        if (Double.isNaN(heights[cell]) || z < heights[cell]) {
+            heights[cell] = z;
+        }
+    }
+
+    /**
+     * Gives to each empty cell the height of the closest cell which is not
+     * empty, by a breadth-first search from all these cells.
+     * @param heights
+     *            the heights of the cells, NaN for the empty cells
+     */
+    private void fillEmptyCells(final double[] heights) {
+        final int[] queue = new int[heights.length];
+        int end = 0;
+        for (int cell = 0; cell < heights.length; cell++) {
+            if (!Double.isNaN(heights[cell])) {
+                queue[end] = cell;
+                end++;
+            }
+        }
+        for (int start = 0; start < end; start++) {
+            final int cell = queue[start];
+            final int column = cell % this.columns;
+            final int[] neighbours = new int[] {
+                    column > 0 ? cell - 1 : -1,
+                    column < this.columns - 1 ? cell + 1 : -1,
+                    cell - this.columns, cell + this.columns
+            };
+            for (int neighbour : neighbours) {
+                if (neighbour >= 0 && neighbour < heights.length
+                        && Double.isNaN(heights[neighbour])) {
+                    heights[neighbour] = heights[cell];
+                    queue[end] = neighbour;
+                    end++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the progressive morphological filter.
+     * @param lowest
+     *            the lowest heights of the cells
+     * @return true for the cells which are not grounds
+     */
+    private boolean[] filter(final double[] lowest) {
+        final boolean[] objects = new boolean[lowest.length];
+        double[] surface = lowest.clone();
+        int previousWindow = 1;
+        int window = MorphologicalGroundFilter.FIRST_WINDOW;
+        while (window * this.cellSize <= this.maxWindow
+                || window == MorphologicalGroundFilter.FIRST_WINDOW) {
+            final double[] opened = this.open(surface, window / 2);
+
+            double threshold = this.height;
+            if (window > MorphologicalGroundFilter.FIRST_WINDOW) {
+                threshold = Math.min(this.maxHeight, this.slope
+                        * (window - previousWindow) * this.cellSize
+                        + this.height);
+            }
+            for (int cell = 0; cell < surface.length; cell++) {
+                if (surface[cell] - opened[cell] > threshold) {
+                    objects[cell] = true;
+                }
+            }
+
+            surface = opened;
+            previousWindow = window;
+            window = 2 * window - 1;
+        }
+        return objects;
+    }
+
+    /**
+     * Opens the surface : erodes it then dilates it with a square window.
+     * @param surface
+     *            the heights of the cells
+     * @param radius
+     *            the half size of the window, in cells
+     * @return the heights of the opened surface
+     */
+    private double[] open(final double[] surface, final int radius) {
+        final double[] result = surface.clone();
+        this.filterRows(result, radius, true);
+        this.filterColumns(result, radius, true);
+        this.filterRows(result, radius, false);
+        this.filterColumns(result, radius, false);
+        return result;
+    }
+
+    /**
+     * Replaces each cell by the minimum or the maximum of the cells of its
+     * row around it.
+     * @param heights
+     *            the heights of the cells
+     * @param radius
+     *            the number of cells on each side
+     * @param minimum
+     *            true for the minimum, false for the maximum
+     */
+    private void filterRows(final double[] heights, final int radius,
+            final boolean minimum) {
+        final double[] line = new double[this.columns];
+        for (int row = 0; row < this.rows; row++) {
+            System.arraycopy(heights, row * this.columns, line, 0,
+                    this.columns);
+            final double[] filtered = MorphologicalGroundFilter.slide(line,
+                    radius, minimum);
+            System.arraycopy(filtered, 0, heights, row * this.columns,
+                    this.columns);
+        }
+    }
+
+    /**
+     * Replaces each cell by the minimum or the maximum of the cells of its
+     * column around it.
+     * @param heights
+     *            the heights of the cells
+     * @param radius
+     *            the number of cells on each side
+     * @param minimum
+     *            true for the minimum, false for the maximum
+     */
+    private void filterColumns(final double[] heights, final int radius,
+            final boolean minimum) {
+        final double[] line = new double[this.rows];
+        for (int column = 0; column < this.columns; column++) {
+            for (int row = 0; row < this.rows; row++) {
+                line[row] = heights[row * this.columns + column];
+            }
+            final double[] filtered = MorphologicalGroundFilter.slide(line,
+                    radius, minimum);
+            for (int row = 0; row < this.rows; row++) {
+                heights[row * this.columns + column] = filtered[row];
+            }
+        }
+    }
+
+    /**
+     * Computes the minimum or the maximum of a sliding window along a line,
+     * with the algorithm of van Herk and Gil-Werman : three operations by
+     * value, whatever the size of the window. The values out of the line are
+     * ignored.
+     * @param line
+     *            the values
+     * @param radius
+     *            the number of values on each side of the window
+     * @param minimum
+     *            true for the minimum, false for the maximum
+     * @return the filtered values
+     */
+    private static double[] slide(final double[] line, final int radius,
+            final boolean minimum) {
+        final int window = 2 * radius + 1;
+        final double padding;
+        if (minimum) {
+            padding = Double.POSITIVE_INFINITY;
+        } else {
+            padding = Double.NEGATIVE_INFINITY;
+        }
+
+        // The line with radius values of padding on each side, completed to
+        // a whole number of windows.
+        final int length = ((line.length + 2 * radius) / window + 1) * window;
+        final double[] padded = new double[length];
+        Arrays.fill(padded, padding);
+        System.arraycopy(line, 0, padded, radius, line.length);
+
+        // Accumulates from the beginning and from the end of each block.
+        final double[] forward = new double[length];
+        final double[] backward = new double[length];
+        for (int i = 0; i < length; i++) {
+            if (i % window == 0) {
+                forward[i] = padded[i];
+            } else {
+                forward[i] = MorphologicalGroundFilter.combine(
+                        forward[i - 1], padded[i], minimum);
+            }
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            if (i % window == window - 1) {
+                backward[i] = padded[i];
+            } else {
+                backward[i] = MorphologicalGroundFilter.combine(
+                        backward[i + 1], padded[i], minimum);
+            }
+        }
+
+        final double[] result = new double[line.length];
+        for (int i = 0; i < line.length; i++) {
+            result[i] = MorphologicalGroundFilter.combine(backward[i],
+                    forward[i + window - 1], minimum);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the minimum or the maximum of two values.
+     * @param a
+     *            the first value
+     * @param b
+     *            the second value
+     * @param minimum
+     *            true for the minimum, false for the maximum
+     * @return the result
+     */
+    private static double combine(final double a, final double b,
+            final boolean minimum) {
+        if (minimum) {
+            return Math.min(a, b);
+        }
+        return Math.max(a, b);
+    }
+
+    /**
+     * Returns the index of the cell containing a point.
+     * @param x
+     *            the x of the point
+     * @param y
+     *            the y of the point
+     * @return the index of the cell
+     */
+    private int returnCell(final double x, final double y) {
+        final int column = Math.max(0, Math.min(this.columns - 1,
+                (int) ((x - this.xMin) / this.cellSize)));
+        final int row = Math.max(0, Math.min(this.rows - 1,
+                (int) ((y - this.yMin) / this.cellSize)));
+        return row * this.columns + column;
+    }
+}
@@ -0,0 +1,227 @@
+package fr.nantes1900.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Treats a list of items in several stages, each stage having its own threads
+ * and its own bounded queue. The stages work at the same time on different
+ * items : an item can be read while another one is treated and another one is
+ * written. When the queue of a stage is full, the previous stage waits : the
+ * number of items in memory is limited by the capacities of the queues.
+ * @param <T>
+ *            the type of the items
+ */
+public final class Pipeline<T> {
+
+    /**
+     * The stages, in the order of the treatment.
+     */
+    private final List<StageRunner> stages = new ArrayList<>();
+
+    /**
+     * Adds a stage at the end of the pipeline.
+     * @param name
+     *            the name of the stage, given to its threads
+     * @param threads
+     *            the number of threads of the stage
+     * @param capacity
+     *            the number of items which can wait before the stage
+     * @param stage
+     *            the treatment of the stage
+     */
+    public void addStage(final String name, final int threads,
+            final int capacity, final Stage<T> stage) {
+        if (threads < 1 || capacity < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.stages.add(new StageRunner(name, threads, capacity, stage));
+    }
+
+    /**
+     * Treats the items through every stage and returns when all of them have
+     * left the pipeline, treated or dropped. The threads are created at the
+     * beginning of the call and stopped at the end.
+     * @param items
+     *            the items to treat
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting
+     */
+    public void process(final List<T> items) throws InterruptedException {
+        if (this.stages.isEmpty() || items.isEmpty()) {
+            return;
+        }
+
+        final CountDownLatch remaining = new CountDownLatch(items.size());
+        List<ExecutorService> executors = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < this.stages.size(); i++) {
+                StageRunner next = null;
+                if (i + 1 < this.stages.size()) {
+                    next = this.stages.get(i + 1);
+                }
+                executors.add(this.stages.get(i).start(next, remaining));
+            }
+
+            BlockingQueue<T> first = this.stages.get(0).queue;
+            for (T item : items) {
+                first.put(item);
+            }
+            remaining.await();
+        } finally {
+            // The threads are waiting for items which will never come.
+            for (ExecutorService executor : executors) {
+                executor.shutdownNow();
+            }
+            for (StageRunner stage : this.stages) {
+                stage.queue.clear();
+            }
+        }
+    }
+
+    /**
+     * Treatment of one stage.
+     * @param <T>
+     *            the type of the items
+     */
+    public interface Stage<T> {
+
+        /**
+         * Treats one item. Called by several threads at the same time if the
+         * stage has several threads.
+         * @param item
+         *            the item to treat
+         * @return true to give the item to the next stage, false to drop it
+         *         (for example if its treatment failed)
+         */
+        boolean treat(T item);
+    }
+
+    /**
+     * A stage with its queue and its threads.
+     */
+    private final class StageRunner {
+
+        /**
+         * The name of the stage.
+         */
+        private final String name;
+        /**
+         * The number of threads.
+         */
+        private final int threads;
+        /**
+         * The items waiting for this stage.
+         */
+        private final BlockingQueue<T> queue;
+        /**
+         * The treatment.
+         */
+        private final Stage<T> stage;
+
+        /**
+         * Constructor.
+         * @param nameIn
+         *            the name of the stage
+         * @param threadsIn
+         *            the number of threads
+         * @param capacity
+         *            the capacity of the queue
+         * @param stageIn
+         *            the treatment
+         */
+        public StageRunner(final String nameIn, final int threadsIn,
+                final int capacity, final Stage<T> stageIn) {
+            this.name = nameIn;
+            this.threads = threadsIn;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.stage = stageIn;
+        }
+
+        /**
+         * Starts the threads of the stage.
+         * @param next
+         *            the next stage, or null if this one is the last
+         * @param remaining
+         *            the counter of the items still in the pipeline
+         * @return the executor containing the threads
+         */
+        public ExecutorService start(final StageRunner next,
+                final CountDownLatch remaining) {
+            ExecutorService executor = Executors.newFixedThreadPool(
+                    this.threads, new ThreadFactory() {
+
+                        private int count = 0;
+
+                        @Override
+                        public Thread newThread(final Runnable r) {
+                            Thread thread = new Thread(r,
+                                    StageRunner.this.name + "-"
+                                            + this.count++);
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+
+            for (int i = 0; i < this.threads; i++) {
+                executor.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            while (true) {
+                                StageRunner.this.treatNext(next, remaining);
+                            }
+                        } catch (InterruptedException e) {
+                            // The pipeline is stopped.
+                        }
+                    }
+                });
+            }
+            return executor;
+        }
+
+        /**
+         * Waits for the next item, treats it and gives it to the next stage.
+         * @param next
+         *            the next stage, or null if this one is the last
+         * @param remaining
+         *            the counter of the items still in the pipeline
+         * @throws InterruptedException
+         *             if the pipeline is stopped
+         */
+        private void treatNext(final StageRunner next,
+                final CountDownLatch remaining) throws InterruptedException {
+            T item = this.queue.take();
+            boolean handedOver = false;
+            try {
+                boolean passed = false;
+                try {
+                    passed = this.stage.treat(item);
+                } catch (Throwable e) {
+                    // The item is dropped, the other ones continue. The
+                    // recursive algorithms can overflow the stack and a big
+                    // islet can exhaust the memory.
+                    e.printStackTrace();
+                }
+
+                if (passed && next != null) {
+                    next.queue.put(item);
+                    handedOver = true;
+                }
+            } finally {
+                // Else process would wait for this item forever.
+                if (!handedOver) {
+                    remaining.countDown();
+                }
+            }
+        }
+    }
+}
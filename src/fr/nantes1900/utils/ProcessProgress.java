@@ -0,0 +1,149 @@
+package fr.nantes1900.utils;
+
+import fr.nantes1900.listener.ProgressListener;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
+
+/**
+ * Follows the progress of a process and carries its cancel request. The
+ * process calls update() with its own progress between 0 and 1, and
+ * checkCanceled() at the points where it can stop without breaking the
+ * models. A part of a process can be given a sub-progress, which maps its
+ * progress on a part of the progress of the parent.
+ */
+public class ProcessProgress {
+
+    /**
+     * Minimal difference between two progress values sent to the listener.
+     */
+    private static final double MIN_STEP = 0.005;
+
+    /**
+     * The listener to warn, can be null.
+     */
+    private final ProgressListener listener;
+    /**
+     * The root progress, containing the cancel flag. Equals this for a root.
+     */
+    private final ProcessProgress root;
+    /**
+     * The beginning of this progress in the progress of the root.
+     */
+    private final double begin;
+    /**
+     * The end of this progress in the progress of the root.
+     */
+    private final double end;
+    /**
+     * True if the process has been canceled.
+     */
+    private volatile boolean canceled = false;
+    /**
+     * The last progress sent to the listener.
+     */
+    private double lastSent = -1;
+
+    /**
+     * Constructor of a progress followed by nobody.
+     */
+    public ProcessProgress() {
+        this(null);
+    }
+
+    /**
+     * Constructor.
+     * @param listenerIn
+     *            the listener to warn when the progress changes, can be null
+     */
+    public ProcessProgress(final ProgressListener listenerIn) {
+        this.listener = listenerIn;
+        this.root = this;
+        this.begin = 0;
+        this.end = 1;
+    }
+
+    /**
+     * Private constructor of a sub-progress.
+     * @param rootIn
+     *            the root progress
+     * @param beginIn
+     *            the beginning in the progress of the root
+     * @param endIn
+     *            the end in the progress of the root
+     */
+    private ProcessProgress(final ProcessProgress rootIn, final double beginIn,
+            final double endIn) {
+        this.listener = null;
+        this.root = rootIn;
+        this.begin = beginIn;
+        this.end = endIn;
+    }
+
+    /**
+     * Asks the process to stop. It will stop at its next call to
+     * checkCanceled().
+     */
+    public final void cancel() {
+        this.root.canceled = true;
+    }
+
+    /**
+     * Throws an exception if the process has been canceled.
+     * @throws ProcessCanceledException
+     *             if cancel() has been called
+     */
+    public final void checkCanceled() throws ProcessCanceledException {
+        if (this.isCanceled()) {
+            throw new ProcessCanceledException();
+        }
+    }
+
+    /**
+     * Getter.
+     * @return true if cancel() has been called
+     */
+    public final boolean isCanceled() {
+        return this.root.canceled;
+    }
+
+    /**
+     * Returns a progress representing a part of this one.
+     * @param subBegin
+     *            the beginning of the part, between 0 and 1
+     * @param subEnd
+     *            the end of the part, between 0 and 1
+     * @return the sub-progress
+     */
+    public final ProcessProgress subProgress(final double subBegin,
+            final double subEnd) {
+        final double length = this.end - this.begin;
+        return new ProcessProgress(this.root, this.begin + subBegin * length,
+                this.begin + subEnd * length);
+    }
+
+    /**
+     * Sets the progress of the process. The listener is only warned when the
+     * progress has increased enough, to avoid flooding it.
+     * @param progress
+     *            the progress, between 0 and 1
+     */
+    public final void update(final double progress) {
+        final double bounded = Math.max(0, Math.min(1, progress));
+        this.root.send(this.begin + bounded * (this.end - this.begin));
+    }
+
+    /**
+     * Sends a progress of the root to the listener.
+     * @param progress
+     *            the progress, between 0 and 1
+     */
+    private synchronized void send(final double progress) {
+        if (this.listener == null) {
+            return;
+        }
+        if (progress >= this.lastSent + MIN_STEP
+                || (progress >= 1 && this.lastSent < 1)) {
+            this.lastSent = progress;
+            this.listener.updateProgress(progress);
+        }
+    }
+}
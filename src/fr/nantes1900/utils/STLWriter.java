@@ -6,11 +6,14 @@ package fr.nantes1900.utils;
 
 import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
@@ -210,26 +213,36 @@ public class STLWriter extends AbstractWriter {
     private void writeSTLA() throws IOException {
         BufferedWriter writer = null;
         try {
-
-            // Writes the header of the file : solid.
             writer = new BufferedWriter(new FileWriter(this.fileName));
-            writer.write("solid");
-            for (final Triangle f : this.mesh) {
-                STLWriter.writeASCIITriangle(writer, f);
-            }
-
-            // Writes the end of the file : endsolid.
-            writer.write("\nendsolid");
-
-            // Finishes to write the last datas before closing the writer.
-            writer.flush();
-
+            this.writeSTLA(writer);
         } finally {
             if (writer != null) {
                 writer.close();
             }
         }
+    }
 
+    /**
+     * Writes a mesh in ASCII in the given writer.
+     * @param writer
+     *            the writer which writes the data
+     * @throws IOException
+     *             if the writer throws an error
+     */
+    private void writeSTLA(final Writer writer) throws IOException {
+        final BufferedWriter bWriter = new BufferedWriter(writer);
+
+        // Writes the header of the file : solid.
+        bWriter.write("solid");
+        for (final Triangle f : this.mesh) {
+            STLWriter.writeASCIITriangle(bWriter, f);
+        }
+
+        // Writes the end of the file : endsolid.
+        bWriter.write("\nendsolid");
+
+        // Finishes to write the last datas before closing the writer.
+        bWriter.flush();
     }
 
     /**
@@ -242,33 +255,74 @@ public class STLWriter extends AbstractWriter {
         try {
             stream = new BufferedOutputStream(new FileOutputStream(
                     this.fileName));
-
-            // Writes a 80-byte long header. Possibility to write the name of
-            // the author.
-            final int headerSize = 80;
-            final byte[] header = new byte[headerSize];
-            stream.write(header);
-
-            // Writes the number of triangles : must order the Int in the
-            // LITTLE_ENDIAN format.
-            final ByteBuffer bBuf = ByteBuffer.allocate(Integer.SIZE);
-            bBuf.order(ByteOrder.LITTLE_ENDIAN);
-            bBuf.putInt(this.mesh.size());
-            stream.write(bBuf.array(), 0, Integer.SIZE / Byte.SIZE);
-
-            // Writes every triangle.
-            for (final Triangle t : this.mesh) {
-                STLWriter.writeBinaryTriangle(stream, t);
-            }
-
-            // Finishes to write the last datas before closing the writer.
-            stream.flush();
+            this.writeSTLB(stream);
             stream.close();
         } catch (final FileNotFoundException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Writes a mesh in the binary format in the given stream.
+     * @param stream
+     *            the stream which writes the data
+     * @throws IOException
+     *             if the stream throws an error
+     */
+    private void writeSTLB(final OutputStream stream) throws IOException {
+        // Writes a 80-byte long header. Possibility to write the name of
+        // the author.
+        final int headerSize = 80;
+        final byte[] header = new byte[headerSize];
+        stream.write(header);
+
+        // Writes the number of triangles : must order the Int in the
+        // LITTLE_ENDIAN format.
+        final ByteBuffer bBuf = ByteBuffer.allocate(Integer.SIZE);
+        bBuf.order(ByteOrder.LITTLE_ENDIAN);
+        bBuf.putInt(this.mesh.size());
+        stream.write(bBuf.array(), 0, Integer.SIZE / Byte.SIZE);
+
+        // Writes every triangle.
+        for (final Triangle t : this.mesh) {
+            STLWriter.writeBinaryTriangle(stream, t);
+        }
+
+        // Finishes to write the last datas before closing the writer.
+        stream.flush();
+    }
+
+    /**
+     * Encodes the mesh in memory, the format depending on the attribute MODE.
+     * The returned array is exactly the content write() would put in the
+     * file, so it can be written later even if the mesh changes in between.
+     * @return the content of the STL file
+     * @throws STLWriter.NoMeshException
+     *             if no mesh has been set or extracted
+     */
+    public final byte[] toByteArray() throws STLWriter.NoMeshException {
+        if (this.mesh == null) {
+            throw new STLWriter.NoMeshException();
+        }
+
+        // 50 bytes by triangle in binary, plus the header.
+        final int triangleSize = 50;
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream(
+                triangleSize * this.mesh.size() + 84);
+        try {
+            if (this.writingMode == STLWriter.ASCII_MODE) {
+                this.writeSTLA(new OutputStreamWriter(stream));
+            } else if (this.writingMode == STLWriter.BINARY_MODE) {
+                this.writeSTLB(stream);
+            }
+        } catch (final IOException e) {
+            // Cannot happen when writing in memory.
+            e.printStackTrace();
+        }
+
+        return stream.toByteArray();
+    }
+
     /**
      * Extract the mesh from the AbstractBuildingsIsletStep.
      */
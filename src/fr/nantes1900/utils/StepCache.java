@@ -0,0 +1,229 @@
+package fr.nantes1900.utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import javax.vecmath.Vector3d;
+
+import fr.nantes1900.models.coefficients.ProcessParameters;
+import fr.nantes1900.models.islets.steps.AbstractBuildingsIsletStep;
+
+/**
+ * Keeps the results of the islet processes on the disk, to use them again
+ * instead of launching a process with the same step and the same coefficients.
+ * Each result is a file named by its key : the key is a hash of the content
+ * of the step the process starts from, of the normals and of the coefficients
+ * used by the process. Modifying a step, a normal or one of these
+ * coefficients gives another key. The files are written in background. When
+ * the directory is bigger than its maximal size, the results used the least
+ * recently are deleted.
+ */
+public class StepCache {
+
+    /**
+     * Default maximal size of the directory, in bytes.
+     */
+    public static final long DEFAULT_MAX_SIZE = 2L * 1024 * 1024 * 1024;
+
+    /**
+     * Extension of the files of the cache.
+     */
+    private static final String EXTENSION = ".step";
+
+    /**
+     * The directory containing the files.
+     */
+    private final File directory;
+    /**
+     * The maximal size of the directory, in bytes.
+     */
+    private final long maxSize;
+
+    /**
+     * Constructor with the default maximal size.
+     * @param directoryIn
+     *            the directory containing the files, created if it does not
+     *            exist
+     */
+    public StepCache(final File directoryIn) {
+        this(directoryIn, StepCache.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param directoryIn
+     *            the directory containing the files, created if it does not
+     *            exist
+     * @param maxSizeIn
+     *            the maximal size of the directory, in bytes
+     */
+    public StepCache(final File directoryIn, final long maxSizeIn) {
+        this.directory = directoryIn;
+        this.maxSize = maxSizeIn;
+    }
+
+    /**
+     * Computes the key of the result of a process.
+     * @param process
+     *            the number of the process
+     * @param step
+     *            the step the process starts from, with the arguments given
+     *            by the islet
+     * @param parameters
+     *            the coefficients of the process
+     * @param normals
+     *            the normals used by the process, can be null
+     * @return the key
+     */
+    public static byte[] createKey(final int process,
+            final AbstractBuildingsIsletStep step,
+            final ProcessParameters parameters, final Vector3d... normals) {
+        final int doubleSize = 8;
+        final int vectorSize = 3;
+
+        MessageDigest digest = StepCodec.createDigest();
+        digest.update(StepCodec.hash(step));
+
+        double[] values = parameters.returnValues(process);
+        ByteBuffer buffer = ByteBuffer.allocate(doubleSize
+                * (1 + values.length + vectorSize * normals.length));
+        buffer.putDouble(process);
+        for (double value : values) {
+            buffer.putDouble(value);
+        }
+        for (Vector3d normal : normals) {
+            if (normal == null) {
+                buffer.putDouble(Double.NaN).putDouble(Double.NaN)
+                        .putDouble(Double.NaN);
+            } else {
+                buffer.putDouble(normal.x).putDouble(normal.y)
+                        .putDouble(normal.z);
+            }
+        }
+        digest.update(buffer.array());
+        return digest.digest();
+    }
+
+    /**
+     * Reads the result of a process. A file which cannot be read is
+     * considered as missing : for example, it can be a file still being
+     * written.
+     * @param key
+     *            the key of the result
+     * @return the step returned by the process, or null if the cache does
+     *         not contain it
+     */
+    public final AbstractBuildingsIsletStep read(final byte[] key) {
+        File file = this.returnFile(key);
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(file));
+            AbstractBuildingsIsletStep step = StepCodec.read(in);
+            // The most recently used files are deleted last.
+            file.setLastModified(System.currentTimeMillis());
+            return step;
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Cannot read the cache file " + file + " : "
+                    + e.getMessage());
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes the result of a process and queues the writing of its file.
+     * The step can be modified as soon as this method returns.
+     * @param key
+     *            the key of the result
+     * @param step
+     *            the step returned by the process
+     */
+    public final void write(final byte[] key,
+            final AbstractBuildingsIsletStep step) {
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            System.err.println("Cannot create the cache directory "
+                    + this.directory);
+            return;
+        }
+        byte[] content = StepCodec.toByteArray(step);
+        this.deleteOldFiles(content.length);
+        BackgroundWriter.write(this.returnFile(key).getPath(), content);
+    }
+
+    /**
+     * Deletes the files used the least recently until there is enough space
+     * for a new file.
+     * @param newSize
+     *            the size of the new file, in bytes
+     */
+    private void deleteOldFiles(final long newSize) {
+        File[] files = this.directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        long size = newSize;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= this.maxSize) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+
+            @Override
+            public int compare(final File file1, final File file2) {
+                return Long.compare(file1.lastModified(), file2.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (size > this.maxSize && file.getName().endsWith(EXTENSION)) {
+                size -= file.length();
+                if (!file.delete()) {
+                    System.err.println("Cannot delete the cache file "
+                            + file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the file of a result.
+     * @param key
+     *            the key of the result
+     * @return the file
+     */
+    private File returnFile(final byte[] key) {
+        StringBuilder name = new StringBuilder();
+        for (byte b : key) {
+            name.append(String.format("%02x", b));
+        }
+        return new File(this.directory, name + EXTENSION);
+    }
+
+    /**
+     * Getter.
+     * @return the directory containing the files
+     */
+    public final File getDirectory() {
+        return this.directory;
+    }
+}
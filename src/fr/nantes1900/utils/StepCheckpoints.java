@@ -0,0 +1,390 @@
+package fr.nantes1900.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.vecmath.Vector3d;
+
+import fr.nantes1900.models.islets.AbstractBuildingsIslet;
+import fr.nantes1900.models.islets.steps.AbstractBuildingsIsletStep;
+
+/**
+ * Keeps on the disk the steps reached by the process of an islet, to resume
+ * the process after the program has been closed and to go back to a step
+ * which is not in memory anymore. Each islet file has its own directory,
+ * containing one file per step : the size and the date of the islet file, the
+ * normals of the islet and the step written with StepCodec. The checkpoints
+ * written for another version of the islet file are ignored. The files are
+ * written in background. When the directory of every islet is bigger than its
+ * maximal size, the checkpoints of the islets used the least recently are
+ * deleted.
+ */
+public class StepCheckpoints {
+
+    /**
+     * Default maximal size of the directory containing the checkpoints of
+     * every islet, in bytes.
+     */
+    public static final long DEFAULT_MAX_SIZE = 2L * 1024 * 1024 * 1024;
+
+    /**
+     * Number written at the beginning of the files.
+     */
+    private static final int MAGIC = 0x4E314350;
+    /**
+     * Version of the header, to change each time the header changes.
+     */
+    private static final int VERSION = 1;
+    /**
+     * Prefix of the files, followed by the number of the step.
+     */
+    private static final String PREFIX = "step";
+    /**
+     * Extension of the files.
+     */
+    private static final String EXTENSION = ".checkpoint";
+
+    /**
+     * The islet file.
+     */
+    private final File isletFile;
+    /**
+     * The directory containing the directories of every islet.
+     */
+    private final File rootDirectory;
+    /**
+     * The directory containing the checkpoints of the islet.
+     */
+    private final File directory;
+    /**
+     * The maximal size of the directory of every islet, in bytes.
+     */
+    private final long maxSize;
+
+    /**
+     * Constructor with the default maximal size.
+     * @param rootDirectoryIn
+     *            the directory containing the directories of every islet
+     * @param isletFileIn
+     *            the islet file
+     */
+    public StepCheckpoints(final File rootDirectoryIn, final File isletFileIn) {
+        this(rootDirectoryIn, isletFileIn, StepCheckpoints.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * @param rootDirectoryIn
+     *            the directory containing the directories of every islet
+     * @param isletFileIn
+     *            the islet file
+     * @param maxSizeIn
+     *            the maximal size of the directory of every islet, in bytes
+     */
+    public StepCheckpoints(final File rootDirectoryIn, final File isletFileIn,
+            final long maxSizeIn) {
+        this.rootDirectory = rootDirectoryIn;
+        this.maxSize = maxSizeIn;
+        this.isletFile = isletFileIn.getAbsoluteFile();
+
+        // The directory is named by a hash of the path : two islets with the
+        // same name in two mock-up directories do not share it.
+        StringBuilder name = new StringBuilder(this.isletFile.getName());
+        name.append('_');
+        byte[] hash = StepCodec.createDigest().digest(
+                this.isletFile.getPath().getBytes(StandardCharsets.UTF_8));
+        final int hashLength = 8;
+        for (int i = 0; i < hashLength; i++) {
+            name.append(String.format("%02x", hash[i]));
+        }
+        this.directory = new File(this.rootDirectory, name.toString());
+    }
+
+    /**
+     * Encodes a step of an islet and queues the writing of its checkpoint.
+     * The deletion of the checkpoints of the next steps is queued before :
+     * they have been computed from another version of this step. The islet
+     * can be modified as soon as this method returns.
+     * @param islet
+     *            the islet
+     * @param step
+     *            the number of the step, from 1 to 7
+     */
+    public final void write(final AbstractBuildingsIslet islet,
+            final int step) {
+        AbstractBuildingsIsletStep isletStep = islet.returnStep(step);
+        if (isletStep == null) {
+            return;
+        }
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            System.err.println("Cannot create the checkpoints directory "
+                    + this.directory);
+            return;
+        }
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try {
+            DataOutputStream out = new DataOutputStream(content);
+            out.writeInt(StepCheckpoints.MAGIC);
+            out.writeInt(StepCheckpoints.VERSION);
+            out.writeLong(this.isletFile.length());
+            out.writeLong(this.isletFile.lastModified());
+            StepCheckpoints.writeVector(out, islet.getGroundNormal());
+            StepCheckpoints.writeVector(out, islet.getGravityNormal());
+            StepCodec.write(isletStep, out);
+        } catch (IOException e) {
+            // Cannot happen : the stream is in memory.
+            throw new IllegalStateException(e);
+        }
+
+        // The deletions are queued after the writings of these checkpoints
+        // which can be still waiting.
+        for (int next = step + 1; next <= AbstractBuildingsIslet.SEVENTH_STEP;
+                next++) {
+            BackgroundWriter.delete(this.returnFile(next));
+        }
+        this.deleteOldIslets(content.size());
+        BackgroundWriter.write(this.returnFile(step).getPath(),
+                content.toByteArray());
+    }
+
+    /**
+     * Puts the last step which has a valid checkpoint in an islet, with the
+     * normals it has been computed with. The progression of the islet is set
+     * to this step.
+     * @param islet
+     *            the islet, whose step 0 has been read from the islet file
+     * @return the number of the step restored, or -1 if there is no valid
+     *         checkpoint
+     */
+    public final int restoreLast(final AbstractBuildingsIslet islet) {
+        for (int step = AbstractBuildingsIslet.SEVENTH_STEP;
+                step >= AbstractBuildingsIslet.FIRST_STEP; step--) {
+            if (this.restore(islet, step)) {
+                return step;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Puts a step in an islet, with the normals it has been computed with,
+     * if its checkpoint is valid. The progression of the islet is set to this
+     * step.
+     * @param islet
+     *            the islet
+     * @param step
+     *            the number of the step, from 1 to 7
+     * @return true if the step has been restored, false if its checkpoint
+     *         does not exist or is not valid
+     */
+    public final boolean restore(final AbstractBuildingsIslet islet,
+            final int step) {
+        // The writings and the deletions still queued are waited for.
+        BackgroundWriter.waitForPendingWrites();
+        File file = this.returnFile(step);
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file)));
+            if (in.readInt() != StepCheckpoints.MAGIC
+                    || in.readInt() != StepCheckpoints.VERSION
+                    || in.readLong() != this.isletFile.length()
+                    || in.readLong() != this.isletFile.lastModified()) {
+                return false;
+            }
+            Vector3d groundNormal = StepCheckpoints.readVector(in);
+            Vector3d gravityNormal = StepCheckpoints.readVector(in);
+            AbstractBuildingsIsletStep isletStep = StepCodec.read(in);
+
+            islet.restoreStep(isletStep);
+            islet.setGroundNormal(groundNormal);
+            islet.setGravityNormal(gravityNormal);
+            // The islets used the most recently are deleted last.
+            file.setLastModified(System.currentTimeMillis());
+            return true;
+        } catch (FileNotFoundException e) {
+            return false;
+        } catch (IOException e) {
+            // For example a file whose writing has been interrupted.
+            System.err.println("Cannot read the checkpoint " + file + " : "
+                    + e.getMessage());
+            return false;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the islet has at least one checkpoint. The checkpoints are
+     * not read, but the writings and the deletions still queued are waited
+     * for.
+     * @return true if a checkpoint file exists
+     */
+    public final boolean exists() {
+        BackgroundWriter.waitForPendingWrites();
+        for (int step = AbstractBuildingsIslet.FIRST_STEP;
+                step <= AbstractBuildingsIslet.SEVENTH_STEP; step++) {
+            if (this.returnFile(step).exists()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Deletes every checkpoint of the islet. The writings still queued are
+     * waited for before.
+     */
+    public final void clear() {
+        BackgroundWriter.waitForPendingWrites();
+        for (int step = AbstractBuildingsIslet.FIRST_STEP;
+                step <= AbstractBuildingsIslet.SEVENTH_STEP; step++) {
+            File file = this.returnFile(step);
+            if (file.exists() && !file.delete()) {
+                System.err.println("Cannot delete the checkpoint " + file);
+            }
+        }
+        if (!this.directory.delete() && this.directory.exists()) {
+            System.err.println("Cannot delete the directory "
+                    + this.directory);
+        }
+    }
+
+    /**
+     * Deletes the checkpoints of the other islets, used the least recently
+     * first, until there is enough space for a new file. An islet is used
+     * when one of its checkpoints is written or restored.
+     * @param newSize
+     *            the size of the new file, in bytes
+     */
+    private void deleteOldIslets(final long newSize) {
+        File[] directories = this.rootDirectory.listFiles();
+        if (directories == null) {
+            return;
+        }
+
+        long size = newSize;
+        final Map<File, Long> lastUses = new HashMap<>();
+        List<File> islets = new ArrayList<>();
+        for (File islet : directories) {
+            File[] files = islet.listFiles();
+            if (files != null) {
+                long lastUse = 0;
+                for (File file : files) {
+                    size += file.length();
+                    lastUse = Math.max(lastUse, file.lastModified());
+                }
+                lastUses.put(islet, Long.valueOf(lastUse));
+                islets.add(islet);
+            }
+        }
+        if (size <= this.maxSize) {
+            return;
+        }
+
+        Collections.sort(islets, new Comparator<File>() {
+
+            @Override
+            public int compare(final File islet1, final File islet2) {
+                return lastUses.get(islet1).compareTo(lastUses.get(islet2));
+            }
+        });
+        for (File islet : islets) {
+            File[] files = null;
+            if (size > this.maxSize && !islet.equals(this.directory)) {
+                files = islet.listFiles();
+            }
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(StepCheckpoints.EXTENSION)) {
+                        size -= file.length();
+                        if (!file.delete()) {
+                            System.err.println("Cannot delete the checkpoint "
+                                    + file);
+                        }
+                    }
+                }
+                islet.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns the checkpoint file of a step.
+     * @param step
+     *            the number of the step
+     * @return the file
+     */
+    private File returnFile(final int step) {
+        return new File(this.directory, StepCheckpoints.PREFIX + step
+                + StepCheckpoints.EXTENSION);
+    }
+
+    /**
+     * Writes a vector, or three NaN if it is null.
+     * @param out
+     *            the stream
+     * @param vector
+     *            the vector, can be null
+     * @throws IOException
+     *             if the stream cannot be written
+     */
+    private static void writeVector(final DataOutputStream out,
+            final Vector3d vector) throws IOException {
+        if (vector == null) {
+            out.writeDouble(Double.NaN);
+            out.writeDouble(Double.NaN);
+            out.writeDouble(Double.NaN);
+        } else {
+            out.writeDouble(vector.x);
+            out.writeDouble(vector.y);
+            out.writeDouble(vector.z);
+        }
+    }
+
+    /**
+     * Reads a vector written by writeVector.
+     * @param in
+     *            the stream
+     * @return the vector, or null if it was null
+     * @throws IOException
+     *             if the stream cannot be read
+     */
+    private static Vector3d readVector(final DataInputStream in)
+            throws IOException {
+        Vector3d vector = new Vector3d(in.readDouble(), in.readDouble(),
+                in.readDouble());
+        if (Double.isNaN(vector.x)) {
+            return null;
+        }
+        return vector;
+    }
+
+    /**
+     * Getter.
+     * @return the directory containing the checkpoints of the islet
+     */
+    public final File getDirectory() {
+        return this.directory;
+    }
+}
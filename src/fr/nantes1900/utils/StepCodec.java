@@ -0,0 +1,1024 @@
+package fr.nantes1900.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.vecmath.Vector3d;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Polygon;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.extended.Building;
+import fr.nantes1900.models.extended.Ground;
+import fr.nantes1900.models.extended.Roof;
+import fr.nantes1900.models.extended.Surface;
+import fr.nantes1900.models.extended.Wall;
+import fr.nantes1900.models.extended.steps.BuildingStep4;
+import fr.nantes1900.models.extended.steps.BuildingStep5;
+import fr.nantes1900.models.extended.steps.BuildingStep6;
+import fr.nantes1900.models.extended.steps.BuildingStep7;
+import fr.nantes1900.models.islets.AbstractBuildingsIslet;
+import fr.nantes1900.models.islets.steps.AbstractBuildingsIsletStep;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep1;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep2;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep3;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep4;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep5;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep6;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep7;
+
+/**
+ * Writes the islet steps 1 to 7 in a compact binary form, and reads them
+ * back. The points, edges, triangles, meshes and lists of neighbours shared by
+ * several objects are written once : the step read has the same links between
+ * its objects as the step written. The buildings are written with their steps
+ * until the step of the islet : the results of the next processes are not
+ * kept.
+ */
+public final class StepCodec {
+
+    /**
+     * Number written at the beginning and at the end of the encoded steps.
+     */
+    private static final int MAGIC = 0x4E313930;
+    /**
+     * Version of the format, to change each time the format changes.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Type of a simple surface.
+     */
+    private static final int SURFACE = 0;
+    /**
+     * Type of a wall.
+     */
+    private static final int WALL = 1;
+    /**
+     * Type of a roof.
+     */
+    private static final int ROOF = 2;
+    /**
+     * Type of a ground.
+     */
+    private static final int GROUND = 3;
+
+    /**
+     * Private constructor.
+     */
+    private StepCodec() {
+    }
+
+    /**
+     * Writes a step.
+     * @param step
+     *            the step, from 1 to 7
+     * @param out
+     *            the stream to write in, not closed
+     * @throws IOException
+     *             if the stream cannot be written
+     */
+    public static void write(final AbstractBuildingsIsletStep step,
+            final OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(StepCodec.MAGIC);
+        data.writeInt(StepCodec.VERSION);
+        for (ByteArrayOutputStream section : new Encoder(false)
+                .encode(step)) {
+            section.writeTo(data);
+        }
+        data.writeInt(StepCodec.MAGIC);
+        data.flush();
+    }
+
+    /**
+     * Writes a step in an array.
+     * @param step
+     *            the step, from 1 to 7
+     * @return the bytes of the step
+     */
+    public static byte[] toByteArray(final AbstractBuildingsIsletStep step) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            StepCodec.write(step, out);
+        } catch (IOException e) {
+            // Cannot happen : the stream is in memory.
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads a step written by the method write.
+     * @param in
+     *            the stream to read, not closed
+     * @return the step
+     * @throws IOException
+     *             if the stream cannot be read or does not contain a step
+     *             written with this version of the format
+     */
+    public static AbstractBuildingsIsletStep read(final InputStream in)
+            throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != StepCodec.MAGIC
+                || data.readInt() != StepCodec.VERSION) {
+            throw new IOException("Not a step of this version");
+        }
+        AbstractBuildingsIsletStep step = new Decoder(data).decode();
+        if (data.readInt() != StepCodec.MAGIC) {
+            throw new IOException("Incomplete step");
+        }
+        return step;
+    }
+
+    /**
+     * Computes a hash of the content of a step. Two steps containing the same
+     * objects with the same values have the same hash, even if the triangles
+     * are not in the same order in their meshes.
+     * @param step
+     *            the step, from 1 to 7
+     * @return the hash
+     */
+    public static byte[] hash(final AbstractBuildingsIsletStep step) {
+        MessageDigest digest = StepCodec.createDigest();
+        digest.update((byte) StepCodec.VERSION);
+        for (ByteArrayOutputStream section : new Encoder(true).encode(step)) {
+            digest.update(section.toByteArray());
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Creates the digest used to hash the steps.
+     * @return the digest
+     */
+    public static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Cannot happen : every Java platform has SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the number of a step.
+     * @param step
+     *            the step
+     * @return the number of the step
+     * @throws IllegalArgumentException
+     *             if the step cannot be written
+     */
+    private static int returnNumber(final AbstractBuildingsIsletStep step) {
+        if (step instanceof BuildingsIsletStep1) {
+            return AbstractBuildingsIslet.FIRST_STEP;
+        } else if (step instanceof BuildingsIsletStep2) {
+            return AbstractBuildingsIslet.SECOND_STEP;
+        } else if (step instanceof BuildingsIsletStep3) {
+            return AbstractBuildingsIslet.THIRD_STEP;
+        } else if (step instanceof BuildingsIsletStep4) {
+            return AbstractBuildingsIslet.FOURTH_STEP;
+        } else if (step instanceof BuildingsIsletStep5) {
+            return AbstractBuildingsIslet.FIFTH_STEP;
+        } else if (step instanceof BuildingsIsletStep6) {
+            return AbstractBuildingsIslet.SIXTH_STEP;
+        } else if (step instanceof BuildingsIsletStep7) {
+            return AbstractBuildingsIslet.SEVENTH_STEP;
+        }
+        throw new IllegalArgumentException(String.valueOf(step));
+    }
+
+    /**
+     * Gives an index to each object, in the order they are added. The objects
+     * are compared by reference.
+     * @param <T>
+     *            the type of the objects
+     */
+    private static final class Table<T> {
+
+        /**
+         * The index of each object.
+         */
+        private final Map<T, Integer> indexes = new IdentityHashMap<>();
+        /**
+         * The objects, in the order of their indexes.
+         */
+        private final List<T> objects = new ArrayList<>();
+
+        /**
+         * Returns the index of an object, adding it if it is not in the table.
+         * @param object
+         *            the object, can be null
+         * @return the index, or -1 if the object is null
+         */
+        public int index(final T object) {
+            if (object == null) {
+                return -1;
+            }
+            Integer index = this.indexes.get(object);
+            if (index == null) {
+                index = this.objects.size();
+                this.indexes.put(object, index);
+                this.objects.add(object);
+            }
+            return index;
+        }
+
+        /**
+         * Getter.
+         * @return the objects, in the order of their indexes. The list grows
+         *         when objects are added.
+         */
+        public List<T> getObjects() {
+            return this.objects;
+        }
+    }
+
+    /**
+     * Encodes one step. The step is first written with indexes of surfaces,
+     * then the surfaces with indexes of meshes, and so on : each section
+     * fills the tables of the next ones. In content mode, the meshes and the
+     * polygons are written with the values of their points instead of
+     * indexes, sorted when the order is meaningless.
+     */
+    private static final class Encoder {
+
+        /**
+         * True to encode the content of the step for a hash.
+         */
+        private final boolean content;
+        /**
+         * The surfaces.
+         */
+        private final Table<Surface> surfaces = new Table<>();
+        /**
+         * The lists of neighbours, which can be shared by several surfaces.
+         */
+        private final Table<List<Surface>> neighbours = new Table<>();
+        /**
+         * The meshes.
+         */
+        private final Table<Mesh> meshes = new Table<>();
+        /**
+         * The polygons.
+         */
+        private final Table<Polygon> polygons = new Table<>();
+        /**
+         * The triangles.
+         */
+        private final Table<Triangle> triangles = new Table<>();
+        /**
+         * The edges.
+         */
+        private final Table<Edge> edges = new Table<>();
+        /**
+         * The points.
+         */
+        private final Table<Point> points = new Table<>();
+
+        /**
+         * Constructor.
+         * @param contentIn
+         *            true to encode the content of the step for a hash
+         */
+        public Encoder(final boolean contentIn) {
+            this.content = contentIn;
+        }
+
+        /**
+         * Encodes a step.
+         * @param step
+         *            the step
+         * @return the sections, in the order to write them
+         * @throws IllegalArgumentException
+         *             if the step cannot be written
+         */
+        public List<ByteArrayOutputStream> encode(
+                final AbstractBuildingsIsletStep step) {
+            try {
+                ByteArrayOutputStream structure = new ByteArrayOutputStream();
+                this.writeStep(new DataOutputStream(structure), step);
+
+                // The surfaces add the lists of neighbours, which add new
+                // surfaces.
+                ByteArrayOutputStream surfacesSection =
+                        new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(surfacesSection);
+                List<Surface> surfaceList = this.surfaces.getObjects();
+                List<List<Surface>> neighboursList = this.neighbours
+                        .getObjects();
+                int listsRead = 0;
+                for (int i = 0; i < surfaceList.size(); i++) {
+                    this.writeSurface(out, surfaceList.get(i));
+                    while (listsRead < neighboursList.size()) {
+                        for (Surface s : neighboursList.get(listsRead)) {
+                            this.surfaces.index(s);
+                        }
+                        listsRead++;
+                    }
+                }
+
+                ByteArrayOutputStream neighboursSection =
+                        new ByteArrayOutputStream();
+                out = new DataOutputStream(neighboursSection);
+                out.writeInt(neighboursList.size());
+                for (List<Surface> list : neighboursList) {
+                    out.writeInt(list.size());
+                    for (Surface s : list) {
+                        out.writeInt(this.surfaces.index(s));
+                    }
+                }
+
+                ByteArrayOutputStream meshesSection =
+                        new ByteArrayOutputStream();
+                out = new DataOutputStream(meshesSection);
+                out.writeInt(this.meshes.getObjects().size());
+                for (Mesh mesh : this.meshes.getObjects()) {
+                    this.writeMesh(out, mesh);
+                }
+
+                ByteArrayOutputStream polygonsSection =
+                        new ByteArrayOutputStream();
+                out = new DataOutputStream(polygonsSection);
+                out.writeInt(this.polygons.getObjects().size());
+                for (Polygon polygon : this.polygons.getObjects()) {
+                    this.writePolygon(out, polygon);
+                }
+
+                ByteArrayOutputStream header = new ByteArrayOutputStream();
+                out = new DataOutputStream(header);
+                out.writeInt(surfaceList.size());
+
+                if (this.content) {
+                    return Arrays.asList(header, polygonsSection,
+                            meshesSection, surfacesSection,
+                            neighboursSection, structure);
+                }
+
+                ByteArrayOutputStream trianglesSection =
+                        new ByteArrayOutputStream();
+                out = new DataOutputStream(trianglesSection);
+                out.writeInt(this.triangles.getObjects().size());
+                for (Triangle t : this.triangles.getObjects()) {
+                    out.writeInt(this.edges.index(t.getE1()));
+                    out.writeInt(this.edges.index(t.getE2()));
+                    out.writeInt(this.edges.index(t.getE3()));
+                    Encoder.writeVector(out, t.getNormal());
+                }
+
+                ByteArrayOutputStream edgesSection = new ByteArrayOutputStream();
+                out = new DataOutputStream(edgesSection);
+                out.writeInt(this.edges.getObjects().size());
+                for (Edge e : this.edges.getObjects()) {
+                    out.writeInt(this.points.index(e.getP1()));
+                    out.writeInt(this.points.index(e.getP2()));
+                }
+
+                ByteArrayOutputStream pointsSection =
+                        new ByteArrayOutputStream();
+                out = new DataOutputStream(pointsSection);
+                out.writeInt(this.points.getObjects().size());
+                for (Point p : this.points.getObjects()) {
+                    out.writeDouble(p.getX());
+                    out.writeDouble(p.getY());
+                    out.writeDouble(p.getZ());
+                }
+
+                return Arrays.asList(pointsSection, edgesSection,
+                        trianglesSection, polygonsSection, meshesSection,
+                        header, surfacesSection, neighboursSection,
+                        structure);
+            } catch (IOException e) {
+                // Cannot happen : the streams are in memory.
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Writes the structure of a step.
+         * @param out
+         *            the stream
+         * @param step
+         *            the step
+         * @throws IOException
+         *             if the stream cannot be written
+         */
+        private void writeStep(final DataOutputStream out,
+                final AbstractBuildingsIsletStep step) throws IOException {
+            int number = StepCodec.returnNumber(step);
+            out.writeInt(number);
+
+            switch (number) {
+            case AbstractBuildingsIslet.FIRST_STEP:
+                out.writeInt(this.surfaces.index(((BuildingsIsletStep1) step)
+                        .getInitialTotalSurfaceAfterBaseChange()));
+                break;
+            case AbstractBuildingsIslet.SECOND_STEP:
+                // The noise is computed again by the process.
+                BuildingsIsletStep2 biStep2 = (BuildingsIsletStep2) step;
+                out.writeInt(this.surfaces.index(biStep2.getInitialBuildings()));
+                out.writeInt(this.surfaces.index(biStep2.getInitialGrounds()));
+                break;
+            case AbstractBuildingsIslet.THIRD_STEP:
+                BuildingsIsletStep3 biStep3 = (BuildingsIsletStep3) step;
+                this.writeBuildings(out, biStep3.getBuildings(), number);
+                out.writeInt(this.surfaces.index(biStep3.getGrounds()));
+                out.writeInt(this.surfaces.index(biStep3.getNoise()));
+                break;
+            case AbstractBuildingsIslet.FOURTH_STEP:
+                BuildingsIsletStep4 biStep4 = (BuildingsIsletStep4) step;
+                this.writeBuildings(out, biStep4.getBuildings(), number);
+                out.writeInt(this.surfaces.index(biStep4.getGrounds()));
+                out.writeInt(this.surfaces.index(biStep4.getNoise()));
+                break;
+            case AbstractBuildingsIslet.FIFTH_STEP:
+                BuildingsIsletStep5 biStep5 = (BuildingsIsletStep5) step;
+                this.writeBuildings(out, biStep5.getBuildings(), number);
+                out.writeInt(this.surfaces.index(biStep5.getGrounds()));
+                out.writeInt(this.surfaces.index(biStep5.getNoise()));
+                break;
+            case AbstractBuildingsIslet.SIXTH_STEP:
+                BuildingsIsletStep6 biStep6 = (BuildingsIsletStep6) step;
+                this.writeBuildings(out, biStep6.getBuildings(), number);
+                out.writeInt(this.surfaces.index(biStep6.getGrounds()));
+                break;
+            default:
+                BuildingsIsletStep7 biStep7 = (BuildingsIsletStep7) step;
+                this.writeBuildings(out, biStep7.getBuildings(), number);
+                out.writeInt(this.surfaces.index(biStep7.getGrounds()));
+                break;
+            }
+        }
+
+        /**
+         * Writes the buildings of a step, with their steps until the step of
+         * the islet.
+         * @param out
+         *            the stream
+         * @param buildings
+         *            the buildings
+         * @param number
+         *            the number of the step of the islet
+         * @throws IOException
+         *             if the stream cannot be written
+         */
+        private void writeBuildings(final DataOutputStream out,
+                final List<Building> buildings, final int number)
+                throws IOException {
+            out.writeInt(buildings.size());
+            for (Building b : buildings) {
+                Encoder.writeVector(out, b.getGroundNormal());
+                Encoder.writeVector(out, b.getGravityNormal());
+                out.writeInt(this.surfaces.index(b.getGrounds()));
+                out.writeInt(this.surfaces.index(b.getNoise()));
+                out.writeInt(this.surfaces.index(b.getbStep3()
+                        .getInitialTotalSurface()));
+
+                int last = AbstractBuildingsIslet.THIRD_STEP;
+                if (number >= AbstractBuildingsIslet.FOURTH_STEP
+                        && b.getbStep4() != null) {
+                    last = AbstractBuildingsIslet.FOURTH_STEP;
+                    if (number >= AbstractBuildingsIslet.FIFTH_STEP
+                            && b.getbStep5() != null) {
+                        last = AbstractBuildingsIslet.FIFTH_STEP;
+                        if (number >= AbstractBuildingsIslet.SIXTH_STEP
+                                && b.getbStep6() != null) {
+                            last = AbstractBuildingsIslet.SIXTH_STEP;
+                            if (number >= AbstractBuildingsIslet.SEVENTH_STEP
+                                    && b.getbStep7() != null) {
+                                last = AbstractBuildingsIslet.SEVENTH_STEP;
+                            }
+                        }
+                    }
+                }
+                out.writeInt(last);
+
+                if (last >= AbstractBuildingsIslet.FOURTH_STEP) {
+                    out.writeInt(this.surfaces.index(b.getbStep4()
+                            .getInitialWallSurface()));
+                    out.writeInt(this.surfaces.index(b.getbStep4()
+                            .getInitialRoofSurface()));
+                }
+                if (last >= AbstractBuildingsIslet.FIFTH_STEP) {
+                    BuildingStep5 bStep5 = b.getbStep5();
+                    this.writeSurfaces(out, bStep5.getWalls());
+                    this.writeSurfaces(out, bStep5.getRoofs());
+                    out.writeInt(this.surfaces.index(bStep5.getNoise()));
+                    out.writeInt(this.surfaces.index(bStep5.getGround()));
+                    Encoder.writeVector(out, bStep5.getGroundNormal());
+                }
+                if (last >= AbstractBuildingsIslet.SIXTH_STEP) {
+                    this.writeSurfaces(out, b.getbStep6().getWalls());
+                    this.writeSurfaces(out, b.getbStep6().getRoofs());
+                }
+                if (last >= AbstractBuildingsIslet.SEVENTH_STEP) {
+                    this.writeSurfaces(out, b.getbStep7().getWalls());
+                    this.writeSurfaces(out, b.getbStep7().getRoofs());
+                }
+            }
+        }
+
+        /**
+         * Writes the indexes of a list of surfaces.
+         * @param out
+         *            the stream
+         * @param list
+         *            the surfaces
+         * @throws IOException
+         *             if the stream cannot be written
+         */
+        private void writeSurfaces(final DataOutputStream out,
+                final List<? extends Surface> list) throws IOException {
+            out.writeInt(list.size());
+            for (Surface s : list) {
+                out.writeInt(this.surfaces.index(s));
+            }
+        }
+
+        /**
+         * Writes a surface of the table of the surfaces.
+         * @param out
+         *            the stream
+         * @param surface
+         *            the surface
+         * @throws IOException
+         *             if the stream cannot be written
+         */
+        private void writeSurface(final DataOutputStream out,
+                final Surface surface) throws IOException {
+            if (surface instanceof Wall) {
+                out.writeInt(StepCodec.WALL);
+            } else if (surface instanceof Roof) {
+                out.writeInt(StepCodec.ROOF);
+            } else if (surface instanceof Ground) {
+                out.writeInt(StepCodec.GROUND);
+            } else {
+                out.writeInt(StepCodec.SURFACE);
+            }
+            out.writeInt(this.meshes.index(surface.getMesh()));
+            out.writeInt(this.polygons.index(surface.getPolygon()));
+            out.writeInt(this.neighbours.index(surface.getNeighbours()));
+        }
+
+        /**
+         * Writes a mesh of the table of the meshes.
+         * @param out
+         *            the stream
+         * @param mesh
+         *            the mesh
+         * @throws IOException
+         *             if the stream cannot be written
+         */
+        private void writeMesh(final DataOutputStream out, final Mesh mesh)
+                throws IOException {
+            out.writeInt(mesh.size());
+            if (this.content) {
+                long[] hashes = new long[mesh.size()];
+                int i = 0;
+                for (Triangle t : mesh) {
+                    hashes[i] = Encoder.hashTriangle(t);
+                    i++;
+                }
+                Arrays.sort(hashes);
+                for (long hash : hashes) {
+                    out.writeLong(hash);
+                }
+            } else {
+                for (Triangle t : mesh) {
+                    out.writeInt(this.triangles.index(t));
+                }
+            }
+        }
+
+        /**
+         * Writes a polygon of the table of the polygons.
+         * @param out
+         *            the stream
+         * @param polygon
+         *            the polygon
+         * @throws IOException
+         *             if the stream cannot be written
+         */
+        private void writePolygon(final DataOutputStream out,
+                final Polygon polygon) throws IOException {
+            out.writeInt(polygon.getPointList().size());
+            for (Point p : polygon.getPointList()) {
+                this.writePoint(out, p);
+            }
+            out.writeInt(polygon.getEdgeList().size());
+            for (Edge e : polygon.getEdgeList()) {
+                if (this.content) {
+                    this.writePoint(out, e.getP1());
+                    this.writePoint(out, e.getP2());
+                } else {
+                    out.writeInt(this.edges.index(e));
+                }
+            }
+            Encoder.writeVector(out, polygon.getNormal());
+        }
+
+        /**
+         * Writes a point of a polygon : its values in content mode, its index
+         * otherwise.
+         * @param out
+         *            the stream
+         * @param point
+         *            the point
+         * @throws IOException
+         *             if the stream cannot be written
+         */
+        private void writePoint(final DataOutputStream out, final Point point)
+                throws IOException {
+            if (this.content) {
+                out.writeDouble(point.getX());
+                out.writeDouble(point.getY());
+                out.writeDouble(point.getZ());
+            } else {
+                out.writeInt(this.points.index(point));
+            }
+        }
+
+        /**
+         * Writes a vector which can be null.
+         * @param out
+         *            the stream
+         * @param vector
+         *            the vector, can be null
+         * @throws IOException
+         *             if the stream cannot be written
+         */
+        private static void writeVector(final DataOutputStream out,
+                final Vector3d vector) throws IOException {
+            out.writeBoolean(vector != null);
+            if (vector != null) {
+                out.writeDouble(vector.x);
+                out.writeDouble(vector.y);
+                out.writeDouble(vector.z);
+            }
+        }
+
+        /**
+         * Computes a hash of the values of a triangle : its points in order
+         * and its normal.
+         * @param triangle
+         *            the triangle
+         * @return the hash
+         */
+        private static long hashTriangle(final Triangle triangle) {
+            long hash = 0;
+            for (Point p : triangle.getPoints()) {
+                hash = Encoder.mix(hash, p.getX());
+                hash = Encoder.mix(hash, p.getY());
+                hash = Encoder.mix(hash, p.getZ());
+            }
+            hash = Encoder.mix(hash, triangle.getNormal().x);
+            hash = Encoder.mix(hash, triangle.getNormal().y);
+            return Encoder.mix(hash, triangle.getNormal().z);
+        }
+
+        /**
+         * Mixes a value in a hash, so that every bit of the value changes the
+         * whole hash.
+         * @param hash
+         *            the current hash
+         * @param value
+         *            the value to add
+         * @return the new hash
+         */
+        private static long mix(final long hash, final double value) {
+            final long multiplier = 0x9E3779B97F4A7C15L;
+            final long mix1 = 0xBF58476D1CE4E5B9L;
+            final long mix2 = 0x94D049BB133111EBL;
+            final int shift1 = 30;
+            final int shift2 = 27;
+            final int shift3 = 31;
+
+            long z = hash * multiplier + Double.doubleToLongBits(value);
+            z = (z ^ (z >>> shift1)) * mix1;
+            z = (z ^ (z >>> shift2)) * mix2;
+            return z ^ (z >>> shift3);
+        }
+    }
+
+    /**
+     * Decodes one step written by the Encoder, not in content mode.
+     */
+    private static final class Decoder {
+
+        /**
+         * The stream.
+         */
+        private final DataInputStream in;
+        /**
+         * The points.
+         */
+        private Point[] points;
+        /**
+         * The edges.
+         */
+        private Edge[] edges;
+        /**
+         * The triangles.
+         */
+        private Triangle[] triangles;
+        /**
+         * The polygons.
+         */
+        private Polygon[] polygons;
+        /**
+         * The meshes.
+         */
+        private Mesh[] meshes;
+        /**
+         * The surfaces.
+         */
+        private Surface[] surfaces;
+
+        /**
+         * Constructor.
+         * @param inIn
+         *            the stream
+         */
+        public Decoder(final DataInputStream inIn) {
+            this.in = inIn;
+        }
+
+        /**
+         * Reads a step.
+         * @return the step
+         * @throws IOException
+         *             if the stream cannot be read or is not valid
+         */
+        public AbstractBuildingsIsletStep decode() throws IOException {
+            try {
+                this.readTables();
+                return this.readStep();
+            } catch (ArrayIndexOutOfBoundsException | ClassCastException
+                    | NegativeArraySizeException e) {
+                throw new IOException("Invalid step", e);
+            }
+        }
+
+        /**
+         * Reads the tables of the objects.
+         * @throws IOException
+         *             if the stream cannot be read
+         */
+        private void readTables() throws IOException {
+            this.points = new Point[this.in.readInt()];
+            for (int i = 0; i < this.points.length; i++) {
+                this.points[i] = new Point(this.in.readDouble(),
+                        this.in.readDouble(), this.in.readDouble());
+            }
+
+            this.edges = new Edge[this.in.readInt()];
+            for (int i = 0; i < this.edges.length; i++) {
+                this.edges[i] = new Edge(this.points[this.in.readInt()],
+                        this.points[this.in.readInt()]);
+            }
+
+            this.triangles = new Triangle[this.in.readInt()];
+            for (int i = 0; i < this.triangles.length; i++) {
+                Edge e1 = this.edges[this.in.readInt()];
+                Edge e2 = this.edges[this.in.readInt()];
+                Edge e3 = this.edges[this.in.readInt()];
+                this.triangles[i] = new Triangle(e1, e2, e3, this.readVector());
+            }
+
+            this.polygons = new Polygon[this.in.readInt()];
+            for (int i = 0; i < this.polygons.length; i++) {
+                Polygon polygon = new Polygon();
+                int size = this.in.readInt();
+                for (int j = 0; j < size; j++) {
+                    polygon.getPointList().add(this.points[this.in.readInt()]);
+                }
+                size = this.in.readInt();
+                for (int j = 0; j < size; j++) {
+                    polygon.getEdgeList().add(this.edges[this.in.readInt()]);
+                }
+                polygon.setNormal(this.readVector());
+                this.polygons[i] = polygon;
+            }
+
+            this.meshes = new Mesh[this.in.readInt()];
+            for (int i = 0; i < this.meshes.length; i++) {
+                List<Triangle> list = new ArrayList<>();
+                int size = this.in.readInt();
+                for (int j = 0; j < size; j++) {
+                    list.add(this.triangles[this.in.readInt()]);
+                }
+                this.meshes[i] = new Mesh(list);
+            }
+
+            this.surfaces = new Surface[this.in.readInt()];
+            int[] neighbourLists = new int[this.surfaces.length];
+            for (int i = 0; i < this.surfaces.length; i++) {
+                int type = this.in.readInt();
+                Mesh mesh = this.returnObject(this.meshes, this.in.readInt());
+                Polygon polygon = this.returnObject(this.polygons,
+                        this.in.readInt());
+                neighbourLists[i] = this.in.readInt();
+
+                switch (type) {
+                case StepCodec.WALL:
+                    this.surfaces[i] = new Wall(mesh);
+                    break;
+                case StepCodec.ROOF:
+                    this.surfaces[i] = new Roof(mesh);
+                    break;
+                case StepCodec.GROUND:
+                    this.surfaces[i] = new Ground(mesh);
+                    break;
+                default:
+                    this.surfaces[i] = new Surface(mesh);
+                    break;
+                }
+                this.surfaces[i].setPolygon(polygon);
+            }
+
+            List<List<Surface>> lists = new ArrayList<>();
+            int size = this.in.readInt();
+            for (int i = 0; i < size; i++) {
+                int listSize = this.in.readInt();
+                List<Surface> list = new ArrayList<>(listSize);
+                for (int j = 0; j < listSize; j++) {
+                    list.add(this.surfaces[this.in.readInt()]);
+                }
+                lists.add(list);
+            }
+            for (int i = 0; i < this.surfaces.length; i++) {
+                this.surfaces[i].setNeighbours(lists.get(neighbourLists[i]));
+            }
+        }
+
+        /**
+         * Reads the structure of the step.
+         * @return the step
+         * @throws IOException
+         *             if the stream cannot be read
+         */
+        private AbstractBuildingsIsletStep readStep() throws IOException {
+            int number = this.in.readInt();
+
+            switch (number) {
+            case AbstractBuildingsIslet.FIRST_STEP:
+                return new BuildingsIsletStep1(this.readSurface());
+            case AbstractBuildingsIslet.SECOND_STEP:
+                Surface initialBuildings = this.readSurface();
+                return new BuildingsIsletStep2(initialBuildings,
+                        (Ground) this.readSurface());
+            case AbstractBuildingsIslet.THIRD_STEP:
+                List<Building> buildings = this.readBuildings();
+                BuildingsIsletStep3 biStep3 = new BuildingsIsletStep3(
+                        buildings, (Ground) this.readSurface());
+                biStep3.setArguments(this.readSurface());
+                return biStep3;
+            case AbstractBuildingsIslet.FOURTH_STEP:
+                buildings = this.readBuildings();
+                BuildingsIsletStep4 biStep4 = new BuildingsIsletStep4(
+                        buildings, (Ground) this.readSurface());
+                biStep4.setArguments(this.readSurface());
+                return biStep4;
+            case AbstractBuildingsIslet.FIFTH_STEP:
+                buildings = this.readBuildings();
+                BuildingsIsletStep5 biStep5 = new BuildingsIsletStep5(
+                        buildings, (Ground) this.readSurface());
+                biStep5.setArguments(this.readSurface());
+                return biStep5;
+            case AbstractBuildingsIslet.SIXTH_STEP:
+                buildings = this.readBuildings();
+                return new BuildingsIsletStep6(buildings,
+                        (Ground) this.readSurface());
+            case AbstractBuildingsIslet.SEVENTH_STEP:
+                buildings = this.readBuildings();
+                return new BuildingsIsletStep7(buildings,
+                        (Ground) this.readSurface());
+            default:
+                throw new IOException("Invalid step number : " + number);
+            }
+        }
+
+        /**
+         * Reads the buildings of a step.
+         * @return the buildings
+         * @throws IOException
+         *             if the stream cannot be read
+         */
+        private List<Building> readBuildings() throws IOException {
+            int size = this.in.readInt();
+            List<Building> buildings = new ArrayList<>(size);
+
+            for (int i = 0; i < size; i++) {
+                Vector3d groundNormal = this.readVector();
+                Vector3d gravityNormal = this.readVector();
+                Ground grounds = (Ground) this.readSurface();
+                Surface noise = this.readSurface();
+                Building b = new Building(this.readSurface());
+                b.setArguments(groundNormal, gravityNormal, grounds, noise);
+
+                int last = this.in.readInt();
+                if (last >= AbstractBuildingsIslet.FOURTH_STEP) {
+                    Surface initialWall = this.readSurface();
+                    b.setbStep4(new BuildingStep4(initialWall, this
+                            .readSurface()));
+                }
+                if (last >= AbstractBuildingsIslet.FIFTH_STEP) {
+                    List<Wall> walls = this.readSurfaces(Wall.class);
+                    BuildingStep5 bStep5 = new BuildingStep5(walls,
+                            this.readSurfaces(Roof.class));
+                    Surface bNoise = this.readSurface();
+                    Ground bGround = (Ground) this.readSurface();
+                    bStep5.setArguments(bNoise, bGround, this.readVector());
+                    b.setbStep5(bStep5);
+                }
+                if (last >= AbstractBuildingsIslet.SIXTH_STEP) {
+                    List<Wall> walls = this.readSurfaces(Wall.class);
+                    b.setbStep6(new BuildingStep6(walls, this
+                            .readSurfaces(Roof.class)));
+                }
+                if (last >= AbstractBuildingsIslet.SEVENTH_STEP) {
+                    List<Wall> walls = this.readSurfaces(Wall.class);
+                    b.setbStep7(new BuildingStep7(walls, this
+                            .readSurfaces(Roof.class)));
+                }
+                buildings.add(b);
+            }
+
+            return buildings;
+        }
+
+        /**
+         * Reads a list of surfaces.
+         * @param <T>
+         *            the type of the surfaces
+         * @param type
+         *            the class of the surfaces
+         * @return the list
+         * @throws IOException
+         *             if the stream cannot be read
+         */
+        private <T extends Surface> List<T> readSurfaces(final Class<T> type)
+                throws IOException {
+            int size = this.in.readInt();
+            List<T> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(type.cast(this.readSurface()));
+            }
+            return list;
+        }
+
+        /**
+         * Reads the index of a surface.
+         * @return the surface, or null
+         * @throws IOException
+         *             if the stream cannot be read
+         */
+        private Surface readSurface() throws IOException {
+            return this.returnObject(this.surfaces, this.in.readInt());
+        }
+
+        /**
+         * Reads a vector which can be null.
+         * @return the vector, or null
+         * @throws IOException
+         *             if the stream cannot be read
+         */
+        private Vector3d readVector() throws IOException {
+            if (!this.in.readBoolean()) {
+                return null;
+            }
+            return new Vector3d(this.in.readDouble(), this.in.readDouble(),
+                    this.in.readDouble());
+        }
+
+        /**
+         * Returns an object of a table.
+         * @param <T>
+         *            the type of the objects
+         * @param table
+         *            the table
+         * @param index
+         *            the index, or -1
+         * @return the object, or null if the index is -1
+         */
+        private <T> T returnObject(final T[] table, final int index) {
+            if (index == -1) {
+                return null;
+            }
+            return table[index];
+        }
+    }
+}
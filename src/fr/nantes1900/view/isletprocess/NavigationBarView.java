@@ -151,6 +151,27 @@ public class NavigationBarView extends JPanel {
 		return this.bSave;
 	}
 
+	/**
+	 * Disables the buttons while a process runs, and turns the abort button
+	 * into a button canceling the process. The buttons depending on the step
+	 * are enabled again by refreshStepTitle().
+	 * 
+	 * @param processing
+	 *            true if a process is running, false otherwise
+	 */
+	public final void setProcessing(final boolean processing) {
+		if (processing) {
+			this.bBack.setEnabled(false);
+			this.bLaunch.setEnabled(false);
+			this.bSave.setEnabled(false);
+			this.bAbort.setToolTipText(FileTools
+					.readElementText(TextsKeys.KEY_CANCELBUTTON));
+		} else {
+			this.bAbort.setToolTipText(FileTools
+					.readElementText(TextsKeys.KEY_ABORTBUTTON));
+		}
+	}
+
 	/**
 	 * Displays the current step title, depending on the current step.
 	 * 
@@ -4,15 +4,32 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import test.fr.nantes1900.decimation.ClusteringDecimatorTest;
+import test.fr.nantes1900.decimation.DecimationTargetTest;
+import test.fr.nantes1900.decimation.EdgeHeapTest;
 import test.fr.nantes1900.decimation.MeshDecimationTest;
+import test.fr.nantes1900.decimation.ParallelDecimatorTest;
+import test.fr.nantes1900.decimation.QuadricTest;
+import test.fr.nantes1900.errorcalculator.QualityReportTest;
+import test.fr.nantes1900.errorcalculator.TriangleTreeTest;
+import test.fr.nantes1900.models.BuildingsIsletStep4Test;
+import test.fr.nantes1900.models.BuildingsIsletStep6Test;
+import test.fr.nantes1900.models.EdgeGridTest;
 import test.fr.nantes1900.models.EdgeTest;
 import test.fr.nantes1900.models.MeshTest;
+import test.fr.nantes1900.models.PointGridTest;
 import test.fr.nantes1900.models.PointTest;
 import test.fr.nantes1900.models.PolygonTest;
 import test.fr.nantes1900.models.TriangleTest;
 import test.fr.nantes1900.recollage.RecollageTest;
+import test.fr.nantes1900.utils.AlgosTest;
+import test.fr.nantes1900.utils.EditHistoryTest;
 import test.fr.nantes1900.utils.MatrixMethodTest;
+import test.fr.nantes1900.utils.MorphologicalGroundFilterTest;
 import test.fr.nantes1900.utils.ParserSTLTest;
+import test.fr.nantes1900.utils.PipelineTest;
+import test.fr.nantes1900.utils.StepCheckpointsTest;
+import test.fr.nantes1900.utils.StepCodecTest;
 
 /**
  * Class to test every class tests of the project.
@@ -21,7 +38,16 @@ import test.fr.nantes1900.utils.ParserSTLTest;
 @RunWith(Suite.class)
 @SuiteClasses(value = {EdgeTest.class, PointTest.class, TriangleTest.class,
         PolygonTest.class, MeshTest.class, MatrixMethodTest.class,
-        ParserSTLTest.class, MeshDecimationTest.class, RecollageTest.class})
+        ParserSTLTest.class, MeshDecimationTest.class, RecollageTest.class,
+        PipelineTest.class, StepCodecTest.class,
+        StepCheckpointsTest.class, EditHistoryTest.class,
+        QuadricTest.class, ParallelDecimatorTest.class,
+        ClusteringDecimatorTest.class, DecimationTargetTest.class,
+        TriangleTreeTest.class, QualityReportTest.class,
+        EdgeGridTest.class, PointGridTest.class,
+        MorphologicalGroundFilterTest.class, AlgosTest.class,
+        BuildingsIsletStep4Test.class, EdgeHeapTest.class,
+        BuildingsIsletStep6Test.class})
 
 public final class AllTests {
 
@@ -0,0 +1,100 @@
+package test.fr.nantes1900.decimation;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.decimation.ClusteringDecimator;
+import fr.nantes1900.models.decimation.DecimationTarget;
+import fr.nantes1900.models.decimation.Decimator;
+import fr.nantes1900.models.decimation.ParallelDecimator;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
+import fr.nantes1900.utils.ProcessProgress;
+
+/**
+ * A set of tests for the class ClusteringDecimator.
+ */
+public final class ClusteringDecimatorTest extends TestCase {
+
+    /**
+     * Constructor.
+     */
+    public ClusteringDecimatorTest() {
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.decimation.ClusteringDecimator#launchDecimation()}
+     * . Cells smaller than the triangles must keep every triangle, and bigger
+     * cells must reduce the mesh without modifying the initial one.
+     */
+    @Test
+    public static void testLaunchDecimation() {
+        final int size = 20;
+        final int budget = 200;
+        final Mesh grid = ParallelDecimatorTest.createGrid(size);
+        final int initialSize = grid.size();
+
+        final Mesh same = new ClusteringDecimator(grid, 0.5, true)
+                .launchDecimation();
+        Assert.assertEquals(initialSize, same.size());
+
+        for (boolean useQuadrics : new boolean[] {true, false}) {
+            final double cellSize = ClusteringDecimator.returnCellSize(grid,
+                    budget);
+            final Mesh decimated = new ClusteringDecimator(grid, cellSize,
+                    useQuadrics).launchDecimation();
+            Assert.assertTrue(decimated.size() > 0);
+            Assert.assertTrue(decimated.size() <= 2 * budget);
+            Assert.assertEquals(initialSize, grid.size());
+            for (Triangle t : decimated) {
+                Assert.assertTrue(t.getNormal().getZ() > 0);
+            }
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.decimation.Decimator#launchDecimation()}
+     * in the clustering mode. The budget of triangles must be followed, the
+     * initial mesh kept, and the cells of ParallelDecimator not used.
+     * @throws ProcessCanceledException
+     *             if the progress is canceled
+     */
+    @Test
+    public static void testDecimatorMode() throws ProcessCanceledException {
+        final int budget = 200;
+        final Mesh grid = ParallelDecimatorTest.createGrid(20);
+        final int initialSize = grid.size();
+        final DecimationTarget target = new DecimationTarget(0, budget, 0,
+                DecimationTarget.NO_MAX_ERROR);
+
+        final Mesh decimated = new Decimator(grid, target,
+                Decimator.CLUSTERING, new ProcessProgress())
+                .launchDecimation();
+        Assert.assertTrue(decimated.size() > 0);
+        Assert.assertTrue(decimated.size() <= 2 * budget);
+        Assert.assertEquals(initialSize, grid.size());
+
+        final Mesh parallel = new ParallelDecimator(grid, target, 4, true,
+                Decimator.CLUSTERING, new ProcessProgress())
+                .launchDecimation();
+        Assert.assertEquals(decimated.size(), parallel.size());
+        Assert.assertEquals(initialSize, grid.size());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.decimation.ClusteringDecimator#returnCellSize(Mesh, int)}
+     * .
+     */
+    @Test
+    public static void testReturnCellSize() {
+        final Mesh grid = ParallelDecimatorTest.createGrid(10);
+        Assert.assertEquals(Math.sqrt(2.0 * 100 / 50),
+                ClusteringDecimator.returnCellSize(grid, 50), 1e-9);
+    }
+}
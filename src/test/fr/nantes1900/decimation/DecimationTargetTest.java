@@ -0,0 +1,76 @@
+package test.fr.nantes1900.decimation;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.decimation.DecimationTarget;
+import fr.nantes1900.models.decimation.Decimator;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
+import fr.nantes1900.utils.ProcessProgress;
+
+/**
+ * A set of tests for the class DecimationTarget.
+ */
+public final class DecimationTargetTest extends TestCase {
+
+    /**
+     * Constructor.
+     */
+    public DecimationTargetTest() {
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.decimation.DecimationTarget#returnTriangles(Mesh)}
+     * . The greatest number of triangles must be kept.
+     */
+    @Test
+    public static void testReturnTriangles() {
+        // 200 triangles on 100 square meters, that is 0.01 hectare.
+        final Mesh grid = ParallelDecimatorTest.createGrid(10);
+        final double delta = 1e-6;
+
+        Assert.assertEquals(20,
+                new DecimationTarget(10).returnTriangles(grid), delta);
+        Assert.assertEquals(50, new DecimationTarget(10, 50, 0,
+                DecimationTarget.NO_MAX_ERROR).returnTriangles(grid), delta);
+        Assert.assertEquals(100, new DecimationTarget(10, 50, 10000,
+                DecimationTarget.NO_MAX_ERROR).returnTriangles(grid), delta);
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.decimation.Decimator#launchDecimation()}
+     * with a maximal error. The decimation must stop earlier with a null
+     * maximal error, and a maximal error never reached must not change it.
+     * @throws ProcessCanceledException
+     *             if the decimation has been canceled
+     */
+    @Test
+    public static void testMaxError() throws ProcessCanceledException {
+        final int size = 10;
+        final int initialSize = ParallelDecimatorTest.createGrid(size).size();
+        final double percent = 10;
+        final double hugeError = 1e9;
+
+        final Mesh unlimited = new Decimator(
+                ParallelDecimatorTest.createGrid(size), percent,
+                new ProcessProgress()).launchDecimation();
+        Assert.assertTrue(unlimited.size() < initialSize);
+
+        final Mesh huge = new Decimator(
+                ParallelDecimatorTest.createGrid(size), new DecimationTarget(
+                        percent, 0, 0, hugeError), new ProcessProgress())
+                .launchDecimation();
+        Assert.assertEquals(unlimited.size(), huge.size());
+
+        final Mesh bounded = new Decimator(
+                ParallelDecimatorTest.createGrid(size), new DecimationTarget(
+                        percent, 0, 0, 0), new ProcessProgress())
+                .launchDecimation();
+        Assert.assertTrue(bounded.size() > unlimited.size());
+    }
+}
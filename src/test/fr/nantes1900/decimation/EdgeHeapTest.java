@@ -0,0 +1,192 @@
+package test.fr.nantes1900.decimation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.decimation.EdgeHeap;
+
+/**
+ * A set of tests for the class EdgeHeap.
+ */
+public final class EdgeHeapTest extends TestCase {
+
+    /**
+     * Constructor.
+     */
+    public EdgeHeapTest() {
+    }
+
+    /**
+     * Creates some edges, all different.
+     * @param number
+     *            the number of edges
+     * @return the list of edges
+     */
+    private static List<Edge> createEdges(final int number) {
+        final List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < number; i++) {
+            edges.add(new Edge(new Point(i, 0, 0), new Point(i, 1, 0)));
+        }
+        return edges;
+    }
+
+    /**
+     * Removes the edges of the heap one by one, in the order of peek.
+     * @param heap
+     *            the heap
+     * @return the errors of the edges removed, in this order
+     */
+    private static List<Double> popAll(final EdgeHeap heap) {
+        final List<Double> errors = new ArrayList<>();
+        while (heap.size() > 0) {
+            errors.add(Double.valueOf(heap.peekError()));
+            Assert.assertTrue(heap.remove(heap.peek()));
+        }
+        return errors;
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.decimation.EdgeHeap#add(Edge, double)}.
+     * The edges added with random errors must be returned by increasing
+     * error.
+     */
+    @Test
+    public static void testAdd() {
+        final int number = 200;
+        final Random random = new Random(1);
+        final EdgeHeap heap = new EdgeHeap();
+        final double[] errors = new double[number];
+        final List<Edge> edges = EdgeHeapTest.createEdges(number);
+        for (int i = 0; i < number; i++) {
+            errors[i] = random.nextDouble();
+            heap.add(edges.get(i), errors[i]);
+        }
+        Assert.assertEquals(number, heap.size());
+
+        Arrays.sort(errors);
+        final List<Double> popped = EdgeHeapTest.popAll(heap);
+        for (int i = 0; i < number; i++) {
+            Assert.assertEquals(errors[i], popped.get(i).doubleValue(), 0);
+        }
+        Assert.assertNull(heap.peek());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.decimation.EdgeHeap#update(Edge, double)}.
+     * An edge must move up when its error becomes lower, and down when it
+     * becomes higher.
+     */
+    @Test
+    public static void testUpdate() {
+        final List<Edge> edges = EdgeHeapTest.createEdges(10);
+        final EdgeHeap heap = new EdgeHeap();
+        for (int i = 0; i < edges.size(); i++) {
+            heap.add(edges.get(i), i);
+        }
+
+        Assert.assertTrue(heap.update(edges.get(7), -1));
+        Assert.assertSame(edges.get(7), heap.peek());
+        Assert.assertEquals(-1, heap.peekError(), 0);
+
+        Assert.assertTrue(heap.update(edges.get(7), 100));
+        Assert.assertSame(edges.get(0), heap.peek());
+
+        // Adding an edge already in the heap changes its error.
+        heap.add(edges.get(0), 50);
+        Assert.assertEquals(edges.size(), heap.size());
+        Assert.assertSame(edges.get(1), heap.peek());
+
+        Assert.assertFalse(heap.update(new Edge(new Point(0, 0, 0),
+                new Point(0, 1, 0)), 0));
+
+        final List<Double> popped = EdgeHeapTest.popAll(heap);
+        Assert.assertEquals(Arrays.asList(1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 8.0,
+                9.0, 50.0, 100.0), popped);
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.decimation.EdgeHeap#remove(Edge)}. The
+     * root, an edge in the middle and the last edge must be removed, the
+     * other ones staying sorted.
+     */
+    @Test
+    public static void testRemove() {
+        final List<Edge> edges = EdgeHeapTest.createEdges(15);
+        final EdgeHeap heap = new EdgeHeap();
+        // Added in decreasing order : the last position is not the maximum.
+        for (int i = edges.size() - 1; i >= 0; i--) {
+            heap.add(edges.get(i), i);
+        }
+
+        // The root.
+        Assert.assertTrue(heap.remove(edges.get(0)));
+        // An edge in the middle, which is not a leaf.
+        Assert.assertTrue(heap.remove(edges.get(5)));
+        // The edge at the last position of the tree.
+        Assert.assertTrue(heap.remove(heap.returnEdges().get(
+                heap.size() - 1)));
+        Assert.assertFalse(heap.remove(edges.get(5)));
+
+        Assert.assertEquals(edges.size() - 3, heap.size());
+        Assert.assertFalse(heap.contains(edges.get(0)));
+        Assert.assertFalse(heap.contains(edges.get(5)));
+        Assert.assertTrue(heap.contains(edges.get(2)));
+        Assert.assertEquals(heap.size(), heap.returnEdges().size());
+
+        final List<Double> popped = EdgeHeapTest.popAll(heap);
+        for (int i = 1; i < popped.size(); i++) {
+            Assert.assertTrue(popped.get(i - 1).doubleValue() < popped.get(
+                    i).doubleValue());
+        }
+        Assert.assertFalse(popped.contains(Double.valueOf(0)));
+        Assert.assertFalse(popped.contains(Double.valueOf(5)));
+        Assert.assertEquals(0, heap.size());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.decimation.EdgeHeap#peek()}. The edges
+     * having the same error must be returned in their order of insertion.
+     */
+    @Test
+    public static void testPeekSameErrors() {
+        final List<Edge> edges = EdgeHeapTest.createEdges(20);
+        final EdgeHeap heap = new EdgeHeap();
+        for (Edge edge : edges) {
+            heap.add(edge, 1);
+        }
+        for (Edge edge : edges) {
+            Assert.assertSame(edge, heap.peek());
+            heap.remove(edge);
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.decimation.EdgeHeap#peekError()}.
+     */
+    @Test
+    public static void testPeekError() {
+        final EdgeHeap heap = new EdgeHeap();
+        Assert.assertEquals(Double.POSITIVE_INFINITY, heap.peekError(), 0);
+        Assert.assertNull(heap.peek());
+
+        final Edge edge = EdgeHeapTest.createEdges(1).get(0);
+        heap.add(edge, 2);
+        Assert.assertEquals(2, heap.peekError(), 0);
+        heap.remove(edge);
+        Assert.assertEquals(Double.POSITIVE_INFINITY, heap.peekError(), 0);
+    }
+}
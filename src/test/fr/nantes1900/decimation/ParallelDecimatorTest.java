@@ -0,0 +1,118 @@
+package test.fr.nantes1900.decimation;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.decimation.ParallelDecimator;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
+import fr.nantes1900.utils.ProcessProgress;
+
+/**
+ * A set of tests for the class ParallelDecimator.
+ */
+public final class ParallelDecimatorTest extends TestCase {
+
+    /**
+     * Constructor.
+     */
+    public ParallelDecimatorTest() {
+    }
+
+    /**
+     * Creates a grid of triangles sharing their edges, with a relief.
+     * @param size
+     *            the number of squares along each axis
+     * @return the mesh
+     */
+    static Mesh createGrid(final int size) {
+        final Point[][] points = new Point[size + 1][size + 1];
+        for (int i = 0; i <= size; i++) {
+            for (int j = 0; j <= size; j++) {
+                points[i][j] = new Point(i, j, Math.sin(i * 0.5)
+                        + Math.cos(j * 0.3));
+            }
+        }
+
+        // The horizontal, vertical and diagonal edges of each square.
+        final Edge[][] horizontal = new Edge[size][size + 1];
+        final Edge[][] vertical = new Edge[size + 1][size];
+        for (int i = 0; i <= size; i++) {
+            for (int j = 0; j <= size; j++) {
+                if (i < size) {
+                    horizontal[i][j] = new Edge(points[i][j],
+                            points[i + 1][j]);
+                }
+                if (j < size) {
+                    vertical[i][j] = new Edge(points[i][j], points[i][j + 1]);
+                }
+            }
+        }
+
+        final List<Triangle> triangles = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                final Edge diagonal = new Edge(points[i][j],
+                        points[i + 1][j + 1]);
+                final Triangle t1 = new Triangle(horizontal[i][j],
+                        vertical[i + 1][j], diagonal, new Vector3d(0, 0, 1));
+                final Triangle t2 = new Triangle(diagonal,
+                        horizontal[i][j + 1], vertical[i][j], new Vector3d(0,
+                                0, 1));
+                t1.recomputeNormal();
+                t2.recomputeNormal();
+                triangles.add(t1);
+                triangles.add(t2);
+            }
+        }
+        return new Mesh(triangles);
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.decimation.ParallelDecimator#launchDecimation()}
+     * . The percentage of triangles must be reached after the last pass, and
+     * each edge must still belong to two triangles at most.
+     * @throws ProcessCanceledException
+     *             if the decimation has been canceled
+     */
+    @Test
+    public static void testLaunchDecimation() throws ProcessCanceledException {
+        final int size = 20;
+        final int cells = 2;
+        final Mesh grid = ParallelDecimatorTest.createGrid(size);
+        final int initialSize = grid.size();
+
+        final Mesh decimated = new ParallelDecimator(grid, 50, cells, true,
+                new ProcessProgress()).launchDecimation();
+        Assert.assertTrue(decimated.size() <= initialSize / 2);
+        Assert.assertTrue(decimated.size() > 0);
+
+        final Map<Edge, Integer> counts = new IdentityHashMap<>();
+        for (Triangle t : decimated) {
+            for (Edge e : t.getEdges()) {
+                final Integer count = counts.get(e);
+                if (count == null) {
+                    counts.put(e, Integer.valueOf(1));
+                } else {
+                    counts.put(e, Integer.valueOf(count.intValue() + 1));
+                }
+            }
+        }
+        for (Integer count : counts.values()) {
+            Assert.assertTrue(count.intValue() <= 2);
+        }
+    }
+}
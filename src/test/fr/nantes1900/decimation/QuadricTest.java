@@ -0,0 +1,58 @@
+package test.fr.nantes1900.decimation;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.decimation.Quadric;
+
+/**
+ * A set of tests for the class Quadric.
+ */
+public final class QuadricTest extends TestCase {
+
+    /**
+     * Constructor.
+     */
+    public QuadricTest() {
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.decimation.Quadric#returnOptimalPoint(Point, Point)}
+     * . The optimal point of three orthogonal planes is their intersection,
+     * and the middle of the edge is returned when the planes are parallel.
+     */
+    @Test
+    public static void testReturnOptimalPoint() {
+        final double delta = 1e-9;
+        final Point p1 = new Point(0, 0, 0);
+        final Point p2 = new Point(2, 4, 0);
+
+        // Planes x = 1, y = 2 and z = 3.
+        final Quadric q1 = new Quadric();
+        q1.addPlane(1, 0, 0, -1);
+        q1.addPlane(0, 1, 0, -2);
+        final Quadric q2 = new Quadric();
+        q2.addPlane(0, 0, 1, -3);
+        final Quadric sum = new Quadric(q1, q2);
+
+        final Point optimal = sum.returnOptimalPoint(p1, p2);
+        Assert.assertEquals(1, optimal.getX(), delta);
+        Assert.assertEquals(2, optimal.getY(), delta);
+        Assert.assertEquals(3, optimal.getZ(), delta);
+        Assert.assertEquals(0, sum.evaluate(1, 2, 3), delta);
+        Assert.assertEquals(1 + 4 + 9, sum.evaluate(0, 0, 0), delta);
+
+        // Coplanar triangles : the system is singular.
+        final Quadric flat = new Quadric();
+        flat.addPlane(0, 0, 1, 0);
+        flat.addPlane(0, 0, 1, 0);
+        final Point middle = flat.returnOptimalPoint(p1, p2);
+        Assert.assertEquals(1, middle.getX(), delta);
+        Assert.assertEquals(2, middle.getY(), delta);
+        Assert.assertEquals(0, middle.getZ(), delta);
+    }
+}
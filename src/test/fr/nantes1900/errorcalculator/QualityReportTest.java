@@ -0,0 +1,134 @@
+package test.fr.nantes1900.errorcalculator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.errorcalculator.QualityReport;
+
+/**
+ * A set of tests for the class QualityReport.
+ */
+public final class QualityReportTest extends TestCase {
+
+    /**
+     * Tolerance of the comparisons of the distances.
+     */
+    private static final double DELTA = 1e-9;
+    /**
+     * Number of points sampled on each mesh.
+     */
+    private static final int SAMPLES = 1000;
+    /**
+     * Number of bins of the histograms.
+     */
+    private static final int BINS = 10;
+
+    /**
+     * Constructor.
+     */
+    public QualityReportTest() {
+    }
+
+    /**
+     * Creates a horizontal rectangle made of two triangles.
+     * @param xMin
+     *            the minimal x
+     * @param xMax
+     *            the maximal x
+     * @param z
+     *            the altitude
+     * @return the mesh
+     */
+    private static Mesh createRectangle(final double xMin, final double xMax,
+            final double z) {
+        final double yMax = 10;
+        final Point p1 = new Point(xMin, 0, z);
+        final Point p2 = new Point(xMax, 0, z);
+        final Point p3 = new Point(xMax, yMax, z);
+        final Point p4 = new Point(xMin, yMax, z);
+        final Edge diagonal = new Edge(p1, p3);
+        final List<Triangle> triangles = new ArrayList<>();
+        triangles.add(new Triangle(new Edge(p1, p2), new Edge(p2, p3),
+                diagonal, new Vector3d(0, 0, 1)));
+        triangles.add(new Triangle(diagonal, new Edge(p3, p4), new Edge(p4,
+                p1), new Vector3d(0, 0, 1)));
+        return new Mesh(triangles);
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.errorcalculator.QualityReport#compute()}
+     * with a model parallel to the reference : every deviation is the
+     * distance between the planes.
+     */
+    @Test
+    public static void testParallelPlanes() {
+        final double offset = 0.5;
+        final Map<String, Mesh> model = new LinkedHashMap<>();
+        model.put("ground", QualityReportTest.createRectangle(0, 10, offset));
+
+        final QualityReport report = new QualityReport(
+                QualityReportTest.createRectangle(0, 10, 0), model,
+                QualityReportTest.SAMPLES, QualityReportTest.BINS);
+        report.compute();
+
+        Assert.assertEquals(offset, report.getHausdorff(),
+                QualityReportTest.DELTA);
+        for (QualityReport.Deviation deviation : new QualityReport.Deviation[] {
+                report.getReferenceToModel(), report.getModelToReference(),
+                report.returnReferenceToModel("ground")
+        }) {
+            Assert.assertEquals(QualityReportTest.SAMPLES,
+                    deviation.getCount());
+            Assert.assertEquals(offset, deviation.returnMean(),
+                    QualityReportTest.DELTA);
+            Assert.assertEquals(offset, deviation.returnRms(),
+                    QualityReportTest.DELTA);
+            Assert.assertEquals(QualityReportTest.SAMPLES,
+                    deviation.getHistogram()[QualityReportTest.BINS - 1]);
+        }
+        Assert.assertTrue(report.toJson().contains("\"ground\""));
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.errorcalculator.QualityReport#compute()}
+     * with two classes : each class of the model must have its own
+     * deviations.
+     */
+    @Test
+    public static void testClasses() {
+        final double offset = 1;
+        final Map<String, Mesh> model = new LinkedHashMap<>();
+        model.put("flat", QualityReportTest.createRectangle(0, 5, 0));
+        model.put("raised", QualityReportTest.createRectangle(5, 10, offset));
+
+        final QualityReport report = new QualityReport(
+                QualityReportTest.createRectangle(0, 10, 0), model,
+                QualityReportTest.SAMPLES, QualityReportTest.BINS);
+        report.compute();
+
+        Assert.assertEquals(0, report.returnModelToReference("flat")
+                .getMax(), QualityReportTest.DELTA);
+        Assert.assertEquals(offset, report.returnModelToReference("raised")
+                .returnMean(), QualityReportTest.DELTA);
+        Assert.assertEquals(QualityReportTest.SAMPLES, report
+                .returnModelToReference("flat").getCount()
+                + report.returnModelToReference("raised").getCount());
+        Assert.assertEquals(QualityReportTest.SAMPLES, report
+                .getReferenceToModel().getCount());
+    }
+}
@@ -0,0 +1,130 @@
+package test.fr.nantes1900.errorcalculator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.errorcalculator.TriangleTree;
+
+/**
+ * A set of tests for the class TriangleTree.
+ */
+public final class TriangleTreeTest extends TestCase {
+
+    /**
+     * Tolerance of the comparisons of the coordinates.
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Constructor.
+     */
+    public TriangleTreeTest() {
+    }
+
+    /**
+     * Creates a triangle.
+     * @param p1
+     *            the first point
+     * @param p2
+     *            the second point
+     * @param p3
+     *            the third point
+     * @return the triangle
+     */
+    private static Triangle createTriangle(final Point p1, final Point p2,
+            final Point p3) {
+        final Triangle t = new Triangle(new Edge(p1, p2), new Edge(p2, p3),
+                new Edge(p3, p1), new Vector3d(0, 0, 1));
+        t.recomputeNormal();
+        return t;
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.errorcalculator.TriangleTree#returnClosestPoint(Point)}
+     * on one triangle : the closest point can be inside, on an edge or on a
+     * vertex.
+     */
+    @Test
+    public static void testClosestOnTriangle() {
+        final TriangleTree tree = new TriangleTree(
+                Collections.singletonList(TriangleTreeTest.createTriangle(
+                        new Point(0, 0, 0), new Point(2, 0, 0), new Point(0,
+                                2, 0))));
+
+        Assert.assertEquals(0,
+                tree.returnClosestPoint(new Point(0.5, 0.5, 3)).distance(
+                        new Point(0.5, 0.5, 0)), TriangleTreeTest.DELTA);
+        Assert.assertEquals(0,
+                tree.returnClosestPoint(new Point(1, -1, 1)).distance(
+                        new Point(1, 0, 0)), TriangleTreeTest.DELTA);
+        Assert.assertEquals(0,
+                tree.returnClosestPoint(new Point(2, 2, 0)).distance(
+                        new Point(1, 1, 0)), TriangleTreeTest.DELTA);
+        Assert.assertEquals(0,
+                tree.returnClosestPoint(new Point(-1, -1, -1)).distance(
+                        new Point(0, 0, 0)), TriangleTreeTest.DELTA);
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.errorcalculator.TriangleTree#returnClosestPoint(Point)}
+     * . The tree must find the same distance as the test of every triangle.
+     */
+    @Test
+    public static void testReturnClosestPoint() {
+        final int triangleNumber = 500;
+        final int queryNumber = 200;
+        final double range = 100;
+        final Random random = new Random(1);
+
+        final List<Triangle> triangles = new ArrayList<>();
+        for (int i = 0; i < triangleNumber; i++) {
+            final Point p = new Point(random.nextDouble() * range,
+                    random.nextDouble() * range, random.nextDouble() * range);
+            triangles.add(TriangleTreeTest.createTriangle(p, new Point(
+                    p.getX() + random.nextDouble(), p.getY(), p.getZ()
+                            + random.nextDouble()), new Point(p.getX(),
+                    p.getY() + random.nextDouble(), p.getZ())));
+        }
+        final TriangleTree tree = new TriangleTree(triangles);
+        Assert.assertEquals(triangleNumber, tree.size());
+
+        for (int i = 0; i < queryNumber; i++) {
+            final Point query = new Point(random.nextDouble() * range,
+                    random.nextDouble() * range, random.nextDouble() * range);
+            double expected = Double.POSITIVE_INFINITY;
+            for (Triangle t : triangles) {
+                expected = Math.min(expected, query.distance(new TriangleTree(
+                        Collections.singletonList(t)).returnClosestPoint(
+                        query)));
+            }
+            Assert.assertEquals(expected,
+                    query.distance(tree.returnClosestPoint(query)),
+                    TriangleTreeTest.DELTA);
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.errorcalculator.TriangleTree#returnClosestPoint(Point)}
+     * without triangle.
+     */
+    @Test
+    public static void testEmpty() {
+        Assert.assertNull(new TriangleTree(new ArrayList<Triangle>())
+                .returnClosestPoint(new Point(0, 0, 0)));
+    }
+}
@@ -0,0 +1,216 @@
+package test.fr.nantes1900.models;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.constants.TextsKeys;
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.coefficients.ProcessParameters;
+import fr.nantes1900.models.exceptions.NullArgumentException;
+import fr.nantes1900.models.exceptions.ProcessCanceledException;
+import fr.nantes1900.models.extended.Building;
+import fr.nantes1900.models.extended.Ground;
+import fr.nantes1900.models.extended.Roof;
+import fr.nantes1900.models.extended.Surface;
+import fr.nantes1900.models.extended.Wall;
+import fr.nantes1900.models.extended.steps.BuildingStep4;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep4;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep5;
+import fr.nantes1900.utils.ProcessProgress;
+
+/**
+ * A set of tests for the class BuildingsIsletStep4.
+ */
+public final class BuildingsIsletStep4Test extends TestCase {
+
+    /**
+     * Number of triangles of the roof of a building.
+     */
+    private static final int ROOF = 6;
+    /**
+     * Number of triangles of the noise touching the roof of a building.
+     */
+    private static final int NOISE = 3;
+    /**
+     * Distance between the buildings along x.
+     */
+    private static final double SPACING = 100;
+    /**
+     * Altitude of the roofs.
+     */
+    private static final double HEIGHT = 10;
+
+    /**
+     * Constructor.
+     */
+    public BuildingsIsletStep4Test() {
+    }
+
+    /**
+     * Creates a strip of triangles oriented upward and sharing their edges,
+     * along the x axis.
+     * @param size
+     *            the number of triangles
+     * @param x
+     *            the first x of the strip
+     * @param z
+     *            the altitude of the strip
+     * @return the list of the triangles
+     */
+    private static List<Triangle> createStrip(final int size, final double x,
+            final double z) {
+        final List<Triangle> triangles = new ArrayList<>();
+        Point a = new Point(x, 0, z);
+        Point b = new Point(x, 1, z);
+        Edge ab = new Edge(a, b);
+        for (int i = 0; i < size; i++) {
+            final Point c = new Point(x + i + 1, i % 2, z);
+            final Edge bc = new Edge(b, c);
+            final Edge ca = new Edge(c, a);
+            triangles.add(new Triangle(ab, bc, ca, new Vector3d(0, 0, 1)));
+            a = b;
+            b = c;
+            ab = bc;
+        }
+        return triangles;
+    }
+
+    /**
+     * Creates a building whose roof is continued by some noise, with a
+     * triangle oriented downward which is cut from it by the process.
+     * @param x
+     *            the first x of the building
+     * @param noise
+     *            the noise of the islet, receiving the noise of the building
+     * @param grounds
+     *            the grounds
+     * @return the building
+     */
+    private static Building createBuilding(final double x, final Mesh noise,
+            final Ground grounds) {
+        final List<Triangle> strip = BuildingsIsletStep4Test.createStrip(
+                BuildingsIsletStep4Test.ROOF + BuildingsIsletStep4Test.NOISE,
+                x, BuildingsIsletStep4Test.HEIGHT);
+        final Mesh roof = new Mesh();
+        roof.addAll(strip.subList(0, BuildingsIsletStep4Test.ROOF));
+        noise.addAll(strip.subList(BuildingsIsletStep4Test.ROOF, strip
+                .size()));
+
+        final Point p1 = new Point(x, -2, BuildingsIsletStep4Test.HEIGHT);
+        final Point p2 = new Point(x + 1, -2, BuildingsIsletStep4Test.HEIGHT);
+        final Point p3 = new Point(x, -3, BuildingsIsletStep4Test.HEIGHT);
+        roof.add(new Triangle(new Edge(p1, p2), new Edge(p2, p3), new Edge(p3,
+                p1), new Vector3d(0, 0, -1)));
+
+        final Building building = new Building(new Surface(new Mesh()));
+        building.setbStep4(new BuildingStep4(new Surface(new Mesh()),
+                new Surface(roof)));
+        building.setArguments(new Vector3d(0, 0, 1), new Vector3d(0, 0, -1),
+                grounds, null);
+        return building;
+    }
+
+    /**
+     * Returns the triangles of the walls and the roofs of a building after
+     * the fourth step.
+     * @param building
+     *            the building
+     * @return the triangles
+     */
+    private static List<Triangle> returnTriangles(final Building building) {
+        final List<Triangle> triangles = new ArrayList<>();
+        for (Wall w : building.getbStep5().getWalls()) {
+            triangles.addAll(w.getMesh());
+        }
+        for (Roof r : building.getbStep5().getRoofs()) {
+            triangles.addAll(r.getMesh());
+        }
+        return triangles;
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.islets.steps.BuildingsIsletStep4#launchProcess()}
+     * launched again after a modification of one building, as done by
+     * BuildingsIsletController.action4 : the noise of the fourth step is not
+     * modified, only the building modified is treated again, and every
+     * triangle is in one building or in the noise, once.
+     * @throws NullArgumentException
+     *             if an argument of the process is missing
+     * @throws ProcessCanceledException
+     *             if the process has been canceled
+     */
+    @Test
+    public static void testLaunchProcessAgain() throws NullArgumentException,
+            ProcessCanceledException {
+        final Ground grounds = new Ground(new Mesh(BuildingsIsletStep4Test
+                .createStrip(BuildingsIsletStep4Test.ROOF,
+                        -BuildingsIsletStep4Test.SPACING, 0)));
+        final Mesh noiseMesh = new Mesh();
+        final List<Building> buildings = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            buildings.add(BuildingsIsletStep4Test.createBuilding(i
+                    * BuildingsIsletStep4Test.SPACING, noiseMesh, grounds));
+        }
+        final Surface noise = new Surface(noiseMesh);
+        final Set<Triangle> initialNoise = new HashSet<>(noiseMesh);
+        final Set<Triangle> all = new HashSet<>(noiseMesh);
+        for (Building b : buildings) {
+            all.addAll(b.getbStep4().getInitialRoofSurface().getMesh());
+        }
+
+        final Properties properties = new Properties();
+        properties.setProperty(TextsKeys.KEY_ROOFSIZEERROR, "3");
+        properties.setProperty(TextsKeys.KEY_WALLSIZEERROR, "3");
+        final BuildingsIsletStep4 step = new BuildingsIsletStep4(buildings,
+                grounds);
+        step.setArguments(noise);
+        step.setArguments(new Vector3d(0, 0, 1));
+        step.setParameters(new ProcessParameters(properties));
+        step.setProgress(new ProcessProgress());
+
+        step.launchProcess();
+        final Roof keptRoof = buildings.get(1).getbStep5().getRoofs().get(0);
+
+        // Turns a triangle of the roof of the first building to wall.
+        final BuildingStep4 bStep4 = buildings.get(0).getbStep4();
+        final Mesh roof = bStep4.getInitialRoofSurface().getMesh();
+        final Triangle moved = roof.getOne();
+        roof.remove(moved);
+        bStep4.getInitialWallSurface().getMesh().add(moved);
+        bStep4.getInitialWallSurface().setModified(true);
+        bStep4.getInitialRoofSurface().setModified(true);
+
+        final BuildingsIsletStep5 next = step.launchProcess();
+
+        Assert.assertEquals(initialNoise, new HashSet<>(noiseMesh));
+        Assert.assertSame(keptRoof, buildings.get(1).getbStep5().getRoofs()
+                .get(0));
+
+        final List<Triangle> found = new ArrayList<>(next.getNoise()
+                .getMesh());
+        for (Building b : buildings) {
+            final List<Triangle> triangles = BuildingsIsletStep4Test
+                    .returnTriangles(b);
+            Assert.assertEquals(BuildingsIsletStep4Test.ROOF
+                    + BuildingsIsletStep4Test.NOISE, triangles.size());
+            found.addAll(triangles);
+            Assert.assertSame(next.getNoise(), b.getbStep5().getNoise());
+        }
+        Assert.assertEquals(all.size(), found.size());
+        Assert.assertEquals(all, new HashSet<>(found));
+    }
+}
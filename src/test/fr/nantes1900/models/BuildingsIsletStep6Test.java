@@ -0,0 +1,55 @@
+package test.fr.nantes1900.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep6;
+
+/**
+ * A set of tests for the class BuildingsIsletStep6.
+ */
+public final class BuildingsIsletStep6Test extends TestCase {
+
+    /**
+     * Constructor.
+     */
+    public BuildingsIsletStep6Test() {
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.islets.steps.BuildingsIsletStep6#moveOnCorners(List, List)}
+     * . A point projected inside two edges must be moved once, on the closest
+     * corner, even if the other edge is treated first, and the other corner
+     * must take the next closest point.
+     */
+    @Test
+    public static void testMoveOnCorners() {
+        final Point near = new Point(0, 0, 0);
+        final Point far = new Point(0, 3, 0);
+        final List<Edge> downEdges = new ArrayList<>();
+        downEdges.add(new Edge(far, new Point(10, 3, 0)));
+        downEdges.add(new Edge(near, new Point(10, 0, 0)));
+
+        // Both points are projected inside both edges. The first one is at
+        // 1.41 of the near corner and 2.24 of the far one, the second one at
+        // 5.39 and 2.83.
+        final Point p1 = new Point(1, 1, 0);
+        final Point p2 = new Point(2, 5, 0);
+        final List<Point> points = new ArrayList<>();
+        points.add(p1);
+        points.add(p2);
+
+        BuildingsIsletStep6.moveOnCorners(downEdges, points);
+
+        Assert.assertEquals(near, p1);
+        Assert.assertEquals(far, p2);
+    }
+}
@@ -0,0 +1,99 @@
+package test.fr.nantes1900.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.EdgeGrid;
+import fr.nantes1900.models.basis.Point;
+
+/**
+ * A set of tests for the class EdgeGrid.
+ */
+public final class EdgeGridTest extends TestCase {
+
+    /**
+     * Number of random points projected.
+     */
+    private static final int POINTS = 500;
+
+    /**
+     * Constructor.
+     */
+    public EdgeGridTest() {
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.EdgeGrid#search(Point, double[])} on
+     * a few edges : the projection can be inside an edge or on one of its
+     * ends, and the point can be out of the grid.
+     */
+    @Test
+    public static void testSearch() {
+        final Point p1 = new Point(0, 0, 0);
+        final Point p2 = new Point(10, 0, 0);
+        final Point p3 = new Point(10, 10, 0);
+        final List<Edge> edges = new ArrayList<>();
+        edges.add(new Edge(p1, p2));
+        edges.add(new Edge(p2, p3));
+        final EdgeGrid grid = new EdgeGrid(edges);
+        final double[] projection = new double[EdgeGrid.AXIS];
+
+        Assert.assertEquals(0, grid.search(new Point(4, -3, 1), projection));
+        Assert.assertTrue(new Point(4, 0, 0).equals(new Point(projection[0],
+                projection[1], projection[2])));
+
+        Assert.assertEquals(1, grid.search(new Point(12, 7, 0), projection));
+        Assert.assertTrue(new Point(10, 7, 0).equals(new Point(projection[0],
+                projection[1], projection[2])));
+
+        // Far from the grid, the closest end is returned.
+        Assert.assertEquals(0,
+                grid.search(new Point(-100, -50, 0), projection));
+        Assert.assertTrue(p1.equals(new Point(projection[0], projection[1],
+                projection[2])));
+
+        Assert.assertEquals(-1, new EdgeGrid(new ArrayList<Edge>()).search(
+                p1, projection));
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.EdgeGrid#search(Point, double[])} :
+     * compares the projections with the closest ones given by Edge.project
+     * on every edge.
+     */
+    @Test
+    public static void testSearchRandom() {
+        final Random random = new Random(1900);
+        final List<Edge> edges = new ArrayList<>();
+        Point previous = new Point(0, 0, 0);
+        for (int i = 0; i < EdgeGridTest.POINTS / 10; i++) {
+            final Point next = new Point(random.nextDouble() * 100,
+                    random.nextDouble() * 100, random.nextDouble());
+            edges.add(new Edge(previous, next));
+            previous = next;
+        }
+        final EdgeGrid grid = new EdgeGrid(edges);
+        final double[] projection = new double[EdgeGrid.AXIS];
+
+        for (int i = 0; i < EdgeGridTest.POINTS; i++) {
+            final Point p = new Point(random.nextDouble() * 120 - 10,
+                    random.nextDouble() * 120 - 10, random.nextDouble());
+            double distance = Double.POSITIVE_INFINITY;
+            for (Edge e : edges) {
+                distance = Math.min(distance, e.project(p).distance(p));
+            }
+            Assert.assertTrue(grid.search(p, projection) != -1);
+            Assert.assertEquals(distance, p.distance(new Point(projection[0],
+                    projection[1], projection[2])), 1e-9);
+        }
+    }
+}
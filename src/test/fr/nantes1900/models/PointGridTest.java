@@ -0,0 +1,96 @@
+package test.fr.nantes1900.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.PointGrid;
+
+/**
+ * A set of tests for the class PointGrid.
+ */
+public final class PointGridTest extends TestCase {
+
+    /**
+     * Number of random points.
+     */
+    private static final int POINTS = 500;
+
+    /**
+     * Constructor.
+     */
+    public PointGridTest() {
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.PointGrid#searchInside(Edge, Point)}
+     * and {@link fr.nantes1900.models.basis.PointGrid#remove(int)} : the
+     * points projected on the ends of the edge or out of it are ignored.
+     */
+    @Test
+    public static void testSearchInside() {
+        final List<Point> points = new ArrayList<>();
+        points.add(new Point(-1, 1, 0));
+        points.add(new Point(0, 3, 0));
+        points.add(new Point(2, 2, 0));
+        points.add(new Point(5, 0, 0));
+        points.add(new Point(20, 0, 0));
+        final PointGrid grid = new PointGrid(points);
+        final Point p1 = new Point(0, 0, 0);
+        final Edge edge = new Edge(p1, new Point(10, 0, 0));
+
+        Assert.assertEquals(2, grid.searchInside(edge, p1));
+        grid.remove(2);
+        Assert.assertEquals(3, grid.searchInside(edge, p1));
+        grid.remove(3);
+        Assert.assertEquals(-1, grid.searchInside(edge, p1));
+
+        Assert.assertEquals(-1, grid.searchInside(new Edge(p1, new Point(0,
+                0, 0)), p1));
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.PointGrid#searchInside(Edge, Point)} :
+     * compares the points found with the closest ones among the points
+     * projected inside the edges by Edge.project.
+     */
+    @Test
+    public static void testSearchInsideRandom() {
+        final Random random = new Random(1900);
+        final List<Point> points = new ArrayList<>();
+        for (int i = 0; i < PointGridTest.POINTS; i++) {
+            points.add(new Point(random.nextDouble() * 100,
+                    random.nextDouble() * 100, random.nextDouble()));
+        }
+        final PointGrid grid = new PointGrid(points);
+
+        for (int i = 0; i < PointGridTest.POINTS / 10; i++) {
+            final Point p1 = new Point(random.nextDouble() * 120 - 10,
+                    random.nextDouble() * 120 - 10, random.nextDouble());
+            final Point p2 = new Point(p1.getX() + random.nextDouble() * 10,
+                    p1.getY() + random.nextDouble() * 10, random.nextDouble());
+            final Edge edge = new Edge(p1, p2);
+
+            int expected = -1;
+            double distance = Double.POSITIVE_INFINITY;
+            for (int j = 0; j < points.size(); j++) {
+                final Point projection = edge.project(points.get(j));
+                if (!projection.equals(p1) && !projection.equals(p2)
+                        && points.get(j).distance(p1) < distance) {
+                    distance = points.get(j).distance(p1);
+                    expected = j;
+                }
+            }
+            Assert.assertEquals(expected, grid.searchInside(edge, p1));
+        }
+    }
+}
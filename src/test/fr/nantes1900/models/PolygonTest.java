@@ -246,6 +246,42 @@ public class PolygonTest extends TestCase {
         Assert.assertTrue(point2.getZ() == 1);
     }
 
+    /**
+     * Test method for
+     * {@link fr.nantes1900.models.basis.Polygon#convertPolygonToJts()}.
+     */
+    @Test
+    public final static void testConvertPolygonToJts() {
+        final Point point1 = new Point(0, 0, 0);
+        final Point point2 = new Point(2, 0, 0);
+        final Point point3 = new Point(2, 2, 0);
+        final Point point4 = new Point(0, 2, 0);
+        final Polygon square = new Polygon();
+        square.add(new Edge(point1, point2));
+        square.add(new Edge(point2, point3));
+        square.add(new Edge(point3, point4));
+        square.add(new Edge(point4, point1));
+
+        final Polygon inside = new Polygon();
+        inside.add(new Edge(new Point(2.5, 0.5, 0), new Point(2.8, 0.5, 0)));
+        inside.add(new Edge(new Point(2.8, 0.5, 0), new Point(2.5, 0.8, 0)));
+        inside.add(new Edge(new Point(2.5, 0.8, 0), new Point(2.5, 0.5, 0)));
+
+        // The JTS polygon is kept while the polygon is not modified.
+        final com.vividsolutions.jts.geom.Polygon jts = square
+                .convertPolygonToJts();
+        Assert.assertSame(jts, square.convertPolygonToJts());
+        Assert.assertTrue(jts.getArea() == 4);
+        Assert.assertFalse(square.containsWithJts(inside));
+
+        // Moving a point from outside the polygon builds it again.
+        point2.setX(3);
+        point3.setX(3);
+        Assert.assertNotSame(jts, square.convertPolygonToJts());
+        Assert.assertTrue(square.convertPolygonToJts().getArea() == 6);
+        Assert.assertTrue(square.containsWithJts(inside));
+    }
+
     /**
      * Test method for {@link fr.nantes1900.models.basis.Polygon#edgeSize()}.
      */
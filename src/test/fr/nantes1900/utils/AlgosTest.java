@@ -0,0 +1,171 @@
+package test.fr.nantes1900.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.extended.Surface;
+import fr.nantes1900.utils.Algos;
+
+/**
+ * A set of tests for the class Algos.
+ */
+public final class AlgosTest extends TestCase {
+
+    /**
+     * Number of triangles of the test strip.
+     */
+    private static final int SIZE = 10;
+    /**
+     * Error of the orientation, in degrees.
+     */
+    private static final double ANGLE = 30;
+    /**
+     * Index of the tilted triangle of the strip.
+     */
+    private static final int TILTED = 3;
+
+    /**
+     * Constructor.
+     */
+    public AlgosTest() {
+    }
+
+    /**
+     * Creates a strip of flat triangles in the plane z = 0, each one sharing
+     * an edge with the previous one and with the next one.
+     * @param tilted
+     *            the index of a triangle whose normal is horizontal, or -1
+     * @return the triangles, in the order of the strip
+     */
+    private static List<Triangle> createStrip(final int tilted) {
+        final int columns = AlgosTest.SIZE / 2 + 1;
+        final Point[] bottom = new Point[columns];
+        final Point[] top = new Point[columns];
+        final Edge[] verticals = new Edge[columns];
+        for (int i = 0; i < columns; i++) {
+            bottom[i] = new Point(i, 0, 0);
+            top[i] = new Point(i, 1, 0);
+            verticals[i] = new Edge(bottom[i], top[i]);
+        }
+
+        final List<Triangle> strip = new ArrayList<>();
+        for (int i = 0; i < columns - 1; i++) {
+            final Edge diagonal = new Edge(bottom[i + 1], top[i]);
+            strip.add(new Triangle(new Edge(bottom[i], bottom[i + 1]),
+                    diagonal, verticals[i], AlgosTest.returnNormal(tilted,
+                            strip.size())));
+            strip.add(new Triangle(verticals[i + 1],
+                    new Edge(top[i + 1], top[i]), diagonal, AlgosTest
+                            .returnNormal(tilted, strip.size())));
+        }
+        return strip;
+    }
+
+    /**
+     * Returns the normal of a triangle of the strip.
+     * @param tilted
+     *            the index of the tilted triangle
+     * @param index
+     *            the index of the triangle
+     * @return the normal
+     */
+    private static Vector3d returnNormal(final int tilted, final int index) {
+        if (index == tilted) {
+            return new Vector3d(1, 0, 0);
+        }
+        return new Vector3d(0, 0, 1);
+    }
+
+    /**
+     * Creates a mesh from some triangles of the strip.
+     * @param strip
+     *            the strip
+     * @param from
+     *            the index of the first triangle
+     * @param to
+     *            the index after the last triangle
+     * @return the mesh
+     */
+    private static Mesh createMesh(final List<Triangle> strip, final int from,
+            final int to) {
+        final Mesh mesh = new Mesh();
+        mesh.addAll(strip.subList(from, to));
+        return mesh;
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.Algos#blockTreatNoise(List, Mesh)} : the
+     * noise between two meshes is added to them.
+     */
+    @Test
+    public static void testBlockTreatNoise() {
+        final List<Triangle> strip = AlgosTest.createStrip(-1);
+        final List<Mesh> list = new ArrayList<>();
+        list.add(AlgosTest.createMesh(strip, 0, 1));
+        list.add(AlgosTest.createMesh(strip, AlgosTest.SIZE - 1,
+                AlgosTest.SIZE));
+        final Mesh noise = AlgosTest.createMesh(strip, 1, AlgosTest.SIZE - 1);
+
+        final Mesh result = Algos.blockTreatNoise(list, noise);
+
+        Assert.assertEquals(AlgosTest.SIZE, result.size());
+        Assert.assertTrue(noise.isEmpty());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.Algos#blockTreatPlanedNoise(List, Mesh, double)}
+     * : the noise between two meshes is shared between them, each triangle
+     * going to the closest mesh.
+     */
+    @Test
+    public static void testBlockTreatPlanedNoise() {
+        final List<Triangle> strip = AlgosTest.createStrip(-1);
+        final List<Mesh> list = new ArrayList<>();
+        list.add(AlgosTest.createMesh(strip, 0, 1));
+        list.add(AlgosTest.createMesh(strip, AlgosTest.SIZE - 1,
+                AlgosTest.SIZE));
+        final Mesh noise = AlgosTest.createMesh(strip, 1, AlgosTest.SIZE - 1);
+
+        Algos.blockTreatPlanedNoise(list, noise, 1);
+
+        Assert.assertEquals(AlgosTest.createMesh(strip, 0, AlgosTest.SIZE / 2),
+                list.get(0));
+        Assert.assertEquals(AlgosTest.createMesh(strip, AlgosTest.SIZE / 2,
+                AlgosTest.SIZE), list.get(1));
+        Assert.assertTrue(noise.isEmpty());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.Algos#blockTreatOrientedNoise(List, Mesh, double)}
+     * : the growth of the surface stops at the triangle which is not
+     * oriented as it.
+     */
+    @Test
+    public static void testBlockTreatOrientedNoise() {
+        final List<Triangle> strip = AlgosTest.createStrip(AlgosTest.TILTED);
+        final List<Surface> list = new ArrayList<>();
+        list.add(new Surface(AlgosTest.createMesh(strip, 0, 1)));
+        final Mesh noise = AlgosTest.createMesh(strip, 1, AlgosTest.SIZE);
+
+        Algos.blockTreatOrientedNoise(list, noise, AlgosTest.ANGLE);
+
+        Assert.assertEquals(AlgosTest.createMesh(strip, 0, AlgosTest.TILTED),
+                list.get(0).getMesh());
+        Assert.assertEquals(AlgosTest.createMesh(strip, AlgosTest.TILTED,
+                AlgosTest.SIZE), noise);
+    }
+}
@@ -0,0 +1,82 @@
+package test.fr.nantes1900.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.utils.EditHistory;
+
+/**
+ * A set of tests for the class EditHistory.
+ */
+public final class EditHistoryTest extends TestCase {
+
+    /**
+     * Constructor.
+     */
+    public EditHistoryTest() {
+    }
+
+    /**
+     * Test method for {@link fr.nantes1900.utils.EditHistory#undo()} and
+     * {@link fr.nantes1900.utils.EditHistory#redo()}. Several modifications
+     * must be undone and redone in order, and a new modification must forget
+     * the ones undone.
+     */
+    @Test
+    public static void testUndoRedo() {
+        final Set<Integer> first = new HashSet<>(Arrays.asList(1, 2, 3));
+        final Set<Integer> second = new HashSet<>(Arrays.asList(4));
+        final List<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+        final EditHistory history = new EditHistory();
+
+        // Moves 2 and 3 from the first set to the second one.
+        history.begin();
+        history.removeAll(first, Arrays.asList(2, 3));
+        history.addAll(second, Arrays.asList(2, 3));
+        history.end();
+
+        // Changes the order of the list.
+        history.begin();
+        history.saveList(list);
+        list.remove("a");
+        list.add("a");
+        list.add("c");
+        history.end();
+
+        // A modification which changes nothing is not kept.
+        history.begin();
+        history.addAll(second, Arrays.asList(4));
+        history.end();
+
+        Assert.assertTrue(history.undo());
+        Assert.assertEquals(Arrays.asList("a", "b"), list);
+        Assert.assertTrue(history.undo());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), first);
+        Assert.assertEquals(new HashSet<>(Arrays.asList(4)), second);
+        Assert.assertFalse(history.undo());
+
+        Assert.assertTrue(history.redo());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(1)), first);
+        Assert.assertEquals(new HashSet<>(Arrays.asList(2, 3, 4)), second);
+        Assert.assertTrue(history.redo());
+        Assert.assertEquals(Arrays.asList("b", "a", "c"), list);
+        Assert.assertFalse(history.redo());
+
+        // A new modification after an undo cannot be followed by a redo.
+        history.undo();
+        history.begin();
+        history.removeAll(second, Arrays.asList(4));
+        history.end();
+        Assert.assertFalse(history.canRedo());
+        Assert.assertTrue(history.undo());
+        Assert.assertTrue(second.contains(4));
+    }
+}
@@ -0,0 +1,158 @@
+package test.fr.nantes1900.utils;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.utils.MorphologicalGroundFilter;
+
+/**
+ * A set of tests for the class MorphologicalGroundFilter.
+ */
+public final class MorphologicalGroundFilterTest extends TestCase {
+
+    /**
+     * Number of cells of the test meshes on each side.
+     */
+    private static final int SIZE = 60;
+    /**
+     * First coordinate of the building.
+     */
+    private static final int BUILDING_MIN = 20;
+    /**
+     * Last coordinate of the building.
+     */
+    private static final int BUILDING_MAX = 40;
+    /**
+     * Height of the building.
+     */
+    private static final double BUILDING_HEIGHT = 10;
+    /**
+     * Slope of the sloping ground.
+     */
+    private static final double SLOPE = 0.1;
+    /**
+     * Maximal angle of a ground triangle.
+     */
+    private static final double ANGLE = 60;
+
+    /**
+     * Constructor.
+     */
+    public MorphologicalGroundFilterTest() {
+    }
+
+    /**
+     * Creates a filter with cells of 1, windows up to 40, a slope of 30 % and
+     * heights from 0.5 to 3.
+     * @return the filter
+     */
+    private static MorphologicalGroundFilter createFilter() {
+        return new MorphologicalGroundFilter(1, 40, 0.3, 0.5, 3);
+    }
+
+    /**
+     * Creates a grid of triangles oriented upward, with heights.
+     * @param heights
+     *            the height of each point
+     * @return the mesh
+     */
+    private static Mesh createGrid(final double[][] heights) {
+        final Point[][] points = new Point[heights.length][heights[0].length];
+        for (int i = 0; i < heights.length; i++) {
+            for (int j = 0; j < heights[0].length; j++) {
+                points[i][j] = new Point(i, j, heights[i][j]);
+            }
+        }
+        final Mesh mesh = new Mesh();
+        for (int i = 0; i < heights.length - 1; i++) {
+            for (int j = 0; j < heights[0].length - 1; j++) {
+                mesh.add(MorphologicalGroundFilterTest.createTriangle(
+                        points[i][j], points[i + 1][j], points[i + 1][j + 1]));
+                mesh.add(MorphologicalGroundFilterTest.createTriangle(
+                        points[i][j], points[i + 1][j + 1], points[i][j + 1]));
+            }
+        }
+        return mesh;
+    }
+
+    /**
+     * Creates a triangle.
+     * @param p1
+     *            the first point
+     * @param p2
+     *            the second point
+     * @param p3
+     *            the third point
+     * @return the triangle
+     */
+    private static Triangle createTriangle(final Point p1, final Point p2,
+            final Point p3) {
+        final Triangle t = new Triangle(new Edge(p1, p2), new Edge(p2, p3),
+                new Edge(p3, p1), new Vector3d(0, 0, 1));
+        t.recomputeNormal();
+        return t;
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.MorphologicalGroundFilter#extractGround(Mesh, Vector3d, double)}
+     * on a flat ground with a building : the triangles of the ground are
+     * kept, the ones of the roof and of the walls are not.
+     */
+    @Test
+    public static void testExtractGroundBuilding() {
+        final int size = MorphologicalGroundFilterTest.SIZE;
+        final int min = MorphologicalGroundFilterTest.BUILDING_MIN;
+        final int max = MorphologicalGroundFilterTest.BUILDING_MAX;
+        final double[][] heights = new double[size + 1][size + 1];
+        for (int i = min; i <= max; i++) {
+            for (int j = min; j <= max; j++) {
+                heights[i][j] = MorphologicalGroundFilterTest.BUILDING_HEIGHT;
+            }
+        }
+        final Mesh mesh = MorphologicalGroundFilterTest.createGrid(heights);
+
+        final Mesh ground = MorphologicalGroundFilterTest.createFilter()
+                .extractGround(mesh, new Vector3d(0, 0, 1),
+                        MorphologicalGroundFilterTest.ANGLE);
+
+        for (Triangle t : mesh) {
+            if (t.zMax() == 0) {
+                Assert.assertTrue(ground.contains(t));
+            } else {
+                Assert.assertFalse(ground.contains(t));
+            }
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.MorphologicalGroundFilter#extractGround(Mesh, Vector3d, double)}
+     * on a sloping ground : every triangle is kept.
+     */
+    @Test
+    public static void testExtractGroundSlope() {
+        final int size = MorphologicalGroundFilterTest.SIZE;
+        final double[][] heights = new double[size + 1][size + 1];
+        for (int i = 0; i <= size; i++) {
+            for (int j = 0; j <= size; j++) {
+                heights[i][j] = MorphologicalGroundFilterTest.SLOPE * i;
+            }
+        }
+        final Mesh mesh = MorphologicalGroundFilterTest.createGrid(heights);
+
+        final Mesh ground = MorphologicalGroundFilterTest.createFilter()
+                .extractGround(mesh, new Vector3d(0, 0, 1),
+                        MorphologicalGroundFilterTest.ANGLE);
+
+        Assert.assertEquals(mesh.size(), ground.size());
+    }
+}
@@ -0,0 +1,84 @@
+package test.fr.nantes1900.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.utils.Pipeline;
+
+/**
+ * A set of tests for the class Pipeline.
+ */
+public final class PipelineTest extends TestCase {
+
+    /**
+     * Number of items treated in the tests.
+     */
+    private static final int ITEMS = 50;
+
+    /**
+     * Constructor.
+     */
+    public PipelineTest() {
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.Pipeline#process(java.util.List)}. Each item
+     * must go through every stage, except the ones dropped by a stage or
+     * whose treatment threw an exception or an error.
+     */
+    @Test
+    public static void testProcess() {
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < PipelineTest.ITEMS; i++) {
+            items.add(i);
+        }
+        final List<Integer> firstStage = Collections
+                .synchronizedList(new ArrayList<Integer>());
+        final List<Integer> lastStage = Collections
+                .synchronizedList(new ArrayList<Integer>());
+
+        final Pipeline<Integer> pipeline = new Pipeline<>();
+        pipeline.addStage("First", 2, 1, new Pipeline.Stage<Integer>() {
+
+            @Override
+            public boolean treat(final Integer item) {
+                firstStage.add(item);
+                if (item == 0) {
+                    throw new IllegalStateException();
+                }
+                if (item == 2) {
+                    throw new AssertionError();
+                }
+                // Drops the odd items.
+                return item % 2 == 0;
+            }
+        });
+        pipeline.addStage("Last", 3, 2, new Pipeline.Stage<Integer>() {
+
+            @Override
+            public boolean treat(final Integer item) {
+                lastStage.add(item);
+                return true;
+            }
+        });
+
+        try {
+            pipeline.process(items);
+        } catch (final InterruptedException e) {
+            Assert.fail("Interrupted !");
+        }
+
+        Assert.assertEquals(PipelineTest.ITEMS, firstStage.size());
+        Assert.assertEquals(PipelineTest.ITEMS / 2 - 2, lastStage.size());
+        for (final Integer item : lastStage) {
+            Assert.assertTrue(item != 0 && item != 2 && item % 2 == 0);
+        }
+    }
+}
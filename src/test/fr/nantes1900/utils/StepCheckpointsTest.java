@@ -0,0 +1,208 @@
+package test.fr.nantes1900.utils;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.extended.Ground;
+import fr.nantes1900.models.extended.Surface;
+import fr.nantes1900.models.islets.AbstractBuildingsIslet;
+import fr.nantes1900.models.islets.ResidentialIslet;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep1;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep2;
+import fr.nantes1900.utils.BackgroundWriter;
+import fr.nantes1900.utils.StepCheckpoints;
+
+/**
+ * A set of tests for the class StepCheckpoints.
+ */
+public final class StepCheckpointsTest extends TestCase {
+
+    /**
+     * Constructor.
+     */
+    public StepCheckpointsTest() {
+    }
+
+    /**
+     * Creates a mesh containing one triangle.
+     * @param z
+     *            the altitude of the triangle
+     * @return the mesh
+     */
+    private static Mesh createMesh(final double z) {
+        final Point p1 = new Point(0, 0, z);
+        final Point p2 = new Point(1, 0, z);
+        final Point p3 = new Point(0, 1, z);
+        final Mesh mesh = new Mesh();
+        mesh.add(new Triangle(new Edge(p1, p2), new Edge(p2, p3), new Edge(
+                p3, p1), new Vector3d(0, 0, 1)));
+        return mesh;
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.StepCheckpoints#restoreLast(AbstractBuildingsIslet)}
+     * . The last step written must be restored with the normals, and the
+     * checkpoints must be ignored once the islet file has been modified.
+     * @throws IOException
+     *             if the temporary files cannot be created
+     */
+    @Test
+    public static void testRestoreLast() throws IOException {
+        final File isletFile = File.createTempFile("islet", ".stl");
+        final File root = new File(isletFile.getParentFile(), isletFile
+                .getName() + "_checkpoints");
+        final StepCheckpoints checkpoints = new StepCheckpoints(root,
+                isletFile);
+
+        try {
+            final AbstractBuildingsIslet islet = new ResidentialIslet();
+            islet.setGroundNormal(new Vector3d(0, 0, 1));
+            islet.setGravityNormal(new Vector3d(0, 0, -1));
+            islet.restoreStep(new BuildingsIsletStep2(new Surface(
+                    StepCheckpointsTest.createMesh(1)), new Ground(
+                    StepCheckpointsTest.createMesh(0))));
+            checkpoints.write(islet, AbstractBuildingsIslet.SECOND_STEP);
+            BackgroundWriter.waitForPendingWrites();
+
+            final AbstractBuildingsIslet restored = new ResidentialIslet();
+            Assert.assertEquals(AbstractBuildingsIslet.SECOND_STEP,
+                    checkpoints.restoreLast(restored));
+            Assert.assertEquals(AbstractBuildingsIslet.SECOND_STEP,
+                    restored.getProgression());
+            Assert.assertEquals(1, restored.getBiStep2().getInitialBuildings()
+                    .getMesh().size());
+            Assert.assertEquals(new Vector3d(0, 0, 1),
+                    restored.getGroundNormal());
+            Assert.assertEquals(new Vector3d(0, 0, -1),
+                    restored.getGravityNormal());
+
+            // Writing a previous step deletes the checkpoints of the next
+            // ones.
+            islet.restoreStep(new BuildingsIsletStep1(new Surface(
+                    StepCheckpointsTest.createMesh(0))));
+            checkpoints.write(islet, AbstractBuildingsIslet.FIRST_STEP);
+            BackgroundWriter.waitForPendingWrites();
+            Assert.assertEquals(AbstractBuildingsIslet.FIRST_STEP,
+                    checkpoints.restoreLast(new ResidentialIslet()));
+
+            // The islet file has changed.
+            final long delay = 10000;
+            Assert.assertTrue(isletFile.setLastModified(isletFile
+                    .lastModified() - delay));
+            Assert.assertEquals(-1,
+                    checkpoints.restoreLast(new ResidentialIslet()));
+        } finally {
+            checkpoints.clear();
+            root.delete();
+            isletFile.delete();
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.StepCheckpoints#write(AbstractBuildingsIslet, int)}
+     * . Writing a step must delete the checkpoint of the next step even if
+     * its writing is still queued.
+     * @throws IOException
+     *             if the temporary files cannot be created
+     */
+    @Test
+    public static void testWriteAfterQueuedNextStep() throws IOException {
+        final File isletFile = File.createTempFile("islet", ".stl");
+        final File root = new File(isletFile.getParentFile(), isletFile
+                .getName() + "_checkpoints");
+        final StepCheckpoints checkpoints = new StepCheckpoints(root,
+                isletFile);
+
+        try {
+            final AbstractBuildingsIslet islet = new ResidentialIslet();
+            islet.restoreStep(new BuildingsIsletStep2(new Surface(
+                    StepCheckpointsTest.createMesh(1)), new Ground(
+                    StepCheckpointsTest.createMesh(0))));
+            islet.restoreStep(new BuildingsIsletStep1(new Surface(
+                    StepCheckpointsTest.createMesh(0))));
+
+            // No wait between the two writings.
+            checkpoints.write(islet, AbstractBuildingsIslet.SECOND_STEP);
+            checkpoints.write(islet, AbstractBuildingsIslet.FIRST_STEP);
+
+            Assert.assertEquals(AbstractBuildingsIslet.FIRST_STEP,
+                    checkpoints.restoreLast(new ResidentialIslet()));
+        } finally {
+            checkpoints.clear();
+            root.delete();
+            isletFile.delete();
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.StepCheckpoints#write(AbstractBuildingsIslet, int)}
+     * . Above the maximal size, the checkpoints of the islet used the least
+     * recently must be deleted, and the other ones kept.
+     * @throws IOException
+     *             if the temporary files cannot be created
+     */
+    @Test
+    public static void testWriteDeletesOldIslets() throws IOException {
+        final File root = File.createTempFile("checkpoints", "");
+        Assert.assertTrue(root.delete());
+        final File[] isletFiles = new File[] {
+                File.createTempFile("islet", ".stl"),
+                File.createTempFile("islet", ".stl"),
+                File.createTempFile("islet", ".stl")
+        };
+        final AbstractBuildingsIslet islet = new ResidentialIslet();
+        islet.restoreStep(new BuildingsIsletStep1(new Surface(
+                StepCheckpointsTest.createMesh(0))));
+
+        final StepCheckpoints oldest = new StepCheckpoints(root,
+                isletFiles[0]);
+        final StepCheckpoints recent = new StepCheckpoints(root,
+                isletFiles[1]);
+        StepCheckpoints last = null;
+        try {
+            oldest.write(islet, AbstractBuildingsIslet.FIRST_STEP);
+            recent.write(islet, AbstractBuildingsIslet.FIRST_STEP);
+            BackgroundWriter.waitForPendingWrites();
+            final File[] written = oldest.getDirectory().listFiles();
+            Assert.assertEquals(1, written.length);
+            final long delay = 10000;
+            Assert.assertTrue(written[0].setLastModified(written[0]
+                    .lastModified() - delay));
+
+            // Room for two checkpoints only.
+            final long size = written[0].length();
+            last = new StepCheckpoints(root, isletFiles[2], size * 5 / 2);
+            last.write(islet, AbstractBuildingsIslet.FIRST_STEP);
+            BackgroundWriter.waitForPendingWrites();
+
+            Assert.assertFalse(oldest.exists());
+            Assert.assertFalse(oldest.getDirectory().exists());
+            Assert.assertTrue(recent.exists());
+            Assert.assertTrue(last.exists());
+        } finally {
+            oldest.clear();
+            recent.clear();
+            if (last != null) {
+                last.clear();
+            }
+            root.delete();
+            for (File isletFile : isletFiles) {
+                isletFile.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package test.fr.nantes1900.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.vecmath.Vector3d;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import fr.nantes1900.models.basis.Edge;
+import fr.nantes1900.models.basis.Mesh;
+import fr.nantes1900.models.basis.Point;
+import fr.nantes1900.models.basis.Triangle;
+import fr.nantes1900.models.extended.Building;
+import fr.nantes1900.models.extended.Ground;
+import fr.nantes1900.models.extended.Surface;
+import fr.nantes1900.models.islets.steps.AbstractBuildingsIsletStep;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep1;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep3;
+import fr.nantes1900.models.islets.steps.BuildingsIsletStep4;
+import fr.nantes1900.utils.StepCodec;
+
+/**
+ * A set of tests for the class StepCodec.
+ */
+public final class StepCodecTest extends TestCase {
+
+    /**
+     * Constructor.
+     */
+    public StepCodecTest() {
+    }
+
+    /**
+     * Creates a strip of triangles sharing their edges, along the x axis.
+     * @param size
+     *            the number of triangles
+     * @param z
+     *            the altitude of the strip
+     * @return the list of the triangles
+     */
+    private static List<Triangle> createStrip(final int size, final double z) {
+        final List<Triangle> triangles = new ArrayList<>();
+        Point a = new Point(0, 0, z);
+        Point b = new Point(0, 1, z);
+        Edge ab = new Edge(a, b);
+        for (int i = 0; i < size; i++) {
+            final Point c = new Point(i + 1, i % 2, z);
+            final Edge bc = new Edge(b, c);
+            final Edge ca = new Edge(c, a);
+            triangles.add(new Triangle(ab, bc, ca, new Vector3d(0, 0, 1)));
+            a = b;
+            b = c;
+            ab = bc;
+        }
+        return triangles;
+    }
+
+    /**
+     * Creates a third step containing one building and its neighbours.
+     * @return the step
+     */
+    private static BuildingsIsletStep3 createStep() {
+        final Surface noise = new Surface(new Mesh(StepCodecTest.createStrip(
+                2, 2)));
+        final Ground grounds = new Ground(new Mesh(StepCodecTest.createStrip(
+                3, 0)));
+        final Surface buildingSurface = new Surface(new Mesh(StepCodecTest
+                .createStrip(4, 1)));
+        buildingSurface.addNeighbour(grounds);
+
+        final Building building = new Building(buildingSurface);
+        building.setArguments(new Vector3d(0, 0, 1), new Vector3d(0, 0, -1),
+                grounds, noise);
+
+        final BuildingsIsletStep3 step = new BuildingsIsletStep3(
+                new ArrayList<>(Arrays.asList(building)), grounds);
+        step.setArguments(noise);
+        return step;
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.StepCodec#read(java.io.InputStream)}. The
+     * step read must contain the same values and the same links between its
+     * objects as the step written.
+     * @throws IOException
+     *             if the step cannot be read
+     */
+    @Test
+    public static void testRead() throws IOException {
+        final BuildingsIsletStep3 step = StepCodecTest.createStep();
+        final AbstractBuildingsIsletStep read = StepCodec.read(
+                new ByteArrayInputStream(StepCodec.toByteArray(step)));
+
+        Assert.assertTrue(read instanceof BuildingsIsletStep3);
+        final BuildingsIsletStep3 step3 = (BuildingsIsletStep3) read;
+        Assert.assertEquals(1, step3.getBuildings().size());
+
+        final Building building = step3.getBuildings().get(0);
+        final Surface surface = building.getbStep3().getInitialTotalSurface();
+        Assert.assertEquals(4, surface.getMesh().size());
+        Assert.assertEquals(2, step3.getNoise().getMesh().size());
+        Assert.assertEquals(3, step3.getGrounds().getMesh().size());
+
+        // The grounds and the noise are the same objects in the step and in
+        // the building.
+        Assert.assertSame(step3.getGrounds(), building.getGrounds());
+        Assert.assertSame(step3.getNoise(), building.getNoise());
+        Assert.assertEquals(Arrays.asList(step3.getGrounds()),
+                surface.getNeighbours());
+        Assert.assertEquals(new Vector3d(0, 0, -1), building
+                .getGravityNormal());
+
+        // The triangles still share their edges.
+        for (Triangle t : surface.getMesh()) {
+            Assert.assertTrue(t.getNumNeighbours() >= 1);
+        }
+        Assert.assertTrue(Arrays.equals(StepCodec.hash(step), StepCodec
+                .hash(step3)));
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.StepCodec#read(java.io.InputStream)} with a
+     * first step, which only contains a surface.
+     * @throws IOException
+     *             if the step cannot be read
+     */
+    @Test
+    public static void testReadFirstStep() throws IOException {
+        final BuildingsIsletStep1 step = new BuildingsIsletStep1(new Surface(
+                new Mesh(StepCodecTest.createStrip(5, 0))));
+        final AbstractBuildingsIsletStep read = StepCodec.read(
+                new ByteArrayInputStream(StepCodec.toByteArray(step)));
+
+        Assert.assertTrue(read instanceof BuildingsIsletStep1);
+        Assert.assertEquals(5, ((BuildingsIsletStep1) read)
+                .getInitialTotalSurfaceAfterBaseChange().getMesh().size());
+    }
+
+    /**
+     * Test method for
+     * {@link fr.nantes1900.utils.StepCodec#hash(AbstractBuildingsIsletStep)}
+     * . The hash must not depend on the order of the triangles, but must
+     * change when a point is moved.
+     */
+    @Test
+    public static void testHash() {
+        final BuildingsIsletStep3 step = StepCodecTest.createStep();
+        final byte[] hash = StepCodec.hash(step);
+
+        final Mesh mesh = step.getBuildings().get(0).getbStep3()
+                .getInitialTotalSurface().getMesh();
+        final List<Triangle> reversed = new ArrayList<>(mesh);
+        java.util.Collections.reverse(reversed);
+        mesh.clear();
+        mesh.addAll(reversed);
+        Assert.assertTrue(Arrays.equals(hash, StepCodec.hash(step)));
+
+        mesh.iterator().next().getP1().setZ(-1);
+        Assert.assertFalse(Arrays.equals(hash, StepCodec.hash(step)));
+
+        // Another type of step gives another hash.
+        final BuildingsIsletStep4 step4 = new BuildingsIsletStep4(step
+                .getBuildings(), step.getGrounds());
+        step4.setArguments(step.getNoise());
+        Assert.assertFalse(Arrays.equals(StepCodec.hash(step), StepCodec
+                .hash(step4)));
+    }
+}